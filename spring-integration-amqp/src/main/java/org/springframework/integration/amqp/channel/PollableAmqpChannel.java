@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2011 the original author or authors.
+ * Copyright 2002-2012 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -88,6 +88,10 @@ public class PollableAmqpChannel extends AbstractAmqpChannel implements Pollable
 		return this.queueName;
 	}
 
+	protected String getQueueName() {
+		return this.queueName;
+	}
+
 	public Message<?> receive() {
 		if (!this.getInterceptors().preReceive(this)) {
  			return null;
@@ -0,0 +1,328 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.amqp.channel;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.amqp.core.AcknowledgeMode;
+import org.springframework.amqp.core.AmqpTemplate;
+import org.springframework.amqp.rabbit.core.ChannelAwareMessageListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.amqp.support.converter.SimpleMessageConverter;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.integration.Message;
+import org.springframework.integration.MessagingException;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
+
+import com.rabbitmq.client.Channel;
+
+/**
+ * A {@link PollableAmqpChannel} that, rather than issuing a synchronous 'basic.get'
+ * for each receive, consumes from the Queue with a long-lived consumer (a
+ * {@link SimpleMessageListenerContainer}). Up to 'prefetchCount' messages are
+ * delivered ahead of time into a local buffer, so consecutive receives are served
+ * without a round trip to the broker, and {@link #receive(long)} blocks until a
+ * message arrives or the timeout expires.
+ * <p/>
+ * The container must use {@link AcknowledgeMode#MANUAL} (or
+ * {@link AcknowledgeMode#NONE}, in which case nothing is acknowledged and
+ * buffered messages are lost when the channel stops) and must not be channel
+ * transacted. When a message is received within a transaction (e.g. by a
+ * transactional poller), it is acknowledged when the transaction commits, and
+ * rejected (and requeued) if it rolls back. Otherwise, it is acknowledged when
+ * it is handed out by the receive call, before it is processed. Messages still
+ * in the buffer when the channel is stopped are redelivered by the broker.
+ * <p/>
+ * If a message arrives while the buffer is full (for example, with several
+ * concurrent consumers), the consumer waits up to 'bufferFullTimeout' for space
+ * and then rejects the message so that the broker requeues it (with
+ * {@link AcknowledgeMode#NONE}, it is discarded), rather than holding the
+ * consumer thread and delaying the container's shutdown.
+ *
+ * @since 2.2
+ */
+public class PrefetchingPollableAmqpChannel extends PollableAmqpChannel implements SmartLifecycle, DisposableBean {
+
+	private static final int DEFAULT_PREFETCH_COUNT = 100;
+
+	private static final long DEFAULT_BUFFER_FULL_TIMEOUT = 1000;
+
+	private final SimpleMessageListenerContainer container;
+
+	private volatile BlockingQueue<Delivery> buffer;
+
+	private volatile int prefetchCount = DEFAULT_PREFETCH_COUNT;
+
+	private volatile long bufferFullTimeout = DEFAULT_BUFFER_FULL_TIMEOUT;
+
+	private volatile MessageConverter converter;
+
+	private volatile boolean acknowledge;
+
+
+	/**
+	 * @param channelName The channel name.
+	 * @param amqpTemplate The template used to send messages.
+	 * @param container A container configured with {@link AcknowledgeMode#MANUAL}
+	 * (or NONE) and not channel transacted; its queue, prefetch count and
+	 * listener are set by this channel.
+	 */
+	public PrefetchingPollableAmqpChannel(String channelName, AmqpTemplate amqpTemplate,
+			SimpleMessageListenerContainer container) {
+		super(channelName, amqpTemplate);
+		Assert.notNull(container, "container must not be null");
+		this.container = container;
+	}
+
+
+	/**
+	 * The maximum number of unacknowledged messages the broker delivers to the
+	 * channel's consumer ahead of the receive calls; this is also the capacity
+	 * of the local buffer. Default 100.
+	 */
+	public void setPrefetchCount(int prefetchCount) {
+		Assert.isTrue(prefetchCount > 0, "prefetchCount must be greater than 0");
+		this.prefetchCount = prefetchCount;
+	}
+
+	/**
+	 * How long (in milliseconds) a consumer waits for space in a full buffer
+	 * before the message is rejected and requeued. Default 1000.
+	 */
+	public void setBufferFullTimeout(long bufferFullTimeout) {
+		Assert.isTrue(bufferFullTimeout >= 0, "bufferFullTimeout must not be negative");
+		this.bufferFullTimeout = bufferFullTimeout;
+	}
+
+	@Override
+	protected void onInit() throws Exception {
+		super.onInit();
+		this.buffer = new LinkedBlockingQueue<Delivery>(this.prefetchCount);
+		this.converter = (this.getAmqpTemplate() instanceof RabbitTemplate)
+				? ((RabbitTemplate) this.getAmqpTemplate()).getMessageConverter()
+				: new SimpleMessageConverter();
+		AcknowledgeMode acknowledgeMode = this.container.getAcknowledgeMode();
+		// acks are sent from the receiving thread, outside of the listener's scope
+		Assert.state(acknowledgeMode == AcknowledgeMode.MANUAL || acknowledgeMode == AcknowledgeMode.NONE,
+				"The container of a prefetching pollable channel must use the MANUAL (or NONE) "
+				+ "acknowledge mode; with AUTO, messages would be acknowledged as soon as they are buffered");
+		Assert.state(!this.container.isChannelTransacted(),
+				"The container of a prefetching pollable channel must not be channel transacted");
+		this.acknowledge = acknowledgeMode == AcknowledgeMode.MANUAL;
+		this.container.setQueueNames(this.getQueueName());
+		this.container.setPrefetchCount(this.prefetchCount);
+		this.container.setMessageListener(new BufferingMessageListener());
+		if (!this.container.isActive()) {
+			this.container.afterPropertiesSet();
+		}
+	}
+
+	@Override
+	public Message<?> receive() {
+		return this.doReceive(0);
+	}
+
+	/**
+	 * Receive a message, waiting up to the given timeout for one to arrive;
+	 * a negative timeout waits indefinitely.
+	 */
+	@Override
+	public Message<?> receive(long timeout) {
+		return this.doReceive(timeout);
+	}
+
+	private Message<?> doReceive(long timeout) {
+		if (!this.getInterceptors().preReceive(this)) {
+			return null;
+		}
+		long deadline = System.currentTimeMillis() + timeout;
+		try {
+			while (true) {
+				Delivery delivery;
+				if (timeout < 0) {
+					delivery = this.buffer.take();
+				}
+				else {
+					delivery = this.buffer.poll(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+				}
+				if (delivery == null) {
+					return null;
+				}
+				Message<?> message = this.convertAndAcknowledge(delivery);
+				if (message != null) {
+					return this.getInterceptors().postReceive(message, this);
+				}
+				if (timeout >= 0 && System.currentTimeMillis() >= deadline) {
+					return null;
+				}
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		}
+	}
+
+	/**
+	 * Returns null if the delivery could not be acknowledged (e.g. its channel was
+	 * closed), in which case the broker redelivers it and it must not be handed out.
+	 * Within a transaction, the acknowledgement is deferred until it completes.
+	 */
+	private Message<?> convertAndAcknowledge(final Delivery delivery) {
+		Object converted;
+		try {
+			converted = this.converter.fromMessage(delivery.message);
+		}
+		catch (Exception e) {
+			this.reject(delivery, false);
+			throw new MessagingException("Failed to convert AMQP Message received on channel '"
+					+ this.getComponentName() + "'", e);
+		}
+		if (converted == null) {
+			this.acknowledge(delivery);
+			return null;
+		}
+		if (this.acknowledge) {
+			if (TransactionSynchronizationManager.isSynchronizationActive()) {
+				TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+					@Override
+					public void afterCompletion(int status) {
+						if (status == TransactionSynchronization.STATUS_COMMITTED) {
+							acknowledge(delivery);
+						}
+						else {
+							reject(delivery, true);
+						}
+					}
+				});
+			}
+			else if (!this.acknowledge(delivery)) {
+				return null;
+			}
+		}
+		return (converted instanceof Message<?>) ? (Message<?>) converted : MessageBuilder.withPayload(converted).build();
+	}
+
+	private boolean acknowledge(Delivery delivery) {
+		if (!this.acknowledge) {
+			return true;
+		}
+		try {
+			delivery.channel.basicAck(delivery.message.getMessageProperties().getDeliveryTag(), false);
+			return true;
+		}
+		catch (Exception e) {
+			if (logger.isWarnEnabled()) {
+				logger.warn("Failed to acknowledge AMQP Message, it will be redelivered", e);
+			}
+			return false;
+		}
+	}
+
+	private void reject(Delivery delivery, boolean requeue) {
+		if (!this.acknowledge) {
+			return;
+		}
+		try {
+			delivery.channel.basicReject(delivery.message.getMessageProperties().getDeliveryTag(), requeue);
+		}
+		catch (Exception e) {
+			if (logger.isWarnEnabled()) {
+				logger.warn("Failed to reject AMQP Message", e);
+			}
+		}
+	}
+
+
+	private class BufferingMessageListener implements ChannelAwareMessageListener {
+
+		public void onMessage(org.springframework.amqp.core.Message message, Channel channel) throws Exception {
+			Delivery delivery = new Delivery(message, channel);
+			// the prefetch count normally prevents a full buffer; don't hold the consumer if it is
+			if (!buffer.offer(delivery, bufferFullTimeout, TimeUnit.MILLISECONDS)) {
+				if (acknowledge) {
+					if (logger.isDebugEnabled()) {
+						logger.debug("Buffer of channel '" + getComponentName() + "' is full, requeuing AMQP Message");
+					}
+					reject(delivery, true);
+				}
+				else if (logger.isWarnEnabled()) {
+					logger.warn("Buffer of channel '" + getComponentName() + "' is full, discarding AMQP Message");
+				}
+			}
+		}
+	}
+
+
+	private static class Delivery {
+
+		private final org.springframework.amqp.core.Message message;
+
+		private final Channel channel;
+
+		private Delivery(org.springframework.amqp.core.Message message, Channel channel) {
+			this.message = message;
+			this.channel = channel;
+		}
+	}
+
+
+	/*
+	 * SmartLifecycle implementation (delegates to the MessageListener container)
+	 */
+
+	public boolean isAutoStartup() {
+		return this.container.isAutoStartup();
+	}
+
+	public int getPhase() {
+		return this.container.getPhase();
+	}
+
+	public boolean isRunning() {
+		return this.container.isRunning();
+	}
+
+	public void start() {
+		this.container.start();
+	}
+
+	public void stop() {
+		this.container.stop();
+		// the consumer's channel is closed, so the broker redelivers whatever is still buffered
+		this.buffer.clear();
+	}
+
+	public void stop(Runnable callback) {
+		this.stop();
+		callback.run();
+	}
+
+	public void destroy() throws Exception {
+		this.container.destroy();
+	}
+
+}
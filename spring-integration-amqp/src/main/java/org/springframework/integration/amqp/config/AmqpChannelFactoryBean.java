@@ -38,6 +38,7 @@ import org.springframework.context.SmartLifecycle;
 import org.springframework.integration.amqp.channel.AbstractAmqpChannel;
 import org.springframework.integration.amqp.channel.PointToPointSubscribableAmqpChannel;
 import org.springframework.integration.amqp.channel.PollableAmqpChannel;
+import org.springframework.integration.amqp.channel.PrefetchingPollableAmqpChannel;
 import org.springframework.integration.amqp.channel.PublishSubscribeAmqpChannel;
 import org.springframework.integration.channel.ChannelInterceptor;
 import org.springframework.transaction.PlatformTransactionManager;
@@ -96,6 +97,8 @@ public class AmqpChannelFactoryBean extends AbstractFactoryBean<AbstractAmqpChan
 
 	private volatile Integer prefetchCount;
 
+	private volatile boolean prefetching;
+
 	private volatile Boolean isPubSub;
 
 	private volatile Long receiveTimeout;
@@ -109,9 +112,10 @@ public class AmqpChannelFactoryBean extends AbstractFactoryBean<AbstractAmqpChan
 	private volatile AcknowledgeMode acknowledgeMode;
 
 	/**
-	 * This value differs from the container implementations' default (which is false).
+	 * When not set, the container is transacted (which differs from the container
+	 * implementations' default), except for a prefetching pollable channel.
 	 */
-	private volatile boolean channelTransacted = true;
+	private volatile Boolean channelTransacted;
 
 	private volatile Executor taskExecutor;
 
@@ -285,6 +289,16 @@ public class AmqpChannelFactoryBean extends AbstractFactoryBean<AbstractAmqpChan
 		this.txSize = txSize;
 	}
 
+	/**
+	 * Set to true for a channel that is not message-driven to consume from the queue
+	 * with a long-lived consumer that buffers up to 'prefetchCount' messages, instead
+	 * of issuing a 'basic.get' per receive. See {@link PrefetchingPollableAmqpChannel}
+	 * for how messages are acknowledged. Default false.
+	 */
+	public void setPrefetching(boolean prefetching) {
+		this.prefetching = prefetching;
+	}
+
 	public void setMaxSubscribers(int maxSubscribers) {
 		this.maxSubscribers = maxSubscribers;
 	}
@@ -296,6 +310,8 @@ public class AmqpChannelFactoryBean extends AbstractFactoryBean<AbstractAmqpChan
 
 	@Override
 	protected AbstractAmqpChannel createInstance() throws Exception {
+		Assert.isTrue(!this.prefetching || !this.messageDriven,
+				"'prefetching' only applies to a channel that is not message-driven");
 		if (this.messageDriven) {
 			this.container = this.createContainer();
 			if (this.amqpTemplate instanceof InitializingBean) {
@@ -323,7 +339,27 @@ public class AmqpChannelFactoryBean extends AbstractFactoryBean<AbstractAmqpChan
 		else {
 			Assert.isTrue(!Boolean.TRUE.equals(this.isPubSub),
 					"An AMQP 'publish-subscribe-channel' must be message-driven.");
-			PollableAmqpChannel pollable = new PollableAmqpChannel(this.beanName, this.amqpTemplate);
+			PollableAmqpChannel pollable;
+			if (this.prefetching) {
+				this.container = this.createContainer();
+				// the channel acknowledges each message itself, when it has been received;
+				// an explicitly configured acknowledge-mode or channel-transacted is validated by the channel
+				if (this.acknowledgeMode == null) {
+					this.container.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+				}
+				if (this.channelTransacted == null) {
+					this.container.setChannelTransacted(false);
+				}
+				PrefetchingPollableAmqpChannel prefetching = new PrefetchingPollableAmqpChannel(
+						this.beanName, this.amqpTemplate, this.container);
+				if (this.prefetchCount != null) {
+					prefetching.setPrefetchCount(this.prefetchCount);
+				}
+				pollable = prefetching;
+			}
+			else {
+				pollable = new PollableAmqpChannel(this.beanName, this.amqpTemplate);
+			}
 			if (this.amqpAdmin != null) {
 				pollable.setAmqpAdmin(this.amqpAdmin);
 			}
@@ -341,7 +377,6 @@ public class AmqpChannelFactoryBean extends AbstractFactoryBean<AbstractAmqpChan
 	}
 
 	private SimpleMessageListenerContainer createContainer() throws Exception {
-		//if (!messageDriven) TODO: no container attributes would apply if not message-driven
 		SimpleMessageListenerContainer container = new SimpleMessageListenerContainer();
 		if (this.acknowledgeMode != null) {
 			container.setAcknowledgeMode(this.acknowledgeMode);
@@ -350,7 +385,7 @@ public class AmqpChannelFactoryBean extends AbstractFactoryBean<AbstractAmqpChan
 			container.setAdviceChain(this.adviceChain);
 		}
 		container.setAutoStartup(this.autoStartup);
-		container.setChannelTransacted(this.channelTransacted);
+		container.setChannelTransacted(this.channelTransacted != null ? this.channelTransacted : true);
 		if (this.concurrentConsumers != null) {
 			container.setConcurrentConsumers(this.concurrentConsumers);
 		}
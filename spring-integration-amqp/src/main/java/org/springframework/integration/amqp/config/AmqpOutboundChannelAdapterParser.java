@@ -55,6 +55,9 @@ public class AmqpOutboundChannelAdapterParser extends AbstractOutboundChannelAda
 		IntegrationNamespaceUtils.setReferenceIfAttributeDefined(builder, element, "confirm-ack-channel");
 		IntegrationNamespaceUtils.setReferenceIfAttributeDefined(builder, element, "confirm-nack-channel");
 		IntegrationNamespaceUtils.setReferenceIfAttributeDefined(builder, element, "return-channel");
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "max-outstanding-confirms");
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "confirm-window-timeout");
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "confirm-expiry");
 
 		return builder.getBeanDefinition();
 	}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2011 the original author or authors.
+ * Copyright 2002-2012 the original author or authors.
  * 
  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
  * the License. You may obtain a copy of the License at
@@ -14,11 +14,18 @@
 package org.springframework.integration.amqp.outbound;
 
 import java.util.Map;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 import org.springframework.amqp.AmqpException;
 import org.springframework.amqp.core.AmqpTemplate;
 import org.springframework.amqp.core.MessagePostProcessor;
 import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.Connection;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionListener;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.rabbit.core.RabbitTemplate.ReturnCallback;
 import org.springframework.amqp.rabbit.support.CorrelationData;
@@ -29,6 +36,7 @@ import org.springframework.expression.spel.SpelParserConfiguration;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.integration.Message;
 import org.springframework.integration.MessageChannel;
+import org.springframework.integration.MessageDeliveryException;
 import org.springframework.integration.amqp.AmqpHeaders;
 import org.springframework.integration.amqp.support.AmqpHeaderMapper;
 import org.springframework.integration.amqp.support.DefaultAmqpHeaderMapper;
@@ -79,6 +87,21 @@ public class AmqpOutboundEndpoint extends AbstractReplyProducingMessageHandler
 
 	private volatile MessageChannel returnChannel;
 
+	private volatile int maxOutstandingConfirms;
+
+	private volatile long confirmWindowTimeout = 30000;
+
+	private volatile Semaphore confirmWindow;
+
+	private volatile long confirmExpiry = 60000;
+
+	/**
+	 * The sends holding a slot in the confirm window, with the time after which
+	 * their confirm is considered lost.
+	 */
+	private final Map<CorrelationDataWrapper, Long> outstandingConfirms =
+			new ConcurrentHashMap<CorrelationDataWrapper, Long>();
+
 	@Override
 	protected void onInit() {
 		super.onInit();
@@ -101,6 +124,26 @@ public class AmqpOutboundEndpoint extends AbstractReplyProducingMessageHandler
 			this.correlationDataGenerator = new ExpressionEvaluatingMessageProcessor<Object>(expression, Object.class);
 			Assert.isTrue(amqpTemplate instanceof RabbitTemplate, "RabbitTemplate implementation is required for publisher confirms");
 			((RabbitTemplate) this.amqpTemplate).setConfirmCallback(this);
+			if (this.maxOutstandingConfirms > 0) {
+				this.confirmWindow = new Semaphore(this.maxOutstandingConfirms);
+				ConnectionFactory connectionFactory = ((RabbitTemplate) this.amqpTemplate).getConnectionFactory();
+				if (connectionFactory != null) {
+					connectionFactory.addConnectionListener(new ConnectionListener() {
+
+						public void onCreate(Connection connection) {
+						}
+
+						public void onClose(Connection connection) {
+							// confirms for messages sent on a closed connection never arrive
+							releaseOutstandingConfirms(false);
+						}
+					});
+				}
+			}
+		}
+		else {
+			Assert.state(this.maxOutstandingConfirms <= 0,
+					"A confirm correlation expression is required when limiting outstanding confirms");
 		}
 		if (this.returnChannel != null) {
 			Assert.isTrue(amqpTemplate instanceof RabbitTemplate, "RabbitTemplate implementation is required for publisher returns");
@@ -153,6 +196,56 @@ public class AmqpOutboundEndpoint extends AbstractReplyProducingMessageHandler
 		this.returnChannel = returnChannel;
 	}
 
+	/**
+	 * Limit the number of sent messages for which a publisher confirm has not yet been
+	 * received. Sends are pipelined (they do not wait for their confirm) until the limit
+	 * is reached, at which point the sending thread blocks until the broker confirms an
+	 * earlier message, providing back-pressure against a slow broker. Requires a
+	 * confirm correlation expression. Default 0 (unlimited). Only confirms for messages
+	 * sent by this endpoint release a slot, so the {@link RabbitTemplate} may be shared.
+	 * @param maxOutstandingConfirms the maximum number of unconfirmed messages.
+	 * @since 2.2
+	 */
+	public void setMaxOutstandingConfirms(int maxOutstandingConfirms) {
+		Assert.isTrue(maxOutstandingConfirms >= 0, "'maxOutstandingConfirms' must not be negative");
+		this.maxOutstandingConfirms = maxOutstandingConfirms;
+	}
+
+	/**
+	 * The time in milliseconds to wait for a slot in the outstanding confirms window
+	 * before failing the send with a {@link MessageDeliveryException}; a negative value
+	 * waits indefinitely. Default 30000.
+	 * @param confirmWindowTimeout the timeout.
+	 * @since 2.2
+	 */
+	public void setConfirmWindowTimeout(long confirmWindowTimeout) {
+		this.confirmWindowTimeout = confirmWindowTimeout;
+	}
+
+	/**
+	 * The time in milliseconds after which the window slot of a sent message is
+	 * released if its publisher confirm has not been received, for example because
+	 * the channel it was sent on failed; slots are also released when the connection
+	 * is closed. Expired slots are reclaimed while waiting for a free slot.
+	 * Default 60000.
+	 * @param confirmExpiry the expiry.
+	 * @since 2.2
+	 */
+	public void setConfirmExpiry(long confirmExpiry) {
+		Assert.isTrue(confirmExpiry > 0, "'confirmExpiry' must be positive");
+		this.confirmExpiry = confirmExpiry;
+	}
+
+	/**
+	 * @return the number of sent messages awaiting a publisher confirm, or -1 if
+	 * outstanding confirms are not being limited.
+	 * @since 2.2
+	 */
+	public int getOutstandingConfirmCount() {
+		Semaphore confirmWindow = this.confirmWindow;
+		return confirmWindow == null ? -1 : this.maxOutstandingConfirms - confirmWindow.availablePermits();
+	}
+
 	@Override
 	public String getComponentType() {
 		return expectReply ? "amqp:outbound-gateway" : "amqp:outbound-channel-adapter";
@@ -166,7 +259,14 @@ public class AmqpOutboundEndpoint extends AbstractReplyProducingMessageHandler
 		if (this.correlationDataGenerator != null) {
 			Object userCorrelationData = this.correlationDataGenerator
 					.processMessage(requestMessage);
-			if (userCorrelationData != null) {
+			if (this.confirmWindow != null) {
+				// every send must be confirmed so that its window slot is released
+				String id = userCorrelationData instanceof CorrelationData
+						? ((CorrelationData) userCorrelationData).getId()
+						: requestMessage.getHeaders().getId().toString();
+				correlationData = new CorrelationDataWrapper(id, userCorrelationData, this.confirmWindow);
+			}
+			else if (userCorrelationData != null) {
 				if (userCorrelationData instanceof CorrelationData) {
 					correlationData = (CorrelationData) userCorrelationData;
 				} else {
@@ -184,12 +284,80 @@ public class AmqpOutboundEndpoint extends AbstractReplyProducingMessageHandler
 		if (this.expectReply) {
 			return this.sendAndReceive(exchangeName, routingKey, requestMessage);
 		}
+		else if (this.confirmWindow != null) {
+			this.acquireConfirmSlot(requestMessage);
+			CorrelationDataWrapper windowed = (CorrelationDataWrapper) correlationData;
+			// registered before sending; the confirm may arrive before send() returns
+			this.outstandingConfirms.put(windowed, System.currentTimeMillis() + this.confirmExpiry);
+			boolean sent = false;
+			try {
+				this.send(exchangeName, routingKey, requestMessage, correlationData);
+				sent = true;
+			}
+			finally {
+				if (!sent) {
+					this.releaseConfirmSlot(windowed);
+				}
+			}
+			return null;
+		}
 		else {
 			this.send(exchangeName, routingKey, requestMessage, correlationData);
 			return null;
 		}
 	}
 
+	private void acquireConfirmSlot(Message<?> requestMessage) {
+		long waitUntil = this.confirmWindowTimeout < 0 ? Long.MAX_VALUE
+				: System.currentTimeMillis() + this.confirmWindowTimeout;
+		try {
+			while (!this.confirmWindow.tryAcquire()) {
+				this.releaseOutstandingConfirms(true);
+				long remaining = waitUntil - System.currentTimeMillis();
+				if (remaining <= 0) {
+					throw new MessageDeliveryException(requestMessage, "Timed out waiting for publisher confirms; "
+							+ this.maxOutstandingConfirms + " messages are unconfirmed");
+				}
+				// wake up periodically to reclaim the slots of lost confirms
+				long wait = Math.min(remaining, Math.min(this.confirmExpiry, 1000));
+				if (this.confirmWindow.tryAcquire(wait, TimeUnit.MILLISECONDS)) {
+					return;
+				}
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new MessageDeliveryException(requestMessage,
+					"Interrupted while waiting for publisher confirms", e);
+		}
+	}
+
+	private void releaseConfirmSlot(CorrelationDataWrapper correlationData) {
+		if (this.outstandingConfirms.remove(correlationData) != null) {
+			this.confirmWindow.release();
+		}
+	}
+
+	/**
+	 * Release the slots of outstanding confirms; only those that have expired if
+	 * expiredOnly is true.
+	 */
+	private void releaseOutstandingConfirms(boolean expiredOnly) {
+		long now = System.currentTimeMillis();
+		for (Map.Entry<CorrelationDataWrapper, Long> entry : this.outstandingConfirms.entrySet()) {
+			if (!expiredOnly || entry.getValue() <= now) {
+				CorrelationDataWrapper correlationData = entry.getKey();
+				if (this.outstandingConfirms.remove(correlationData) != null) {
+					this.confirmWindow.release();
+					if (logger.isWarnEnabled()) {
+						logger.warn("No publisher confirm received for " + correlationData.getId()
+								+ "; releasing its slot");
+					}
+				}
+			}
+		}
+	}
+
 	private void send(String exchangeName, String routingKey,
 			final Message<?> requestMessage, CorrelationData correlationData) {
 		if (this.amqpTemplate instanceof RabbitTemplate) {
@@ -238,7 +406,16 @@ public class AmqpOutboundEndpoint extends AbstractReplyProducingMessageHandler
 	public void confirm(CorrelationData correlationData, boolean ack) {
 		Object userCorrelationData = correlationData;
 		if (correlationData instanceof CorrelationDataWrapper) {
-			userCorrelationData = ((CorrelationDataWrapper) correlationData).getUserData();
+			CorrelationDataWrapper wrapper = (CorrelationDataWrapper) correlationData;
+			// only release a slot that this endpoint acquired for the send
+			if (wrapper.getConfirmWindow() != null && wrapper.getConfirmWindow() == this.confirmWindow) {
+				this.releaseConfirmSlot(wrapper);
+			}
+			userCorrelationData = wrapper.getUserData();
+		}
+		if (userCorrelationData == null) {
+			// the send only requested a confirm to release its window slot
+			return;
 		}
 		Message<Object> confirmMessage = MessageBuilder.withPayload(userCorrelationData)
 				.setHeader(AmqpHeaders.PUBLISH_CONFIRM, ack)
@@ -262,15 +439,29 @@ public class AmqpOutboundEndpoint extends AbstractReplyProducingMessageHandler
 
 		private final Object userData;
 
+		private final Semaphore confirmWindow;
+
 		public CorrelationDataWrapper(String id, Object userData) {
+			this(id, userData, null);
+		}
+
+		public CorrelationDataWrapper(String id, Object userData, Semaphore confirmWindow) {
 			super(id);
 			this.userData = userData;
+			this.confirmWindow = confirmWindow;
 		}
 
 		public Object getUserData() {
 			return userData;
 		}
 
+		/**
+		 * @return the window a slot was acquired from for this send, or null.
+		 */
+		public Semaphore getConfirmWindow() {
+			return confirmWindow;
+		}
+
 	}
 
 	public void returnedMessage(org.springframework.amqp.core.Message message, int replyCode, String replyText,
@@ -0,0 +1,206 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.integration.amqp.channel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.amqp.core.AcknowledgeMode;
+import org.springframework.amqp.core.AmqpTemplate;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.Connection;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.core.ChannelAwareMessageListener;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.integration.Message;
+import org.springframework.integration.test.util.TestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.rabbitmq.client.Channel;
+
+/**
+ * @since 2.2
+ */
+public class PrefetchingPollableAmqpChannelTests {
+
+	private SimpleMessageListenerContainer container;
+
+	private PrefetchingPollableAmqpChannel amqpChannel;
+
+	private ChannelAwareMessageListener listener;
+
+	private final Channel channel = mock(Channel.class);
+
+	@Before
+	public void setUp() {
+		Connection connection = mock(Connection.class);
+		when(connection.createChannel(anyBoolean())).thenReturn(this.channel);
+		ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
+		when(connectionFactory.createConnection()).thenReturn(connection);
+		this.container = new SimpleMessageListenerContainer();
+		this.container.setConnectionFactory(connectionFactory);
+		this.container.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+		this.amqpChannel = new PrefetchingPollableAmqpChannel("prefetchingChannel",
+				mock(AmqpTemplate.class), this.container);
+		this.amqpChannel.setQueueName("prefetchingQueue");
+		this.amqpChannel.setPrefetchCount(10);
+		this.amqpChannel.afterPropertiesSet();
+		this.listener = (ChannelAwareMessageListener) this.container.getMessageListener();
+	}
+
+	@Test
+	public void testContainerConfiguration() {
+		assertEquals(AcknowledgeMode.MANUAL, TestUtils.getPropertyValue(this.container, "acknowledgeMode"));
+		assertEquals(10, TestUtils.getPropertyValue(this.container, "prefetchCount"));
+	}
+
+	@Test
+	public void testBufferedMessagesAreAcknowledgedOnReceive() throws Exception {
+		this.listener.onMessage(this.createMessage("foo", 1), this.channel);
+		this.listener.onMessage(this.createMessage("bar", 2), this.channel);
+		verify(this.channel, never()).basicAck(1, false);
+
+		Message<?> message = this.amqpChannel.receive();
+		assertNotNull(message);
+		assertEquals("foo", message.getPayload());
+		verify(this.channel).basicAck(1, false);
+
+		message = this.amqpChannel.receive(0);
+		assertNotNull(message);
+		assertEquals("bar", message.getPayload());
+		verify(this.channel).basicAck(2, false);
+
+		assertNull(this.amqpChannel.receive());
+	}
+
+	@Test
+	public void testAcknowledgedOnCommit() throws Exception {
+		this.listener.onMessage(this.createMessage("foo", 1), this.channel);
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			assertNotNull(this.amqpChannel.receive());
+			verify(this.channel, never()).basicAck(1, false);
+			this.completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+			verify(this.channel).basicAck(1, false);
+			verify(this.channel, never()).basicReject(1, true);
+		}
+		finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	public void testRejectedAndRequeuedOnRollback() throws Exception {
+		this.listener.onMessage(this.createMessage("foo", 1), this.channel);
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			assertNotNull(this.amqpChannel.receive());
+			this.completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+			verify(this.channel).basicReject(1, true);
+			verify(this.channel, never()).basicAck(1, false);
+		}
+		finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testAutoAcknowledgeRejected() throws Exception {
+		SimpleMessageListenerContainer container = new SimpleMessageListenerContainer();
+		container.setAcknowledgeMode(AcknowledgeMode.AUTO);
+		PrefetchingPollableAmqpChannel amqpChannel =
+				new PrefetchingPollableAmqpChannel("autoAck", mock(AmqpTemplate.class), container);
+		amqpChannel.setQueueName("autoAckQueue");
+		amqpChannel.afterPropertiesSet();
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testChannelTransactedRejected() throws Exception {
+		SimpleMessageListenerContainer container = new SimpleMessageListenerContainer();
+		container.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+		container.setChannelTransacted(true);
+		PrefetchingPollableAmqpChannel amqpChannel =
+				new PrefetchingPollableAmqpChannel("transacted", mock(AmqpTemplate.class), container);
+		amqpChannel.setQueueName("transactedQueue");
+		amqpChannel.afterPropertiesSet();
+	}
+
+	@Test
+	public void testRequeuedWhenBufferFull() throws Exception {
+		this.amqpChannel.setBufferFullTimeout(10);
+		for (int i = 1; i <= 10; i++) {
+			this.listener.onMessage(this.createMessage("foo", i), this.channel);
+		}
+		verify(this.channel, never()).basicReject(anyLong(), anyBoolean());
+		this.listener.onMessage(this.createMessage("bar", 11), this.channel);
+		verify(this.channel).basicReject(11, true);
+		assertEquals("foo", this.amqpChannel.receive().getPayload());
+	}
+
+	@Test
+	public void testReceiveTimeout() throws Exception {
+		long start = System.currentTimeMillis();
+		assertNull(this.amqpChannel.receive(200));
+		assertTrue(System.currentTimeMillis() - start >= 150);
+
+		ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+		executor.schedule(new Runnable() {
+			public void run() {
+				try {
+					listener.onMessage(createMessage("foo", 1), channel);
+				}
+				catch (Exception e) {
+					throw new IllegalStateException(e);
+				}
+			}
+		}, 100, TimeUnit.MILLISECONDS);
+		Message<?> message = this.amqpChannel.receive(10000);
+		assertNotNull(message);
+		assertEquals("foo", message.getPayload());
+		executor.shutdown();
+	}
+
+	private void completeTransaction(int status) {
+		for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+			synchronization.afterCompletion(status);
+		}
+	}
+
+	private org.springframework.amqp.core.Message createMessage(String payload, long deliveryTag) {
+		MessageProperties properties = new MessageProperties();
+		properties.setContentType(MessageProperties.CONTENT_TYPE_TEXT_PLAIN);
+		properties.setDeliveryTag(deliveryTag);
+		return new org.springframework.amqp.core.Message(payload.getBytes(), properties);
+	}
+
+}
@@ -25,6 +25,8 @@ import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
 import org.springframework.integration.MessageChannel;
+import org.springframework.integration.amqp.channel.PollableAmqpChannel;
+import org.springframework.integration.amqp.channel.PrefetchingPollableAmqpChannel;
 import org.springframework.integration.channel.interceptor.ChannelInterceptorAdapter;
 import org.springframework.integration.test.util.TestUtils;
 import org.springframework.test.context.ContextConfiguration;
@@ -59,6 +61,19 @@ public class AmqpChannelParserTests {
 				TestUtils.getPropertyValue(channel, "dispatcher"), "maxSubscribers", Integer.class).intValue());
 	}
 
+	@Test
+	public void prefetchCountAloneKeepsBasicGet() {
+		MessageChannel channel = context.getBean("pollableWithPrefetchCount", MessageChannel.class);
+		assertEquals(PollableAmqpChannel.class, channel.getClass());
+	}
+
+	@Test
+	public void prefetching() {
+		MessageChannel channel = context.getBean("prefetchingPollable", MessageChannel.class);
+		assertEquals(PrefetchingPollableAmqpChannel.class, channel.getClass());
+		assertEquals(5, TestUtils.getPropertyValue(channel, "prefetchCount"));
+	}
+
 
 	private static class TestInterceptor extends ChannelInterceptorAdapter {
 	}
@@ -134,6 +134,9 @@ public class AmqpOutboundChannelAdapterParserTests {
 		MessageChannel ackChannel = context.getBean("ackChannel", MessageChannel.class);
 		assertSame(ackChannel, TestUtils.getPropertyValue(endpoint, "confirmAckChannel"));
 		assertSame(nullChannel, TestUtils.getPropertyValue(endpoint, "confirmNackChannel"));
+		assertEquals(2, TestUtils.getPropertyValue(endpoint, "maxOutstandingConfirms"));
+		assertEquals(100L, TestUtils.getPropertyValue(endpoint, "confirmWindowTimeout"));
+		assertEquals(5000L, TestUtils.getPropertyValue(endpoint, "confirmExpiry"));
 	}
 
 	@Test
@@ -157,6 +160,9 @@ public class AmqpOutboundChannelAdapterParserTests {
 		assertNotNull(ack);
 		assertEquals("foo", ack.getPayload());
 		assertEquals(Boolean.TRUE, ack.getHeaders().get(AmqpHeaders.PUBLISH_CONFIRM));
+		AmqpOutboundEndpoint endpoint = TestUtils.getPropertyValue(context.getBean("withPublisherConfirms"),
+				"handler", AmqpOutboundEndpoint.class);
+		assertEquals(0, endpoint.getOutstandingConfirmCount());
 	}
 
 	@SuppressWarnings("rawtypes")
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.amqp.outbound;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.rabbit.connection.Connection;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.support.CorrelationData;
+import org.springframework.integration.Message;
+import org.springframework.integration.MessageDeliveryException;
+import org.springframework.integration.MessagingException;
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.integration.message.GenericMessage;
+import org.springframework.integration.support.MessageBuilder;
+
+/**
+ * @since 2.2
+ */
+public class AmqpOutboundEndpointTests {
+
+	@Test
+	public void outstandingConfirmsAreLimited() {
+		RabbitTemplate template = mock(RabbitTemplate.class);
+		QueueChannel acks = new QueueChannel();
+		AmqpOutboundEndpoint endpoint = this.createEndpoint(template, acks);
+
+		endpoint.handleMessage(MessageBuilder.withPayload("one").setHeader("corr", "foo").build());
+		endpoint.handleMessage(new GenericMessage<String>("two"));
+		assertEquals(2, endpoint.getOutstandingConfirmCount());
+		try {
+			endpoint.handleMessage(new GenericMessage<String>("three"));
+			fail("Expected MessageDeliveryException");
+		}
+		catch (MessageDeliveryException e) {
+			// expected
+		}
+		assertEquals(2, endpoint.getOutstandingConfirmCount());
+
+		ArgumentCaptor<CorrelationData> correlation = ArgumentCaptor.forClass(CorrelationData.class);
+		verify(template, times(2)).convertAndSend(anyString(), anyString(), any(),
+				any(MessagePostProcessor.class), correlation.capture());
+		List<CorrelationData> sent = correlation.getAllValues();
+		endpoint.confirm(sent.get(0), true);
+		endpoint.confirm(sent.get(1), true);
+		assertEquals(0, endpoint.getOutstandingConfirmCount());
+		Message<?> ack = acks.receive(0);
+		assertEquals("foo", ack.getPayload());
+		// the second send had no user correlation data; its confirm only released the window
+		assertNull(acks.receive(0));
+
+		endpoint.handleMessage(new GenericMessage<String>("three"));
+		assertEquals(1, endpoint.getOutstandingConfirmCount());
+	}
+
+	@Test
+	public void failedSendReleasesWindow() {
+		RabbitTemplate template = mock(RabbitTemplate.class);
+		doThrow(new AmqpException("test")).when(template).convertAndSend(anyString(), anyString(), any(),
+				any(MessagePostProcessor.class), any(CorrelationData.class));
+		AmqpOutboundEndpoint endpoint = this.createEndpoint(template, new QueueChannel());
+		try {
+			endpoint.handleMessage(new GenericMessage<String>("foo"));
+			fail("Expected MessagingException");
+		}
+		catch (MessagingException e) {
+			// expected
+		}
+		assertEquals(0, endpoint.getOutstandingConfirmCount());
+	}
+
+	@Test
+	public void foreignConfirmsDoNotReleaseWindow() {
+		RabbitTemplate template = mock(RabbitTemplate.class);
+		QueueChannel acks = new QueueChannel();
+		AmqpOutboundEndpoint endpoint = this.createEndpoint(template, acks);
+		endpoint.handleMessage(new GenericMessage<String>("one"));
+		assertEquals(1, endpoint.getOutstandingConfirmCount());
+
+		// e.g. a shared template, or a send-and-receive without correlation data
+		endpoint.confirm(null, true);
+		endpoint.confirm(new CorrelationData("bar"), true);
+		assertEquals(1, endpoint.getOutstandingConfirmCount());
+		assertEquals("bar", ((CorrelationData) acks.receive(0).getPayload()).getId());
+
+		AmqpOutboundEndpoint other = this.createEndpoint(template, new QueueChannel());
+		other.handleMessage(new GenericMessage<String>("two"));
+		ArgumentCaptor<CorrelationData> correlation = ArgumentCaptor.forClass(CorrelationData.class);
+		verify(template, times(2)).convertAndSend(anyString(), anyString(), any(),
+				any(MessagePostProcessor.class), correlation.capture());
+		endpoint.confirm(correlation.getAllValues().get(1), true);
+		assertEquals(1, endpoint.getOutstandingConfirmCount());
+		endpoint.confirm(correlation.getAllValues().get(0), true);
+		assertEquals(0, endpoint.getOutstandingConfirmCount());
+	}
+
+	@Test
+	public void userCorrelationDataDeliveredWhenWindowed() {
+		RabbitTemplate template = mock(RabbitTemplate.class);
+		QueueChannel acks = new QueueChannel();
+		AmqpOutboundEndpoint endpoint = this.createEndpoint(template, acks);
+		CorrelationData userData = new CorrelationData("baz");
+		endpoint.handleMessage(MessageBuilder.withPayload("one").setHeader("corr", userData).build());
+		ArgumentCaptor<CorrelationData> correlation = ArgumentCaptor.forClass(CorrelationData.class);
+		verify(template).convertAndSend(anyString(), anyString(), any(),
+				any(MessagePostProcessor.class), correlation.capture());
+		assertEquals("baz", correlation.getValue().getId());
+		endpoint.confirm(correlation.getValue(), true);
+		assertEquals(0, endpoint.getOutstandingConfirmCount());
+		assertSame(userData, acks.receive(0).getPayload());
+	}
+
+	@Test
+	public void lostConfirmsExpire() throws Exception {
+		RabbitTemplate template = mock(RabbitTemplate.class);
+		AmqpOutboundEndpoint endpoint = new AmqpOutboundEndpoint(template);
+		endpoint.setExchangeName("foo");
+		endpoint.setConfirmCorrelationExpression("headers['corr']");
+		endpoint.setMaxOutstandingConfirms(1);
+		endpoint.setConfirmWindowTimeout(5000);
+		endpoint.setConfirmExpiry(50);
+		endpoint.afterPropertiesSet();
+		endpoint.handleMessage(new GenericMessage<String>("one"));
+		assertEquals(1, endpoint.getOutstandingConfirmCount());
+		// the first confirm never arrives; its slot is reclaimed once it expires
+		endpoint.handleMessage(new GenericMessage<String>("two"));
+		assertEquals(1, endpoint.getOutstandingConfirmCount());
+
+		ArgumentCaptor<CorrelationData> correlation = ArgumentCaptor.forClass(CorrelationData.class);
+		verify(template, times(2)).convertAndSend(anyString(), anyString(), any(),
+				any(MessagePostProcessor.class), correlation.capture());
+		// a late confirm for the expired send must not release another slot
+		endpoint.confirm(correlation.getAllValues().get(0), true);
+		assertEquals(1, endpoint.getOutstandingConfirmCount());
+		endpoint.confirm(correlation.getAllValues().get(1), true);
+		assertEquals(0, endpoint.getOutstandingConfirmCount());
+	}
+
+	@Test
+	public void connectionCloseReleasesWindow() {
+		RabbitTemplate template = mock(RabbitTemplate.class);
+		ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
+		when(template.getConnectionFactory()).thenReturn(connectionFactory);
+		AmqpOutboundEndpoint endpoint = this.createEndpoint(template, new QueueChannel());
+		ArgumentCaptor<ConnectionListener> listener = ArgumentCaptor.forClass(ConnectionListener.class);
+		verify(connectionFactory).addConnectionListener(listener.capture());
+		endpoint.handleMessage(new GenericMessage<String>("one"));
+		endpoint.handleMessage(new GenericMessage<String>("two"));
+		assertEquals(2, endpoint.getOutstandingConfirmCount());
+		listener.getValue().onClose(mock(Connection.class));
+		assertEquals(0, endpoint.getOutstandingConfirmCount());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void negativeMaxOutstandingConfirmsRejected() {
+		new AmqpOutboundEndpoint(mock(RabbitTemplate.class)).setMaxOutstandingConfirms(-1);
+	}
+
+	private AmqpOutboundEndpoint createEndpoint(RabbitTemplate template, QueueChannel acks) {
+		AmqpOutboundEndpoint endpoint = new AmqpOutboundEndpoint(template);
+		endpoint.setExchangeName("foo");
+		endpoint.setConfirmCorrelationExpression("headers['corr']");
+		endpoint.setConfirmAckChannel(acks);
+		endpoint.setMaxOutstandingConfirms(2);
+		endpoint.setConfirmWindowTimeout(100);
+		endpoint.afterPropertiesSet();
+		return endpoint;
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2010 the original author or authors.
+ * Copyright 2002-2012 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,8 @@
 
 package org.springframework.integration.core;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
@@ -23,12 +25,14 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.integration.Message;
 import org.springframework.integration.MessageChannel;
 import org.springframework.integration.MessageDeliveryException;
 import org.springframework.integration.MessageHeaders;
 import org.springframework.integration.MessagingException;
+import org.springframework.integration.message.ErrorMessage;
 import org.springframework.integration.support.MessageBuilder;
 import org.springframework.integration.support.channel.BeanFactoryChannelResolver;
 import org.springframework.integration.support.channel.ChannelResolutionException;
@@ -36,6 +40,7 @@ import org.springframework.integration.support.channel.ChannelResolver;
 import org.springframework.integration.support.converter.MessageConverter;
 import org.springframework.integration.support.converter.SimpleMessageConverter;
 import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
 
 /**
  * This is the central class for invoking message exchange operations across
@@ -45,7 +50,13 @@ import org.springframework.util.Assert;
  * @author Mark Fisher
  * @author Oleg Zhurakousky
  */
-public class MessagingTemplate implements MessagingOperations, BeanFactoryAware, InitializingBean {
+public class MessagingTemplate implements MessagingOperations, BeanFactoryAware, InitializingBean, DisposableBean {
+
+	/**
+	 * The header used to correlate replies received on a shared reply channel.
+	 * @see #setReplyChannelName(String)
+	 */
+	public static final String REPLY_CORRELATION_KEY = "replyCorrelationKey";
 
 	protected final Log logger = LogFactory.getLog(this.getClass());
 
@@ -59,6 +70,18 @@ public class MessagingTemplate implements MessagingOperations, BeanFactoryAware,
 
 	private volatile long receiveTimeout = -1;
 
+	private volatile String replyChannelName;
+
+	private volatile SubscribableChannel sharedReplyChannel;
+
+	private final MessageHandler sharedReplyHandler = new MessageHandler() {
+		public void handleMessage(Message<?> message) {
+			correlateReply(message);
+		}
+	};
+
+	private final Map<String, ReplyWaiter> pendingReplies = new ConcurrentHashMap<String, ReplyWaiter>();
+
 	private volatile boolean initialized;
 
 	private final Object initializationMonitor = new Object();
@@ -126,6 +149,22 @@ public class MessagingTemplate implements MessagingOperations, BeanFactoryAware,
 		this.receiveTimeout = receiveTimeout;
 	}
 
+	/**
+	 * Specify the name of a {@link SubscribableChannel} on which replies to
+	 * sendAndReceive requests will be received, instead of a temporary channel
+	 * per request. The request carries only the channel name and a
+	 * {@link #REPLY_CORRELATION_KEY} header, so it may cross a message store or
+	 * another serializing hop; the replies are matched with their waiting
+	 * callers by that header. The channel is resolved via the
+	 * {@link ChannelResolver}. If it is shared by several templates, it must be
+	 * a publish-subscribe channel, since each template only recognizes its own
+	 * replies. The template subscribes to the channel on first use and
+	 * unsubscribes when it is {@link #destroy() destroyed}.
+	 */
+	public void setReplyChannelName(String replyChannelName) {
+		this.replyChannelName = replyChannelName;
+	}
+
 	public void setBeanFactory(BeanFactory beanFactory) {
 		if (this.channelResolver == null && beanFactory != null) {
 			this.channelResolver = new BeanFactoryChannelResolver(beanFactory);
@@ -141,6 +180,19 @@ public class MessagingTemplate implements MessagingOperations, BeanFactoryAware,
 		}
 	}
 
+	/**
+	 * Unsubscribes from the shared reply channel, if any; see
+	 * {@link #setReplyChannelName(String)}.
+	 */
+	public void destroy() {
+		synchronized (this.initializationMonitor) {
+			if (this.sharedReplyChannel != null) {
+				this.sharedReplyChannel.unsubscribe(this.sharedReplyHandler);
+				this.sharedReplyChannel = null;
+			}
+		}
+	}
+
 	public <P> void send(final Message<P> message) {
 		this.send(this.getRequiredDefaultChannel(), message);
 	}
@@ -308,6 +360,9 @@ public class MessagingTemplate implements MessagingOperations, BeanFactoryAware,
 	}
 
 	private <S, R> Message<R> doSendAndReceive(MessageChannel channel, Message<S> requestMessage) {
+		if (this.replyChannelName != null) {
+			return this.doSendAndReceiveWithSharedReplyChannel(channel, requestMessage);
+		}
 		Object originalReplyChannelHeader = requestMessage.getHeaders().getReplyChannel();
 		Object originalErrorChannelHeader = requestMessage.getHeaders().getErrorChannel();
 		TemporaryReplyChannel replyChannel = new TemporaryReplyChannel(this.receiveTimeout);
@@ -326,6 +381,87 @@ public class MessagingTemplate implements MessagingOperations, BeanFactoryAware,
 		return reply;
 	}
 
+	/**
+	 * Only the request, whose headers must change, is copied; the reply is copied
+	 * only if it still carries the shared channel or correlation headers.
+	 */
+	@SuppressWarnings("unchecked")
+	private <S, R> Message<R> doSendAndReceiveWithSharedReplyChannel(MessageChannel channel, Message<S> requestMessage) {
+		this.subscribeToReplyChannelIfNecessary();
+		MessageHeaders requestHeaders = requestMessage.getHeaders();
+		Object originalReplyChannelHeader = requestHeaders.getReplyChannel();
+		Object originalErrorChannelHeader = requestHeaders.getErrorChannel();
+		Object originalCorrelationKey = requestHeaders.get(REPLY_CORRELATION_KEY);
+		String correlationKey = requestHeaders.getId().toString();
+		ReplyWaiter waiter = new ReplyWaiter();
+		this.pendingReplies.put(correlationKey, waiter);
+		try {
+			requestMessage = MessageBuilder.fromMessage(requestMessage)
+					.setReplyChannelName(this.replyChannelName)
+					.setErrorChannelName(this.replyChannelName)
+					.setHeader(REPLY_CORRELATION_KEY, correlationKey)
+					.build();
+			this.doSend(channel, requestMessage);
+			Message<R> reply = (Message<R>) waiter.await(this.receiveTimeout);
+			if (reply == null) {
+				if (this.logger.isTraceEnabled()) {
+					this.logger.trace("failed to receive reply on channel '" + this.replyChannelName
+							+ "' within timeout: " + this.receiveTimeout);
+				}
+				return null;
+			}
+			MessageHeaders replyHeaders = reply.getHeaders();
+			if (!ObjectUtils.nullSafeEquals(replyHeaders.getReplyChannel(), originalReplyChannelHeader)
+					|| !ObjectUtils.nullSafeEquals(replyHeaders.getErrorChannel(), originalErrorChannelHeader)
+					|| !ObjectUtils.nullSafeEquals(replyHeaders.get(REPLY_CORRELATION_KEY), originalCorrelationKey)) {
+				reply = MessageBuilder.fromMessage(reply)
+						.setHeader(MessageHeaders.REPLY_CHANNEL, originalReplyChannelHeader)
+						.setHeader(MessageHeaders.ERROR_CHANNEL, originalErrorChannelHeader)
+						.setHeader(REPLY_CORRELATION_KEY, originalCorrelationKey)
+						.build();
+			}
+			return reply;
+		}
+		finally {
+			// the caller removes its own waiter, so a timed out request never lingers
+			this.pendingReplies.remove(correlationKey);
+		}
+	}
+
+	private void subscribeToReplyChannelIfNecessary() {
+		if (this.sharedReplyChannel != null) {
+			return;
+		}
+		synchronized (this.initializationMonitor) {
+			if (this.sharedReplyChannel != null) {
+				return;
+			}
+			MessageChannel replyChannel = this.resolveChannelName(this.replyChannelName);
+			Assert.isInstanceOf(SubscribableChannel.class, replyChannel,
+					"The shared reply channel must be a SubscribableChannel. ");
+			((SubscribableChannel) replyChannel).subscribe(this.sharedReplyHandler);
+			this.sharedReplyChannel = (SubscribableChannel) replyChannel;
+		}
+	}
+
+	private void correlateReply(Message<?> reply) {
+		Object correlationKey = reply.getHeaders().get(REPLY_CORRELATION_KEY);
+		if (correlationKey == null && reply instanceof ErrorMessage
+				&& reply.getPayload() instanceof MessagingException) {
+			Message<?> failedMessage = ((MessagingException) reply.getPayload()).getFailedMessage();
+			if (failedMessage != null) {
+				correlationKey = failedMessage.getHeaders().get(REPLY_CORRELATION_KEY);
+			}
+		}
+		ReplyWaiter waiter = (correlationKey != null) ? this.pendingReplies.get(correlationKey) : null;
+		if (waiter != null) {
+			waiter.setReply(reply);
+		}
+		else if (this.logger.isDebugEnabled()) {
+			this.logger.debug("no pending request for reply, discarding: " + reply);
+		}
+	}
+
 	private MessageChannel getRequiredDefaultChannel() {
 		Assert.state(this.defaultChannel != null,
 				"No 'defaultChannel' specified for MessagingTemplate. "
@@ -354,6 +490,48 @@ public class MessagingTemplate implements MessagingOperations, BeanFactoryAware,
 	}
 
 
+	/**
+	 * Holds the reply to one request sent with the shared reply channel; lighter
+	 * than a {@link TemporaryReplyChannel}, as it is never exposed as a channel.
+	 */
+	private static class ReplyWaiter {
+
+		private Message<?> reply;
+
+		public synchronized void setReply(Message<?> reply) {
+			if (this.reply == null) {
+				this.reply = reply;
+				this.notifyAll();
+			}
+		}
+
+		/**
+		 * Waits up to the timeout (indefinitely if negative) for the reply.
+		 */
+		public synchronized Message<?> await(long timeout) {
+			long deadline = System.currentTimeMillis() + timeout;
+			try {
+				while (this.reply == null) {
+					if (timeout < 0) {
+						this.wait();
+					}
+					else {
+						long remaining = deadline - System.currentTimeMillis();
+						if (remaining <= 0) {
+							break;
+						}
+						this.wait(remaining);
+					}
+				}
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return this.reply;
+		}
+	}
+
+
 	private static class TemporaryReplyChannel implements PollableChannel {
 
 		private volatile Message<?> message;
@@ -23,8 +23,11 @@ import java.lang.reflect.UndeclaredThrowableException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
@@ -34,10 +37,10 @@ import org.springframework.beans.SimpleTypeConverter;
 import org.springframework.beans.TypeConverter;
 import org.springframework.beans.factory.BeanClassLoaderAware;
 import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.FactoryBean;
 import org.springframework.core.convert.ConversionService;
 import org.springframework.core.task.AsyncTaskExecutor;
-import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.core.task.support.TaskExecutorAdapter;
 import org.springframework.expression.Expression;
 import org.springframework.integration.Message;
@@ -50,6 +53,7 @@ import org.springframework.integration.endpoint.AbstractEndpoint;
 import org.springframework.integration.history.TrackableComponent;
 import org.springframework.integration.support.channel.BeanFactoryChannelResolver;
 import org.springframework.integration.support.channel.ChannelResolver;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.CollectionUtils;
@@ -68,7 +72,10 @@ import org.springframework.util.StringUtils;
  * @author Oleg Zhurakousky
  * @author Gary Russell
  */
-public class GatewayProxyFactoryBean extends AbstractEndpoint implements TrackableComponent, FactoryBean<Object>, MethodInterceptor, BeanClassLoaderAware {
+public class GatewayProxyFactoryBean extends AbstractEndpoint implements TrackableComponent, FactoryBean<Object>, MethodInterceptor,
+		BeanClassLoaderAware, DisposableBean {
+
+	private static final int DEFAULT_ASYNC_EXECUTOR_POOL_SIZE = 10;
 
 	private volatile Class<?> serviceInterface;
 
@@ -94,7 +101,9 @@ public class GatewayProxyFactoryBean extends AbstractEndpoint implements Trackab
 
 	private final Map<Method, MethodInvocationGateway> gatewayMap = new HashMap<Method, MethodInvocationGateway>();
 
-	private volatile AsyncTaskExecutor asyncExecutor = new SimpleAsyncTaskExecutor();
+	private volatile AsyncTaskExecutor asyncExecutor;
+
+	private volatile ThreadPoolTaskExecutor defaultAsyncExecutor;
 
 	private volatile boolean initialized;
 
@@ -189,6 +198,16 @@ public class GatewayProxyFactoryBean extends AbstractEndpoint implements Trackab
 		}
 	}
 
+	/**
+	 * Set the executor used for methods returning a {@link Future}. Such a method only
+	 * uses it to send the request (and to invoke the error flow, if any), the Future is
+	 * completed by the reply itself. A method without arguments (and without a payload
+	 * expression) only receives; it still occupies an executor thread for as long as it
+	 * waits for a reply, and with the default executor, further invocations queue behind
+	 * it without bound. Provide a dedicated executor if such methods may wait for long.
+	 * By default, a pool of 10 daemon threads is created and shut down along with this
+	 * factory bean.
+	 */
 	public void setAsyncExecutor(Executor executor) {
 		Assert.notNull(executor, "executor must not be null");
 		this.asyncExecutor = (executor instanceof AsyncTaskExecutor) ? (AsyncTaskExecutor) executor
@@ -218,6 +237,9 @@ public class GatewayProxyFactoryBean extends AbstractEndpoint implements Trackab
 			if (this.channelResolver == null && beanFactory != null) {
 				this.channelResolver = new BeanFactoryChannelResolver(beanFactory);
 			}
+			if (this.asyncExecutor == null) {
+				this.asyncExecutor = this.createDefaultAsyncExecutor();
+			}
 			Class<?> proxyInterface = this.determineServiceInterface();
 			Method[] methods = ReflectionUtils.getAllDeclaredMethods(proxyInterface);
 			for (Method method : methods) {
@@ -230,6 +252,24 @@ public class GatewayProxyFactoryBean extends AbstractEndpoint implements Trackab
 		}
 	}
 
+	private AsyncTaskExecutor createDefaultAsyncExecutor() {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(DEFAULT_ASYNC_EXECUTOR_POOL_SIZE);
+		executor.setMaxPoolSize(DEFAULT_ASYNC_EXECUTOR_POOL_SIZE);
+		executor.setDaemon(true);
+		String componentName = this.getComponentName();
+		executor.setThreadNamePrefix((componentName != null ? componentName : "gateway") + "-async-");
+		executor.afterPropertiesSet();
+		this.defaultAsyncExecutor = executor;
+		return executor;
+	}
+
+	public void destroy() {
+		if (this.defaultAsyncExecutor != null) {
+			this.defaultAsyncExecutor.shutdown();
+		}
+	}
+
 	private Class<?> determineServiceInterface() {
 		if (this.serviceInterface == null) {
 			this.serviceInterface = RequestReplyExchanger.class;
@@ -254,8 +294,19 @@ public class GatewayProxyFactoryBean extends AbstractEndpoint implements Trackab
 	}
 
 	public Object invoke(final MethodInvocation invocation) throws Throwable {
-		if (Future.class.isAssignableFrom(invocation.getMethod().getReturnType())) {
-			return this.asyncExecutor.submit(new AsyncInvocationTask(invocation));
+		Method method = invocation.getMethod();
+		if (Future.class.isAssignableFrom(method.getReturnType())) {
+			if (!this.initialized) {
+				this.afterPropertiesSet();
+			}
+			if (method.getParameterTypes().length == 0 && !this.hasPayloadExpression(method)) {
+				return this.asyncExecutor.submit(new AsyncInvocationTask(invocation));
+			}
+			// the reply completes the Future, no thread is blocked while waiting for it
+			MethodInvocationGateway gateway = this.gatewayMap.get(method);
+			Future<Object> reply = gateway.sendAndReceiveAsync(invocation.getArguments(),
+					!hasFutureParameterizedWithMessage(method), this.asyncExecutor);
+			return new AsyncReplyFuture(reply, method);
 		}
 		return this.doInvoke(invocation);
 	}
@@ -286,13 +337,7 @@ public class GatewayProxyFactoryBean extends AbstractEndpoint implements Trackab
 		boolean shouldReply = returnType != void.class;
 		int paramCount = method.getParameterTypes().length;
 		Object response = null;
-		boolean hasPayloadExpression = method.isAnnotationPresent(Payload.class);
-		if (!hasPayloadExpression && this.methodMetadataMap != null) {
-			// check for the method metadata next
-			GatewayMethodMetadata metadata = this.methodMetadataMap.get(method.getName());
-			hasPayloadExpression = (metadata != null) && StringUtils.hasText(metadata.getPayloadExpression());
-		}
-		if (paramCount == 0 && !hasPayloadExpression) {
+		if (paramCount == 0 && !this.hasPayloadExpression(method)) {
 			if (shouldReply) {
 				if (shouldReturnMessage) {
 					return gateway.receive();
@@ -313,6 +358,16 @@ public class GatewayProxyFactoryBean extends AbstractEndpoint implements Trackab
 		return (response != null) ? this.convert(response, returnType) : null;
 	}
 
+	private boolean hasPayloadExpression(Method method) {
+		boolean hasPayloadExpression = method.isAnnotationPresent(Payload.class);
+		if (!hasPayloadExpression && this.methodMetadataMap != null) {
+			// check for the method metadata next
+			GatewayMethodMetadata metadata = this.methodMetadataMap.get(method.getName());
+			hasPayloadExpression = (metadata != null) && StringUtils.hasText(metadata.getPayloadExpression());
+		}
+		return hasPayloadExpression;
+	}
+
 	private void rethrowExceptionCauseIfPossible(Throwable originalException, Method method) throws Throwable {
 		Class<?>[] exceptionTypes = method.getExceptionTypes();
 		Throwable t = originalException;
@@ -507,4 +562,65 @@ public class GatewayProxyFactoryBean extends AbstractEndpoint implements Trackab
 		}
 	}
 
+
+	/**
+	 * Translates the failure of an asynchronous request the same way as
+	 * {@link AsyncInvocationTask} does.
+	 */
+	private class AsyncReplyFuture implements Future<Object> {
+
+		private final Future<Object> reply;
+
+		private final Method method;
+
+		private AsyncReplyFuture(Future<Object> reply, Method method) {
+			this.reply = reply;
+			this.method = method;
+		}
+
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			return this.reply.cancel(mayInterruptIfRunning);
+		}
+
+		public boolean isCancelled() {
+			return this.reply.isCancelled();
+		}
+
+		public boolean isDone() {
+			return this.reply.isDone();
+		}
+
+		public Object get() throws InterruptedException, ExecutionException {
+			try {
+				return this.reply.get();
+			}
+			catch (ExecutionException e) {
+				throw this.translate(e);
+			}
+		}
+
+		public Object get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException,
+				TimeoutException {
+			try {
+				return this.reply.get(timeout, unit);
+			}
+			catch (ExecutionException e) {
+				throw this.translate(e);
+			}
+		}
+
+		private ExecutionException translate(ExecutionException e) {
+			try {
+				rethrowExceptionCauseIfPossible(e.getCause(), this.method);
+			}
+			catch (RuntimeException t) {
+				return new ExecutionException(t);
+			}
+			catch (Throwable t) {
+				return new ExecutionException(new MessagingException("asynchronous gateway invocation failed", t));
+			}
+			return e; // preceding call should always throw something
+		}
+	}
+
 }
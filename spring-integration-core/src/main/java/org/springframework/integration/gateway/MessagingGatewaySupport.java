@@ -16,6 +16,19 @@
 
 package org.springframework.integration.gateway;
 
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import org.springframework.integration.Message;
 import org.springframework.integration.MessageChannel;
 import org.springframework.integration.MessagingException;
@@ -34,6 +47,7 @@ import org.springframework.integration.mapping.OutboundMessageMapper;
 import org.springframework.integration.message.ErrorMessage;
 import org.springframework.integration.support.MessageBuilder;
 import org.springframework.integration.support.converter.SimpleMessageConverter;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.util.Assert;
 
 /**
@@ -72,6 +86,10 @@ public abstract class MessagingGatewaySupport extends AbstractEndpoint implement
 
 	private final Object replyMessageCorrelatorMonitor = new Object();
 
+	private final Map<ReplyFuture, Boolean> pendingReplies = new ConcurrentHashMap<ReplyFuture, Boolean>();
+
+	private volatile ScheduledFuture<?> replyTimeoutSweeper;
+
 
 	public MessagingGatewaySupport() {
 		MessagingTemplate template = new MessagingTemplate();
@@ -131,6 +149,13 @@ public abstract class MessagingGatewaySupport extends AbstractEndpoint implement
 		this.messagingTemplate.setReceiveTimeout(replyTimeout);
 	}
 
+	/**
+	 * @return the timeout value for receiving reply messages in milliseconds
+	 */
+	protected long getReplyTimeout() {
+		return this.replyTimeout;
+	}
+
 	/**
 	 * Provide an {@link InboundMessageMapper} for creating request Messages
 	 * from any object passed in a send or sendAndReceive operation.
@@ -192,6 +217,45 @@ public abstract class MessagingGatewaySupport extends AbstractEndpoint implement
 		}
 	}
 
+	/**
+	 * Send a request Message whose 'replyChannel' (and usually 'errorChannel') header has been
+	 * set by the caller, without waiting for the reply. As with sendAndReceive, replies sent to
+	 * a configured reply channel are forwarded to the reply channel header; unlike send, a
+	 * failure is always propagated to the caller, which may pass it to {@link #invokeErrorFlow(Throwable)}.
+	 * @param requestMessage the request Message
+	 * @since 2.2
+	 */
+	protected void sendRequestMessage(Message<?> requestMessage) {
+		this.initializeIfNecessary();
+		Assert.notNull(requestMessage, "request must not be null");
+		if (this.requestChannel == null) {
+			throw new MessagingException("No request channel available. Cannot send request message.");
+		}
+		if (this.replyChannel != null && this.replyMessageCorrelator == null) {
+			this.registerReplyMessageCorrelator();
+		}
+		this.messagingTemplate.send(this.requestChannel, this.historyWritingPostProcessor.postProcessMessage(requestMessage));
+	}
+
+	/**
+	 * @return the error channel, or null if errors are propagated to the caller
+	 * @since 2.2
+	 */
+	protected MessageChannel getErrorChannel() {
+		return this.errorChannel;
+	}
+
+	/**
+	 * Handle a failure as sendAndReceiveMessage does: send an ErrorMessage to the error channel
+	 * and wait for the reply of the error flow, or rethrow the failure if there is no error channel.
+	 * @param error the failure
+	 * @return the reply of the error flow; may be null
+	 * @since 2.2
+	 */
+	protected Message<?> invokeErrorFlow(Throwable error) {
+		return (Message<?>) this.handleError(error, false);
+	}
+
 	protected Object receive() {
 		this.initializeIfNecessary();
 		Assert.state(this.replyChannel != null && (this.replyChannel instanceof PollableChannel),
@@ -207,6 +271,129 @@ public abstract class MessagingGatewaySupport extends AbstractEndpoint implement
 		return (Message<?>) this.doSendAndReceive(object, false);
 	}
 
+	/**
+	 * Send the request using the provided executor and return a Future for the reply
+	 * without tying up a thread while waiting for it: the Future itself is the reply
+	 * channel of the request Message. It completes with the reply (converted, unless
+	 * shouldConvert is false), with the result of the error flow or the failure, or
+	 * with null once the reply timeout has elapsed. When a TaskScheduler is available,
+	 * requests that time out are also swept periodically. An error flow is invoked on
+	 * the executor too, never on the thread delivering the error reply.
+	 * @param object the request
+	 * @param shouldConvert false to complete with the reply Message itself
+	 * @param executor the executor used to send the request and to invoke the error flow
+	 */
+	protected Future<Object> sendAndReceiveAsync(final Object object, boolean shouldConvert, Executor executor) {
+		this.initializeIfNecessary();
+		Assert.notNull(object, "request must not be null");
+		if (this.requestChannel == null) {
+			throw new MessagingException("No request channel available. Cannot send request message.");
+		}
+		if (this.replyChannel != null && this.replyMessageCorrelator == null) {
+			this.registerReplyMessageCorrelator();
+		}
+		final ReplyFuture future = new ReplyFuture(shouldConvert, this.replyTimeout, executor);
+		if (this.replyTimeout >= 0 && this.startReplyTimeoutSweeper()) {
+			this.pendingReplies.put(future, Boolean.TRUE);
+		}
+		executor.execute(new Runnable() {
+			public void run() {
+				sendAsyncRequest(object, future);
+			}
+		});
+		return future;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void sendAsyncRequest(Object object, ReplyFuture future) {
+		try {
+			Message<?> requestMessage = (object instanceof Message<?>)
+					? (Message<?>) object : this.requestMapper.toMessage(object);
+			requestMessage = MessageBuilder.fromMessage(requestMessage)
+					.setReplyChannel(future).setErrorChannel(future).build();
+			requestMessage = this.historyWritingPostProcessor.postProcessMessage(requestMessage);
+			this.messagingTemplate.send(this.requestChannel, requestMessage);
+		}
+		catch (Exception e) {
+			logger.warn("failure occurred in gateway sendAndReceive", e);
+			this.completeWithError(future, e);
+		}
+	}
+
+	private void handleAsyncReply(ReplyFuture future, Message<?> reply) {
+		Object result = reply;
+		Throwable error = null;
+		if (reply instanceof ErrorMessage) {
+			error = ((ErrorMessage) reply).getPayload();
+		}
+		else if (future.shouldConvert) {
+			result = this.messageConverter.fromMessage(reply);
+			if (result instanceof Throwable) {
+				error = (Throwable) result;
+			}
+		}
+		if (error == null) {
+			future.complete(result, null);
+		}
+		else if (this.errorChannel == null) {
+			this.completeWithError(future, error);
+		}
+		else {
+			// the error flow is a blocking sendAndReceive; keep it off the replying thread
+			final Throwable failure = error;
+			final ReplyFuture replyFuture = future;
+			try {
+				future.executor.execute(new Runnable() {
+					public void run() {
+						completeWithError(replyFuture, failure);
+					}
+				});
+			}
+			catch (RejectedExecutionException e) {
+				logger.warn("Unable to invoke the error flow for an asynchronous reply", e);
+				future.complete(null, error);
+			}
+		}
+	}
+
+	private void completeWithError(ReplyFuture future, Throwable error) {
+		Object result = null;
+		try {
+			result = this.handleError(error, future.shouldConvert);
+		}
+		catch (Throwable t) {
+			future.complete(null, t);
+			return;
+		}
+		future.complete(result, null);
+	}
+
+	private boolean startReplyTimeoutSweeper() {
+		if (this.replyTimeoutSweeper != null) {
+			return true;
+		}
+		TaskScheduler taskScheduler = this.getTaskScheduler();
+		if (taskScheduler == null) {
+			return false;
+		}
+		synchronized (this.replyMessageCorrelatorMonitor) {
+			if (this.replyTimeoutSweeper == null) {
+				long interval = Math.max(100, Math.min(this.replyTimeout, 1000));
+				this.replyTimeoutSweeper = taskScheduler.scheduleWithFixedDelay(new Runnable() {
+					public void run() {
+						long now = System.currentTimeMillis();
+						for (ReplyFuture future : pendingReplies.keySet()) {
+							if (future.deadline <= now) {
+								future.complete(null, null);
+							}
+						}
+					}
+				}, interval);
+			}
+		}
+		return true;
+	}
+
 	@SuppressWarnings("unchecked")
 	private Object doSendAndReceive(Object object, boolean shouldConvert) {
 		this.initializeIfNecessary();
@@ -242,32 +429,37 @@ public abstract class MessagingGatewaySupport extends AbstractEndpoint implement
 		}
 
 		if (error != null) {
-			if (this.errorChannel != null) {
-				Message<?> errorMessage = new ErrorMessage(error);
-				Message<?> errorFlowReply = null;
-				try {
-					errorFlowReply = this.messagingTemplate.sendAndReceive(this.errorChannel, errorMessage);
-				}
-				catch (Exception errorFlowFailure) {
-					throw new MessagingException(errorMessage, "failure occurred in error-handling flow", errorFlowFailure);
-				}
-				if (shouldConvert) {
-					Object result = (errorFlowReply != null) ? errorFlowReply.getPayload() : null;
-					if (result instanceof Throwable) {
-						this.rethrow((Throwable) result, "error flow returned Exception");
-					}
-					return result;
-				}
-				if (errorFlowReply != null && errorFlowReply.getPayload() instanceof Throwable) {
-					this.rethrow((Throwable) errorFlowReply.getPayload(), "error flow returned an Error Message");
+			return this.handleError(error, shouldConvert);
+		}
+		return reply;
+	}
+
+	private Object handleError(Throwable error, boolean shouldConvert) {
+		if (this.errorChannel != null) {
+			Message<?> errorMessage = new ErrorMessage(error);
+			Message<?> errorFlowReply = null;
+			try {
+				errorFlowReply = this.messagingTemplate.sendAndReceive(this.errorChannel, errorMessage);
+			}
+			catch (Exception errorFlowFailure) {
+				throw new MessagingException(errorMessage, "failure occurred in error-handling flow", errorFlowFailure);
+			}
+			if (shouldConvert) {
+				Object result = (errorFlowReply != null) ? errorFlowReply.getPayload() : null;
+				if (result instanceof Throwable) {
+					this.rethrow((Throwable) result, "error flow returned Exception");
 				}
-				return errorFlowReply;
+				return result;
 			}
-			else { // no errorChannel so we'll propagate
-				this.rethrow(error, "gateway received checked Exception");
+			if (errorFlowReply != null && errorFlowReply.getPayload() instanceof Throwable) {
+				this.rethrow((Throwable) errorFlowReply.getPayload(), "error flow returned an Error Message");
 			}
+			return errorFlowReply;
 		}
-		return reply;
+		else { // no errorChannel so we'll propagate
+			this.rethrow(error, "gateway received checked Exception");
+		}
+		return null;
 	}
 
 	private void rethrow(Throwable t, String description) {
@@ -315,6 +507,130 @@ public abstract class MessagingGatewaySupport extends AbstractEndpoint implement
 		if (this.replyMessageCorrelator != null) {
 			this.replyMessageCorrelator.stop();
 		}
+		synchronized (this.replyMessageCorrelatorMonitor) {
+			if (this.replyTimeoutSweeper != null) {
+				this.replyTimeoutSweeper.cancel(false);
+				this.replyTimeoutSweeper = null;
+			}
+		}
+	}
+
+
+	/**
+	 * The reply channel of an asynchronous request and the Future for its result.
+	 */
+	private class ReplyFuture implements Future<Object>, MessageChannel {
+
+		private final boolean shouldConvert;
+
+		private final long deadline;
+
+		private final Executor executor;
+
+		private final CountDownLatch latch = new CountDownLatch(1);
+
+		private final AtomicBoolean completed = new AtomicBoolean();
+
+		private volatile boolean cancelled;
+
+		private volatile Object result;
+
+		private volatile Throwable failure;
+
+		private ReplyFuture(boolean shouldConvert, long replyTimeout, Executor executor) {
+			this.shouldConvert = shouldConvert;
+			this.executor = executor;
+			this.deadline = replyTimeout < 0 ? Long.MAX_VALUE : System.currentTimeMillis() + replyTimeout;
+		}
+
+		public boolean send(Message<?> message) {
+			return this.send(message, -1);
+		}
+
+		public boolean send(Message<?> message, long timeout) {
+			if (this.isDone()) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Discarding late reply " + message);
+				}
+			}
+			else {
+				handleAsyncReply(this, message);
+			}
+			return true;
+		}
+
+		private boolean complete(Object result, Throwable failure) {
+			if (!this.completed.compareAndSet(false, true)) {
+				return false;
+			}
+			this.result = result;
+			this.failure = failure;
+			this.latch.countDown();
+			pendingReplies.remove(this);
+			return true;
+		}
+
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			if (this.complete(null, null)) {
+				this.cancelled = true;
+				return true;
+			}
+			return false;
+		}
+
+		public boolean isCancelled() {
+			return this.cancelled;
+		}
+
+		public boolean isDone() {
+			return this.completed.get();
+		}
+
+		public Object get() throws InterruptedException, ExecutionException {
+			this.await(Long.MAX_VALUE);
+			return this.getResult();
+		}
+
+		public Object get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException,
+				TimeoutException {
+			long waitUntil = System.currentTimeMillis() + unit.toMillis(timeout);
+			if (!this.await(waitUntil < 0 ? Long.MAX_VALUE : waitUntil)) {
+				throw new TimeoutException();
+			}
+			return this.getResult();
+		}
+
+		/**
+		 * Wait until the result is available, completing with null when the reply
+		 * timeout elapses first.
+		 * @return false if waitUntil elapsed first.
+		 */
+		private boolean await(long waitUntil) throws InterruptedException {
+			long until = Math.min(waitUntil, this.deadline);
+			if (until == Long.MAX_VALUE) {
+				this.latch.await();
+				return true;
+			}
+			if (this.latch.await(until - System.currentTimeMillis(), TimeUnit.MILLISECONDS)) {
+				return true;
+			}
+			if (until == this.deadline) {
+				this.complete(null, null);
+				this.latch.await();
+				return true;
+			}
+			return false;
+		}
+
+		private Object getResult() throws ExecutionException {
+			if (this.cancelled) {
+				throw new CancellationException();
+			}
+			if (this.failure != null) {
+				throw new ExecutionException(this.failure);
+			}
+			return this.result;
+		}
 	}
 
 
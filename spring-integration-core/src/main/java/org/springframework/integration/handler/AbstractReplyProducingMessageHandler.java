@@ -27,6 +27,8 @@ import org.springframework.integration.MessageDeliveryException;
 import org.springframework.integration.MessageHeaders;
 import org.springframework.integration.core.MessageProducer;
 import org.springframework.integration.core.MessagingTemplate;
+import org.springframework.integration.handler.advice.DeferredReplyHandler;
+import org.springframework.integration.handler.advice.RequestHandlerRetryAdvice;
 import org.springframework.integration.support.MessageBuilder;
 import org.springframework.integration.support.channel.ChannelResolutionException;
 import org.springframework.integration.support.channel.ChannelResolver;
@@ -91,6 +93,10 @@ public abstract class AbstractReplyProducingMessageHandler extends AbstractMessa
 		this.requiresReply = requiresReply;
 	}
 
+	protected boolean isRequiresReply() {
+		return this.requiresReply;
+	}
+
 	/**
 	 * Provides access to the {@link MessagingTemplate} for subclasses.
 	 */
@@ -118,6 +124,9 @@ public abstract class AbstractReplyProducingMessageHandler extends AbstractMessa
 		if (!CollectionUtils.isEmpty(this.adviceChain)) {
 			ProxyFactory proxyFactory = new ProxyFactory(new AdvisedRequestHandler());
 			for (Advice advice : this.adviceChain) {
+				Assert.state(!(this.requiresReply && advice instanceof RequestHandlerRetryAdvice
+						&& ((RequestHandlerRetryAdvice) advice).isRetryScheduled()),
+						"A scheduled retry advice cannot be used when 'requiresReply' is true");
 				proxyFactory.addAdvice(advice);
 			}
 			this.advisedRequestHandler = (RequestHandler) proxyFactory.getProxy(this.beanClassLoader);
@@ -149,7 +158,16 @@ public abstract class AbstractReplyProducingMessageHandler extends AbstractMessa
 		}
 	}
 
-	private void handleResult(Object result, MessageHeaders requestHeaders) {
+	/**
+	 * Create reply Message(s) from the result and send them to the output channel, or
+	 * to the 'replyChannel' header of the request if no output channel has been configured.
+	 * Subclasses that complete their work asynchronously (and therefore return
+	 * <code>null</code> from {@link #handleRequestMessage(Message)}) may invoke this
+	 * method once the result is available.
+	 * @param result the result; a Message, a MessageBuilder, or any plain Object
+	 * @param requestHeaders the headers of the request Message
+	 */
+	protected final void handleResult(Object result, MessageHeaders requestHeaders) {
 		if (result instanceof Iterable<?> && this.shouldSplitReply((Iterable<?>) result)) {
 			for (Object o : (Iterable<?>) result) {
 				this.produceReply(o, requestHeaders);
@@ -256,12 +274,16 @@ public abstract class AbstractReplyProducingMessageHandler extends AbstractMessa
 		String toString();
 	}
 
-	private class AdvisedRequestHandler implements RequestHandler {
+	private class AdvisedRequestHandler implements RequestHandler, DeferredReplyHandler {
 
 		public Object handleRequestMessage(Message<?> requestMessage) {
 			return AbstractReplyProducingMessageHandler.this.handleRequestMessage(requestMessage);
 		}
 
+		public void handleDeferredReply(Message<?> requestMessage, Object result) {
+			AbstractReplyProducingMessageHandler.this.handleResult(result, requestMessage.getHeaders());
+		}
+
 		@Override
 		public String toString() {
 			return AbstractReplyProducingMessageHandler.this.toString();
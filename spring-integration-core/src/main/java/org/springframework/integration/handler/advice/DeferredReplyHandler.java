@@ -0,0 +1,37 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.handler.advice;
+
+import org.springframework.integration.Message;
+
+/**
+ * Implemented by advised request handlers that can accept a result produced after
+ * the advised invocation has returned - for example by a retry attempt scheduled by
+ * {@link RequestHandlerRetryAdvice}.
+ *
+ * @since 2.2
+ */
+public interface DeferredReplyHandler {
+
+	/**
+	 * Handle the result of processing the request message, as if it had been returned
+	 * by the original invocation.
+	 * @param requestMessage the request message.
+	 * @param result the result; never null.
+	 */
+	void handleDeferredReply(Message<?> requestMessage, Object result);
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.handler.advice;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.integration.Message;
+import org.springframework.integration.MessageDeliveryException;
+import org.springframework.integration.MessagingException;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.util.Assert;
+
+/**
+ * A bulkhead that limits the number of concurrent calls to the advised handlers
+ * (all handlers sharing this advice instance count towards the same limit).
+ * A call beyond the limit waits up to maxWait milliseconds for another call to
+ * complete and is rejected with a {@link MessageDeliveryException} if none does;
+ * by default such calls are rejected immediately.
+ *
+ * @since 2.2
+ */
+@ManagedResource
+public class RequestHandlerBulkheadAdvice extends AbstractRequestHandlerAdvice {
+
+	private volatile int maxConcurrentCalls = 10;
+
+	private volatile Semaphore permits = new Semaphore(10);
+
+	private volatile long maxWait;
+
+	private final AtomicLong rejectedCount = new AtomicLong();
+
+	/**
+	 * Set the maximum number of concurrent calls; default 10. Must be set before the
+	 * advice is used.
+	 */
+	public void setMaxConcurrentCalls(int maxConcurrentCalls) {
+		Assert.isTrue(maxConcurrentCalls > 0, "'maxConcurrentCalls' must be positive");
+		this.maxConcurrentCalls = maxConcurrentCalls;
+		this.permits = new Semaphore(maxConcurrentCalls);
+	}
+
+	/**
+	 * Set how long (in milliseconds) a call waits when the limit has been reached;
+	 * default 0 (reject immediately).
+	 */
+	public void setMaxWait(long maxWait) {
+		this.maxWait = maxWait;
+	}
+
+	@ManagedAttribute
+	public int getMaxConcurrentCalls() {
+		return this.maxConcurrentCalls;
+	}
+
+	@ManagedAttribute
+	public int getActiveCalls() {
+		return this.maxConcurrentCalls - this.permits.availablePermits();
+	}
+
+	@ManagedAttribute
+	public long getRejectedCount() {
+		return this.rejectedCount.get();
+	}
+
+	@Override
+	protected Object doInvoke(ExecutionCallback callback, Object target, Message<?> message) throws Exception {
+		Semaphore permits = this.permits;
+		boolean acquired;
+		if (this.maxWait > 0) {
+			try {
+				acquired = permits.tryAcquire(this.maxWait, TimeUnit.MILLISECONDS);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new MessagingException(message, "Interrupted while waiting for the bulkhead", e);
+			}
+		}
+		else {
+			acquired = permits.tryAcquire();
+		}
+		if (!acquired) {
+			this.rejectedCount.incrementAndGet();
+			throw new MessageDeliveryException(message, "Bulkhead is full (" + this.maxConcurrentCalls
+					+ " concurrent calls) for " + target);
+		}
+		try {
+			return callback.execute();
+		}
+		finally {
+			permits.release();
+		}
+	}
+
+}
@@ -18,25 +18,51 @@ package org.springframework.integration.handler.advice;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.springframework.integration.Message;
 import org.springframework.integration.MessagingException;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.util.Assert;
 
 /**
  * A circuit breaker that stops calling a failing service after threshold
  * failures, until halfOpenAfter milliseconds has elapsed. A successful
  * call resets the failure counter.
+ * <p>
+ * Alternatively, when a sliding window size is set, the circuit opens when, over
+ * the last slidingWindowSize calls (and once at least minimumNumberOfCalls have
+ * been made), the percentage of failed calls reaches the failure rate threshold or
+ * the percentage of calls slower than slowCallDuration reaches the slow call rate
+ * threshold. After halfOpenAfter milliseconds a single trial call is let through;
+ * the circuit closes if it succeeds and opens again if it fails.
  *
  * @author Gary Russell
  * @since 2.2
  *
  */
+@ManagedResource
 public class RequestHandlerCircuitBreakerAdvice extends AbstractRequestHandlerAdvice {
 
+	private static final long HALF_OPEN = -1;
+
 	private volatile int threshold = 5;
 
 	private volatile long halfOpenAfter = 1000;
 
+	private volatile int slidingWindowSize;
+
+	private volatile int minimumNumberOfCalls;
+
+	private volatile float failureRateThreshold = 50;
+
+	private volatile long slowCallDuration;
+
+	private volatile float slowCallRateThreshold = 100;
+
 	private final ConcurrentMap<Object, AdvisedMetadata> metadataMap = new ConcurrentHashMap<Object, AdvisedMetadata>();
 
 	public void setThreshold(int threshold) {
@@ -47,13 +73,88 @@ public class RequestHandlerCircuitBreakerAdvice extends AbstractRequestHandlerAd
 		this.halfOpenAfter = halfOpenAfter;
 	}
 
+	/**
+	 * Set the number of most recent calls on which failure and slow call rates are
+	 * calculated; when 0 (the default), the circuit opens after 'threshold'
+	 * consecutive failures instead. Must be set before the advice is used.
+	 */
+	public void setSlidingWindowSize(int slidingWindowSize) {
+		Assert.isTrue(slidingWindowSize >= 0, "'slidingWindowSize' must not be negative");
+		this.slidingWindowSize = slidingWindowSize;
+	}
+
+	/**
+	 * Set the number of calls that must be recorded in the sliding window before the
+	 * rates are evaluated; defaults to the sliding window size.
+	 */
+	public void setMinimumNumberOfCalls(int minimumNumberOfCalls) {
+		this.minimumNumberOfCalls = minimumNumberOfCalls;
+	}
+
+	/**
+	 * Set the percentage of failed calls in the sliding window at which the circuit
+	 * opens; default 50.
+	 */
+	public void setFailureRateThreshold(float failureRateThreshold) {
+		this.failureRateThreshold = failureRateThreshold;
+	}
+
+	/**
+	 * Set the duration (in milliseconds) above which a call counts as slow;
+	 * default 0 (slow calls are not tracked).
+	 */
+	public void setSlowCallDuration(long slowCallDuration) {
+		this.slowCallDuration = slowCallDuration;
+	}
+
+	/**
+	 * Set the percentage of slow calls in the sliding window at which the circuit
+	 * opens; default 100.
+	 */
+	public void setSlowCallRateThreshold(float slowCallRateThreshold) {
+		this.slowCallRateThreshold = slowCallRateThreshold;
+	}
+
+	/**
+	 * Return the number of advised handlers for which the circuit is currently open.
+	 */
+	@ManagedAttribute
+	public int getOpenCircuitCount() {
+		int count = 0;
+		for (AdvisedMetadata metadata : this.metadataMap.values()) {
+			if (this.isOpen(metadata)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Close all circuits and discard the recorded failures.
+	 */
+	@ManagedOperation
+	public void reset() {
+		this.metadataMap.clear();
+	}
+
+	private boolean isOpen(AdvisedMetadata metadata) {
+		if (this.slidingWindowSize > 0) {
+			return metadata.getOpenedAt().get() != 0;
+		}
+		return metadata.getFailures().get() >= this.threshold &&
+				System.currentTimeMillis() - metadata.getLastFailure() < this.halfOpenAfter;
+	}
+
 	@Override
 	protected Object doInvoke(ExecutionCallback callback, Object target, Message<?> message) throws Exception {
 		AdvisedMetadata metadata = this.metadataMap.get(target);
 		if (metadata == null) {
-			this.metadataMap.putIfAbsent(target, new AdvisedMetadata());
+			this.metadataMap.putIfAbsent(target, new AdvisedMetadata(this.slidingWindowSize));
 			metadata = this.metadataMap.get(target);
 		}
+		if (metadata.getWindow() != null) {
+			return this.doInvokeWithWindow(callback, target, metadata);
+		}
 		if (metadata.getFailures().get() >= this.threshold &&
 				System.currentTimeMillis() - metadata.getLastFailure() < this.halfOpenAfter) {
 			throw new MessagingException("Circuit Breaker is Open for " + target);
@@ -73,12 +174,84 @@ public class RequestHandlerCircuitBreakerAdvice extends AbstractRequestHandlerAd
 		}
 	}
 
+	private Object doInvokeWithWindow(ExecutionCallback callback, Object target, AdvisedMetadata metadata)
+			throws Exception {
+		AtomicLong openedAt = metadata.getOpenedAt();
+		long opened = openedAt.get();
+		boolean trial = false;
+		if (opened != 0) {
+			if (opened == HALF_OPEN || System.currentTimeMillis() - opened < this.halfOpenAfter
+					|| !openedAt.compareAndSet(opened, HALF_OPEN)) {
+				throw new MessagingException("Circuit Breaker is Open for " + target);
+			}
+			trial = true;
+		}
+		long start = System.currentTimeMillis();
+		boolean failed = true;
+		try {
+			Object result = callback.execute();
+			failed = false;
+			return result;
+		}
+		finally {
+			long duration = System.currentTimeMillis() - start;
+			boolean slow = this.slowCallDuration > 0 && duration > this.slowCallDuration;
+			if (trial) {
+				if (failed || slow) {
+					openedAt.set(System.currentTimeMillis());
+				}
+				else {
+					if (logger.isDebugEnabled()) {
+						logger.debug("Closing Circuit Breaker for " + target);
+					}
+					metadata.getWindow().reset();
+					openedAt.set(0);
+				}
+			}
+			else {
+				SlidingWindow window = metadata.getWindow();
+				window.record(failed, slow);
+				if (this.shouldOpen(window) && openedAt.compareAndSet(0, System.currentTimeMillis())) {
+					if (logger.isDebugEnabled()) {
+						logger.debug("Opening Circuit Breaker for " + target + ": " + window);
+					}
+				}
+			}
+		}
+	}
+
+	private boolean shouldOpen(SlidingWindow window) {
+		int calls = window.getCalls();
+		int minimumNumberOfCalls = this.minimumNumberOfCalls > 0 ? this.minimumNumberOfCalls : this.slidingWindowSize;
+		if (calls == 0 || calls < minimumNumberOfCalls) {
+			return false;
+		}
+		return window.getFailures() * 100f >= this.failureRateThreshold * calls
+				|| (this.slowCallDuration > 0 && window.getSlowCalls() * 100f >= this.slowCallRateThreshold * calls);
+	}
+
 	private class AdvisedMetadata {
 
 		private final AtomicInteger failures = new AtomicInteger();
 
 		private volatile long lastFailure;
 
+		private final AtomicLong openedAt = new AtomicLong();
+
+		private final SlidingWindow window;
+
+		private AdvisedMetadata(int slidingWindowSize) {
+			this.window = slidingWindowSize > 0 ? new SlidingWindow(slidingWindowSize) : null;
+		}
+
+		private AtomicLong getOpenedAt() {
+			return openedAt;
+		}
+
+		private SlidingWindow getWindow() {
+			return window;
+		}
+
 		private long getLastFailure() {
 			return lastFailure;
 		}
@@ -92,4 +265,73 @@ public class RequestHandlerCircuitBreakerAdvice extends AbstractRequestHandlerAd
 		}
 	}
 
+	/**
+	 * Outcomes of the most recent calls, kept in a ring buffer with running totals
+	 * so that recording a call does not require a lock.
+	 */
+	private static class SlidingWindow {
+
+		private static final int RECORDED = 1;
+
+		private static final int FAILED = 2;
+
+		private static final int SLOW = 4;
+
+		private final AtomicIntegerArray outcomes;
+
+		private final AtomicInteger cursor = new AtomicInteger();
+
+		private final AtomicInteger calls = new AtomicInteger();
+
+		private final AtomicInteger failures = new AtomicInteger();
+
+		private final AtomicInteger slowCalls = new AtomicInteger();
+
+		private SlidingWindow(int size) {
+			this.outcomes = new AtomicIntegerArray(size);
+		}
+
+		private void record(boolean failed, boolean slow) {
+			int outcome = RECORDED | (failed ? FAILED : 0) | (slow ? SLOW : 0);
+			int slot = (this.cursor.getAndIncrement() & Integer.MAX_VALUE) % this.outcomes.length();
+			this.count(this.outcomes.getAndSet(slot, outcome), -1);
+			this.count(outcome, 1);
+		}
+
+		private void reset() {
+			for (int i = 0; i < this.outcomes.length(); i++) {
+				this.count(this.outcomes.getAndSet(i, 0), -1);
+			}
+		}
+
+		private void count(int outcome, int delta) {
+			if ((outcome & RECORDED) != 0) {
+				this.calls.addAndGet(delta);
+			}
+			if ((outcome & FAILED) != 0) {
+				this.failures.addAndGet(delta);
+			}
+			if ((outcome & SLOW) != 0) {
+				this.slowCalls.addAndGet(delta);
+			}
+		}
+
+		private int getCalls() {
+			return this.calls.get();
+		}
+
+		private int getFailures() {
+			return this.failures.get();
+		}
+
+		private int getSlowCalls() {
+			return this.slowCalls.get();
+		}
+
+		@Override
+		public String toString() {
+			return "calls=" + this.calls + ", failures=" + this.failures + ", slowCalls=" + this.slowCalls;
+		}
+	}
+
 }
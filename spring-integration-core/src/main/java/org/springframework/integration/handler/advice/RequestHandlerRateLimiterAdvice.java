@@ -0,0 +1,141 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.handler.advice;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.integration.Message;
+import org.springframework.integration.MessageDeliveryException;
+import org.springframework.integration.MessagingException;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.util.Assert;
+
+/**
+ * A token bucket rate limiter for the advised handlers (all handlers sharing this
+ * advice instance draw from the same bucket). The bucket holds up to burstCapacity
+ * permits and is refilled at permitsPerSecond; a call that finds it empty waits up
+ * to timeout milliseconds for a permit and is otherwise rejected with a
+ * {@link MessageDeliveryException}. By default such calls are rejected immediately.
+ * <p>
+ * The bucket is kept as a single theoretical arrival time (the generic cell rate
+ * algorithm), so acquiring a permit is one compare-and-set.
+ *
+ * @since 2.2
+ */
+@ManagedResource
+public class RequestHandlerRateLimiterAdvice extends AbstractRequestHandlerAdvice {
+
+	private volatile double permitsPerSecond = 10;
+
+	private volatile int burstCapacity = 10;
+
+	private volatile long timeout;
+
+	private volatile long intervalNanos = TimeUnit.SECONDS.toNanos(1) / 10;
+
+	private final AtomicLong theoreticalArrivalTime = new AtomicLong(System.nanoTime());
+
+	private final AtomicLong rejectedCount = new AtomicLong();
+
+	/**
+	 * Set the rate at which permits are issued; default 10 per second.
+	 */
+	public void setPermitsPerSecond(double permitsPerSecond) {
+		Assert.isTrue(permitsPerSecond > 0, "'permitsPerSecond' must be positive");
+		this.permitsPerSecond = permitsPerSecond;
+		this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+	}
+
+	/**
+	 * Set the number of permits that can be used in a burst after a quiet period;
+	 * default 10.
+	 */
+	public void setBurstCapacity(int burstCapacity) {
+		Assert.isTrue(burstCapacity > 0, "'burstCapacity' must be positive");
+		this.burstCapacity = burstCapacity;
+	}
+
+	/**
+	 * Set how long (in milliseconds) a call waits for a permit; default 0 (reject
+	 * immediately).
+	 */
+	public void setTimeout(long timeout) {
+		this.timeout = timeout;
+	}
+
+	@ManagedAttribute
+	public double getPermitsPerSecond() {
+		return this.permitsPerSecond;
+	}
+
+	@ManagedAttribute
+	public int getAvailablePermits() {
+		long interval = this.intervalNanos;
+		long backlog = Math.max(0, this.theoreticalArrivalTime.get() - System.nanoTime());
+		return (int) Math.max(0, this.burstCapacity - (backlog + interval - 1) / interval);
+	}
+
+	@ManagedAttribute
+	public long getRejectedCount() {
+		return this.rejectedCount.get();
+	}
+
+	@Override
+	protected Object doInvoke(ExecutionCallback callback, Object target, Message<?> message) throws Exception {
+		long wait = this.reserve();
+		if (wait > 0) {
+			try {
+				TimeUnit.NANOSECONDS.sleep(wait);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new MessagingException(message, "Interrupted while waiting for the rate limiter", e);
+			}
+		}
+		else if (wait < 0) {
+			this.rejectedCount.incrementAndGet();
+			throw new MessageDeliveryException(message, "Rate limit of " + this.permitsPerSecond
+					+ " calls per second exceeded for " + target);
+		}
+		return callback.execute();
+	}
+
+	/**
+	 * Reserve a permit.
+	 * @return 0 if a permit is available now, the time (in nanoseconds) to wait for
+	 * the reserved permit, or -1 if no permit is available within the timeout.
+	 */
+	private long reserve() {
+		long interval = this.intervalNanos;
+		long burst = interval * this.burstCapacity;
+		long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(this.timeout);
+		while (true) {
+			long now = System.nanoTime();
+			long arrival = this.theoreticalArrivalTime.get();
+			long next = (arrival - now > 0 ? arrival : now) + interval;
+			long wait = next - now - burst;
+			if (wait > timeoutNanos) {
+				return -1;
+			}
+			if (this.theoreticalArrivalTime.compareAndSet(arrival, next)) {
+				return wait > 0 ? wait : 0;
+			}
+		}
+	}
+
+}
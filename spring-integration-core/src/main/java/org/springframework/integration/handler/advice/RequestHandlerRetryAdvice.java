@@ -15,13 +15,24 @@
  */
 package org.springframework.integration.handler.advice;
 
+import java.util.Date;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.integration.Message;
+import org.springframework.integration.MessageChannel;
 import org.springframework.integration.MessagingException;
+import org.springframework.integration.context.IntegrationContextUtils;
 import org.springframework.retry.RecoveryCallback;
 import org.springframework.retry.RetryCallback;
 import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryPolicy;
 import org.springframework.retry.RetryState;
+import org.springframework.retry.policy.SimpleRetryPolicy;
 import org.springframework.retry.support.RetryTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.util.Assert;
 
 /**
  * Uses spring-retry to perform stateless or stateful retry.
@@ -30,16 +41,47 @@ import org.springframework.retry.support.RetryTemplate;
  * exception is thrown but state is maintained to support
  * the retry policies. Stateful retry requires a
  * {@link RetryStateGenerator}.
+ * <p>
+ * When a {@link TaskScheduler} is provided, stateless retries are scheduled
+ * instead: if an attempt fails, the next one is scheduled after an exponential
+ * back off and the calling thread returns immediately (without a reply); later
+ * attempts run on the scheduler, and their result (or that of the recovery
+ * callback) is sent on by the advised handler. In this mode the
+ * {@link RetryPolicy} and back off settings of this advice are used; the retry
+ * and back off policies of a configured {@link RetryTemplate} are ignored.
+ * Stateful retry is not affected.
+ * <p>
+ * Since the caller returns before a failed message has been handled, scheduled
+ * retry gives at-most-once semantics: the caller (and any transaction it is
+ * running in) sees the first attempt as successful, and a message whose retries
+ * are still pending when the application stops is lost. For the same reason it
+ * cannot be used with a handler that requires a reply, and a final failure must
+ * be recovered: if no {@link RecoveryCallback} is provided, an
+ * {@link ErrorMessageSendingRecoverer} sending to the 'errorChannel' bean is used,
+ * which must exist when the advice is initialized.
  * @author Gary Russell
  * @since 2.2
  *
  */
-public class RequestHandlerRetryAdvice extends AbstractRequestHandlerAdvice {
+public class RequestHandlerRetryAdvice extends AbstractRequestHandlerAdvice
+		implements BeanFactoryAware, InitializingBean {
 
 	private volatile RetryTemplate retryTemplate = new RetryTemplate();
 
 	private volatile RecoveryCallback<Object> recoveryCallback;
 
+	private volatile TaskScheduler taskScheduler;
+
+	private volatile RetryPolicy retryPolicy = new SimpleRetryPolicy();
+
+	private volatile long initialInterval = 100;
+
+	private volatile double multiplier = 2;
+
+	private volatile long maxInterval = 30000;
+
+	private volatile BeanFactory beanFactory;
+
 	// Stateless unless a state generator is provided
 	private volatile RetryStateGenerator retryStateGenerator =
 			new RetryStateGenerator() {
@@ -60,27 +102,158 @@ public class RequestHandlerRetryAdvice extends AbstractRequestHandlerAdvice {
 		this.retryStateGenerator = retryStateGenerator;
 	}
 
+	public void setBeanFactory(BeanFactory beanFactory) {
+		this.beanFactory = beanFactory;
+	}
+
+	/**
+	 * Set the scheduler on which stateless retries are performed; when set, a failed
+	 * attempt no longer blocks the calling thread while backing off, and the
+	 * retry template's policies are not used.
+	 * @see RequestHandlerRetryAdvice
+	 */
+	public void setTaskScheduler(TaskScheduler taskScheduler) {
+		this.taskScheduler = taskScheduler;
+	}
+
+	/**
+	 * @return true if stateless retries are scheduled on a {@link TaskScheduler}
+	 * rather than performed on the calling thread.
+	 */
+	public boolean isRetryScheduled() {
+		return this.taskScheduler != null;
+	}
+
+	/**
+	 * Set the policy deciding whether a scheduled retry is attempted.
+	 * Only used with a {@link #setTaskScheduler(TaskScheduler) taskScheduler};
+	 * default: a {@link SimpleRetryPolicy} (3 attempts).
+	 */
+	public void setRetryPolicy(RetryPolicy retryPolicy) {
+		Assert.notNull(retryPolicy, "'retryPolicy' must not be null");
+		this.retryPolicy = retryPolicy;
+	}
+
+	/**
+	 * Set the delay before the first scheduled retry; default 100 milliseconds.
+	 */
+	public void setInitialInterval(long initialInterval) {
+		this.initialInterval = initialInterval;
+	}
+
+	/**
+	 * Set the factor by which the delay grows for each subsequent scheduled retry;
+	 * default 2.
+	 */
+	public void setMultiplier(double multiplier) {
+		Assert.isTrue(multiplier >= 1, "'multiplier' must be at least 1");
+		this.multiplier = multiplier;
+	}
+
+	/**
+	 * Set the maximum delay between scheduled retries; default 30 seconds.
+	 */
+	public void setMaxInterval(long maxInterval) {
+		this.maxInterval = maxInterval;
+	}
+
+	public void afterPropertiesSet() {
+		if (this.taskScheduler != null && this.recoveryCallback == null) {
+			this.recoveryCallback = this.createDefaultRecoveryCallback();
+		}
+	}
+
 	@Override
 	protected Object doInvoke(final ExecutionCallback callback, Object target, final Message<?> message) throws Exception {
 		RetryState retryState = null;
 		retryState = this.retryStateGenerator.determineRetryState(message);
 
+		if (retryState == null && this.taskScheduler != null) {
+			Assert.state(this.recoveryCallback != null, "Scheduled retry requires a 'recoveryCallback'; "
+					+ "call afterPropertiesSet() to default it");
+			return this.attempt(callback, target, message, this.retryPolicy.open(null));
+		}
 		return retryTemplate.execute(new RetryCallback<Object>(){
 			public Object doWithRetry(RetryContext context) throws Exception {
-				try {
-					return callback.execute();
+				return invokeHandler(callback, message);
+			}
+		}, this.recoveryCallback, retryState);
+	}
+
+	private RecoveryCallback<Object> createDefaultRecoveryCallback() {
+		MessageChannel errorChannel = this.beanFactory == null ? null
+				: IntegrationContextUtils.getErrorChannel(this.beanFactory);
+		Assert.state(errorChannel != null, "Scheduled retry requires a 'recoveryCallback' "
+				+ "or an '" + IntegrationContextUtils.ERROR_CHANNEL_BEAN_NAME + "' bean");
+		return new ErrorMessageSendingRecoverer(errorChannel);
+	}
+
+	private Object invokeHandler(ExecutionCallback callback, Message<?> message) throws Exception {
+		try {
+			return callback.execute();
+		}
+		catch (MessagingException e) {
+			if (e.getFailedMessage() == null) {
+				e.setFailedMessage(message);
+			}
+			throw e;
+		}
+		catch (Exception e) {
+			throw new MessagingException(message, "Failed to invoke handler", e);
+		}
+	}
+
+	/**
+	 * Invoke the handler once; on failure, schedule the next attempt if the policy
+	 * allows it and return null, otherwise recover.
+	 */
+	private Object attempt(final ExecutionCallback callback, final Object target, final Message<?> message,
+			final RetryContext context) throws Exception {
+		try {
+			Object result = this.invokeHandler(callback, message);
+			this.retryPolicy.close(context);
+			return result;
+		}
+		catch (Exception e) {
+			this.retryPolicy.registerThrowable(context, e);
+			if (!this.retryPolicy.canRetry(context) || context.isExhaustedOnly()) {
+				this.retryPolicy.close(context);
+				return this.recoveryCallback.recover(context);
+			}
+			long delay = this.backOff(context.getRetryCount());
+			if (logger.isDebugEnabled()) {
+				logger.debug("Scheduling retry " + context.getRetryCount() + " for " + message + " in " + delay + "ms", e);
+			}
+			this.taskScheduler.schedule(new Runnable() {
+				public void run() {
+					retry(callback, target, message, context);
 				}
-				catch (MessagingException e) {
-					if (e.getFailedMessage() == null) {
-						e.setFailedMessage(message);
-					}
-					throw e;
+			}, new Date(System.currentTimeMillis() + delay));
+			return null;
+		}
+	}
+
+	private void retry(ExecutionCallback callback, Object target, Message<?> message, RetryContext context) {
+		try {
+			Object result = this.attempt(callback, target, message, context);
+			if (result != null) {
+				if (target instanceof DeferredReplyHandler) {
+					((DeferredReplyHandler) target).handleDeferredReply(message, result);
 				}
-				catch (Exception e) {
-					throw new MessagingException(message, "Failed to invoke handler", e);
+				else if (logger.isDebugEnabled()) {
+					logger.debug("Discarding result of retry for " + message + "; " + target
+							+ " does not accept deferred replies");
 				}
 			}
-		}, this.recoveryCallback, retryState);
+		}
+		catch (Throwable t) {
+			logger.error("Retries exhausted for " + message, t);
+		}
+	}
+
+	private long backOff(int retryCount) {
+		double delay = this.initialInterval * Math.pow(this.multiplier, retryCount - 1);
+		return (long) Math.min(delay, this.maxInterval);
 	}
 
 }
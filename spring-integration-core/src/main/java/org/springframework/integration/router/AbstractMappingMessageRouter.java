@@ -25,6 +25,7 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.config.SingletonBeanRegistry;
 import org.springframework.integration.Message;
 import org.springframework.integration.MessageChannel;
 import org.springframework.integration.MessagingException;
@@ -136,6 +137,44 @@ public abstract class AbstractMappingMessageRouter extends AbstractMessageRouter
 		if (this.channelResolver == null && beanFactory != null) {
 			this.channelResolver = new BeanFactoryChannelResolver(beanFactory);
 		}
+		if (this.channelResolver instanceof BeanFactoryChannelResolver
+				&& beanFactory instanceof SingletonBeanRegistry) {
+			this.preResolveMappedChannels((SingletonBeanRegistry) beanFactory);
+		}
+	}
+
+	/**
+	 * Populate the resolver's cache with the statically mapped channels that have
+	 * already been instantiated, so that the first messages do not pay for the lookups.
+	 * Other channels are not created here, which would defeat lazy initialization and
+	 * could introduce circular references; they are resolved (and cached, or reported)
+	 * when first routed to.
+	 */
+	private void preResolveMappedChannels(SingletonBeanRegistry registry) {
+		for (String channelName : this.channelMappings.values()) {
+			String beanName = this.decorateChannelName(channelName);
+			if (!registry.containsSingleton(beanName)) {
+				continue;
+			}
+			try {
+				this.channelResolver.resolveChannelName(beanName);
+			}
+			catch (ChannelResolutionException e) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Mapped channel '" + channelName + "' cannot be resolved yet", e);
+				}
+			}
+		}
+	}
+
+	private String decorateChannelName(String channelName) {
+		if (this.prefix != null) {
+			channelName = this.prefix + channelName;
+		}
+		if (this.suffix != null) {
+			channelName = channelName + this.suffix;
+		}
+		return channelName;
 	}
 
 	/**
@@ -188,12 +227,7 @@ public abstract class AbstractMappingMessageRouter extends AbstractMessageRouter
 		if (this.channelMappings.containsKey(channelKey)) {
 			channelName = this.channelMappings.get(channelKey);
 		}
-		if (this.prefix != null) {
-			channelName = this.prefix + channelName;
-		}
-		if (this.suffix != null) {
-			channelName = channelName + this.suffix;
-		}
+		channelName = this.decorateChannelName(channelName);
 		MessageChannel channel = resolveChannelForName(channelName, message);
 		if (channel != null) {
 			channels.add(channel);
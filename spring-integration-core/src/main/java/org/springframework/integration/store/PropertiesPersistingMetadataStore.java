@@ -40,7 +40,7 @@ import org.springframework.util.DefaultPropertiesPersister;
  * @author Mark Fisher
  * @since 2.0
  */
-public class PropertiesPersistingMetadataStore implements MetadataStore, InitializingBean, DisposableBean {
+public class PropertiesPersistingMetadataStore implements RemovableMetadataStore, InitializingBean, DisposableBean {
 
 	private final Log logger = LogFactory.getLog(getClass());
 
@@ -82,6 +82,10 @@ public class PropertiesPersistingMetadataStore implements MetadataStore, Initial
 		return this.metadata.getProperty(key);
 	}
 
+	public String remove(String key) {
+		return (String) this.metadata.remove(key);
+	}
+
 	public void destroy() throws Exception {
 		this.saveMetadata();
 	}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.store;
+
+/**
+ * A {@link MetadataStore} that also supports removing entries.
+ *
+ * @since 2.2
+ */
+public interface RemovableMetadataStore extends MetadataStore {
+
+	/**
+	 * Removes the value for the given key from this MetadataStore.
+	 * @return the previous value associated with the key, or null if none.
+	 */
+	String remove(String key);
+
+}
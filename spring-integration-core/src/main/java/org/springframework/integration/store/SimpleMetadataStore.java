@@ -23,7 +23,7 @@ import java.util.Map;
  * @author Mark Fisher
  * @since 2.0
  */
-public class SimpleMetadataStore implements MetadataStore {
+public class SimpleMetadataStore implements RemovableMetadataStore {
 
 	private final Map<String, String> metadata = new HashMap<String, String>();
 
@@ -36,4 +36,8 @@ public class SimpleMetadataStore implements MetadataStore {
 		return this.metadata.get(key);
 	}
 
+	public String remove(String key) {
+		return this.metadata.remove(key);
+	}
+
 }
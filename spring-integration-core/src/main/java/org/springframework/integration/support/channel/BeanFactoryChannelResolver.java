@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2010 the original author or authors.
+ * Copyright 2002-2012 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,9 @@
 
 package org.springframework.integration.support.channel;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.BeanFactoryAware;
@@ -27,6 +30,13 @@ import org.springframework.util.Assert;
  * 
  * <p>Will lookup Spring managed beans identified by bean name,
  * expecting them to be of type {@link MessageChannel}.
+ *
+ * <p>Channels that are singleton beans are cached after their first lookup, so
+ * that resolving the same name again does not go back to the BeanFactory.
+ * Non-singleton (e.g. prototype or thread-scoped) channels are looked up on
+ * every call, and failed lookups are never cached, so channels added later can
+ * still be resolved. Use {@link #removeFromCache(String)} or {@link #clearCache()}
+ * if a channel bean is replaced at runtime.
  * 
  * @author Mark Fisher
  * @see org.springframework.beans.factory.BeanFactory
@@ -35,6 +45,12 @@ public class BeanFactoryChannelResolver implements ChannelResolver, BeanFactoryA
 
 	private volatile BeanFactory beanFactory;
 
+	private final Map<String, MessageChannel> channelCache = new ConcurrentHashMap<String, MessageChannel>();
+
+	private volatile boolean cache = true;
+
+	private volatile int cacheLimit;
+
 
 	/**
 	 * Create a new instance of the {@link BeanFactoryChannelResolver} class.
@@ -64,12 +80,43 @@ public class BeanFactoryChannelResolver implements ChannelResolver, BeanFactoryA
 
 	public void setBeanFactory(BeanFactory beanFactory) {
 		this.beanFactory = beanFactory;
+		this.channelCache.clear();
+	}
+
+	/**
+	 * Set whether to cache resolved singleton channels. Default is "true".
+	 * @since 2.2
+	 */
+	public void setCache(boolean cache) {
+		this.cache = cache;
+		if (!cache) {
+			this.channelCache.clear();
+		}
+	}
+
+	/**
+	 * Set the maximum number of channels to cache; once reached, further names
+	 * are resolved against the BeanFactory on each call. Default is 0 (no limit).
+	 * @since 2.2
+	 */
+	public void setCacheLimit(int cacheLimit) {
+		this.cacheLimit = cacheLimit;
 	}
 
 	public MessageChannel resolveChannelName(String name) {
-		Assert.state(this.beanFactory != null, "BeanFactory is required");
+		MessageChannel channel = this.channelCache.get(name);
+		if (channel != null) {
+			return channel;
+		}
+		BeanFactory beanFactory = this.beanFactory;
+		Assert.state(beanFactory != null, "BeanFactory is required");
 		try {
-			return this.beanFactory.getBean(name, MessageChannel.class);
+			channel = beanFactory.getBean(name, MessageChannel.class);
+			if (this.cache && (this.cacheLimit <= 0 || this.channelCache.size() < this.cacheLimit)
+					&& beanFactory.isSingleton(name)) {
+				this.channelCache.put(name, channel);
+			}
+			return channel;
 		}
 		catch (BeansException e) {
 			throw new ChannelResolutionException(
@@ -77,4 +124,21 @@ public class BeanFactoryChannelResolver implements ChannelResolver, BeanFactoryA
 		}
 	}
 
+	/**
+	 * Remove the channel with the given name from the cache, for example after
+	 * its bean has been replaced.
+	 * @since 2.2
+	 */
+	public void removeFromCache(String name) {
+		this.channelCache.remove(name);
+	}
+
+	/**
+	 * Clear the entire channel cache.
+	 * @since 2.2
+	 */
+	public void clearCache() {
+		this.channelCache.clear();
+	}
+
 }
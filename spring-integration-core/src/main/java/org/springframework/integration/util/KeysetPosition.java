@@ -0,0 +1,165 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.util;
+
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.integration.store.MetadataStore;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
+
+/**
+ * The position reached by a polling adapter that walks a result in pages using
+ * keyset pagination: the key of the last row (or entity) of the latest page.
+ * <p/>
+ * When the position is advanced within a transaction, the new key is used by
+ * later reads in the same transaction, but it only becomes visible to other
+ * transactions (and is only persisted in the {@link MetadataStore}, if any)
+ * when the transaction commits. If the transaction rolls back, the position is
+ * unchanged, so the pages read by that transaction are read again.
+ * <p/>
+ * The initial key and a key restored from the MetadataStore are converted to
+ * the key type, if one is provided, or else a restored key is converted to the
+ * type of the initial key.
+ *
+ * @since 2.2
+ */
+public class KeysetPosition {
+
+	private final ConversionService conversionService = new DefaultConversionService();
+
+	private final Object initialKey;
+
+	private final Class<?> keyType;
+
+	private final MetadataStore metadataStore;
+
+	private final String metadataKey;
+
+	private volatile Object lastKey;
+
+	/**
+	 * @param initialKey The key used until the position first advances; may be null.
+	 * @param keyType The type of the keys; may be null.
+	 * @param metadataStore A store in which the position is persisted; may be null.
+	 * @param metadataKey The key of the position in the store; required if there is a store.
+	 */
+	public KeysetPosition(Object initialKey, Class<?> keyType, MetadataStore metadataStore, String metadataKey) {
+		if (metadataStore != null) {
+			Assert.hasText(metadataKey, "A 'metadataKey' is required when a 'metadataStore' is provided");
+		}
+		this.keyType = keyType;
+		this.initialKey = this.convert(initialKey, keyType);
+		this.metadataStore = metadataStore;
+		this.metadataKey = metadataKey;
+		if (metadataStore != null) {
+			String storedKey = metadataStore.get(metadataKey);
+			if (storedKey != null) {
+				this.lastKey = this.convert(storedKey,
+						keyType != null ? keyType : (this.initialKey != null ? this.initialKey.getClass() : null));
+			}
+		}
+	}
+
+	/**
+	 * @return The key to use for the next read; if the position has been advanced
+	 * by the current transaction, the key it was advanced to.
+	 */
+	public Object getKey() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			PendingKey pendingKey = (PendingKey) TransactionSynchronizationManager.getResource(this);
+			if (pendingKey != null) {
+				return pendingKey.key;
+			}
+		}
+		return this.lastKey != null ? this.lastKey : this.initialKey;
+	}
+
+	/**
+	 * Advances the position to the key of the last row of a page. If a transaction
+	 * is active, the new position is only published when it commits.
+	 * @param newKey The new key.
+	 */
+	public void advance(Object newKey) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			PendingKey pendingKey = (PendingKey) TransactionSynchronizationManager.getResource(this);
+			if (pendingKey == null) {
+				pendingKey = new PendingKey();
+				TransactionSynchronizationManager.bindResource(this, pendingKey);
+				TransactionSynchronizationManager.registerSynchronization(new PendingKeySynchronization(pendingKey));
+			}
+			pendingKey.key = newKey;
+		}
+		else {
+			this.publish(newKey);
+		}
+	}
+
+	private void publish(Object newKey) {
+		this.lastKey = newKey;
+		if (this.metadataStore != null && newKey != null) {
+			this.metadataStore.put(this.metadataKey, newKey.toString());
+		}
+	}
+
+	private Object convert(Object key, Class<?> type) {
+		if (key == null || type == null || type.isInstance(key)
+				|| !this.conversionService.canConvert(key.getClass(), type)) {
+			return key;
+		}
+		return this.conversionService.convert(key, type);
+	}
+
+
+	private static class PendingKey {
+
+		private volatile Object key;
+
+	}
+
+
+	private class PendingKeySynchronization extends TransactionSynchronizationAdapter {
+
+		private final PendingKey pendingKey;
+
+		PendingKeySynchronization(PendingKey pendingKey) {
+			this.pendingKey = pendingKey;
+		}
+
+		@Override
+		public void suspend() {
+			TransactionSynchronizationManager.unbindResource(KeysetPosition.this);
+		}
+
+		@Override
+		public void resume() {
+			TransactionSynchronizationManager.bindResource(KeysetPosition.this, this.pendingKey);
+		}
+
+		@Override
+		public void afterCompletion(int status) {
+			TransactionSynchronizationManager.unbindResourceIfPossible(KeysetPosition.this);
+			if (status == TransactionSynchronization.STATUS_COMMITTED) {
+				publish(this.pendingKey.key);
+			}
+		}
+
+	}
+
+}
@@ -17,6 +17,7 @@
 package org.springframework.integration.util;
 
 import java.lang.annotation.Annotation;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.ParameterizedType;
@@ -32,6 +33,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.commons.logging.Log;
@@ -68,6 +70,12 @@ import org.springframework.util.StringUtils;
  * is provided, and more than one declared method has that name, the method-selection will be dynamic, based on the
  * underlying SpEL method resolution. Alternatively, an annotation type may be provided so that the candidates for
  * SpEL's method resolution are determined by the presence of that annotation rather than the method name.
+ * <p>
+ * When a single candidate method is resolved for a message and its parameters are bound only to the payload, the
+ * message, the headers map or individual headers, the method is invoked reflectively with arguments extracted
+ * directly from the message, bypassing SpEL evaluation; other signatures are invoked through SpEL. The candidate
+ * resolution is cached for up to 256 payload types; the candidates for other payload types are resolved for each
+ * message.
  *
  * @author Mark Fisher
  * @author Oleg Zhurakousky
@@ -78,6 +86,8 @@ import org.springframework.util.StringUtils;
  */
 public class MessagingMethodInvokerHelper<T> extends AbstractExpressionEvaluator {
 
+	private static final int MAX_CACHED_PAYLOAD_TYPES = 256;
+
 	private final Log logger = LogFactory.getLog(this.getClass());
 
 	private final Object targetObject;
@@ -92,6 +102,11 @@ public class MessagingMethodInvokerHelper<T> extends AbstractExpressionEvaluator
 
 	private final boolean canProcessMessageList;
 
+	private final Map<Class<?>, List<HandlerMethod>> handlerMethodsByPayloadType =
+			new ConcurrentHashMap<Class<?>, List<HandlerMethod>>();
+
+	private final boolean directInvocation;
+
 
 	public MessagingMethodInvokerHelper(Object targetObject, Method method, Class<?> expectedType,
 			boolean canProcessMessageList) {
@@ -155,6 +170,7 @@ public class MessagingMethodInvokerHelper<T> extends AbstractExpressionEvaluator
 		this.targetObject = targetObject;
 		this.handlerMethods = Collections.<Class<?>, HandlerMethod> singletonMap(handlerMethod.getTargetParameterType()
 				.getObjectType(), handlerMethod);
+		this.directInvocation = !AopUtils.isJdkDynamicProxy(targetObject);
 		this.prepareEvaluationContext(this.getEvaluationContext(), method, annotationType);
 		this.setDisplayString(targetObject, method);
 	}
@@ -167,6 +183,7 @@ public class MessagingMethodInvokerHelper<T> extends AbstractExpressionEvaluator
 		this.targetObject = targetObject;
 		this.requiresReply = expectedType != null;
 		this.handlerMethods = this.findHandlerMethodsForTarget(targetObject, annotationType, methodName, requiresReply);
+		this.directInvocation = !AopUtils.isJdkDynamicProxy(targetObject);
 		this.prepareEvaluationContext(this.getEvaluationContext(), methodName, annotationType);
 		this.setDisplayString(targetObject, methodName);
 	}
@@ -219,12 +236,20 @@ public class MessagingMethodInvokerHelper<T> extends AbstractExpressionEvaluator
 		Throwable evaluationException = null;
 		List<HandlerMethod> candidates = this.findHandlerMethodsForParameters(parameters);
 		Assert.state(!candidates.isEmpty(), "No candidate methods found for messages.");
+		boolean singleCandidate = candidates.size() == 1;
 		for (HandlerMethod candidate : candidates) {
 			try {
-				Expression expression = candidate.getExpression();
 				Class<?> expectedType = this.expectedType != null ? this.expectedType : candidate.method.getReturnType();
+				Object value;
+				if (singleCandidate && this.directInvocation && parameters.getMessage() != null
+						&& candidate.canInvokeDirectly()) {
+					value = this.invokeDirectly(candidate, parameters.getMessage(), expectedType);
+				}
+				else {
+					value = this.evaluateExpression(candidate.getExpression(), parameters, expectedType);
+				}
 				@SuppressWarnings("unchecked")
-				T result = (T) this.evaluateExpression(expression, parameters, expectedType);
+				T result = (T) value;
 				if (this.requiresReply) {
 					Assert.notNull(result,
 							"Expression evaluation result was null, but this processor requires a reply.");
@@ -265,6 +290,34 @@ public class MessagingMethodInvokerHelper<T> extends AbstractExpressionEvaluator
 		}
 	}
 
+	/**
+	 * Invoke the handler method with arguments extracted from the message, converting the arguments and
+	 * the result the same way the SpEL invocation would, and propagating exceptions the same way.
+	 */
+	private Object invokeDirectly(HandlerMethod handlerMethod, Message<?> message, Class<?> expectedType)
+			throws Exception {
+		TypeConverter typeConverter = this.getEvaluationContext().getTypeConverter();
+		Object[] arguments = handlerMethod.resolveArguments(message, typeConverter);
+		Object result;
+		try {
+			result = handlerMethod.method.invoke(this.targetObject, arguments);
+		}
+		catch (InvocationTargetException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof Exception) {
+				throw (Exception) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw e;
+		}
+		if (expectedType == null || org.springframework.util.ClassUtils.isAssignableValue(expectedType, result)) {
+			return result;
+		}
+		return typeConverter.convertValue(result, TypeDescriptor.forObject(result), TypeDescriptor.valueOf(expectedType));
+	}
+
 	private Map<Class<?>, HandlerMethod> findHandlerMethodsForTarget(final Object targetObject,
 			final Class<? extends Annotation> annotationType, final String methodName, final boolean requiresReply) {
 
@@ -373,11 +426,20 @@ public class MessagingMethodInvokerHelper<T> extends AbstractExpressionEvaluator
 
 	private List<HandlerMethod> findHandlerMethodsForParameters(ParametersWrapper parameters) {
 		final Class<?> payloadType = parameters.getFirstParameterType();
-		HandlerMethod closestMatch = this.findClosestMatch(payloadType);
-		if (closestMatch != null) {
-			return Collections.singletonList(closestMatch);
+		List<HandlerMethod> candidates = this.handlerMethodsByPayloadType.get(payloadType);
+		if (candidates == null) {
+			HandlerMethod closestMatch = this.findClosestMatch(payloadType);
+			if (closestMatch != null) {
+				candidates = Collections.singletonList(closestMatch);
+			}
+			else {
+				candidates = Collections.unmodifiableList(new ArrayList<HandlerMethod>(this.handlerMethods.values()));
+			}
+			if (this.handlerMethodsByPayloadType.size() < MAX_CACHED_PAYLOAD_TYPES) {
+				this.handlerMethodsByPayloadType.put(payloadType, candidates);
+			}
 		}
-		return new ArrayList<HandlerMethod>(this.handlerMethods.values());
+		return candidates;
 	}
 
 	private HandlerMethod findClosestMatch(Class<?> payloadType) {
@@ -406,7 +468,8 @@ public class MessagingMethodInvokerHelper<T> extends AbstractExpressionEvaluator
 
 	/**
 	 * Helper class for generating and exposing metadata for a candidate handler method. The metadata includes the SpEL
-	 * expression and the expected payload type.
+	 * expression, the expected payload type and, where the parameters allow it, the argument resolvers used to invoke
+	 * the method without SpEL.
 	 */
 	private static class HandlerMethod {
 
@@ -431,6 +494,8 @@ public class MessagingMethodInvokerHelper<T> extends AbstractExpressionEvaluator
 
 		private volatile TypeDescriptor targetParameterType;
 
+		private volatile ArgumentResolver[] argumentResolvers;
+
 		private final boolean canProcessMessageList;
 
 
@@ -438,6 +503,9 @@ public class MessagingMethodInvokerHelper<T> extends AbstractExpressionEvaluator
 			this.method = method;
 			this.canProcessMessageList = canProcessMessageList;
 			this.expression = this.generateExpression(method);
+			if (this.argumentResolvers != null) {
+				ReflectionUtils.makeAccessible(method);
+			}
 		}
 
 
@@ -449,6 +517,18 @@ public class MessagingMethodInvokerHelper<T> extends AbstractExpressionEvaluator
 			return this.targetParameterType;
 		}
 
+		boolean canInvokeDirectly() {
+			return this.argumentResolvers != null;
+		}
+
+		Object[] resolveArguments(Message<?> message, TypeConverter typeConverter) {
+			Object[] arguments = new Object[this.argumentResolvers.length];
+			for (int i = 0; i < arguments.length; i++) {
+				arguments[i] = this.argumentResolvers[i].resolve(message, typeConverter);
+			}
+			return arguments;
+		}
+
 		public String toString() {
 			return this.method.toString();
 		}
@@ -459,6 +539,7 @@ public class MessagingMethodInvokerHelper<T> extends AbstractExpressionEvaluator
 			Annotation[][] parameterAnnotations = method.getParameterAnnotations();
 			boolean hasUnqualifiedMapParameter = false;
 			TypeDescriptor defaultParameterTypeDescriptor = TypeDescriptor.valueOf(List.class);
+			List<ArgumentResolver> resolvers = new ArrayList<ArgumentResolver>();
 			for (int i = 0; i < parameterTypes.length; i++) {
 				if (i != 0) {
 					sb.append(", ");
@@ -474,9 +555,11 @@ public class MessagingMethodInvokerHelper<T> extends AbstractExpressionEvaluator
 						String qualifierExpression = ((Payload) mappingAnnotation).value();
 						if (StringUtils.hasText(qualifierExpression)) {
 							sb.append("." + qualifierExpression);
+							resolvers = null;
 						}
 						if (!StringUtils.hasText(qualifierExpression)) {
 							this.setExclusiveTargetParameterType(parameterTypeDescriptor);
+							addResolver(resolvers, ArgumentType.PAYLOAD, parameterTypeDescriptor, null, false);
 						}
 					}
 					if (annotationType.equals(Payloads.class)) {
@@ -486,6 +569,7 @@ public class MessagingMethodInvokerHelper<T> extends AbstractExpressionEvaluator
 							sb.append("." + qualifierExpression);
 						}
 						sb.append("]");
+						resolvers = null;
 						if (!StringUtils.hasText(qualifierExpression)) {
 							this.setExclusiveTargetParameterType(parameterTypeDescriptor);
 						}
@@ -494,22 +578,35 @@ public class MessagingMethodInvokerHelper<T> extends AbstractExpressionEvaluator
 						Assert.isTrue(Map.class.isAssignableFrom(parameterType),
 								"The @Headers annotation can only be applied to a Map-typed parameter.");
 						sb.append("headers");
+						addResolver(resolvers, ArgumentType.HEADERS, parameterTypeDescriptor, null, false);
 					}
 					else if (annotationType.equals(Header.class)) {
 						Header headerAnnotation = (Header) mappingAnnotation;
-						sb.append(this.determineHeaderExpression(headerAnnotation, new MethodParameter(method, i)));
+						MethodParameter methodParameter = new MethodParameter(method, i);
+						sb.append(this.determineHeaderExpression(headerAnnotation, methodParameter));
+						if (headerAnnotation.value().indexOf('.') == -1) {
+							addResolver(resolvers, ArgumentType.HEADER, parameterTypeDescriptor,
+									this.determineHeaderName(headerAnnotation, methodParameter),
+									headerAnnotation.required());
+						}
+						else {
+							resolvers = null;
+						}
 					}
 				}
 				else if (parameterTypeDescriptor.isAssignableTo(messageTypeDescriptor)) {
 					sb.append("message");
 					this.setExclusiveTargetParameterType(parameterTypeDescriptor);
+					addResolver(resolvers, ArgumentType.MESSAGE, parameterTypeDescriptor, null, false);
 				}
 				else if ((parameterTypeDescriptor.isAssignableTo(messageListTypeDescriptor) || parameterTypeDescriptor
 								.isAssignableTo(messageArrayTypeDescriptor))) {
 					sb.append("messages");
 					this.setExclusiveTargetParameterType(parameterTypeDescriptor);
+					resolvers = null;
 				}
 				else if (Collection.class.isAssignableFrom(parameterType) || parameterType.isArray()) {
+					resolvers = null;
 					if (canProcessMessageList) {
 						sb.append("messages.![payload]");
 					}
@@ -519,6 +616,7 @@ public class MessagingMethodInvokerHelper<T> extends AbstractExpressionEvaluator
 					this.setExclusiveTargetParameterType(parameterTypeDescriptor);
 				}
 				else if (Iterator.class.isAssignableFrom(parameterType)) {
+					resolvers = null;
 					if (canProcessMessageList) {
 						Type type =  method.getGenericParameterTypes()[0];
 						Type parameterizedType = null;
@@ -541,6 +639,7 @@ public class MessagingMethodInvokerHelper<T> extends AbstractExpressionEvaluator
 					this.setExclusiveTargetParameterType(parameterTypeDescriptor);
 				}
 				else if (Map.class.isAssignableFrom(parameterType)) {
+					resolvers = null;
 					if (Properties.class.isAssignableFrom(parameterType)) {
 						sb.append("payload instanceof T(java.util.Map) or "
 								+ "(payload instanceof T(String) and payload.contains('=')) ? payload : headers");
@@ -556,6 +655,7 @@ public class MessagingMethodInvokerHelper<T> extends AbstractExpressionEvaluator
 				else {
 					sb.append("payload");
 					this.setExclusiveTargetParameterType(parameterTypeDescriptor);
+					addResolver(resolvers, ArgumentType.PAYLOAD, parameterTypeDescriptor, null, false);
 				}
 			}
 			if (hasUnqualifiedMapParameter) {
@@ -569,9 +669,19 @@ public class MessagingMethodInvokerHelper<T> extends AbstractExpressionEvaluator
 			if (this.targetParameterType == null) {
 				this.targetParameterType = defaultParameterTypeDescriptor;
 			}
+			if (resolvers != null) {
+				this.argumentResolvers = resolvers.toArray(new ArgumentResolver[resolvers.size()]);
+			}
 			return EXPRESSION_PARSER.parseExpression(sb.toString());
 		}
 
+		private static void addResolver(List<ArgumentResolver> resolvers, ArgumentType argumentType,
+				TypeDescriptor parameterType, String headerName, boolean headerRequired) {
+			if (resolvers != null) {
+				resolvers.add(new ArgumentResolver(argumentType, parameterType, headerName, headerRequired));
+			}
+		}
+
 		private Annotation findMappingAnnotation(Annotation[] annotations) {
 			if (annotations == null || annotations.length == 0) {
 				return null;
@@ -593,25 +703,15 @@ public class MessagingMethodInvokerHelper<T> extends AbstractExpressionEvaluator
 		}
 
 		private String determineHeaderExpression(Header headerAnnotation, MethodParameter methodParameter) {
-			methodParameter.initParameterNameDiscovery(PARAMETER_NAME_DISCOVERER);
-			String headerName = null;
+			String headerName = this.determineHeaderName(headerAnnotation, methodParameter);
 			String relativeExpression = "";
 			String valueAttribute = headerAnnotation.value();
-			if (!StringUtils.hasText(valueAttribute)) {
-				headerName = methodParameter.getParameterName();
-			}
-			else if (valueAttribute.indexOf('.') != -1) {
+			if (valueAttribute.indexOf('.') != -1) {
 				String tokens[] = valueAttribute.split("\\.", 2);
-				headerName = tokens[0];
 				if (StringUtils.hasText(tokens[1])) {
 					relativeExpression = "." + tokens[1];
 				}
 			}
-			else {
-				headerName = valueAttribute;
-			}
-			Assert.notNull(headerName, "Cannot determine header name. Possible reasons: -debug is "
-					+ "disabled or header name is not explicitly provided via @Header annotation.");
 			String headerRetrievalExpression = "headers['" + headerName + "']";
 			String fullHeaderExpression = headerRetrievalExpression + relativeExpression;
 			String fallbackExpression = (headerAnnotation.required())
@@ -620,6 +720,24 @@ public class MessagingMethodInvokerHelper<T> extends AbstractExpressionEvaluator
 			return headerRetrievalExpression + " != null ? " + fullHeaderExpression + " : " + fallbackExpression;
 		}
 
+		private String determineHeaderName(Header headerAnnotation, MethodParameter methodParameter) {
+			String headerName = null;
+			String valueAttribute = headerAnnotation.value();
+			if (!StringUtils.hasText(valueAttribute)) {
+				methodParameter.initParameterNameDiscovery(PARAMETER_NAME_DISCOVERER);
+				headerName = methodParameter.getParameterName();
+			}
+			else if (valueAttribute.indexOf('.') != -1) {
+				headerName = valueAttribute.split("\\.", 2)[0];
+			}
+			else {
+				headerName = valueAttribute;
+			}
+			Assert.notNull(headerName, "Cannot determine header name. Possible reasons: -debug is "
+					+ "disabled or header name is not explicitly provided via @Header annotation.");
+			return headerName;
+		}
+
 		private synchronized void setExclusiveTargetParameterType(TypeDescriptor targetParameterType) {
 			Assert.isNull(this.targetParameterType, "Found more than one parameter type candidate: ["
 					+ this.targetParameterType + "] and [" + targetParameterType + "]");
@@ -627,6 +745,57 @@ public class MessagingMethodInvokerHelper<T> extends AbstractExpressionEvaluator
 		}
 	}
 
+	private static enum ArgumentType {
+		PAYLOAD, MESSAGE, HEADERS, HEADER
+	}
+
+	/**
+	 * Extracts a single handler method argument from a message, mirroring the corresponding SpEL
+	 * argument expression generated by {@link HandlerMethod}.
+	 */
+	private static class ArgumentResolver {
+
+		private final ArgumentType argumentType;
+
+		private final TypeDescriptor parameterType;
+
+		private final String headerName;
+
+		private final boolean headerRequired;
+
+		ArgumentResolver(ArgumentType argumentType, TypeDescriptor parameterType, String headerName,
+				boolean headerRequired) {
+			this.argumentType = argumentType;
+			this.parameterType = parameterType;
+			this.headerName = headerName;
+			this.headerRequired = headerRequired;
+		}
+
+		Object resolve(Message<?> message, TypeConverter typeConverter) {
+			Object value;
+			switch (this.argumentType) {
+				case PAYLOAD:
+					value = message.getPayload();
+					break;
+				case MESSAGE:
+					value = message;
+					break;
+				case HEADERS:
+					value = message.getHeaders();
+					break;
+				default:
+					value = message.getHeaders().get(this.headerName);
+					Assert.isTrue(value != null || !this.headerRequired,
+							"required header not available:  " + this.headerName);
+			}
+			if (value == null || this.parameterType.getType().isInstance(value)) {
+				return value;
+			}
+			return typeConverter.convertValue(value, TypeDescriptor.forObject(value), this.parameterType);
+		}
+
+	}
+
 	@SuppressWarnings("unused")
 	private static class ParametersWrapper {
 
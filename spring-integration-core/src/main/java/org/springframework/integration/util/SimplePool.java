@@ -15,24 +15,33 @@
  */
 package org.springframework.integration.util;
 
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.Set;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.integration.MessagingException;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.util.Assert;
 
 /**
  * Implementation of {@link Pool} supporting dynamic resizing and a variable
  * timeout when attempting to obtain an item from the pool. Pool grows on
  * demand up to the limit.
+ * <p>
+ * Idle items are kept on a lock-free stack and are reused most-recently-returned
+ * first, so the same few items stay warm under light load while the surplus ages
+ * out. Items idle for longer than the idle timeout, as well as stale items, are
+ * removed by {@link #evictIdleItems()}, which also pre-populates the pool up to the
+ * minimum number of idle items; it can be run periodically with
+ * {@link #startEviction(TaskScheduler, long)}.
  * @author Gary Russell
  * @since 2.2
  *
@@ -49,12 +58,30 @@ public class SimplePool<T> implements Pool<T> {
 
 	private long waitTimeout = Long.MAX_VALUE;
 
-	private final BlockingQueue<T> available = new LinkedBlockingQueue<T>();
+	private volatile long idleTimeout;
 
-	private final Set<T> allocated = Collections.synchronizedSet(new HashSet<T>());
+	private volatile int minIdle;
+
+	private final AtomicReference<IdleItem<T>> available = new AtomicReference<IdleItem<T>>();
+
+	private final AtomicInteger idleCount = new AtomicInteger();
+
+	private final Map<T, Boolean> allocated = new ConcurrentHashMap<T, Boolean>();
 
 	private final PoolItemCallback<T> callback;
 
+	private final AtomicLong borrowCount = new AtomicLong();
+
+	private final AtomicLong timeoutCount = new AtomicLong();
+
+	private final AtomicLong evictionCount = new AtomicLong();
+
+	private final AtomicLong totalWaitNanos = new AtomicLong();
+
+	private final AtomicLong maxWaitNanos = new AtomicLong();
+
+	private ScheduledFuture<?> evictionFuture;
+
 	/**
 	 * Creates a SimplePool with a specific limit.
 	 * @param poolSize The maximum number of items the pool supports.
@@ -96,12 +123,12 @@ public class SimplePool<T> implements Pool<T> {
 			if (!this.permits.tryAcquire()) {
 				break;
 			}
-			T item = this.available.poll();
-			if (item == null) {
+			IdleItem<T> idleItem = this.pop();
+			if (idleItem == null) {
 				this.permits.release();
 				break;
 			}
-			doRemoveItem(item);
+			doRemoveItem(idleItem.item);
 			this.poolSize.decrementAndGet();
 			delta++;
 		}
@@ -120,7 +147,7 @@ public class SimplePool<T> implements Pool<T> {
 	}
 
 	public int getIdleCount() {
-		return this.available.size();
+		return this.idleCount.get();
 	}
 
 	public int getActiveCount() {
@@ -140,6 +167,66 @@ public class SimplePool<T> implements Pool<T> {
 		this.waitTimeout = waitTimeout;
 	}
 
+	/**
+	 * Sets the time after which an idle item is removed by {@link #evictIdleItems()},
+	 * as long as at least {@link #setMinIdle(int) minIdle} items remain idle.
+	 * <br/>Default: 0 (idle items are never evicted).
+	 * @param idleTimeout The idle timeout in milliseconds.
+	 */
+	public void setIdleTimeout(long idleTimeout) {
+		this.idleTimeout = idleTimeout;
+	}
+
+	/**
+	 * Sets the number of idle items that {@link #evictIdleItems()} keeps in the pool,
+	 * creating new items if necessary (as long as the pool size allows it), so that
+	 * callers do not pay for creating them. <br/>Default: 0.
+	 * @param minIdle The minimum number of idle items.
+	 */
+	public void setMinIdle(int minIdle) {
+		Assert.isTrue(minIdle >= 0, "'minIdle' must not be negative");
+		this.minIdle = minIdle;
+	}
+
+	/**
+	 * Returns the number of items handed out by {@link #getItem()}.
+	 */
+	public long getBorrowCount() {
+		return this.borrowCount.get();
+	}
+
+	/**
+	 * Returns the number of times {@link #getItem()} timed out waiting for an item.
+	 */
+	public long getTimeoutCount() {
+		return this.timeoutCount.get();
+	}
+
+	/**
+	 * Returns the number of idle items removed because they were idle for too long
+	 * or found to be stale.
+	 */
+	public long getEvictionCount() {
+		return this.evictionCount.get();
+	}
+
+	/**
+	 * Returns the mean time (in milliseconds) {@link #getItem()} waited for the pool
+	 * to have capacity available.
+	 */
+	public double getMeanWaitTime() {
+		long waits = this.borrowCount.get() + this.timeoutCount.get();
+		return waits == 0 ? 0 : (double) this.totalWaitNanos.get() / waits / 1000000;
+	}
+
+	/**
+	 * Returns the longest time (in milliseconds) {@link #getItem()} waited for the pool
+	 * to have capacity available.
+	 */
+	public double getMaxWaitTime() {
+		return (double) this.maxWaitNanos.get() / 1000000;
+	}
+
 	/**
 	 * Obtains an item from the pool; waits up to waitTime milliseconds (default infinity).
 	 * @throws MessagingException if no items become available in time.
@@ -147,6 +234,7 @@ public class SimplePool<T> implements Pool<T> {
 	public T getItem() {
 		boolean permitted = false;
 		try {
+			long start = System.nanoTime();
 			try {
 				permitted = this.permits.tryAcquire(this.waitTimeout, TimeUnit.MILLISECONDS);
 			}
@@ -154,10 +242,13 @@ public class SimplePool<T> implements Pool<T> {
 				Thread.currentThread().interrupt();
 				throw new MessagingException("Interrupted awaiting a pooled resource", e);
 			}
+			this.recordWait(System.nanoTime() - start);
 			if (!permitted) {
+				this.timeoutCount.incrementAndGet();
 				throw new IllegalStateException("Timed out while waiting to aquire a pool entry.");
 			}
 			T item = doGetItem();
+			this.borrowCount.incrementAndGet();
 			return item;
 		}
 		catch (Exception e) {
@@ -171,24 +262,34 @@ public class SimplePool<T> implements Pool<T> {
 		}
 	}
 
-	private T doGetItem() {
-		T item = this.available.poll();
-		if (item != null && logger.isDebugEnabled()) {
-			logger.debug("Obtained " + item + " from pool.");
+	private void recordWait(long waitNanos) {
+		this.totalWaitNanos.addAndGet(waitNanos);
+		long max = this.maxWaitNanos.get();
+		while (waitNanos > max && !this.maxWaitNanos.compareAndSet(max, waitNanos)) {
+			max = this.maxWaitNanos.get();
 		}
-		if (item == null) {
-			item = this.callback.createForPool();
-			if (logger.isDebugEnabled()) {
-				logger.debug("Obtained new " + item + ".");
+	}
+
+	private T doGetItem() {
+		IdleItem<T> idleItem;
+		while ((idleItem = this.pop()) != null) {
+			T item = idleItem.item;
+			if (!this.callback.isStale(item)) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Obtained " + item + " from pool.");
+				}
+				return item;
 			}
-			allocated.add(item);
-		}
-		else if (this.callback.isStale(item)) {
 			if (logger.isDebugEnabled()) {
 				logger.debug("Received a stale item, will attempt to get a new one.");
 			}
-			item = doGetItem();
+			doRemoveItem(item);
 		}
+		T item = this.callback.createForPool();
+		if (logger.isDebugEnabled()) {
+			logger.debug("Obtained new " + item + ".");
+		}
+		this.allocated.put(item, Boolean.TRUE);
 		return item;
 	}
 
@@ -196,38 +297,207 @@ public class SimplePool<T> implements Pool<T> {
 	 * Returns an item to the pool. Item may be null, in which case a subsequent getItem()
 	 * will return a new instance.
 	 */
-	public synchronized void releaseItem(T item) {
-		Assert.isTrue(item == null || this.allocated.contains(item),
+	public void releaseItem(T item) {
+		Assert.isTrue(item == null || this.allocated.containsKey(item),
 				"You can only release items that were obtained from the pool");
-		if (this.poolSize.get() > targetPoolSize.get()) {
-			poolSize.decrementAndGet();
-			if (item != null) {
-				doRemoveItem(item);
+		if (this.poolSize.get() > this.targetPoolSize.get() && this.shrinkOnRelease(item)) {
+			return;
+		}
+		if (logger.isDebugEnabled()){
+			logger.debug("Releasing " + item + " back to the pool");
+		}
+		if (item != null) {
+			this.push(item, System.currentTimeMillis());
+		}
+		this.permits.release();
+	}
+
+	/**
+	 * Removes an item that was obtained from the pool instead of returning it, for
+	 * example because it is known to be broken; a subsequent getItem() will return
+	 * a new instance.
+	 */
+	public void removeAllocatedItem(T item) {
+		Assert.isTrue(item != null && this.allocated.containsKey(item),
+				"You can only remove items that were obtained from the pool");
+		if (this.poolSize.get() > this.targetPoolSize.get() && this.shrinkOnRelease(item)) {
+			return;
+		}
+		if (logger.isDebugEnabled()){
+			logger.debug("Removing " + item + " from the pool");
+		}
+		doRemoveItem(item);
+		this.permits.release();
+	}
+
+	/**
+	 * Slow path for releasing an item while the pool is overcommitted; synchronized
+	 * with {@link #setPoolSize(int)}.
+	 * @return true if the item was removed rather than returned to the pool.
+	 */
+	private synchronized boolean shrinkOnRelease(T item) {
+		if (this.poolSize.get() <= this.targetPoolSize.get()) {
+			return false;
+		}
+		this.poolSize.decrementAndGet();
+		if (item != null) {
+			doRemoveItem(item);
+		}
+		return true;
+	}
+
+	public void removeAllIdleItems() {
+		IdleItem<T> idleItem = this.available.getAndSet(null);
+		while (idleItem != null) {
+			if (idleItem.claim()) {
+				this.idleCount.decrementAndGet();
+				doRemoveItem(idleItem.item);
 			}
+			idleItem = idleItem.next;
 		}
-		else {
-			if (logger.isDebugEnabled()){
-				logger.debug("Releasing " + item + " back to the pool");
+	}
+
+	/**
+	 * Removes idle items that have been idle for longer than the idle timeout or that
+	 * the {@link PoolItemCallback} reports as stale, then creates new items until
+	 * minIdle items are idle, provided the pool size allows it. The most recently
+	 * used minIdle items are never removed for being idle too long. Items that are
+	 * kept are not taken off the pool, so they remain available to callers while
+	 * eviction is in progress.
+	 */
+	public void evictIdleItems() {
+		long now = System.currentTimeMillis();
+		long idleTimeout = this.idleTimeout;
+		int kept = 0;
+		for (IdleItem<T> idleItem = this.available.get(); idleItem != null; idleItem = idleItem.next) {
+			if (idleItem.isClaimed()) {
+				continue;
 			}
-			if (item != null) {
-				available.add(item);
+			boolean expired = idleTimeout > 0 && now - idleItem.idleSince > idleTimeout && kept >= this.minIdle;
+			if (!expired && !this.callback.isStale(idleItem.item)) {
+				kept++;
+			}
+			else if (idleItem.claim()) {
+				this.idleCount.decrementAndGet();
+				if (logger.isDebugEnabled()) {
+					logger.debug("Evicting " + (expired ? "expired " : "stale ") + idleItem.item + " from pool.");
+				}
+				this.evictionCount.incrementAndGet();
+				doRemoveItem(idleItem.item);
 			}
-			permits.release();
 		}
+		this.fillToMinIdle();
 	}
 
-	public synchronized void removeAllIdleItems() {
-		T item;
-		while ((item = this.available.poll()) != null) {
-			doRemoveItem(item);
+	private void fillToMinIdle() {
+		while (this.idleCount.get() < this.minIdle && this.allocated.size() < this.targetPoolSize.get()) {
+			T item;
+			try {
+				item = this.callback.createForPool();
+			}
+			catch (Exception e) {
+				logger.warn("Failed to pre-populate the pool", e);
+				return;
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Pre-populated pool with new " + item + ".");
+			}
+			this.allocated.put(item, Boolean.TRUE);
+			this.push(item, System.currentTimeMillis());
 		}
 	}
 
+	/**
+	 * Runs {@link #evictIdleItems()} with the given fixed delay, starting immediately;
+	 * any previously started eviction is stopped.
+	 * @param taskScheduler The scheduler to run eviction on.
+	 * @param evictionInterval The delay between runs in milliseconds.
+	 */
+	public synchronized void startEviction(TaskScheduler taskScheduler, long evictionInterval) {
+		Assert.notNull(taskScheduler, "'taskScheduler' must not be null");
+		Assert.isTrue(evictionInterval > 0, "'evictionInterval' must be positive");
+		this.stopEviction();
+		this.evictionFuture = taskScheduler.scheduleWithFixedDelay(new Runnable() {
+			public void run() {
+				try {
+					evictIdleItems();
+				}
+				catch (Exception e) {
+					logger.error("Failed to evict idle pool items", e);
+				}
+			}
+		}, evictionInterval);
+	}
+
+	/**
+	 * Stops the eviction started by {@link #startEviction(TaskScheduler, long)}, if any.
+	 */
+	public synchronized void stopEviction() {
+		if (this.evictionFuture != null) {
+			this.evictionFuture.cancel(false);
+			this.evictionFuture = null;
+		}
+	}
+
+	private void push(T item, long idleSince) {
+		this.idleCount.incrementAndGet();
+		IdleItem<T> idleItem;
+		do {
+			idleItem = new IdleItem<T>(item, idleSince, this.available.get());
+		}
+		while (!this.available.compareAndSet(idleItem.next, idleItem));
+	}
+
+	/**
+	 * Pops the most recently returned idle item, skipping any that
+	 * {@link #evictIdleItems()} has already claimed.
+	 */
+	private IdleItem<T> pop() {
+		IdleItem<T> top;
+		while ((top = this.available.get()) != null) {
+			if (this.available.compareAndSet(top, top.next) && top.claim()) {
+				this.idleCount.decrementAndGet();
+				return top;
+			}
+		}
+		return null;
+	}
+
 	private void doRemoveItem(T item) {
 		this.allocated.remove(item);
 		this.callback.removedFromPool(item);
 	}
 
+
+	/**
+	 * A node of the idle stack; whoever claims it (a borrower or the evictor) owns
+	 * the item, so a node may be left on the stack after it has been claimed.
+	 */
+	private static class IdleItem<T> {
+
+		private final T item;
+
+		private final long idleSince;
+
+		private final IdleItem<T> next;
+
+		private final AtomicBoolean claimed = new AtomicBoolean();
+
+		private IdleItem(T item, long idleSince, IdleItem<T> next) {
+			this.item = item;
+			this.idleSince = idleSince;
+			this.next = next;
+		}
+
+		private boolean isClaimed() {
+			return this.claimed.get();
+		}
+
+		private boolean claim() {
+			return this.claimed.compareAndSet(false, true);
+		}
+	}
+
 	/**
 	 * User of the pool provide an implementation of this interface; called during
 	 * various pool operations.
@@ -246,7 +516,8 @@ public class SimplePool<T> implements Pool<T> {
 		 * Called by the pool when an idle item is retrieved from the pool. Indicates
 		 * whether that item is usable, or should be discarded. The pool takes no
 		 * further action on a stale item, discards it, and attempts to find or create
-		 * another item.
+		 * another item. Also called for idle items by {@link SimplePool#evictIdleItems()};
+		 * in that case a caller may obtain the item while the check is in progress.
 		 * @param item The item.
 		 * @return true if the item should not be used.
 		 */
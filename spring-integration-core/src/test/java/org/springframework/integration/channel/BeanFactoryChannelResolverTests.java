@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2010 the original author or authors.
+ * Copyright 2002-2012 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,9 +18,14 @@ package org.springframework.integration.channel;
 
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import org.junit.Test;
 
+import org.springframework.beans.factory.BeanFactory;
 import org.springframework.context.support.GenericApplicationContext;
 import org.springframework.integration.MessageChannel;
 import org.springframework.integration.support.channel.BeanFactoryChannelResolver;
@@ -50,4 +55,47 @@ public class BeanFactoryChannelResolverTests {
 		resolver.resolveChannelName("noSuchChannel");
 	}
 
+	@Test
+	public void singletonChannelIsCached() {
+		BeanFactory beanFactory = mock(BeanFactory.class);
+		QueueChannel testChannel = new QueueChannel();
+		when(beanFactory.getBean("testChannel", MessageChannel.class)).thenReturn(testChannel);
+		when(beanFactory.isSingleton("testChannel")).thenReturn(true);
+		BeanFactoryChannelResolver resolver = new BeanFactoryChannelResolver(beanFactory);
+		assertSame(testChannel, resolver.resolveChannelName("testChannel"));
+		assertSame(testChannel, resolver.resolveChannelName("testChannel"));
+		verify(beanFactory, times(1)).getBean("testChannel", MessageChannel.class);
+		resolver.removeFromCache("testChannel");
+		assertSame(testChannel, resolver.resolveChannelName("testChannel"));
+		verify(beanFactory, times(2)).getBean("testChannel", MessageChannel.class);
+	}
+
+	@Test
+	public void nonSingletonChannelIsNotCached() {
+		BeanFactory beanFactory = mock(BeanFactory.class);
+		when(beanFactory.getBean("testChannel", MessageChannel.class)).thenReturn(new QueueChannel());
+		when(beanFactory.isSingleton("testChannel")).thenReturn(false);
+		BeanFactoryChannelResolver resolver = new BeanFactoryChannelResolver(beanFactory);
+		resolver.resolveChannelName("testChannel");
+		resolver.resolveChannelName("testChannel");
+		verify(beanFactory, times(2)).getBean("testChannel", MessageChannel.class);
+	}
+
+	@Test
+	public void cacheLimitIsHonored() {
+		BeanFactory beanFactory = mock(BeanFactory.class);
+		when(beanFactory.getBean("one", MessageChannel.class)).thenReturn(new QueueChannel());
+		when(beanFactory.getBean("two", MessageChannel.class)).thenReturn(new QueueChannel());
+		when(beanFactory.isSingleton("one")).thenReturn(true);
+		when(beanFactory.isSingleton("two")).thenReturn(true);
+		BeanFactoryChannelResolver resolver = new BeanFactoryChannelResolver(beanFactory);
+		resolver.setCacheLimit(1);
+		resolver.resolveChannelName("one");
+		resolver.resolveChannelName("two");
+		resolver.resolveChannelName("one");
+		resolver.resolveChannelName("two");
+		verify(beanFactory, times(1)).getBean("one", MessageChannel.class);
+		verify(beanFactory, times(2)).getBean("two", MessageChannel.class);
+	}
+
 }
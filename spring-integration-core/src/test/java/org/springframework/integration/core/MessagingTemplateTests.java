@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2010 the original author or authors.
+ * Copyright 2002-2012 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,12 +17,15 @@
 package org.springframework.integration.core;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
@@ -36,6 +39,7 @@ import org.springframework.integration.Message;
 import org.springframework.integration.MessageChannel;
 import org.springframework.integration.channel.AbstractMessageChannel;
 import org.springframework.integration.channel.DirectChannel;
+import org.springframework.integration.channel.PublishSubscribeChannel;
 import org.springframework.integration.channel.QueueChannel;
 import org.springframework.integration.endpoint.PollingConsumer;
 import org.springframework.integration.handler.AbstractReplyProducingMessageHandler;
@@ -258,6 +262,65 @@ public class MessagingTemplateTests {
 		template.convertSendAndReceive("testChannel", "test");
 	}
 
+	@Test
+	public void sendAndReceiveWithSharedReplyChannel() throws Exception {
+		StaticApplicationContext context = new StaticApplicationContext();
+		context.registerSingleton("requests", QueueChannel.class);
+		context.registerSingleton("replies", PublishSubscribeChannel.class);
+		context.refresh();
+		final QueueChannel requests = context.getBean("requests", QueueChannel.class);
+		final TestHandler handler = new TestHandler();
+		handler.setBeanFactory(context);
+		handler.afterPropertiesSet();
+		final MessagingTemplate template = new MessagingTemplate();
+		template.setBeanFactory(context);
+		template.setReplyChannelName("replies");
+		template.setReceiveTimeout(3000);
+		int count = 10;
+		final List<Object> replies = new ArrayList<Object>();
+		final CountDownLatch latch = new CountDownLatch(count);
+		for (int i = 0; i < count; i++) {
+			final String payload = "test" + i;
+			new Thread(new Runnable() {
+				public void run() {
+					Message<?> reply = template.sendAndReceive(requests, new GenericMessage<String>(payload));
+					assertNull(reply.getHeaders().getReplyChannel());
+					assertNull(reply.getHeaders().get(MessagingTemplate.REPLY_CORRELATION_KEY));
+					synchronized (replies) {
+						replies.add(payload.toUpperCase().equals(reply.getPayload()));
+					}
+					latch.countDown();
+				}
+			}).start();
+		}
+		for (int i = 0; i < count; i++) {
+			Message<?> request = requests.receive(3000);
+			assertEquals("replies", request.getHeaders().getReplyChannel());
+			assertNotNull(request.getHeaders().get(MessagingTemplate.REPLY_CORRELATION_KEY));
+			handler.handleMessage(request);
+		}
+		assertTrue(latch.await(3000, TimeUnit.MILLISECONDS));
+		assertEquals(count, replies.size());
+		assertFalse(replies.contains(false));
+		assertEquals(0, TestUtils.getPropertyValue(template, "pendingReplies", Map.class).size());
+	}
+
+	@Test
+	public void sharedReplyChannelUnsubscribedOnDestroy() throws Exception {
+		StaticApplicationContext context = new StaticApplicationContext();
+		context.registerSingleton("replies", PublishSubscribeChannel.class);
+		context.refresh();
+		PublishSubscribeChannel replies = context.getBean("replies", PublishSubscribeChannel.class);
+		MessagingTemplate template = new MessagingTemplate();
+		template.setBeanFactory(context);
+		template.setReplyChannelName("replies");
+		template.setReceiveTimeout(0);
+		assertNull(template.sendAndReceive(new QueueChannel(), new GenericMessage<String>("test")));
+		assertEquals(1, TestUtils.getPropertyValue(replies, "dispatcher.handlers", Collection.class).size());
+		template.destroy();
+		assertEquals(0, TestUtils.getPropertyValue(replies, "dispatcher.handlers", Collection.class).size());
+	}
+
 	@Test
 	public void sendWithReturnAddress() throws InterruptedException {
 		final List<String> replies = new ArrayList<String>(3);
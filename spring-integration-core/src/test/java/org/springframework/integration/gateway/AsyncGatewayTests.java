@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2010 the original author or authors.
+ * Copyright 2002-2012 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,17 +17,31 @@
 package org.springframework.integration.gateway;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.Test;
 
 import org.springframework.integration.Message;
 import org.springframework.integration.MessageChannel;
+import org.springframework.integration.MessagingException;
+import org.springframework.integration.channel.DirectChannel;
 import org.springframework.integration.channel.QueueChannel;
+import org.springframework.integration.core.MessageHandler;
 import org.springframework.integration.core.PollableChannel;
+import org.springframework.integration.message.ErrorMessage;
 import org.springframework.integration.message.GenericMessage;
 
 /**
@@ -99,6 +113,115 @@ public class AsyncGatewayTests {
 		assertEquals("foobar", result);
 	}
 
+	@Test
+	public void futuresCompletedByRepliesNotByExecutorThreads() throws Exception {
+		QueueChannel requestChannel = new QueueChannel();
+		final List<Message<?>> requests = new ArrayList<Message<?>>();
+		GatewayProxyFactoryBean proxyFactory = new GatewayProxyFactoryBean();
+		proxyFactory.setDefaultRequestChannel(requestChannel);
+		proxyFactory.setServiceInterface(TestEchoService.class);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		proxyFactory.setAsyncExecutor(executor);
+		proxyFactory.setBeanName("testGateway");
+		proxyFactory.afterPropertiesSet();
+		TestEchoService service = (TestEchoService) proxyFactory.getObject();
+		List<Future<String>> futures = new ArrayList<Future<String>>();
+		for (int i = 0; i < 100; i++) {
+			futures.add(service.returnString("foo" + i));
+		}
+		// a single executor thread sends all requests before any reply is produced
+		for (int i = 0; i < 100; i++) {
+			Message<?> request = requestChannel.receive(10000);
+			assertTrue(request != null);
+			requests.add(request);
+		}
+		for (Message<?> request : requests) {
+			((MessageChannel) request.getHeaders().getReplyChannel()).send(
+					new GenericMessage<String>(request.getPayload() + "bar"));
+		}
+		for (int i = 0; i < 100; i++) {
+			assertEquals("foo" + i + "bar", futures.get(i).get(1000, TimeUnit.MILLISECONDS));
+		}
+		executor.shutdown();
+	}
+
+	@Test
+	public void futureCompletedWithNullAfterReplyTimeout() throws Exception {
+		DirectChannel requestChannel = new DirectChannel();
+		requestChannel.subscribe(new MessageHandler() {
+			public void handleMessage(Message<?> message) {
+				// no reply
+			}
+		});
+		GatewayProxyFactoryBean proxyFactory = new GatewayProxyFactoryBean();
+		proxyFactory.setDefaultRequestChannel(requestChannel);
+		proxyFactory.setDefaultReplyTimeout(100L);
+		proxyFactory.setServiceInterface(TestEchoService.class);
+		proxyFactory.setBeanName("testGateway");
+		proxyFactory.afterPropertiesSet();
+		TestEchoService service = (TestEchoService) proxyFactory.getObject();
+		Future<String> f = service.returnString("foo");
+		assertNull(f.get());
+		assertTrue(f.isDone());
+		proxyFactory.destroy();
+	}
+
+	@Test
+	public void asyncFailureIsTranslated() throws Exception {
+		DirectChannel requestChannel = new DirectChannel();
+		requestChannel.subscribe(new MessageHandler() {
+			public void handleMessage(Message<?> message) {
+				throw new IllegalArgumentException("bad request");
+			}
+		});
+		GatewayProxyFactoryBean proxyFactory = new GatewayProxyFactoryBean();
+		proxyFactory.setDefaultRequestChannel(requestChannel);
+		proxyFactory.setServiceInterface(TestEchoService.class);
+		proxyFactory.setBeanName("testGateway");
+		proxyFactory.afterPropertiesSet();
+		TestEchoService service = (TestEchoService) proxyFactory.getObject();
+		Future<String> f = service.returnString("foo");
+		try {
+			f.get(1000, TimeUnit.MILLISECONDS);
+			fail("Expected ExecutionException");
+		}
+		catch (ExecutionException e) {
+			assertTrue(e.getCause() instanceof IllegalArgumentException);
+			assertEquals("bad request", e.getCause().getMessage());
+		}
+		proxyFactory.destroy();
+	}
+
+	@Test
+	public void errorFlowNotInvokedOnReplyingThread() throws Exception {
+		QueueChannel requestChannel = new QueueChannel();
+		DirectChannel errorChannel = new DirectChannel();
+		final AtomicReference<Thread> errorFlowThread = new AtomicReference<Thread>();
+		errorChannel.subscribe(new MessageHandler() {
+			public void handleMessage(Message<?> message) {
+				errorFlowThread.set(Thread.currentThread());
+				((MessageChannel) message.getHeaders().getReplyChannel()).send(
+						new GenericMessage<String>("recovered"));
+			}
+		});
+		GatewayProxyFactoryBean proxyFactory = new GatewayProxyFactoryBean();
+		proxyFactory.setDefaultRequestChannel(requestChannel);
+		proxyFactory.setErrorChannel(errorChannel);
+		proxyFactory.setServiceInterface(TestEchoService.class);
+		proxyFactory.setBeanName("testGateway");
+		proxyFactory.afterPropertiesSet();
+		TestEchoService service = (TestEchoService) proxyFactory.getObject();
+		Future<String> f = service.returnString("foo");
+		Message<?> request = requestChannel.receive(10000);
+		assertNotNull(request);
+		((MessageChannel) request.getHeaders().getErrorChannel()).send(
+				new ErrorMessage(new MessagingException(request, "failed")));
+		assertEquals("recovered", f.get(10000, TimeUnit.MILLISECONDS));
+		assertNotNull(errorFlowThread.get());
+		assertNotSame(Thread.currentThread(), errorFlowThread.get());
+		proxyFactory.destroy();
+	}
+
 
 	private static void startResponder(final PollableChannel requestChannel) {
 		new Thread(new Runnable() {
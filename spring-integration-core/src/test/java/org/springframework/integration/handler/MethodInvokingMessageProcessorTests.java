@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2010 the original author or authors.
+ * Copyright 2002-2012 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -31,13 +31,19 @@ import org.junit.rules.ExpectedException;
 import org.springframework.integration.Message;
 import org.springframework.integration.MessageHandlingException;
 import org.springframework.integration.annotation.Header;
+import org.springframework.integration.annotation.Headers;
+import org.springframework.integration.annotation.Payload;
 import org.springframework.integration.annotation.ServiceActivator;
 import org.springframework.integration.message.GenericMessage;
 import org.springframework.integration.support.MessageBuilder;
+import org.springframework.integration.test.util.TestUtils;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * @author Mark Fisher
@@ -322,6 +328,52 @@ public class MethodInvokingMessageProcessorTests {
 		assertEquals("true", bean.lastArg);
 	}
 
+	@Test
+	public void payloadAndHeadersBoundAndConvertedWithoutSpel() {
+		HeaderBindingBean bean = new HeaderBindingBean();
+		MethodInvokingMessageProcessor processor = new MethodInvokingMessageProcessor(bean, "handle");
+		Message<String> message = MessageBuilder.withPayload("41").setHeader("prefix", "answer").build();
+		assertEquals("answer-42-null-" + message.getHeaders().getId(), processor.processMessage(message));
+		assertFalse("Expected direct invocation", isInvokedBySpel(bean.invocationStack));
+		message = MessageBuilder.withPayload("1").setHeader("prefix", "a").setHeader("suffix", "b").build();
+		assertEquals("a-2-b-" + message.getHeaders().getId(), processor.processMessage(message));
+		assertFalse("Expected direct invocation", isInvokedBySpel(bean.invocationStack));
+		assertEquals(1, TestUtils.getPropertyValue(processor, "delegate.handlerMethodsByPayloadType", Map.class).size());
+	}
+
+	@Test
+	public void missingRequiredHeaderWithoutSpel() {
+		HeaderBindingBean bean = new HeaderBindingBean();
+		MethodInvokingMessageProcessor processor = new MethodInvokingMessageProcessor(bean, "handle");
+		try {
+			processor.processMessage(new GenericMessage<String>("1"));
+			fail("Expected MessageHandlingException");
+		}
+		catch (MessageHandlingException e) {
+			assertTrue(e.getCause() instanceof IllegalArgumentException);
+			assertFalse("Expected direct argument resolution", isInvokedBySpel(e.getCause().getStackTrace()));
+		}
+		assertNull(bean.invocationStack);
+	}
+
+	@Test
+	public void qualifiedPayloadInvokedBySpel() {
+		// a payload expression is not handled by the direct invocation
+		HeaderBindingBean bean = new HeaderBindingBean();
+		MethodInvokingMessageProcessor processor = new MethodInvokingMessageProcessor(bean, "length");
+		assertEquals(3, processor.processMessage(new GenericMessage<String>("foo")));
+		assertTrue("Expected SpEL invocation", isInvokedBySpel(bean.invocationStack));
+	}
+
+	private static boolean isInvokedBySpel(StackTraceElement[] stack) {
+		for (StackTraceElement element : stack) {
+			if (element.getClassName().startsWith("org.springframework.expression.spel")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	private static class ExceptionCauseMatcher extends TypeSafeMatcher<Exception> {
 		private Throwable cause;
 
@@ -362,6 +414,23 @@ public class MethodInvokingMessageProcessorTests {
 		}
 	}
 
+	@SuppressWarnings("unused")
+	private static class HeaderBindingBean {
+
+		private volatile StackTraceElement[] invocationStack;
+
+		public String handle(@Payload Integer number, @Header("prefix") String prefix,
+				@Header(value = "suffix", required = false) String suffix, @Headers Map<String, ?> headers) {
+			this.invocationStack = new Throwable().getStackTrace();
+			return prefix + "-" + (number + 1) + "-" + suffix + "-" + headers.get("id");
+		}
+
+		public int length(@Payload("length()") int length) {
+			this.invocationStack = new Throwable().getStackTrace();
+			return length;
+		}
+	}
+
 	@SuppressWarnings("unused")
 	private static class TestBean {
 
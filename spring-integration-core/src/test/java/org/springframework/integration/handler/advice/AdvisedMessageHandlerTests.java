@@ -23,16 +23,23 @@ import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.aopalliance.aop.Advice;
 import org.junit.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.integration.Message;
+import org.springframework.integration.MessageDeliveryException;
 import org.springframework.integration.MessageHandlingException;
 import org.springframework.integration.MessageHeaders;
+import org.springframework.integration.MessagingException;
 import org.springframework.integration.channel.QueueChannel;
+import org.springframework.integration.context.IntegrationContextUtils;
 import org.springframework.integration.core.PollableChannel;
 import org.springframework.integration.handler.AbstractReplyProducingMessageHandler;
 import org.springframework.integration.message.GenericMessage;
@@ -40,6 +47,7 @@ import org.springframework.retry.RecoveryCallback;
 import org.springframework.retry.RetryContext;
 import org.springframework.retry.RetryState;
 import org.springframework.retry.support.DefaultRetryState;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 
 /**
  * @author Gary Russell
@@ -348,6 +356,161 @@ public class AdvisedMessageHandlerTests {
 		}
 	}
 
+	@Test
+	public void slidingWindowCircuitBreakerTests() throws Exception {
+		final AtomicBoolean doFail = new AtomicBoolean();
+		AbstractReplyProducingMessageHandler handler = new AbstractReplyProducingMessageHandler() {
+
+			@Override
+			protected Object handleRequestMessage(Message<?> requestMessage) {
+				if (doFail.get()) {
+					throw new RuntimeException("foo");
+				}
+				return "bar";
+			}
+
+		};
+		handler.setBeanName("baz");
+		handler.setOutputChannel(new QueueChannel());
+		RequestHandlerCircuitBreakerAdvice advice = new RequestHandlerCircuitBreakerAdvice();
+		/*
+		 * Circuit breaker opens when half of the last 4 calls failed; allows a trial
+		 * call after 100ms, which closes it if it succeeds.
+		 */
+		advice.setSlidingWindowSize(4);
+		advice.setFailureRateThreshold(50);
+		advice.setHalfOpenAfter(100);
+
+		List<Advice> adviceChain = new ArrayList<Advice>();
+		adviceChain.add(advice);
+		handler.setAdviceChain(adviceChain);
+		handler.afterPropertiesSet();
+
+		Message<String> message = new GenericMessage<String>("Hello, world!");
+		handler.handleMessage(message);
+		handler.handleMessage(message);
+		handler.handleMessage(message);
+		doFail.set(true);
+		try {
+			handler.handleMessage(message);
+			fail("Expected failure");
+		}
+		catch (Exception e) {
+			assertEquals("foo", e.getCause().getMessage());
+		}
+		assertEquals(0, advice.getOpenCircuitCount());
+		try {
+			handler.handleMessage(message);
+			fail("Expected failure");
+		}
+		catch (Exception e) {
+			assertEquals("foo", e.getCause().getMessage());
+		}
+		assertEquals(1, advice.getOpenCircuitCount());
+		doFail.set(false);
+		try {
+			handler.handleMessage(message);
+			fail("Expected failure");
+		}
+		catch (Exception e) {
+			assertEquals("Circuit Breaker is Open for baz", e.getMessage());
+		}
+		Thread.sleep(100);
+		handler.handleMessage(message);
+		assertEquals(0, advice.getOpenCircuitCount());
+		handler.handleMessage(message);
+	}
+
+	@Test
+	public void bulkheadTests() throws Exception {
+		final CountDownLatch entered = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final AbstractReplyProducingMessageHandler handler = new AbstractReplyProducingMessageHandler() {
+
+			@Override
+			protected Object handleRequestMessage(Message<?> requestMessage) {
+				entered.countDown();
+				try {
+					release.await(10, TimeUnit.SECONDS);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return "bar";
+			}
+
+		};
+		handler.setBeanName("baz");
+		handler.setOutputChannel(new QueueChannel());
+		RequestHandlerBulkheadAdvice advice = new RequestHandlerBulkheadAdvice();
+		advice.setMaxConcurrentCalls(1);
+
+		List<Advice> adviceChain = new ArrayList<Advice>();
+		adviceChain.add(advice);
+		handler.setAdviceChain(adviceChain);
+		handler.afterPropertiesSet();
+
+		final Message<String> message = new GenericMessage<String>("Hello, world!");
+		Executors.newSingleThreadExecutor().execute(new Runnable() {
+			public void run() {
+				handler.handleMessage(message);
+			}
+		});
+		assertTrue(entered.await(10, TimeUnit.SECONDS));
+		assertEquals(1, advice.getActiveCalls());
+		try {
+			handler.handleMessage(message);
+			fail("Expected failure");
+		}
+		catch (MessageDeliveryException e) {
+			assertEquals(message, e.getFailedMessage());
+		}
+		assertEquals(1, advice.getRejectedCount());
+		release.countDown();
+		advice.setMaxWait(10000);
+		handler.handleMessage(message);
+		assertEquals(0, advice.getActiveCalls());
+	}
+
+	@Test
+	public void rateLimiterTests() throws Exception {
+		AbstractReplyProducingMessageHandler handler = new AbstractReplyProducingMessageHandler() {
+
+			@Override
+			protected Object handleRequestMessage(Message<?> requestMessage) {
+				return "bar";
+			}
+
+		};
+		QueueChannel replies = new QueueChannel();
+		handler.setOutputChannel(replies);
+		RequestHandlerRateLimiterAdvice advice = new RequestHandlerRateLimiterAdvice();
+		advice.setPermitsPerSecond(10);
+		advice.setBurstCapacity(2);
+
+		List<Advice> adviceChain = new ArrayList<Advice>();
+		adviceChain.add(advice);
+		handler.setAdviceChain(adviceChain);
+		handler.afterPropertiesSet();
+
+		Message<String> message = new GenericMessage<String>("Hello, world!");
+		handler.handleMessage(message);
+		handler.handleMessage(message);
+		try {
+			handler.handleMessage(message);
+			fail("Expected failure");
+		}
+		catch (MessageDeliveryException e) {
+			assertEquals(message, e.getFailedMessage());
+		}
+		assertEquals(1, advice.getRejectedCount());
+		advice.setTimeout(1000);
+		long start = System.currentTimeMillis();
+		handler.handleMessage(message);
+		assertTrue(System.currentTimeMillis() - start < 1000);
+		assertEquals(3, replies.getQueueSize());
+	}
+
 	@Test
 	public void defaultRetrySucceedonThirdTry() {
 		final AtomicInteger counter = new AtomicInteger(2);
@@ -379,6 +542,155 @@ public class AdvisedMessageHandlerTests {
 
 	}
 
+	@Test
+	public void scheduledRetrySucceedsOnThirdTry() throws Exception {
+		final AtomicInteger counter = new AtomicInteger(2);
+		AbstractReplyProducingMessageHandler handler = new AbstractReplyProducingMessageHandler() {
+
+			@Override
+			protected Object handleRequestMessage(Message<?> requestMessage) {
+				if (counter.getAndDecrement() > 0) {
+					throw new RuntimeException("foo");
+				}
+				return "bar";
+			}
+		};
+		QueueChannel replies = new QueueChannel();
+		handler.setOutputChannel(replies);
+		ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+		scheduler.afterPropertiesSet();
+		RequestHandlerRetryAdvice advice = new RequestHandlerRetryAdvice();
+		advice.setTaskScheduler(scheduler);
+		advice.setInitialInterval(50);
+		advice.setRecoveryCallback(new ErrorMessageSendingRecoverer(new QueueChannel()));
+
+		List<Advice> adviceChain = new ArrayList<Advice>();
+		adviceChain.add(advice);
+		handler.setAdviceChain(adviceChain);
+		handler.afterPropertiesSet();
+
+		Message<String> message = new GenericMessage<String>("Hello, world!");
+		handler.handleMessage(message);
+		assertNull(replies.receive(0));
+		Message<?> reply = replies.receive(10000);
+		assertNotNull(reply);
+		assertEquals("bar", reply.getPayload());
+		assertTrue(counter.get() == -1);
+		scheduler.destroy();
+	}
+
+	@Test
+	public void scheduledRetryRecoversAfterThirdTry() throws Exception {
+		final AtomicInteger counter = new AtomicInteger(3);
+		AbstractReplyProducingMessageHandler handler = new AbstractReplyProducingMessageHandler() {
+
+			@Override
+			protected Object handleRequestMessage(Message<?> requestMessage) {
+				if (counter.getAndDecrement() > 0) {
+					throw new RuntimeException("foo");
+				}
+				return "bar";
+			}
+		};
+		QueueChannel replies = new QueueChannel();
+		handler.setOutputChannel(replies);
+		QueueChannel errors = new QueueChannel();
+		ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+		scheduler.afterPropertiesSet();
+		RequestHandlerRetryAdvice advice = new RequestHandlerRetryAdvice();
+		advice.setTaskScheduler(scheduler);
+		advice.setInitialInterval(10);
+		advice.setRecoveryCallback(new ErrorMessageSendingRecoverer(errors));
+
+		List<Advice> adviceChain = new ArrayList<Advice>();
+		adviceChain.add(advice);
+		handler.setAdviceChain(adviceChain);
+		handler.afterPropertiesSet();
+
+		Message<String> message = new GenericMessage<String>("Hello, world!");
+		handler.handleMessage(message);
+		Message<?> error = errors.receive(10000);
+		assertNotNull(error);
+		assertEquals(message, ((MessagingException) error.getPayload()).getFailedMessage());
+		assertEquals(0, counter.get());
+		assertNull(replies.receive(0));
+		scheduler.destroy();
+	}
+
+	@Test
+	public void scheduledRetryRecoversToErrorChannelByDefault() throws Exception {
+		AbstractReplyProducingMessageHandler handler = new AbstractReplyProducingMessageHandler() {
+
+			@Override
+			protected Object handleRequestMessage(Message<?> requestMessage) {
+				throw new RuntimeException("foo");
+			}
+		};
+		handler.setOutputChannel(new QueueChannel());
+		QueueChannel errors = new QueueChannel();
+		StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+		beanFactory.addBean(IntegrationContextUtils.ERROR_CHANNEL_BEAN_NAME, errors);
+		ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+		scheduler.afterPropertiesSet();
+		RequestHandlerRetryAdvice advice = new RequestHandlerRetryAdvice();
+		advice.setTaskScheduler(scheduler);
+		advice.setInitialInterval(10);
+		advice.setBeanFactory(beanFactory);
+		advice.afterPropertiesSet();
+
+		List<Advice> adviceChain = new ArrayList<Advice>();
+		adviceChain.add(advice);
+		handler.setAdviceChain(adviceChain);
+		handler.afterPropertiesSet();
+
+		Message<String> message = new GenericMessage<String>("Hello, world!");
+		handler.handleMessage(message);
+		Message<?> error = errors.receive(10000);
+		assertNotNull(error);
+		assertEquals(message, ((MessagingException) error.getPayload()).getFailedMessage());
+		scheduler.destroy();
+	}
+
+	@Test
+	public void scheduledRetryWithoutRecoveryRejected() {
+		RequestHandlerRetryAdvice advice = new RequestHandlerRetryAdvice();
+		advice.setTaskScheduler(new ThreadPoolTaskScheduler());
+		advice.setBeanFactory(new StaticListableBeanFactory());
+		try {
+			advice.afterPropertiesSet();
+			fail("Expected IllegalStateException");
+		}
+		catch (IllegalStateException e) {
+			assertTrue(e.getMessage().contains("recoveryCallback"));
+		}
+	}
+
+	@Test
+	public void scheduledRetryRejectedWhenReplyRequired() {
+		AbstractReplyProducingMessageHandler handler = new AbstractReplyProducingMessageHandler() {
+
+			@Override
+			protected Object handleRequestMessage(Message<?> requestMessage) {
+				return "bar";
+			}
+		};
+		handler.setRequiresReply(true);
+		RequestHandlerRetryAdvice advice = new RequestHandlerRetryAdvice();
+		advice.setTaskScheduler(new ThreadPoolTaskScheduler());
+		advice.setRecoveryCallback(new ErrorMessageSendingRecoverer(new QueueChannel()));
+
+		List<Advice> adviceChain = new ArrayList<Advice>();
+		adviceChain.add(advice);
+		handler.setAdviceChain(adviceChain);
+		try {
+			handler.afterPropertiesSet();
+			fail("Expected IllegalStateException");
+		}
+		catch (IllegalStateException e) {
+			assertTrue(e.getMessage().contains("requiresReply"));
+		}
+	}
+
 	@Test
 	public void defaultStatefulRetrySucceedonThirdTry() {
 		final AtomicInteger counter = new AtomicInteger(2);
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2011 the original author or authors.
+ * Copyright 2002-2012 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,6 +18,10 @@ package org.springframework.integration.router;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -25,6 +29,7 @@ import java.util.List;
 
 import org.junit.Test;
 import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.context.support.GenericApplicationContext;
 import org.springframework.integration.Message;
 import org.springframework.integration.MessageChannel;
@@ -124,6 +129,54 @@ public class RouterTests {
 		assertEquals("test", reply.getPayload());
 	}
 
+	@Test
+	public void mappedChannelsArePreResolvedAndCached() {
+		AbstractMappingMessageRouter router = new AbstractMappingMessageRouter() {
+			@SuppressWarnings("unchecked")
+			protected List<Object> getChannelKeys(Message<?> message) {
+				return CollectionUtils.arrayToList(new String[] { "key" });
+			}
+		};
+		QueueChannel testChannel = new QueueChannel();
+		ConfigurableBeanFactory beanFactory = mock(ConfigurableBeanFactory.class);
+		when(beanFactory.getBean("testChannel", MessageChannel.class)).thenReturn(testChannel);
+		when(beanFactory.isSingleton("testChannel")).thenReturn(true);
+		when(beanFactory.containsSingleton("testChannel")).thenReturn(true);
+		router.setChannelMappings(Collections.singletonMap("key", "testChannel"));
+		router.setBeanFactory(beanFactory);
+		router.afterPropertiesSet();
+		verify(beanFactory, times(1)).getBean("testChannel", MessageChannel.class);
+		router.handleMessage(new GenericMessage<String>("test1"));
+		router.handleMessage(new GenericMessage<String>("test2"));
+		assertEquals("test1", testChannel.receive(0).getPayload());
+		assertEquals("test2", testChannel.receive(0).getPayload());
+		verify(beanFactory, times(1)).getBean("testChannel", MessageChannel.class);
+	}
+
+	@Test
+	public void mappedChannelsNotYetInstantiatedAreNotPreResolved() {
+		AbstractMappingMessageRouter router = new AbstractMappingMessageRouter() {
+			@SuppressWarnings("unchecked")
+			protected List<Object> getChannelKeys(Message<?> message) {
+				return CollectionUtils.arrayToList(new String[] { "key" });
+			}
+		};
+		QueueChannel testChannel = new QueueChannel();
+		ConfigurableBeanFactory beanFactory = mock(ConfigurableBeanFactory.class);
+		when(beanFactory.getBean("testChannel", MessageChannel.class)).thenReturn(testChannel);
+		when(beanFactory.isSingleton("testChannel")).thenReturn(true);
+		when(beanFactory.containsSingleton("testChannel")).thenReturn(false);
+		router.setChannelMappings(Collections.singletonMap("key", "testChannel"));
+		router.setBeanFactory(beanFactory);
+		router.afterPropertiesSet();
+		verify(beanFactory, never()).getBean("testChannel", MessageChannel.class);
+		router.handleMessage(new GenericMessage<String>("test1"));
+		router.handleMessage(new GenericMessage<String>("test2"));
+		assertEquals("test1", testChannel.receive(0).getPayload());
+		assertEquals("test2", testChannel.receive(0).getPayload());
+		verify(beanFactory, times(1)).getBean("testChannel", MessageChannel.class);
+	}
+
 	@Test
 	public void beanFactoryWithRouterAndMultipleCommaSeparatedChannelNames() {
 		AbstractMappingMessageRouter router = new AbstractMappingMessageRouter() {
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import org.springframework.integration.store.SimpleMetadataStore;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * @since 2.2
+ */
+public class KeysetPositionTests {
+
+	@Test
+	public void initialAndStoredKeysAreConverted() {
+		SimpleMetadataStore store = new SimpleMetadataStore();
+		KeysetPosition position = new KeysetPosition("0", Long.class, store, "key");
+		assertEquals(Long.valueOf(0), position.getKey());
+		position.advance(5L);
+		assertEquals("5", store.get("key"));
+		assertEquals(Long.valueOf(5), new KeysetPosition("0", Long.class, store, "key").getKey());
+		assertEquals(Integer.valueOf(5), new KeysetPosition(0, null, store, "key").getKey());
+	}
+
+	@Test
+	public void pendingKeyIsUsedWithinTransactionAndPublishedOnCommit() {
+		SimpleMetadataStore store = new SimpleMetadataStore();
+		final KeysetPosition position = new KeysetPosition(0L, null, store, "key");
+		new TransactionTemplate(new TestTransactionManager()).execute(new TransactionCallbackWithoutResult() {
+			@Override
+			protected void doInTransactionWithoutResult(TransactionStatus status) {
+				position.advance(2L);
+				assertEquals(Long.valueOf(2), position.getKey());
+				position.advance(4L);
+				assertEquals(Long.valueOf(4), position.getKey());
+			}
+		});
+		assertEquals(Long.valueOf(4), position.getKey());
+		assertEquals("4", store.get("key"));
+	}
+
+	@Test
+	public void pendingKeyIsDiscardedOnRollback() {
+		SimpleMetadataStore store = new SimpleMetadataStore();
+		final KeysetPosition position = new KeysetPosition(0L, null, store, "key");
+		new TransactionTemplate(new TestTransactionManager()).execute(new TransactionCallbackWithoutResult() {
+			@Override
+			protected void doInTransactionWithoutResult(TransactionStatus status) {
+				position.advance(2L);
+				assertEquals(Long.valueOf(2), position.getKey());
+				status.setRollbackOnly();
+			}
+		});
+		assertEquals(Long.valueOf(0), position.getKey());
+		assertNull(store.get("key"));
+	}
+
+}
@@ -19,6 +19,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.util.HashSet;
@@ -119,6 +120,85 @@ public class SimplePoolTests {
 		assertEquals(2, pool.getAllocatedCount());
 	}
 
+	@Test
+	public void testLifoReuse() {
+		final Set<String> strings = new HashSet<String>();
+		final AtomicBoolean stale = new AtomicBoolean();
+		SimplePool<String> pool = stringPool(3, strings, stale);
+		String s1 = pool.getItem();
+		String s2 = pool.getItem();
+		pool.releaseItem(s1);
+		pool.releaseItem(s2);
+		assertSame(s2, pool.getItem());
+		assertSame(s1, pool.getItem());
+		assertEquals(4, pool.getBorrowCount());
+	}
+
+	@Test
+	public void testRemoveAllocatedItem() {
+		final Set<String> strings = new HashSet<String>();
+		final AtomicBoolean stale = new AtomicBoolean();
+		SimplePool<String> pool = stringPool(1, strings, stale);
+		String s1 = pool.getItem();
+		pool.removeAllocatedItem(s1);
+		assertFalse(strings.contains(s1));
+		assertEquals(0, pool.getAllocatedCount());
+		String s2 = pool.getItem();
+		assertNotSame(s1, s2);
+		pool.releaseItem(s2);
+		assertEquals(1, pool.getIdleCount());
+	}
+
+	@Test
+	public void testEvictionAndMinIdle() throws Exception {
+		final Set<String> strings = new HashSet<String>();
+		final AtomicBoolean stale = new AtomicBoolean();
+		SimplePool<String> pool = stringPool(4, strings, stale);
+		pool.setMinIdle(3);
+		pool.evictIdleItems();
+		assertEquals(3, pool.getIdleCount());
+		assertEquals(3, pool.getAllocatedCount());
+		assertEquals(3, strings.size());
+
+		pool.setMinIdle(1);
+		pool.setIdleTimeout(1);
+		String s1 = pool.getItem();
+		Thread.sleep(10);
+		pool.releaseItem(s1);
+		pool.evictIdleItems();
+		assertEquals(1, pool.getIdleCount());
+		assertEquals(1, pool.getAllocatedCount());
+		assertEquals(2, pool.getEvictionCount());
+		assertSame(s1, pool.getItem());
+		pool.releaseItem(s1);
+
+		pool.setIdleTimeout(0);
+		pool.setMinIdle(0);
+		stale.set(true);
+		pool.evictIdleItems();
+		assertEquals(0, pool.getIdleCount());
+		assertEquals(0, pool.getAllocatedCount());
+		assertEquals(3, pool.getEvictionCount());
+		assertFalse(strings.contains(s1));
+	}
+
+	@Test
+	public void testMetrics() {
+		final Set<String> strings = new HashSet<String>();
+		final AtomicBoolean stale = new AtomicBoolean();
+		SimplePool<String> pool = stringPool(1, strings, stale);
+		pool.setWaitTimeout(10);
+		pool.getItem();
+		try {
+			pool.getItem();
+			fail("Expected exception");
+		} catch (MessagingException e) {}
+		assertEquals(1, pool.getBorrowCount());
+		assertEquals(1, pool.getTimeoutCount());
+		assertTrue(pool.getMaxWaitTime() >= 10);
+		assertTrue(pool.getMeanWaitTime() >= 5);
+	}
+
 	@Test(expected=IllegalArgumentException.class)
 	public void testForeignObject() {
 		final Set<String> strings = new HashSet<String>();
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.file;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DirectoryScanner that lists all files inside a directory and its subdirectories,
+ * but only reads the entries of those directories that changed since the previous
+ * scan. A directory's last modified time is updated by the file system whenever an
+ * entry is created, renamed or deleted within it, so directories whose timestamp
+ * is unchanged are skipped and their files are not returned again; only their
+ * subdirectories are visited.
+ * <p/>
+ * <b>Note:</b> this changes the delivery semantics compared to the other scanners.
+ * A file is returned when its directory changes, and not again on the following
+ * scans, even when no filter suppresses it. A file that was rejected by the filter
+ * or could not be locked, or whose processing failed, is therefore not returned
+ * again until its directory changes or the next full rescan, which lists every
+ * directory again; see {@link #setFullScanInterval(long)} (default one minute).
+ * Files that are modified in place do not change the timestamp of their directory
+ * either, and are only detected by a full rescan.
+ * <p/>
+ * Because file system timestamps have a limited resolution, a directory is listed
+ * again on subsequent scans until its timestamp is older than the configured
+ * {@link #setTimestampGranularity(long) granularity}.
+ * <p/>
+ * This scanner is an alternative to the {@link RecursiveLeafOnlyDirectoryScanner}
+ * for large, deep trees where re-reading every directory on each poll is too costly.
+ *
+ * @author agent
+ * @since 2.2
+ */
+public class LastModifiedDirectoryScanner extends DefaultDirectoryScanner {
+
+	private final Map<File, DirectoryState> directories = new HashMap<File, DirectoryState>();
+
+	private final Object monitor = new Object();
+
+	private volatile long timestampGranularity = 2000;
+
+	private volatile long fullScanInterval = 60000;
+
+	private volatile long lastFullScan;
+
+
+	/**
+	 * Set the resolution of the file system timestamps in milliseconds (default 2000).
+	 * A directory modified within this period before it was last listed is listed again.
+	 */
+	public void setTimestampGranularity(long timestampGranularity) {
+		this.timestampGranularity = timestampGranularity;
+	}
+
+	/**
+	 * Set the interval in milliseconds after which all directories are listed again,
+	 * regardless of their timestamps, so that files which were rejected or failed are
+	 * returned again. Default 60000; 0 never forces a full rescan, in which case such
+	 * files are only returned again when their directory changes.
+	 */
+	public void setFullScanInterval(long fullScanInterval) {
+		this.fullScanInterval = fullScanInterval;
+	}
+
+
+	@Override
+	protected File[] listEligibleFiles(File directory) {
+		synchronized (this.monitor) {
+			long now = System.currentTimeMillis();
+			if (this.fullScanInterval > 0 && now - this.lastFullScan >= this.fullScanInterval) {
+				this.directories.clear();
+				this.lastFullScan = now;
+			}
+			Map<File, DirectoryState> visited = new HashMap<File, DirectoryState>();
+			List<File> files = new ArrayList<File>();
+			if (!this.scan(directory, now, files, visited)) {
+				return null;
+			}
+			this.directories.clear();
+			this.directories.putAll(visited);
+			return files.toArray(new File[files.size()]);
+		}
+	}
+
+	private boolean scan(File directory, long now, List<File> files, Map<File, DirectoryState> visited) {
+		long lastModified = directory.lastModified();
+		DirectoryState state = this.directories.get(directory);
+		if (state == null || !state.isUnchanged(lastModified)) {
+			File[] children = directory.listFiles();
+			if (children == null) {
+				return false;
+			}
+			List<File> subdirectories = new ArrayList<File>();
+			for (File child : children) {
+				if (child.isDirectory()) {
+					subdirectories.add(child);
+				}
+				else {
+					files.add(child);
+				}
+			}
+			state = new DirectoryState(lastModified, now - lastModified > this.timestampGranularity, subdirectories);
+		}
+		visited.put(directory, state);
+		for (File subdirectory : state.subdirectories) {
+			this.scan(subdirectory, now, files, visited);
+		}
+		return true;
+	}
+
+
+	private static class DirectoryState {
+
+		private final long lastModified;
+
+		private final boolean stable;
+
+		private final List<File> subdirectories;
+
+		DirectoryState(long lastModified, boolean stable, List<File> subdirectories) {
+			this.lastModified = lastModified;
+			this.stable = stable;
+			this.subdirectories = subdirectories;
+		}
+
+		boolean isUnchanged(long lastModified) {
+			return this.stable && this.lastModified == lastModified;
+		}
+	}
+
+}
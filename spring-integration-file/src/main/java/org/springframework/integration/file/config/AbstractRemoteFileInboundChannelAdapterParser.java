@@ -53,6 +53,12 @@ public abstract class AbstractRemoteFileInboundChannelAdapterParser extends Abst
 		String remoteFileSeparator = element.getAttribute("remote-file-separator");
 		synchronizerBuilder.addPropertyValue("remoteFileSeparator", remoteFileSeparator);
 		IntegrationNamespaceUtils.setValueIfAttributeDefined(synchronizerBuilder, element, "temporary-file-suffix");
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(synchronizerBuilder, element, "transfer-concurrency");
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(synchronizerBuilder, element, "transfer-retries");
+		IntegrationNamespaceUtils.setReferenceIfAttributeDefined(synchronizerBuilder, element, "transfer-executor");
+		IntegrationNamespaceUtils.setReferenceIfAttributeDefined(synchronizerBuilder, element, "metadata-store");
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(synchronizerBuilder, element, "metadata-key");
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(synchronizerBuilder, element, "full-synchronization-interval");
 		this.configureFilter(synchronizerBuilder, element, parserContext);
 
 		// build the MessageSource
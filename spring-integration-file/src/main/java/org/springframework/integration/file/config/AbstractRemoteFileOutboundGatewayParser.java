@@ -59,6 +59,9 @@ public abstract class AbstractRemoteFileOutboundGatewayParser extends AbstractCo
 		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "remote-file-separator");
 		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "local-directory");
 		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "auto-create-local-directory");
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "transfer-concurrency");
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "transfer-retries");
+		IntegrationNamespaceUtils.setReferenceIfAttributeDefined(builder, element, "transfer-executor");
 		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "order");
 		return builder;
 	}
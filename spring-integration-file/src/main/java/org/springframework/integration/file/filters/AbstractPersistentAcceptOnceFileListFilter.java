@@ -0,0 +1,137 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.file.filters;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.integration.store.MetadataStore;
+import org.springframework.integration.store.RemovableMetadataStore;
+import org.springframework.util.Assert;
+
+/**
+ * Stores "seen" files in a {@link MetadataStore} to survive application restarts.
+ * The key is the configured prefix followed by the name that uniquely identifies
+ * the file (see {@link #fileName(Object)}; the absolute path for local files) and
+ * the value is the file's last modified time; a file that is modified after it was
+ * accepted will be accepted again.
+ * <p/>
+ * When used with a persistent store, such as the
+ * {@link org.springframework.integration.store.PropertiesPersistingMetadataStore},
+ * the state of the filter is retained across restarts. Note that the
+ * PropertiesPersistingMetadataStore keeps all entries in memory and only writes
+ * them when it is destroyed, so the state is lost if the application crashes.
+ * <p/>
+ * By default, a key is kept for every accepted file. Set 'maxEntries' to bound
+ * the store: the keys are then recorded in a ring of that size, also kept in the
+ * store, and the oldest key is removed when a new file is accepted into a full ring.
+ * An evicted file is accepted again if it is seen again. This requires a
+ * {@link RemovableMetadataStore}.
+ *
+ * @since 2.2
+ */
+public abstract class AbstractPersistentAcceptOnceFileListFilter<F> extends AbstractFileListFilter<F> {
+
+	private final Log logger = LogFactory.getLog(this.getClass());
+
+	private final MetadataStore store;
+
+	private final String prefix;
+
+	private final Object monitor = new Object();
+
+	private volatile int maxEntries;
+
+
+	public AbstractPersistentAcceptOnceFileListFilter(MetadataStore store, String prefix) {
+		Assert.notNull(store, "'store' cannot be null");
+		Assert.notNull(prefix, "'prefix' cannot be null");
+		this.store = store;
+		this.prefix = prefix;
+	}
+
+
+	/**
+	 * The maximum number of files to remember; 0 (the default) means no limit.
+	 * A limit requires the store to be a {@link RemovableMetadataStore}.
+	 */
+	public void setMaxEntries(int maxEntries) {
+		Assert.isTrue(maxEntries >= 0, "'maxEntries' must not be negative");
+		Assert.isTrue(maxEntries == 0 || this.store instanceof RemovableMetadataStore,
+				"'maxEntries' requires a RemovableMetadataStore");
+		this.maxEntries = maxEntries;
+	}
+
+	@Override
+	protected boolean accept(F file) {
+		String key = this.buildKey(file);
+		String newValue = Long.toString(this.modified(file));
+		synchronized (this.monitor) {
+			String oldValue = this.store.get(key);
+			if (newValue.equals(oldValue)) {
+				return false;
+			}
+			if (oldValue == null && this.maxEntries > 0) {
+				this.addToRing(key);
+			}
+			this.store.put(key, newValue);
+			return true;
+		}
+	}
+
+	/**
+	 * Record the key in the next slot of the ring, removing the key it held.
+	 */
+	private void addToRing(String key) {
+		String nextSlotKey = this.prefix + "#next";
+		String nextSlot = this.store.get(nextSlotKey);
+		long next = 0;
+		if (nextSlot != null) {
+			try {
+				next = Long.parseLong(nextSlot);
+			}
+			catch (NumberFormatException e) {
+				logger.warn("Ignoring invalid ring position '" + nextSlot + "' for prefix '" + this.prefix + "'");
+			}
+		}
+		String slotKey = this.prefix + "#" + (next % this.maxEntries);
+		String evictedKey = this.store.get(slotKey);
+		if (evictedKey != null) {
+			((RemovableMetadataStore) this.store).remove(evictedKey);
+		}
+		this.store.put(slotKey, key);
+		this.store.put(nextSlotKey, Long.toString(next + 1));
+	}
+
+	/**
+	 * The default key is the prefix plus the {@link #fileName(Object) file name}.
+	 */
+	protected String buildKey(F file) {
+		return this.prefix + this.fileName(file);
+	}
+
+	/**
+	 * Subclasses must implement this method to return the last modified time of the file.
+	 */
+	protected abstract long modified(F file);
+
+	/**
+	 * Subclasses must implement this method to return a name that uniquely identifies the file.
+	 */
+	protected abstract String fileName(F file);
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2010 the original author or authors.
+ * Copyright 2002-2012 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,14 +16,19 @@
 
 package org.springframework.integration.file.filters;
 
-import java.util.Queue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * {@link FileListFilter} that passes files only one time. This can
  * conveniently be used to prevent duplication of files, as is done in
  * {@link org.springframework.integration.file.FileReadingMessageSource}.
  * <p/>
+ * The 'seen' files are kept in a hash-indexed, insertion-ordered map so that
+ * each check is a constant time operation regardless of the number of files
+ * that have already been accepted. When a maximum capacity is provided, the
+ * oldest entries are evicted first.
+ * <p/>
  * This implementation is thread safe.
  *
  * @author Iwein Fuld
@@ -32,40 +37,44 @@ import java.util.concurrent.LinkedBlockingQueue;
  */
 public class AcceptOnceFileListFilter<F> extends AbstractFileListFilter<F> {
 
-	private final Queue<F> seen;
+	private final Map<F, Boolean> seen;
 
 	private final Object monitor = new Object();
 
 
 	/**
-	 * Creates an AcceptOnceFileListFilter that is based on a bounded queue. If the queue overflows,
+	 * Creates an AcceptOnceFileListFilter that is based on a bounded index. If the index overflows,
 	 * files that fall out will be passed through this filter again if passed to the
 	 * {@link #filterFiles(Object[])}
 	 *
-	 * @param maxCapacity the maximum number of Files to maintain in the 'seen' queue.
+	 * @param maxCapacity the maximum number of Files to maintain in the 'seen' index.
 	 */
-	public AcceptOnceFileListFilter(int maxCapacity) {
-		this.seen = new LinkedBlockingQueue<F>(maxCapacity);
+	public AcceptOnceFileListFilter(final int maxCapacity) {
+		if (maxCapacity <= 0) {
+			throw new IllegalArgumentException("'maxCapacity' must be greater than zero");
+		}
+		this.seen = new LinkedHashMap<F, Boolean>() {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<F, Boolean> eldest) {
+				return size() > maxCapacity;
+			}
+		};
 	}
 
 	/**
-	 * Creates an AcceptOnceFileListFilter based on an unbounded queue.
+	 * Creates an AcceptOnceFileListFilter based on an unbounded index.
 	 */
 	public AcceptOnceFileListFilter() {
-		this.seen = new LinkedBlockingQueue<F>();
+		this.seen = new LinkedHashMap<F, Boolean>();
 	}
 
 
 	public boolean accept(F file) {
 		synchronized (this.monitor) {
-			if (this.seen.contains(file)) {
-				return false;
-			}
-			if (!this.seen.offer(file)) {
-				this.seen.poll();
-				this.seen.add(file);
-			}
-			return true;
+			return this.seen.put(file, Boolean.TRUE) == null;
 		}
 	}
 
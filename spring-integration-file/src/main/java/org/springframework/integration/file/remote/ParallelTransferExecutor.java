@@ -0,0 +1,263 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.integration.file.remote;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.integration.MessagingException;
+import org.springframework.integration.file.remote.session.Session;
+import org.springframework.integration.file.remote.session.SessionFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.util.Assert;
+
+/**
+ * Runs a batch of remote file transfers over several {@link Session}s at once.
+ * Up to 'concurrency' workers each borrow one Session from the
+ * {@link SessionFactory} (typically a
+ * {@link org.springframework.integration.file.remote.session.CachingSessionFactory})
+ * and take the next pending transfer until none remain. A failed transfer is
+ * attempted again, up to 'retries' times, after closing its Session and obtaining
+ * another one; a CachingSessionFactory removes the failed Session from the pool
+ * rather than handing it out again. The results are returned in the order of the
+ * transfers, whatever order they completed in.
+ * 
+ * @since 2.2
+ */
+public class ParallelTransferExecutor<F> {
+
+	private final Log logger = LogFactory.getLog(this.getClass());
+
+	private final SessionFactory<F> sessionFactory;
+
+	private volatile int concurrency = 1;
+
+	private volatile int retries;
+
+	private volatile Executor executor;
+
+	private volatile ThreadPoolTaskExecutor defaultExecutor;
+
+	private final Object executorMonitor = new Object();
+
+
+	public ParallelTransferExecutor(SessionFactory<F> sessionFactory) {
+		Assert.notNull(sessionFactory, "sessionFactory must not be null");
+		this.sessionFactory = sessionFactory;
+	}
+
+
+	/**
+	 * The maximum number of transfers in progress at the same time, each using
+	 * its own Session. Default 1.
+	 */
+	public void setConcurrency(int concurrency) {
+		Assert.isTrue(concurrency > 0, "'concurrency' must be greater than 0");
+		this.concurrency = concurrency;
+	}
+
+	public int getConcurrency() {
+		return this.concurrency;
+	}
+
+	/**
+	 * The number of times a failed transfer is attempted again. Default 0.
+	 */
+	public void setRetries(int retries) {
+		Assert.isTrue(retries >= 0, "'retries' must not be negative");
+		this.retries = retries;
+	}
+
+	/**
+	 * The executor running the workers; by default, a pool of 'concurrency'
+	 * daemon threads is created on first use.
+	 */
+	public void setExecutor(Executor executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Perform the transfers and return their results in the same order.
+	 * @throws IOException the failure of the first transfer that could not
+	 * be completed; the remaining transfers are then abandoned.
+	 */
+	public <T> List<T> execute(List<? extends Transfer<F, T>> transfers) throws IOException {
+		int workers = Math.min(this.concurrency, transfers.size());
+		if (workers == 0) {
+			return new ArrayList<T>();
+		}
+		Object[] results = new Object[transfers.size()];
+		AtomicInteger next = new AtomicInteger();
+		AtomicReference<Exception> failure = new AtomicReference<Exception>();
+		CountDownLatch done = new CountDownLatch(workers);
+		Executor executor = this.getExecutor();
+		for (int i = 0; i < workers; i++) {
+			try {
+				executor.execute(new Worker<T>(transfers, results, next, failure, done));
+			}
+			catch (RuntimeException e) {
+				failure.compareAndSet(null, e);
+				while (i++ < workers) {
+					done.countDown();
+				}
+			}
+		}
+		try {
+			done.await();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			failure.compareAndSet(null, e);
+		}
+		Exception e = failure.get();
+		if (e instanceof IOException) {
+			throw (IOException) e;
+		}
+		if (e instanceof RuntimeException) {
+			throw (RuntimeException) e;
+		}
+		if (e != null) {
+			throw new MessagingException("Failure occurred during parallel transfer", e);
+		}
+		@SuppressWarnings("unchecked")
+		List<T> list = (List<T>) Arrays.asList(results);
+		return list;
+	}
+
+	/**
+	 * Shut down the default executor, if one was created.
+	 */
+	public void destroy() {
+		if (this.defaultExecutor != null) {
+			this.defaultExecutor.shutdown();
+		}
+	}
+
+	private Executor getExecutor() {
+		if (this.executor != null) {
+			return this.executor;
+		}
+		synchronized (this.executorMonitor) {
+			if (this.defaultExecutor == null) {
+				ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+				executor.setCorePoolSize(this.concurrency);
+				executor.setMaxPoolSize(this.concurrency);
+				executor.setDaemon(true);
+				executor.setThreadNamePrefix("remote-file-transfer-");
+				executor.afterPropertiesSet();
+				this.defaultExecutor = executor;
+			}
+			return this.defaultExecutor;
+		}
+	}
+
+	private void closeQuietly(Session<F> session) {
+		if (session != null) {
+			try {
+				session.close();
+			}
+			catch (Exception e) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("failed to close Session", e);
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * A single transfer, performed with the provided Session.
+	 */
+	public static interface Transfer<F, T> {
+
+		T transfer(Session<F> session) throws IOException;
+
+	}
+
+
+	private class Worker<T> implements Runnable {
+
+		private final List<? extends Transfer<F, T>> transfers;
+
+		private final Object[] results;
+
+		private final AtomicInteger next;
+
+		private final AtomicReference<Exception> failure;
+
+		private final CountDownLatch done;
+
+		private Worker(List<? extends Transfer<F, T>> transfers, Object[] results, AtomicInteger next,
+				AtomicReference<Exception> failure, CountDownLatch done) {
+			this.transfers = transfers;
+			this.results = results;
+			this.next = next;
+			this.failure = failure;
+			this.done = done;
+		}
+
+		public void run() {
+			Session<F> session = null;
+			try {
+				int index;
+				while (this.failure.get() == null && (index = this.next.getAndIncrement()) < this.transfers.size()) {
+					Transfer<F, T> transfer = this.transfers.get(index);
+					for (int attempt = 0; ; attempt++) {
+						if (session == null) {
+							session = sessionFactory.getSession();
+							Assert.state(session != null, "failed to acquire a Session");
+						}
+						try {
+							this.results[index] = transfer.transfer(session);
+							break;
+						}
+						catch (Exception e) {
+							// the Session may be broken; a CachingSessionFactory discards a Session
+							// whose operation failed, so the next attempt uses a fresh one
+							closeQuietly(session);
+							session = null;
+							if (attempt >= retries) {
+								throw e;
+							}
+							if (logger.isDebugEnabled()) {
+								logger.debug("transfer failed, retrying (" + (attempt + 1) + "/" + retries + ")", e);
+							}
+						}
+					}
+				}
+			}
+			catch (Exception e) {
+				this.failure.compareAndSet(null, e);
+			}
+			finally {
+				closeQuietly(session);
+				this.done.countDown();
+			}
+		}
+	}
+
+}
@@ -28,13 +28,16 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Executor;
 
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.integration.Message;
 import org.springframework.integration.MessagingException;
 import org.springframework.integration.file.FileHeaders;
 import org.springframework.integration.file.filters.FileListFilter;
 import org.springframework.integration.file.remote.AbstractFileInfo;
+import org.springframework.integration.file.remote.ParallelTransferExecutor;
 import org.springframework.integration.file.remote.session.Session;
 import org.springframework.integration.file.remote.session.SessionFactory;
 import org.springframework.integration.handler.AbstractReplyProducingMessageHandler;
@@ -50,7 +53,8 @@ import org.springframework.util.StringUtils;
  * @author Gary Russell
  * @since 2.1
  */
-public abstract class AbstractRemoteFileOutboundGateway<F> extends AbstractReplyProducingMessageHandler {
+public abstract class AbstractRemoteFileOutboundGateway<F> extends AbstractReplyProducingMessageHandler
+		implements DisposableBean {
 
 	protected final SessionFactory<F> sessionFactory;
 
@@ -98,11 +102,14 @@ public abstract class AbstractRemoteFileOutboundGateway<F> extends AbstractReply
 	 */
 	private volatile FileListFilter<F> filter;
 
+	private final ParallelTransferExecutor<F> transferExecutor;
+
 
 	public AbstractRemoteFileOutboundGateway(SessionFactory<F> sessionFactory, String command,
 			String expression) {
 		this.sessionFactory = sessionFactory;
 		this.command = command;
+		this.transferExecutor = new ParallelTransferExecutor<F>(sessionFactory);
 		this.processor = new ExpressionEvaluatingMessageProcessor<String>(
 			new SpelExpressionParser().parseExpression(expression));
 	}
@@ -153,6 +160,36 @@ public abstract class AbstractRemoteFileOutboundGateway<F> extends AbstractReply
 		this.filter = filter;
 	}
 
+	/**
+	 * @param transferConcurrency the number of files the mget command downloads
+	 * at the same time, each over its own Session; default 1. The Session used for
+	 * listing the files is closed before the downloads start, so a caching session
+	 * factory needs a pool of at least this size.
+	 */
+	public void setTransferConcurrency(int transferConcurrency) {
+		this.transferExecutor.setConcurrency(transferConcurrency);
+	}
+
+	/**
+	 * @param transferRetries the number of times a failed mget download is
+	 * attempted again when downloading in parallel; default 0.
+	 */
+	public void setTransferRetries(int transferRetries) {
+		this.transferExecutor.setRetries(transferRetries);
+	}
+
+	/**
+	 * @param transferExecutor the executor used for parallel mget downloads;
+	 * by default, a pool of 'transferConcurrency' daemon threads.
+	 */
+	public void setTransferExecutor(Executor transferExecutor) {
+		this.transferExecutor.setExecutor(transferExecutor);
+	}
+
+	public void destroy() {
+		this.transferExecutor.destroy();
+	}
+
 	@Override
 	protected void onInit() {
 		super.onInit();
@@ -385,18 +422,37 @@ public abstract class AbstractRemoteFileOutboundGateway<F> extends AbstractReply
 			throw new MessagingException("No files found at " + remoteDirectory
 					+ " with pattern " + remoteFilename);
 		}
-		List<File> files = new ArrayList<File>();
+		List<ParallelTransferExecutor.Transfer<F, File>> transfers = new ArrayList<ParallelTransferExecutor.Transfer<F, File>>();
 		for (String fileName : fileNames) {
-			File file;
+			final String remoteFilePath;
+			final String localFilename;
 			if (fileName.contains(this.remoteFileSeparator) &&
 					fileName.startsWith(remoteDirectory)) { // the server returned the full path
-				file = this.get(session, fileName,
-						fileName.substring(fileName.lastIndexOf(this.remoteFileSeparator)), false);
+				remoteFilePath = fileName;
+				localFilename = fileName.substring(fileName.lastIndexOf(this.remoteFileSeparator));
 			}
 			else {
-				file = this.get(session, generateFullPath(remoteDirectory, fileName), fileName, false);
+				remoteFilePath = generateFullPath(remoteDirectory, fileName);
+				localFilename = fileName;
 			}
-			files.add(file);
+			transfers.add(new ParallelTransferExecutor.Transfer<F, File>() {
+				public File transfer(Session<F> session) throws IOException {
+					return get(session, remoteFilePath, localFilename, false);
+				}
+			});
+		}
+		if (this.transferExecutor.getConcurrency() > 1 && transfers.size() > 1) {
+			/*
+			 * Release the listing Session first, as the synchronizer does, so the workers
+			 * do not wait for it on a small caching pool; closing it again afterwards is
+			 * harmless. The files are returned in the listed order.
+			 */
+			session.close();
+			return this.transferExecutor.execute(transfers);
+		}
+		List<File> files = new ArrayList<File>();
+		for (ParallelTransferExecutor.Transfer<F, File> transfer : transfers) {
+			files.add(transfer.transfer(session));
 		}
 		return files;
 	}
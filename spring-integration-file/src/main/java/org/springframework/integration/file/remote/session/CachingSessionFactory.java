@@ -23,12 +23,21 @@ import java.io.OutputStream;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.integration.util.SimplePool;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.scheduling.TaskScheduler;
 
 /**
  * A {@link SessionFactory} implementation that caches Sessions for reuse without
  * requiring reconnection each time the Session is retrieved from the factory.
  * This implementation wraps and delegates to a target SessionFactory instance.
+ * <p>
+ * When a {@link TaskScheduler} is provided, idle sessions are periodically checked
+ * and closed if they are no longer open or have been idle for longer than the
+ * idle timeout, and the cache is topped up to the minimum number of idle sessions
+ * so that callers do not have to wait for a connection to be established.
  *
  * @author Josh Long
  * @author Oleg Zhurakousky
@@ -36,7 +45,8 @@ import org.springframework.integration.util.SimplePool;
  * @author Gary Russell
  * @since 2.0
  */
-public class CachingSessionFactory<F> implements SessionFactory<F>, DisposableBean {
+@ManagedResource
+public class CachingSessionFactory<F> implements SessionFactory<F>, InitializingBean, DisposableBean {
 
 	private static final Log logger = LogFactory.getLog(CachingSessionFactory.class);
 
@@ -44,6 +54,10 @@ public class CachingSessionFactory<F> implements SessionFactory<F>, DisposableBe
 
 	private final SimplePool<Session<F>> pool;
 
+	private volatile TaskScheduler taskScheduler;
+
+	private volatile long evictionInterval = 30000;
+
 	public CachingSessionFactory(SessionFactory<F> sessionFactory) {
 		this(sessionFactory, 0);
 	}
@@ -79,21 +93,107 @@ public class CachingSessionFactory<F> implements SessionFactory<F>, DisposableBe
 		this.pool.setPoolSize(poolSize);
 	}
 
+	/**
+	 * Sets the time (in milliseconds) after which an idle session is closed; requires
+	 * a {@link #setTaskScheduler(TaskScheduler) taskScheduler}. Default: 0 (never).
+	 */
+	public void setIdleTimeout(long idleTimeout) {
+		this.pool.setIdleTimeout(idleTimeout);
+	}
+
+	/**
+	 * Sets the number of idle sessions to keep open, even when they have exceeded the
+	 * idle timeout; requires a {@link #setTaskScheduler(TaskScheduler) taskScheduler}.
+	 * Default: 0.
+	 */
+	public void setMinIdle(int minIdle) {
+		this.pool.setMinIdle(minIdle);
+	}
+
+	/**
+	 * Sets the scheduler used to check idle sessions.
+	 */
+	public void setTaskScheduler(TaskScheduler taskScheduler) {
+		this.taskScheduler = taskScheduler;
+	}
+
+	/**
+	 * Sets the interval (in milliseconds) between idle session checks. Default: 30000.
+	 */
+	public void setEvictionInterval(long evictionInterval) {
+		this.evictionInterval = evictionInterval;
+	}
+
+	@ManagedAttribute
+	public int getPoolSize() {
+		return this.pool.getPoolSize();
+	}
+
+	@ManagedAttribute
+	public int getIdleCount() {
+		return this.pool.getIdleCount();
+	}
+
+	@ManagedAttribute
+	public int getActiveCount() {
+		return this.pool.getActiveCount();
+	}
+
+	@ManagedAttribute
+	public long getBorrowCount() {
+		return this.pool.getBorrowCount();
+	}
+
+	@ManagedAttribute
+	public long getTimeoutCount() {
+		return this.pool.getTimeoutCount();
+	}
+
+	@ManagedAttribute
+	public long getEvictionCount() {
+		return this.pool.getEvictionCount();
+	}
+
+	@ManagedAttribute
+	public double getMeanWaitTime() {
+		return this.pool.getMeanWaitTime();
+	}
+
+	@ManagedAttribute
+	public double getMaxWaitTime() {
+		return this.pool.getMaxWaitTime();
+	}
+
+	public void afterPropertiesSet() {
+		if (this.taskScheduler != null) {
+			this.pool.startEviction(this.taskScheduler, this.evictionInterval);
+		}
+	}
+
 	public Session<F> getSession() {
 		return new CachedSession(this.pool.getItem());
 	}
 
 	public void destroy() {
+		this.pool.stopEviction();
 		this.pool.removeAllIdleItems();
 	}
 
 
+	/**
+	 * A Session that is returned to the pool when closed. If any operation on the
+	 * target Session fails, the target may be broken (while still reporting
+	 * {@link Session#isOpen()}), so it is closed and removed from the pool instead,
+	 * and the next {@link #getSession()} uses a new one.
+	 */
 	private class CachedSession implements Session<F> {
 
 		private final Session<F> targetSession;
 
 		private boolean released;
 
+		private volatile boolean dirty;
+
 		private CachedSession(Session<F> targetSession) {
 			this.targetSession = targetSession;
 		}
@@ -104,6 +204,13 @@ public class CachingSessionFactory<F> implements SessionFactory<F>, DisposableBe
 					logger.debug("Session already released.");
 				}
 			}
+			else if (dirty) {
+				if (logger.isDebugEnabled()){
+					logger.debug("Removing failed Session from the pool.");
+				}
+				pool.removeAllocatedItem(targetSession);
+				released = true;
+			}
 			else {
 				if (logger.isDebugEnabled()){
 					logger.debug("Releasing Session back to the pool.");
@@ -114,19 +221,51 @@ public class CachingSessionFactory<F> implements SessionFactory<F>, DisposableBe
 		}
 
 		public boolean remove(String path) throws IOException{
-			return this.targetSession.remove(path);
+			try {
+				return this.targetSession.remove(path);
+			}
+			catch (IOException e) {
+				throw this.markDirty(e);
+			}
+			catch (RuntimeException e) {
+				throw this.markDirty(e);
+			}
 		}
 
 		public F[] list(String path) throws IOException{
-			return this.targetSession.list(path);
+			try {
+				return this.targetSession.list(path);
+			}
+			catch (IOException e) {
+				throw this.markDirty(e);
+			}
+			catch (RuntimeException e) {
+				throw this.markDirty(e);
+			}
 		}
 
 		public void read(String source, OutputStream os) throws IOException{
-			this.targetSession.read(source, os);
+			try {
+				this.targetSession.read(source, os);
+			}
+			catch (IOException e) {
+				throw this.markDirty(e);
+			}
+			catch (RuntimeException e) {
+				throw this.markDirty(e);
+			}
 		}
 
 		public void write(InputStream inputStream, String destination) throws IOException{
-			this.targetSession.write(inputStream, destination);
+			try {
+				this.targetSession.write(inputStream, destination);
+			}
+			catch (IOException e) {
+				throw this.markDirty(e);
+			}
+			catch (RuntimeException e) {
+				throw this.markDirty(e);
+			}
 		}
 
 		public boolean isOpen() {
@@ -134,19 +273,56 @@ public class CachingSessionFactory<F> implements SessionFactory<F>, DisposableBe
 		}
 
 		public void rename(String pathFrom, String pathTo) throws IOException {
-			this.targetSession.rename(pathFrom, pathTo);
+			try {
+				this.targetSession.rename(pathFrom, pathTo);
+			}
+			catch (IOException e) {
+				throw this.markDirty(e);
+			}
+			catch (RuntimeException e) {
+				throw this.markDirty(e);
+			}
 		}
 
 		public boolean mkdir(String directory) throws IOException {
-			return this.targetSession.mkdir(directory);
+			try {
+				return this.targetSession.mkdir(directory);
+			}
+			catch (IOException e) {
+				throw this.markDirty(e);
+			}
+			catch (RuntimeException e) {
+				throw this.markDirty(e);
+			}
 		}
 		
 		public boolean exists(String path) throws IOException{
-			return this.targetSession.exists(path);
+			try {
+				return this.targetSession.exists(path);
+			}
+			catch (IOException e) {
+				throw this.markDirty(e);
+			}
+			catch (RuntimeException e) {
+				throw this.markDirty(e);
+			}
 		}
 
 		public String[] listNames(String path) throws IOException {
-			return this.targetSession.listNames(path);
+			try {
+				return this.targetSession.listNames(path);
+			}
+			catch (IOException e) {
+				throw this.markDirty(e);
+			}
+			catch (RuntimeException e) {
+				throw this.markDirty(e);
+			}
+		}
+
+		private <E extends Exception> E markDirty(E e) {
+			this.dirty = true;
+			return e;
 		}
 	}
 
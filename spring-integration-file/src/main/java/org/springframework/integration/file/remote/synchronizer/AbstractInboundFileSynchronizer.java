@@ -20,22 +20,31 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executor;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.expression.Expression;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
 import org.springframework.integration.MessagingException;
 import org.springframework.integration.file.filters.FileListFilter;
+import org.springframework.integration.file.remote.ParallelTransferExecutor;
 import org.springframework.integration.file.remote.session.Session;
 import org.springframework.integration.file.remote.session.SessionFactory;
+import org.springframework.integration.store.MetadataStore;
 import org.springframework.util.Assert;
 import org.springframework.util.ObjectUtils;
+import org.springframework.util.StringUtils;
 
 /**
  * Base class charged with knowing how to connect to a remote file system,
@@ -50,7 +59,7 @@ import org.springframework.util.ObjectUtils;
  * @author Oleg Zhurakousky
  * @since 2.0
  */
-public abstract class AbstractInboundFileSynchronizer<F> implements InboundFileSynchronizer, InitializingBean {
+public abstract class AbstractInboundFileSynchronizer<F> implements InboundFileSynchronizer, InitializingBean, DisposableBean {
 
 	protected final Log logger = LogFactory.getLog(this.getClass());
 
@@ -86,6 +95,23 @@ public abstract class AbstractInboundFileSynchronizer<F> implements InboundFileS
 	 */
 	private volatile boolean deleteRemoteFiles;
 
+	/**
+	 * Performs the downloads over several Sessions when the transfer concurrency is greater than 1.
+	 */
+	private final ParallelTransferExecutor<F> transferExecutor;
+
+	/**
+	 * When set, the high-water mark of the synchronized files is kept in this store
+	 * and only newer remote files are considered.
+	 */
+	private volatile MetadataStore metadataStore;
+
+	private volatile String metadataKey;
+
+	private volatile int fullSynchronizationInterval;
+
+	private volatile int synchronizationCount;
+
 
 	/**
 	 * Create a synchronizer with the {@link SessionFactory} used to acquire {@link Session} instances.
@@ -93,6 +119,7 @@ public abstract class AbstractInboundFileSynchronizer<F> implements InboundFileS
 	public AbstractInboundFileSynchronizer(SessionFactory<F> sessionFactory) {
 		Assert.notNull(sessionFactory, "sessionFactory must not be null");
 		this.sessionFactory = sessionFactory;
+		this.transferExecutor = new ParallelTransferExecutor<F>(sessionFactory);
 	}
 
 
@@ -125,8 +152,81 @@ public abstract class AbstractInboundFileSynchronizer<F> implements InboundFileS
 		this.deleteRemoteFiles = deleteRemoteFiles;
 	}
 
+	/**
+	 * Specify how many files may be downloaded at the same time, each over its
+	 * own Session; use a {@link org.springframework.integration.file.remote.session.CachingSessionFactory}
+	 * with at least that many sessions. Default 1: files are copied one after the
+	 * other over the Session used to list the remote directory.
+	 */
+	public void setTransferConcurrency(int transferConcurrency) {
+		this.transferExecutor.setConcurrency(transferConcurrency);
+	}
+
+	/**
+	 * Specify how many times a failed download is attempted again when
+	 * downloading in parallel. Default 0.
+	 */
+	public void setTransferRetries(int transferRetries) {
+		this.transferExecutor.setRetries(transferRetries);
+	}
+
+	/**
+	 * Specify the executor used for parallel downloads; by default, a pool of
+	 * 'transferConcurrency' daemon threads.
+	 */
+	public void setTransferExecutor(Executor transferExecutor) {
+		this.transferExecutor.setExecutor(transferExecutor);
+	}
+
+	/**
+	 * Specify a {@link MetadataStore} to enable incremental synchronization: the
+	 * newest modification time of the synchronized files, and the names of the files
+	 * synchronized with that time (the high-water mark), are recorded in the store;
+	 * remote files that are older, or that have that time and were already
+	 * synchronized, are not even passed to the filter. Use a persistent store, such
+	 * as the {@link org.springframework.integration.store.PropertiesPersistingMetadataStore},
+	 * for the mark to survive a restart. Requires a subclass that
+	 * {@link #supportsModifiedTime() supports modification times}.
+	 */
+	public void setMetadataStore(MetadataStore metadataStore) {
+		this.metadataStore = metadataStore;
+	}
+
+	/**
+	 * Specify the key of the high-water mark in the {@link MetadataStore}; it must be
+	 * unique per synchronizer. Default: the simple class name followed by the
+	 * remote directory.
+	 */
+	public void setMetadataKey(String metadataKey) {
+		this.metadataKey = metadataKey;
+	}
+
+	/**
+	 * Specify how often the incremental synchronization considers all remote files
+	 * regardless of the high-water mark, in order to pick up files that were created
+	 * with an older modification time. For example, 10 fully synchronizes once every
+	 * 10 synchronizations; the default 0 never does. Note that a full synchronization
+	 * downloads again every remote file that is no longer in the local directory,
+	 * unless the filter rejects it.
+	 */
+	public void setFullSynchronizationInterval(int fullSynchronizationInterval) {
+		Assert.isTrue(fullSynchronizationInterval >= 0, "'fullSynchronizationInterval' must not be negative");
+		this.fullSynchronizationInterval = fullSynchronizationInterval;
+	}
+
 	public final void afterPropertiesSet() {
 		Assert.notNull(this.remoteDirectory, "remoteDirectory must not be null");
+		if (this.metadataKey == null) {
+			this.metadataKey = this.getClass().getSimpleName() + "." + this.remoteDirectory;
+		}
+		if (this.metadataStore != null) {
+			Assert.state(this.supportsModifiedTime(),
+					this.getClass().getName() + " does not support incremental synchronization with a MetadataStore");
+		}
+	}
+
+	public void destroy() {
+		this.transferExecutor.destroy();
 	}
 
 	protected final List<F> filterFiles(F[] files) {
@@ -143,13 +243,31 @@ public abstract class AbstractInboundFileSynchronizer<F> implements InboundFileS
 			session = this.sessionFactory.getSession();
 			Assert.state(session != null, "failed to acquire a Session");
 			F[] files = session.list(this.remoteDirectory);
+			HighWaterMark highWaterMark = null;
+			if (this.metadataStore != null) {
+				highWaterMark = this.getHighWaterMark();
+				if (!this.isFullSynchronization()) {
+					files = this.filesNewerThan(files, highWaterMark);
+				}
+			}
 			if (!ObjectUtils.isEmpty(files)) {
 				Collection<F> filteredFiles = this.filterFiles(files);
-				for (F file : filteredFiles) {
-					if (file != null) {
-						this.copyFileToLocalDirectory(this.remoteDirectory, file, localDirectory, session);
+				if (this.transferExecutor.getConcurrency() > 1 && filteredFiles.size() > 1) {
+					// give the listing Session back so that the transfers may use it
+					session.close();
+					session = null;
+					this.copyFilesToLocalDirectory(filteredFiles, localDirectory);
+				}
+				else {
+					for (F file : filteredFiles) {
+						if (file != null) {
+							this.copyFileToLocalDirectory(this.remoteDirectory, file, localDirectory, session);
+						}
 					}
 				}
+				if (this.metadataStore != null) {
+					this.advanceHighWaterMark(filteredFiles, highWaterMark);
+				}
 			}
 		}
 		catch (IOException e) {
@@ -169,6 +287,93 @@ public abstract class AbstractInboundFileSynchronizer<F> implements InboundFileS
 		}
 	}
 
+	private boolean isFullSynchronization() {
+		// not the first one, which would repeat a full synchronization on every restart
+		int count = ++this.synchronizationCount;
+		return this.fullSynchronizationInterval > 0 && count % this.fullSynchronizationInterval == 0;
+	}
+
+	private HighWaterMark getHighWaterMark() {
+		String value = this.metadataStore.get(this.metadataKey);
+		if (value == null) {
+			return null;
+		}
+		HighWaterMark highWaterMark = HighWaterMark.parse(value);
+		if (highWaterMark == null && logger.isWarnEnabled()) {
+			logger.warn("Ignoring malformed high-water mark '" + value + "' for " + this.metadataKey
+					+ "; all remote files are considered");
+		}
+		return highWaterMark;
+	}
+
+	@SuppressWarnings("unchecked")
+	private F[] filesNewerThan(F[] files, HighWaterMark highWaterMark) {
+		if (highWaterMark == null || ObjectUtils.isEmpty(files)) {
+			return files;
+		}
+		List<F> newerFiles = new ArrayList<F>();
+		for (F file : files) {
+			if (file != null && this.isFile(file) && this.isAfter(file, highWaterMark)) {
+				newerFiles.add(file);
+			}
+		}
+		return newerFiles.toArray((F[]) Array.newInstance(files.getClass().getComponentType(), newerFiles.size()));
+	}
+
+	/**
+	 * Record the newest modification time of the synchronized files and the names of the
+	 * files with that time; only called once they have all been copied, so a failed
+	 * synchronization is attempted again in full.
+	 */
+	private void advanceHighWaterMark(Collection<F> synchronizedFiles, HighWaterMark highWaterMark) {
+		HighWaterMark newHighWaterMark = (highWaterMark != null) ? highWaterMark : new HighWaterMark(Long.MIN_VALUE);
+		boolean advanced = false;
+		for (F file : synchronizedFiles) {
+			if (file == null || !this.isFile(file)) {
+				continue;
+			}
+			long modified = this.getModified(file);
+			if (modified > newHighWaterMark.modified) {
+				newHighWaterMark = new HighWaterMark(modified);
+			}
+			if (modified == newHighWaterMark.modified) {
+				advanced |= newHighWaterMark.names.add(this.getFilename(file));
+			}
+		}
+		if (advanced) {
+			this.metadataStore.put(this.metadataKey, newHighWaterMark.toString());
+		}
+	}
+
+	/**
+	 * Whether the file is newer than the high-water mark, or has its modification time
+	 * but was not synchronized yet; remote listings often only have a precision of
+	 * seconds or minutes, so files written after the mark may share its time.
+	 */
+	private boolean isAfter(F file, HighWaterMark highWaterMark) {
+		long modified = this.getModified(file);
+		if (modified != highWaterMark.modified) {
+			return modified > highWaterMark.modified;
+		}
+		return !highWaterMark.names.contains(this.getFilename(file));
+	}
+
+	private void copyFilesToLocalDirectory(Collection<F> remoteFiles, final File localDirectory) throws IOException {
+		final String remoteDirectoryPath = this.remoteDirectory;
+		List<ParallelTransferExecutor.Transfer<F, Object>> transfers = new ArrayList<ParallelTransferExecutor.Transfer<F, Object>>();
+		for (final F file : remoteFiles) {
+			if (file != null) {
+				transfers.add(new ParallelTransferExecutor.Transfer<F, Object>() {
+					public Object transfer(Session<F> session) throws IOException {
+						copyFileToLocalDirectory(remoteDirectoryPath, file, localDirectory, session);
+						return null;
+					}
+				});
+			}
+		}
+		this.transferExecutor.execute(transfers);
+	}
+
 	private void copyFileToLocalDirectory(String remoteDirectoryPath, F remoteFile, File localDirectory, Session<F> session) throws IOException {
 		String remoteFileName = this.getFilename(remoteFile);
 		String localFileName = this.generateLocalFileName(remoteFileName);
@@ -234,4 +439,66 @@ public abstract class AbstractInboundFileSynchronizer<F> implements InboundFileS
 
 	protected abstract String getFilename(F file);
 
+	/**
+	 * Indicate whether {@link #getModified(Object)} returns the modification time of
+	 * the remote files, which incremental synchronization with a
+	 * {@link #setMetadataStore(MetadataStore) MetadataStore} requires. Subclasses that
+	 * implement getModified must override this method to return true. Default false.
+	 */
+	protected boolean supportsModifiedTime() {
+		return false;
+	}
+
+	/**
+	 * Return the modification time of the remote file in milliseconds; only called
+	 * if {@link #supportsModifiedTime()} returns true. Default 0 (unknown).
+	 */
+	protected long getModified(F file) {
+		return 0;
+	}
+
+
+	/**
+	 * The high-water mark, stored as "modified:name1/name2"; '/' cannot occur
+	 * in the name of a file within the remote directory.
+	 */
+	private static class HighWaterMark {
+
+		private final long modified;
+
+		private final Set<String> names = new TreeSet<String>();
+
+		private HighWaterMark(long modified) {
+			this.modified = modified;
+		}
+
+		/**
+		 * @return the mark, or null if the value is malformed.
+		 */
+		private static HighWaterMark parse(String value) {
+			int separatorIndex = value.indexOf(':');
+			if (separatorIndex < 0) {
+				return null;
+			}
+			HighWaterMark highWaterMark;
+			try {
+				highWaterMark = new HighWaterMark(Long.parseLong(value.substring(0, separatorIndex)));
+			}
+			catch (NumberFormatException e) {
+				return null;
+			}
+			for (String name : StringUtils.delimitedListToStringArray(value.substring(separatorIndex + 1), "/")) {
+				if (name.length() > 0) {
+					highWaterMark.names.add(name);
+				}
+			}
+			return highWaterMark;
+		}
+
+		@Override
+		public String toString() {
+			return this.modified + ":" + StringUtils.collectionToDelimitedString(this.names, "/");
+		}
+	}
+
 }
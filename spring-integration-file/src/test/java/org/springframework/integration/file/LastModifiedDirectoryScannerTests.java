@@ -0,0 +1,127 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.file;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.matchers.JUnitMatchers.hasItem;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.integration.file.filters.AcceptAllFileListFilter;
+import org.springframework.integration.file.filters.FileListFilter;
+
+/**
+ * @since 2.2
+ */
+public class LastModifiedDirectoryScannerTests {
+
+	@Rule
+	public TemporaryFolder root = new TemporaryFolder();
+
+	private File subFolder;
+
+	private File topLevelFile;
+
+	private File subLevelFile;
+
+	private LastModifiedDirectoryScanner scanner;
+
+
+	@Before
+	public void setUp() throws Exception {
+		this.subFolder = this.root.newFolder("sub");
+		this.topLevelFile = this.root.newFile("file1");
+		this.subLevelFile = new File(this.subFolder, "file2");
+		this.subLevelFile.createNewFile();
+		this.subFolder.setLastModified(10000);
+		this.root.getRoot().setLastModified(10000);
+		this.scanner = new LastModifiedDirectoryScanner();
+		this.scanner.setFilter(new AcceptAllFileListFilter<File>());
+	}
+
+	@Test
+	public void onlyChangedDirectoriesAreListed() throws Exception {
+		List<File> files = this.scanner.listFiles(this.root.getRoot());
+		assertThat(files.size(), is(2));
+		assertThat(files, hasItem(this.topLevelFile));
+		assertThat(files, hasItem(this.subLevelFile));
+
+		assertThat(this.scanner.listFiles(this.root.getRoot()).size(), is(0));
+
+		File newFile = new File(this.subFolder, "file3");
+		newFile.createNewFile();
+		this.subFolder.setLastModified(20000);
+		files = this.scanner.listFiles(this.root.getRoot());
+		assertThat(files.size(), is(2));
+		assertThat(files, hasItem(this.subLevelFile));
+		assertThat(files, hasItem(newFile));
+
+		assertThat(this.scanner.listFiles(this.root.getRoot()).size(), is(0));
+	}
+
+	@Test
+	public void recentlyModifiedDirectoryIsListedAgain() throws Exception {
+		this.subFolder.setLastModified(System.currentTimeMillis());
+		assertThat(this.scanner.listFiles(this.root.getRoot()).size(), is(2));
+		List<File> files = this.scanner.listFiles(this.root.getRoot());
+		assertThat(files.size(), is(1));
+		assertThat(files, hasItem(this.subLevelFile));
+	}
+
+	@Test
+	public void fullScan() throws Exception {
+		this.scanner.setFullScanInterval(1);
+		assertThat(this.scanner.listFiles(this.root.getRoot()).size(), is(2));
+		Thread.sleep(10);
+		assertThat(this.scanner.listFiles(this.root.getRoot()).size(), is(2));
+	}
+
+	@Test
+	public void rejectedFileReturnedByFullScan() throws Exception {
+		this.scanner.setFilter(new FileListFilter<File>() {
+			public List<File> filterFiles(File[] files) {
+				return new ArrayList<File>();
+			}
+		});
+		assertThat(this.scanner.listFiles(this.root.getRoot()).size(), is(0));
+		this.scanner.setFilter(new AcceptAllFileListFilter<File>());
+		assertThat(this.scanner.listFiles(this.root.getRoot()).size(), is(0));
+		this.scanner.setFullScanInterval(1);
+		Thread.sleep(10);
+		assertThat(this.scanner.listFiles(this.root.getRoot()).size(), is(2));
+	}
+
+	@Test
+	public void newSubdirectoryIsScanned() throws Exception {
+		assertThat(this.scanner.listFiles(this.root.getRoot()).size(), is(2));
+		File newFolder = new File(this.subFolder, "new");
+		newFolder.mkdir();
+		File newFile = new File(newFolder, "file4");
+		newFile.createNewFile();
+		this.subFolder.setLastModified(20000);
+		List<File> files = this.scanner.listFiles(this.root.getRoot());
+		assertThat(files, hasItem(newFile));
+	}
+
+}
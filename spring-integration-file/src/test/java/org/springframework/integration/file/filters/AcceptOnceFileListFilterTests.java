@@ -0,0 +1,58 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.file.filters;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * @since 2.2
+ */
+public class AcceptOnceFileListFilterTests {
+
+	@Test
+	public void unbounded() {
+		AcceptOnceFileListFilter<String> filter = new AcceptOnceFileListFilter<String>();
+		List<String> accepted = filter.filterFiles(new String[] { "foo", "bar", "foo" });
+		assertEquals(2, accepted.size());
+		assertTrue(filter.filterFiles(new String[] { "foo", "bar" }).isEmpty());
+		assertEquals(1, filter.filterFiles(new String[] { "baz" }).size());
+	}
+
+	@Test
+	public void boundedEvictsOldest() {
+		AcceptOnceFileListFilter<String> filter = new AcceptOnceFileListFilter<String>(2);
+		assertTrue(filter.accept("foo"));
+		assertTrue(filter.accept("bar"));
+		assertFalse(filter.accept("foo"));
+		assertTrue(filter.accept("baz"));
+		assertTrue(filter.accept("foo"));
+		assertFalse(filter.accept("baz"));
+		assertFalse(filter.accept("foo"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void invalidCapacity() {
+		new AcceptOnceFileListFilter<String>(0);
+	}
+
+}
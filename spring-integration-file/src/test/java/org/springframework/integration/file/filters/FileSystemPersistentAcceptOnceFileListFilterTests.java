@@ -0,0 +1,110 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.file.filters;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.integration.store.MetadataStore;
+import org.springframework.integration.store.PropertiesPersistingMetadataStore;
+import org.springframework.integration.store.SimpleMetadataStore;
+
+/**
+ * @since 2.2
+ */
+public class FileSystemPersistentAcceptOnceFileListFilterTests {
+
+	@Rule
+	public TemporaryFolder tempFolder = new TemporaryFolder();
+
+	@Test
+	public void acceptsOnceUntilModified() throws Exception {
+		SimpleMetadataStore store = new SimpleMetadataStore();
+		FileSystemPersistentAcceptOnceFileListFilter filter =
+				new FileSystemPersistentAcceptOnceFileListFilter(store, "test-");
+		File file = this.tempFolder.newFile("foo.txt");
+		file.setLastModified(10000);
+		assertTrue(filter.accept(file));
+		assertFalse(filter.accept(file));
+		assertEquals("10000", store.get("test-" + file.getAbsolutePath()));
+		file.setLastModified(20000);
+		assertTrue(filter.accept(file));
+		assertFalse(filter.accept(file));
+	}
+
+	@Test
+	public void oldestEntryEvictedWhenFull() throws Exception {
+		SimpleMetadataStore store = new SimpleMetadataStore();
+		FileSystemPersistentAcceptOnceFileListFilter filter =
+				new FileSystemPersistentAcceptOnceFileListFilter(store, "test-");
+		filter.setMaxEntries(2);
+		File foo = this.tempFolder.newFile("foo.txt");
+		File bar = this.tempFolder.newFile("bar.txt");
+		File baz = this.tempFolder.newFile("baz.txt");
+		assertTrue(filter.accept(foo));
+		assertTrue(filter.accept(bar));
+		assertFalse(filter.accept(foo));
+		assertTrue(filter.accept(baz));
+		assertNull(store.get("test-" + foo.getAbsolutePath()));
+		assertFalse(filter.accept(bar));
+		assertFalse(filter.accept(baz));
+		assertTrue(filter.accept(foo));
+		assertNull(store.get("test-" + bar.getAbsolutePath()));
+	}
+
+	@Test(expected=IllegalArgumentException.class)
+	public void maxEntriesRequiresRemovableStore() {
+		FileSystemPersistentAcceptOnceFileListFilter filter =
+				new FileSystemPersistentAcceptOnceFileListFilter(new MetadataStore() {
+					public void put(String key, String value) {
+					}
+					public String get(String key) {
+						return null;
+					}
+				}, "test-");
+		filter.setMaxEntries(2);
+	}
+
+	@Test
+	public void stateSurvivesRestart() throws Exception {
+		File file = this.tempFolder.newFile("bar.txt");
+		String baseDirectory = this.tempFolder.newFolder("store").getAbsolutePath();
+
+		PropertiesPersistingMetadataStore store = new PropertiesPersistingMetadataStore();
+		store.setBaseDirectory(baseDirectory);
+		store.afterPropertiesSet();
+		assertEquals(1, new FileSystemPersistentAcceptOnceFileListFilter(store, "test-")
+				.filterFiles(new File[] { file }).size());
+		store.destroy();
+
+		store = new PropertiesPersistingMetadataStore();
+		store.setBaseDirectory(baseDirectory);
+		store.afterPropertiesSet();
+		assertTrue(new FileSystemPersistentAcceptOnceFileListFilter(store, "test-")
+				.filterFiles(new File[] { file }).isEmpty());
+		assertEquals(1, new FileSystemPersistentAcceptOnceFileListFilter(store, "other-")
+				.filterFiles(new File[] { file }).size());
+	}
+
+}
@@ -32,13 +32,18 @@ import java.util.Calendar;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.springframework.integration.Message;
 import org.springframework.integration.MessagingException;
 import org.springframework.integration.file.FileHeaders;
 import org.springframework.integration.file.filters.AbstractSimplePatternFileListFilter;
 import org.springframework.integration.file.remote.AbstractFileInfo;
+import org.springframework.integration.file.remote.session.CachingSessionFactory;
 import org.springframework.integration.file.remote.session.Session;
 import org.springframework.integration.file.remote.session.SessionFactory;
 import org.springframework.integration.message.GenericMessage;
@@ -198,6 +203,115 @@ public class RemoteFileOutboundGatewayTests {
 				out.getHeaders().get(FileHeaders.REMOTE_DIRECTORY));
 	}
 
+	@Test
+	public void testMGetParallelWithRetry() throws Exception {
+		SessionFactory sessionFactory = mock(SessionFactory.class);
+		TestRemoteFileOutboundGateway gw = new TestRemoteFileOutboundGateway
+			(sessionFactory, "mget", "payload");
+		gw.setLocalDirectory(new File(this.tmpDir ));
+		gw.setTransferConcurrency(3);
+		gw.setTransferRetries(1);
+		gw.afterPropertiesSet();
+		final String[] names = new String[] {"p1", "p2", "p3", "p4", "p5", "p6"};
+		for (String name : names) {
+			new File(this.tmpDir, name).delete();
+		}
+		final AtomicInteger active = new AtomicInteger();
+		final AtomicInteger maxActive = new AtomicInteger();
+		final AtomicBoolean failed = new AtomicBoolean();
+		when(sessionFactory.getSession()).thenAnswer(new Answer<Session>() {
+			public Session answer(InvocationOnMock invocation) {
+				return new Session() {
+					public boolean remove(String path) throws IOException {
+						return false;
+					}
+					public Object[] list(String path) throws IOException {
+						return null;
+					}
+					public void read(String source, OutputStream outputStream)
+							throws IOException {
+						int n = active.incrementAndGet();
+						synchronized (maxActive) {
+							maxActive.set(Math.max(n, maxActive.get()));
+						}
+						try {
+							Thread.sleep(50);
+						}
+						catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+						}
+						finally {
+							active.decrementAndGet();
+						}
+						if (source.endsWith("p3") && failed.compareAndSet(false, true)) {
+							throw new IOException("transient failure");
+						}
+						outputStream.write("testData".getBytes());
+					}
+					public void write(InputStream inputStream, String destination)
+							throws IOException {
+					}
+					public boolean mkdir(String directory) throws IOException {
+						return false;
+					}
+					public void rename(String pathFrom, String pathTo)
+							throws IOException {
+					}
+					public void close() {
+					}
+					public boolean isOpen() {
+						return true;
+					}
+					public boolean exists(String path) throws IOException {
+						return false;
+					}
+					public String[] listNames(String path) throws IOException {
+						return names;
+					}
+				};
+			}
+		});
+		@SuppressWarnings("unchecked")
+		Message<List<File>> out = (Message<List<File>>) gw
+				.handleRequestMessage(new GenericMessage<String>("testremote/*"));
+		assertEquals(6, out.getPayload().size());
+		for (int i = 0; i < names.length; i++) {
+			assertEquals(names[i], out.getPayload().get(i).getName());
+			assertTrue(out.getPayload().get(i).exists());
+		}
+		assertTrue(failed.get());
+		assertTrue(maxActive.get() > 1);
+		assertTrue(maxActive.get() <= 3);
+		gw.destroy();
+	}
+
+	@Test
+	public void testMGetParallelReleasesListingSession() throws Exception {
+		SessionFactory sessionFactory = mock(SessionFactory.class);
+		CachingSessionFactory cachingFactory = new CachingSessionFactory(sessionFactory, 1);
+		cachingFactory.setSessionWaitTimeout(10000);
+		TestRemoteFileOutboundGateway gw = new TestRemoteFileOutboundGateway
+			(cachingFactory, "mget", "payload");
+		gw.setLocalDirectory(new File(this.tmpDir ));
+		gw.setTransferConcurrency(2);
+		gw.afterPropertiesSet();
+		final String[] names = new String[] {"q1", "q2", "q3"};
+		for (String name : names) {
+			new File(this.tmpDir, name).delete();
+		}
+		Session session = mock(Session.class);
+		when(session.isOpen()).thenReturn(true);
+		when(session.listNames("testremote/*")).thenReturn(names);
+		when(sessionFactory.getSession()).thenReturn(session);
+		@SuppressWarnings("unchecked")
+		Message<List<File>> out = (Message<List<File>>) gw
+				.handleRequestMessage(new GenericMessage<String>("testremote/*"));
+		assertEquals(3, out.getPayload().size());
+		assertEquals(0, cachingFactory.getTimeoutCount());
+		assertEquals(0, cachingFactory.getActiveCount());
+		gw.destroy();
+	}
+
 	@Test
 	public void testMGetSingle() throws Exception {
 		SessionFactory sessionFactory = mock(SessionFactory.class);
@@ -50,4 +50,14 @@ public class FtpInboundFileSynchronizer extends AbstractInboundFileSynchronizer<
 		return (file != null ? file.getName() : null);
 	}
 
+	@Override
+	protected boolean supportsModifiedTime() {
+		return true;
+	}
+
+	@Override
+	protected long getModified(FTPFile file) {
+		return (file != null && file.getTimestamp() != null ? file.getTimestamp().getTimeInMillis() : 0);
+	}
+
 }
@@ -19,6 +19,7 @@ package org.springframework.integration.ftp.inbound;
 import java.io.File;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Calendar;
 import java.util.Collection;
 
 import org.apache.commons.net.ftp.FTPClient;
@@ -32,8 +33,12 @@ import org.springframework.expression.ExpressionParser;
 import org.springframework.expression.spel.SpelParserConfiguration;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.integration.Message;
+import org.springframework.integration.file.remote.session.Session;
+import org.springframework.integration.file.remote.synchronizer.AbstractInboundFileSynchronizer;
+import org.springframework.integration.file.remote.session.SessionFactory;
 import org.springframework.integration.ftp.filters.FtpRegexPatternFileListFilter;
 import org.springframework.integration.ftp.session.AbstractFtpSessionFactory;
+import org.springframework.integration.store.SimpleMetadataStore;
 
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertFalse;
@@ -41,6 +46,7 @@ import static junit.framework.Assert.assertNotNull;
 import static junit.framework.Assert.assertNull;
 import static junit.framework.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -107,6 +113,173 @@ public class FtpInboundRemoteFileSystemSynchronizerTests {
 		assertTrue(new File("test/B.TEST.a").exists());
 	}
 
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testIncrementalSynchronization() throws Exception {
+		File localDirectory = new File("test");
+		localDirectory.mkdirs();
+		SessionFactory<FTPFile> sessionFactory = mock(SessionFactory.class);
+		Session<FTPFile> session = mock(Session.class);
+		when(sessionFactory.getSession()).thenReturn(session);
+		when(session.list("remote")).thenReturn(new FTPFile[] {
+				ftpFile("a", 1000), ftpFile("b", 2000) });
+		SimpleMetadataStore metadataStore = new SimpleMetadataStore();
+		FtpInboundFileSynchronizer synchronizer = new FtpInboundFileSynchronizer(sessionFactory);
+		synchronizer.setRemoteDirectory("remote");
+		synchronizer.setMetadataStore(metadataStore);
+		synchronizer.setFullSynchronizationInterval(3);
+		synchronizer.afterPropertiesSet();
+
+		synchronizer.synchronizeToLocalDirectory(localDirectory);
+		assertTrue(new File(localDirectory, "a").exists());
+		assertTrue(new File(localDirectory, "b").exists());
+		assertEquals("2000:b", metadataStore.get("FtpInboundFileSynchronizer.remote"));
+
+		// consumed locally; only 'c' is newer than the high-water mark
+		new File(localDirectory, "a").delete();
+		new File(localDirectory, "b").delete();
+		when(session.list("remote")).thenReturn(new FTPFile[] {
+				ftpFile("old", 500), ftpFile("a", 1000), ftpFile("b", 2000), ftpFile("c", 2000) });
+		synchronizer.synchronizeToLocalDirectory(localDirectory);
+		assertFalse(new File(localDirectory, "a").exists());
+		assertFalse(new File(localDirectory, "old").exists());
+		assertTrue(new File(localDirectory, "c").exists());
+		assertEquals("2000:b/c", metadataStore.get("FtpInboundFileSynchronizer.remote"));
+		verify(session, times(1)).read(Mockito.eq("remote/a"), Mockito.any(OutputStream.class));
+		verify(session, times(1)).read(Mockito.eq("remote/b"), Mockito.any(OutputStream.class));
+		verify(session, never()).read(Mockito.eq("remote/old"), Mockito.any(OutputStream.class));
+
+		// the third synchronization reconciles the whole directory, including the consumed files
+		synchronizer.synchronizeToLocalDirectory(localDirectory);
+		assertTrue(new File(localDirectory, "old").exists());
+		assertTrue(new File(localDirectory, "a").exists());
+		assertTrue(new File(localDirectory, "b").exists());
+		verify(session, times(2)).read(Mockito.eq("remote/a"), Mockito.any(OutputStream.class));
+		verify(session, times(2)).read(Mockito.eq("remote/b"), Mockito.any(OutputStream.class));
+		verify(session, times(1)).read(Mockito.eq("remote/c"), Mockito.any(OutputStream.class));
+		verify(session, times(1)).read(Mockito.eq("remote/old"), Mockito.any(OutputStream.class));
+		assertEquals("2000:b/c", metadataStore.get("FtpInboundFileSynchronizer.remote"));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testIncrementalSynchronizationWithCoarseTimestamps() throws Exception {
+		File localDirectory = new File("test");
+		localDirectory.mkdirs();
+		SessionFactory<FTPFile> sessionFactory = mock(SessionFactory.class);
+		Session<FTPFile> session = mock(Session.class);
+		when(sessionFactory.getSession()).thenReturn(session);
+		when(session.list("remote")).thenReturn(new FTPFile[] { ftpFile("b", 60000) });
+		SimpleMetadataStore metadataStore = new SimpleMetadataStore();
+		FtpInboundFileSynchronizer synchronizer = new FtpInboundFileSynchronizer(sessionFactory);
+		synchronizer.setRemoteDirectory("remote");
+		synchronizer.setMetadataStore(metadataStore);
+		synchronizer.afterPropertiesSet();
+
+		synchronizer.synchronizeToLocalDirectory(localDirectory);
+		assertEquals("60000:b", metadataStore.get("FtpInboundFileSynchronizer.remote"));
+
+		// written later within the same minute, with a name that sorts first
+		new File(localDirectory, "b").delete();
+		when(session.list("remote")).thenReturn(new FTPFile[] { ftpFile("a", 60000), ftpFile("b", 60000) });
+		synchronizer.synchronizeToLocalDirectory(localDirectory);
+		assertTrue(new File(localDirectory, "a").exists());
+		assertFalse(new File(localDirectory, "b").exists());
+		assertEquals("60000:a/b", metadataStore.get("FtpInboundFileSynchronizer.remote"));
+
+		when(session.list("remote")).thenReturn(new FTPFile[] { ftpFile("a", 60000), ftpFile("b", 60000),
+				ftpFile("c", 120000) });
+		synchronizer.synchronizeToLocalDirectory(localDirectory);
+		assertTrue(new File(localDirectory, "c").exists());
+		assertEquals("120000:c", metadataStore.get("FtpInboundFileSynchronizer.remote"));
+		verify(session, times(1)).read(Mockito.eq("remote/a"), Mockito.any(OutputStream.class));
+		verify(session, times(1)).read(Mockito.eq("remote/b"), Mockito.any(OutputStream.class));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testMalformedHighWaterMarkIsReplaced() throws Exception {
+		File localDirectory = new File("test");
+		localDirectory.mkdirs();
+		SessionFactory<FTPFile> sessionFactory = mock(SessionFactory.class);
+		Session<FTPFile> session = mock(Session.class);
+		when(sessionFactory.getSession()).thenReturn(session);
+		when(session.list("remote")).thenReturn(new FTPFile[] { ftpFile("a", 1000) });
+		SimpleMetadataStore metadataStore = new SimpleMetadataStore();
+		metadataStore.put("FtpInboundFileSynchronizer.remote", "garbage");
+		FtpInboundFileSynchronizer synchronizer = new FtpInboundFileSynchronizer(sessionFactory);
+		synchronizer.setRemoteDirectory("remote");
+		synchronizer.setMetadataStore(metadataStore);
+		synchronizer.afterPropertiesSet();
+
+		synchronizer.synchronizeToLocalDirectory(localDirectory);
+		assertTrue(new File(localDirectory, "a").exists());
+		assertEquals("1000:a", metadataStore.get("FtpInboundFileSynchronizer.remote"));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	@SuppressWarnings("unchecked")
+	public void testMetadataStoreRequiresModificationTimes() {
+		AbstractInboundFileSynchronizer<FTPFile> synchronizer =
+				new AbstractInboundFileSynchronizer<FTPFile>(mock(SessionFactory.class)) {
+
+			@Override
+			protected boolean isFile(FTPFile file) {
+				return file.isFile();
+			}
+
+			@Override
+			protected String getFilename(FTPFile file) {
+				return file.getName();
+			}
+		};
+		synchronizer.setRemoteDirectory("remote");
+		synchronizer.afterPropertiesSet();
+		synchronizer.setMetadataStore(new SimpleMetadataStore());
+		synchronizer.afterPropertiesSet();
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testMetadataStoreWithModificationTimes() {
+		AbstractInboundFileSynchronizer<FTPFile> synchronizer =
+				new AbstractInboundFileSynchronizer<FTPFile>(mock(SessionFactory.class)) {
+
+			@Override
+			protected boolean isFile(FTPFile file) {
+				return file.isFile();
+			}
+
+			@Override
+			protected String getFilename(FTPFile file) {
+				return file.getName();
+			}
+
+			@Override
+			protected boolean supportsModifiedTime() {
+				return true;
+			}
+
+			@Override
+			protected long getModified(FTPFile file) {
+				return file.getTimestamp().getTimeInMillis();
+			}
+		};
+		synchronizer.setRemoteDirectory("remote");
+		synchronizer.setMetadataStore(new SimpleMetadataStore());
+		synchronizer.afterPropertiesSet();
+	}
+
+	private static FTPFile ftpFile(String name, long modified) {
+		FTPFile file = new FTPFile();
+		file.setName(name);
+		file.setType(FTPFile.FILE_TYPE);
+		Calendar timestamp = Calendar.getInstance();
+		timestamp.setTimeInMillis(modified);
+		file.setTimestamp(timestamp);
+		return file;
+	}
+
 
 	public static class TestFtpSessionFactory extends AbstractFtpSessionFactory<FTPClient> {
 		
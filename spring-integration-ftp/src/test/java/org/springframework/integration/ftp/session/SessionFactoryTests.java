@@ -15,6 +15,9 @@
  */
 package org.springframework.integration.ftp.session;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.lang.reflect.Field;
 import java.util.Random;
 import java.util.concurrent.ExecutorService;
@@ -32,6 +35,7 @@ import org.springframework.integration.file.remote.session.CachingSessionFactory
 import org.springframework.integration.file.remote.session.Session;
 import org.springframework.integration.file.remote.session.SessionFactory;
 import org.springframework.integration.test.util.TestUtils;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 
 import static junit.framework.Assert.fail;
 
@@ -134,6 +138,31 @@ public class SessionFactoryTests {
 		Mockito.verify(sessionFactory, Mockito.times(2)).getSession();
 	}
 	
+	@Test
+	public void testFailedSessionRemovedFromPool() throws Exception{
+		SessionFactory sessionFactory = Mockito.mock(SessionFactory.class);
+		Session sessionA = Mockito.mock(Session.class);
+		Session sessionB = Mockito.mock(Session.class);
+		Mockito.when(sessionA.isOpen()).thenReturn(true);
+		Mockito.when(sessionB.isOpen()).thenReturn(true);
+		Mockito.doThrow(new IOException("broken")).when(sessionA).read(Mockito.anyString(), Mockito.any(OutputStream.class));
+		Mockito.when(sessionFactory.getSession()).thenReturn(sessionA, sessionB);
+
+		CachingSessionFactory cachingFactory = new CachingSessionFactory(sessionFactory, 1);
+
+		Session s1 = cachingFactory.getSession();
+		try {
+			s1.read("foo", new ByteArrayOutputStream());
+			fail("Expected IOException");
+		}
+		catch (IOException e) {}
+		s1.close();
+		Mockito.verify(sessionA).close();
+		Session s2 = cachingFactory.getSession();
+		assertEquals(sessionB, TestUtils.getPropertyValue(s2, "targetSession"));
+		s2.close();
+	}
+	
 	@Test (expected=MessagingException.class) // timeout expire
 	public void testSessionWaitExpire() throws Exception{
 		SessionFactory sessionFactory = Mockito.mock(SessionFactory.class);
@@ -149,6 +178,35 @@ public class SessionFactoryTests {
 		cachingFactory.getSession();
 	}
 	
+	@Test
+	public void testStaleIdleSessionEvictedAndReplaced() throws Exception {
+		SessionFactory sessionFactory = Mockito.mock(SessionFactory.class);
+		Session sessionA = Mockito.mock(Session.class);
+		Session sessionB = Mockito.mock(Session.class);
+		Mockito.when(sessionA.isOpen()).thenReturn(false);
+		Mockito.when(sessionB.isOpen()).thenReturn(true);
+		Mockito.when(sessionFactory.getSession()).thenReturn(sessionA, sessionB);
+
+		ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+		scheduler.afterPropertiesSet();
+		CachingSessionFactory cachingFactory = new CachingSessionFactory(sessionFactory, 2);
+		cachingFactory.setMinIdle(1);
+		cachingFactory.setTaskScheduler(scheduler);
+		cachingFactory.setEvictionInterval(50);
+		cachingFactory.afterPropertiesSet();
+		int n = 0;
+		while ((cachingFactory.getEvictionCount() == 0 || cachingFactory.getIdleCount() == 0) && n++ < 100) {
+			Thread.sleep(50);
+		}
+		assertEquals(1, cachingFactory.getEvictionCount());
+		Mockito.verify(sessionA).close();
+		Session session = cachingFactory.getSession();
+		assertEquals(sessionB, TestUtils.getPropertyValue(session, "targetSession"));
+		session.close();
+		cachingFactory.destroy();
+		scheduler.destroy();
+	}
+
 	@Test
 	@Ignore
 	public void testConnectionLimit() throws Exception{
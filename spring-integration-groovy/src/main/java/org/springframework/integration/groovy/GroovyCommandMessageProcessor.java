@@ -15,7 +15,9 @@ package org.springframework.integration.groovy;
 
 import groovy.lang.Binding;
 import groovy.lang.GString;
+import groovy.lang.GroovyClassLoader;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import org.springframework.integration.Message;
@@ -24,12 +26,16 @@ import org.springframework.integration.scripting.DefaultScriptVariableGenerator;
 import org.springframework.integration.scripting.ScriptVariableGenerator;
 import org.springframework.scripting.ScriptSource;
 import org.springframework.scripting.groovy.GroovyObjectCustomizer;
-import org.springframework.scripting.groovy.GroovyScriptFactory;
 import org.springframework.scripting.support.StaticScriptSource;
 import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
 import org.springframework.util.CollectionUtils;
 
 /**
+ * A {@link org.springframework.integration.handler.MessageProcessor} that executes the
+ * Groovy script contained in the payload of each Message. Compiled scripts are cached
+ * by their text (see {@link #setCacheSize(int)}), so repeated commands are not recompiled.
+ *
  * @author Dave Syer
  * @author Mark Fisher
  * @author Oleg Zhurakousky
@@ -38,8 +44,22 @@ import org.springframework.util.CollectionUtils;
  */
 public class GroovyCommandMessageProcessor extends AbstractScriptExecutingMessageProcessor<Object> {
 
+	private static final int DEFAULT_CACHE_SIZE = 100;
+
 	private volatile GroovyObjectCustomizer customizer;
 
+	private volatile int cacheSize = DEFAULT_CACHE_SIZE;
+
+	private final Map<String, Class<?>> scriptClassCache = new LinkedHashMap<String, Class<?>>(16, 0.75f, true) {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Class<?>> eldest) {
+			return this.size() > cacheSize;
+		}
+	};
+
 	private Binding binding;
 
 
@@ -87,6 +107,16 @@ public class GroovyCommandMessageProcessor extends AbstractScriptExecutingMessag
 		this.customizer = customizer;
 	}
 
+	/**
+	 * Sets the maximum number of compiled scripts to cache; the least recently used
+	 * script is discarded when the cache is full. Set to 0 to disable caching.
+	 * Default 100.
+	 */
+	public void setCacheSize(int cacheSize) {
+		Assert.isTrue(cacheSize >= 0, "'cacheSize' must not be negative");
+		this.cacheSize = cacheSize;
+	}
+
 	@Override
 	protected ScriptSource getScriptSource(Message<?> message) {
 		Object payload = message.getPayload();
@@ -107,11 +137,27 @@ public class GroovyCommandMessageProcessor extends AbstractScriptExecutingMessag
 		if (!CollectionUtils.isEmpty(variables)) {
 			customizerDecorator.setVariables(variables);
 		}
-		GroovyScriptFactory factory = new GroovyScriptFactory(this.getClass().getSimpleName(), customizerDecorator);
-		Object result = factory.getScriptedObject(scriptSource, null);
+		Object result = GroovyScriptUtils.runScript(this.obtainScriptClass(scriptSource), customizerDecorator);
 		return (result instanceof GString) ? result.toString() : result;
 	}
 
+	private Class<?> obtainScriptClass(ScriptSource scriptSource) throws Exception {
+		String script = scriptSource.getScriptAsString();
+		Class<?> scriptClass;
+		synchronized (this.scriptClassCache) {
+			scriptClass = this.scriptClassCache.get(script);
+		}
+		if (scriptClass == null) {
+			// a class loader per script, so evicted scripts can be garbage collected
+			GroovyClassLoader groovyClassLoader = new GroovyClassLoader(ClassUtils.getDefaultClassLoader());
+			scriptClass = groovyClassLoader.parseClass(script, scriptSource.suggestedClassName());
+			synchronized (this.scriptClassCache) {
+				this.scriptClassCache.put(script, scriptClass);
+			}
+		}
+		return scriptClass;
+	}
+
 	protected String generateScriptName(Message<?> message) {
 		// Don't use the same script (class) name for all invocations by default
 		return getClass().getSimpleName() + message.getHeaders().getId().toString().replaceAll("-", "");
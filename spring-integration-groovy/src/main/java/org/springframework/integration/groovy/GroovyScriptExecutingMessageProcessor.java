@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2011 the original author or authors.
+ * Copyright 2002-2012 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,6 +17,7 @@
 package org.springframework.integration.groovy;
 
 import groovy.lang.GString;
+import groovy.lang.GroovyClassLoader;
 
 import java.util.Map;
 
@@ -25,11 +26,16 @@ import org.springframework.integration.scripting.AbstractScriptExecutingMessageP
 import org.springframework.integration.scripting.ScriptVariableGenerator;
 import org.springframework.scripting.ScriptSource;
 import org.springframework.scripting.groovy.GroovyObjectCustomizer;
-import org.springframework.scripting.groovy.GroovyScriptFactory;
 import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
 import org.springframework.util.CollectionUtils;
 
 /**
+ * A {@link org.springframework.integration.handler.MessageProcessor} that executes a Groovy script.
+ * The script is compiled once and the compiled class is shared by concurrent invocations;
+ * it is only recompiled when the {@link ScriptSource} reports that it has been modified.
+ * Each invocation runs against its own script instance and binding.
+ *
  * @author Dave Syer
  * @author Mark Fisher
  * @author Oleg Zhurakousky
@@ -37,10 +43,13 @@ import org.springframework.util.CollectionUtils;
  */
 public class GroovyScriptExecutingMessageProcessor extends AbstractScriptExecutingMessageProcessor<Object> {
 
-	private final GroovyScriptFactory scriptFactory;
+	private final GroovyClassLoader groovyClassLoader = new GroovyClassLoader(ClassUtils.getDefaultClassLoader());
+
+	private final Object scriptClassMonitor = new Object();
 
-	private final VariableBindingGroovyObjectCustomizerDecorator
-			customizerDecorator = new VariableBindingGroovyObjectCustomizerDecorator();
+	private volatile Class<?> scriptClass;
+
+	private volatile GroovyObjectCustomizer customizer;
 
 	private volatile ScriptSource scriptSource;
 
@@ -52,7 +61,6 @@ public class GroovyScriptExecutingMessageProcessor extends AbstractScriptExecuti
 	public GroovyScriptExecutingMessageProcessor(ScriptSource scriptSource) {
 		super();
 		this.scriptSource = scriptSource;
-		this.scriptFactory = new GroovyScriptFactory(this.getClass().getSimpleName(), this.customizerDecorator);
 	}
 
 	/**
@@ -62,7 +70,6 @@ public class GroovyScriptExecutingMessageProcessor extends AbstractScriptExecuti
 	public GroovyScriptExecutingMessageProcessor(ScriptSource scriptSource, ScriptVariableGenerator scriptVariableGenerator) {
 		super(scriptVariableGenerator);
 		this.scriptSource = scriptSource;
-		this.scriptFactory = new GroovyScriptFactory(this.getClass().getSimpleName(), this.customizerDecorator);
 	}
 
 
@@ -70,7 +77,7 @@ public class GroovyScriptExecutingMessageProcessor extends AbstractScriptExecuti
 	 * Sets a {@link GroovyObjectCustomizer} for this processor.
 	 */
 	public void setCustomizer(GroovyObjectCustomizer customizer) {
-		this.customizerDecorator.setCustomizer(customizer);
+		this.customizer = customizer;
 	}
 
 	@Override
@@ -81,12 +88,26 @@ public class GroovyScriptExecutingMessageProcessor extends AbstractScriptExecuti
 	@Override
 	protected Object executeScript(ScriptSource scriptSource, Map<String, Object> variables) throws Exception {
 		Assert.notNull(scriptSource, "scriptSource must not be null");
-		synchronized (this) {
-			if (!CollectionUtils.isEmpty(variables)) {
-				this.customizerDecorator.setVariables(variables);
+		Class<?> scriptClass = this.obtainScriptClass(scriptSource);
+		VariableBindingGroovyObjectCustomizerDecorator customizerDecorator =
+				new VariableBindingGroovyObjectCustomizerDecorator();
+		if (this.customizer != null) {
+			customizerDecorator.setCustomizer(this.customizer);
+		}
+		if (!CollectionUtils.isEmpty(variables)) {
+			customizerDecorator.setVariables(variables);
+		}
+		Object result = GroovyScriptUtils.runScript(scriptClass, customizerDecorator);
+		return (result instanceof GString) ? result.toString() : result;
+	}
+
+	private Class<?> obtainScriptClass(ScriptSource scriptSource) throws Exception {
+		synchronized (this.scriptClassMonitor) {
+			if (this.scriptClass == null || scriptSource.isModified()) {
+				this.scriptClass = this.groovyClassLoader.parseClass(scriptSource.getScriptAsString(),
+						scriptSource.suggestedClassName());
 			}
-			Object result = this.scriptFactory.getScriptedObject(scriptSource, null);
-			return (result instanceof GString) ? result.toString() : result;
+			return this.scriptClass;
 		}
 	}
 
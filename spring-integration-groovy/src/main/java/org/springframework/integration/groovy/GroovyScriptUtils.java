@@ -0,0 +1,48 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.integration.groovy;
+
+import groovy.lang.GroovyObject;
+import groovy.lang.Script;
+
+import org.springframework.scripting.groovy.GroovyObjectCustomizer;
+
+/**
+ * Utility methods for running compiled Groovy scripts.
+ *
+ * @since 2.2
+ */
+abstract class GroovyScriptUtils {
+
+	/**
+	 * Instantiate the compiled script class, apply the customizer and, if the
+	 * instance is a {@link Script}, run it; a new instance is created for each
+	 * invocation so concurrent invocations do not share a binding.
+	 */
+	static Object runScript(Class<?> scriptClass, GroovyObjectCustomizer customizer) throws Exception {
+		Object goo = scriptClass.newInstance();
+		if (customizer != null && goo instanceof GroovyObject) {
+			customizer.customize((GroovyObject) goo);
+		}
+		if (goo instanceof Script) {
+			return ((Script) goo).run();
+		}
+		return goo;
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2011 the original author or authors.
+ * Copyright 2002-2012 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,12 +18,20 @@ package org.springframework.integration.groovy;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Rule;
@@ -90,6 +98,29 @@ public class GroovyScriptExecutingMessageProcessorTests {
 		}
 	}
 
+	@Test
+	public void testConcurrentExecution() throws Exception {
+		String script = "return \"payload is $payload, header is $headers.testHeader\"";
+		TestResource resource = new TestResource(script, "simpleTest");
+		final MessageProcessor<Object> processor =
+				new GroovyScriptExecutingMessageProcessor(new ResourceScriptSource(resource));
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+		for (int i = 0; i < 100; i++) {
+			final int count = i;
+			results.add(executor.submit(new Callable<Boolean>() {
+				public Boolean call() throws Exception {
+					Message<?> message = MessageBuilder.withPayload("foo").setHeader("testHeader", "bar" + count).build();
+					return ("payload is foo, header is bar" + count).equals(processor.processMessage(message));
+				}
+			}));
+		}
+		for (Future<Boolean> result : results) {
+			assertTrue(result.get(10, TimeUnit.SECONDS));
+		}
+		executor.shutdown();
+	}
+
 	@Test
 	public void testLastModified() throws Exception {
 		String script = "return \"payload is $payload, header is $headers.testHeader\"";
@@ -18,6 +18,7 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.util.Collections;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import groovy.lang.Binding;
@@ -30,6 +31,7 @@ import org.springframework.integration.handler.MessageProcessor;
 import org.springframework.integration.scripting.DefaultScriptVariableGenerator;
 import org.springframework.integration.scripting.ScriptVariableGenerator;
 import org.springframework.integration.support.MessageBuilder;
+import org.springframework.integration.test.util.TestUtils;
 import org.springframework.test.annotation.Repeat;
 
 /**
@@ -67,6 +69,20 @@ public class GroovyScriptPayloadMessageProcessorTests {
 		assertEquals("spam", result.toString());
 	}
 
+	@Test
+	public void testCompiledScriptIsCached() throws Exception {
+		processor = new GroovyCommandMessageProcessor();
+		Message<?> message = MessageBuilder.withPayload("headers.foo").setHeader("foo", "bar").build();
+		assertEquals("bar", processor.processMessage(message).toString());
+		message = MessageBuilder.withPayload("headers.foo").setHeader("foo", "baz").build();
+		assertEquals("baz", processor.processMessage(message).toString());
+		assertEquals(1, TestUtils.getPropertyValue(processor, "scriptClassCache", Map.class).size());
+		processor.setCacheSize(0);
+		message = MessageBuilder.withPayload("headers.bar").setHeader("bar", "qux").build();
+		assertEquals("qux", processor.processMessage(message).toString());
+		assertEquals(0, TestUtils.getPropertyValue(processor, "scriptClassCache", Map.class).size());
+	}
+
 	@Test
 	public void testSimpleExecutionWithContext() throws Exception {
 		Message<?> message = MessageBuilder.withPayload("\"spam is $spam foo is $headers.foo\"")
@@ -132,6 +132,8 @@ public class HttpInboundEndpointParser extends AbstractSingleBeanDefinitionParse
 			IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "extract-reply-payload");
 			IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "reply-key");
 			IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "convert-exceptions");
+			IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "async");
+			IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "async-timeout-status-code");
 		}
 		else {
 			IntegrationNamespaceUtils.setValueIfAttributeDefined(
@@ -86,6 +86,8 @@ public class HttpOutboundGatewayParser extends AbstractConsumerEndpointParser {
 		IntegrationNamespaceUtils.setReferenceIfAttributeDefined(builder, element, "reply-channel", "outputChannel");
 		HttpAdapterParsingUtils.configureUriVariableExpressions(builder, element);
 		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "transfer-cookies");
+		IntegrationNamespaceUtils.setReferenceIfAttributeDefined(builder, element, "async-executor");
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "max-in-flight");
 		return builder;
 	}
 
@@ -48,6 +48,7 @@ import org.springframework.http.converter.xml.SourceHttpMessageConverter;
 import org.springframework.http.server.ServletServerHttpRequest;
 import org.springframework.http.server.ServletServerHttpResponse;
 import org.springframework.integration.Message;
+import org.springframework.integration.MessageChannel;
 import org.springframework.integration.MessageHeaders;
 import org.springframework.integration.MessagingException;
 import org.springframework.integration.core.OrderlyShutdownCapable;
@@ -330,7 +331,6 @@ public abstract class HttpRequestHandlingEndpointSupport extends MessagingGatewa
 		}
 	}
 
-	@SuppressWarnings({ "rawtypes", "unchecked" })
 	private Message<?> actualDoHandleRequest(HttpServletRequest servletRequest, HttpServletResponse servletResponse) throws IOException {
 		this.activeCount.incrementAndGet();
 		try {
@@ -339,83 +339,121 @@ public abstract class HttpRequestHandlingEndpointSupport extends MessagingGatewa
 				servletResponse.setStatus(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
 				return null;
 			}
+			Message<?> message = this.createRequestMessage(request, servletRequest);
 
-			Object requestBody = null;
-			if (this.isReadable(request)) {
-				requestBody = this.extractRequestBody(request);
+			Message<?> reply = null;
+			if (this.expectReply) {
+				reply = this.sendAndReceiveMessage(message);
 			}
-			HttpEntity httpEntity = new HttpEntity(requestBody, request.getHeaders());
+			else {
+				this.send(message);
+			}
+			return reply;
+		}
+		finally {
+			this.postProcessRequest(servletRequest);
+			this.activeCount.decrementAndGet();
+		}
+	}
 
-			StandardEvaluationContext evaluationContext = this.createEvaluationContext();
-			evaluationContext.setRootObject(httpEntity);
+	/**
+	 * Handles the HTTP request by generating a Message and sending it to the request channel without waiting
+	 * for a reply. The provided channel is set as both the 'replyChannel' and the 'errorChannel' header of the
+	 * request Message, so that the reply (or an ErrorMessage) will be sent to it by the downstream flow; replies
+	 * sent to a configured reply channel are forwarded to it as well. Any failure while sending the request
+	 * Message is propagated to the caller, even if an error channel is configured.
+	 * @param replyChannel the channel to receive the reply or error
+	 * @return <code>true</code> if the request Message was sent; <code>false</code> if a response has already
+	 * been set on the servlet response (e.g. the HTTP method is not supported).
+	 */
+	protected final boolean doHandleRequest(HttpServletRequest servletRequest, HttpServletResponse servletResponse,
+			MessageChannel replyChannel) throws IOException {
+		Assert.notNull(replyChannel, "replyChannel must not be null");
+		this.activeCount.incrementAndGet();
+		try {
+			ServletServerHttpRequest request = this.prepareRequest(servletRequest);
+			if (!this.supportedMethods.contains(request.getMethod())) {
+				servletResponse.setStatus(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+				return false;
+			}
+			Message<?> message = MessageBuilder.fromMessage(this.createRequestMessage(request, servletRequest))
+					.setReplyChannel(replyChannel)
+					.setErrorChannel(replyChannel)
+					.build();
+			this.sendRequestMessage(message);
+			return true;
+		}
+		finally {
+			this.postProcessRequest(servletRequest);
+			this.activeCount.decrementAndGet();
+		}
+	}
 
-			LinkedMultiValueMap<String, String> requestParams = this.convertParameterMap(servletRequest.getParameterMap());
-			evaluationContext.setVariable("requestParams", requestParams);
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private Message<?> createRequestMessage(ServletServerHttpRequest request, HttpServletRequest servletRequest)
+			throws IOException {
+		Object requestBody = null;
+		if (this.isReadable(request)) {
+			requestBody = this.extractRequestBody(request);
+		}
+		HttpEntity httpEntity = new HttpEntity(requestBody, request.getHeaders());
 
-			if (StringUtils.hasText(this.path)) {
-				String lookupPath = this.urlPathHelper.getLookupPathForRequest(servletRequest);
-				Map pathVariables = this.pathMatcher.extractUriTemplateVariables(this.path, lookupPath);
-				if (!pathVariables.isEmpty()) {
-					if (logger.isDebugEnabled()) {
-						logger.debug("Mapped path variables: " + pathVariables);
-					}
-					evaluationContext.setVariable("pathVariables", pathVariables);
-				}
-			}
+		StandardEvaluationContext evaluationContext = this.createEvaluationContext();
+		evaluationContext.setRootObject(httpEntity);
 
-			Map<String, Object> headers = this.headerMapper.toHeaders(request.getHeaders());
-			Object payload = null;
-			if (this.payloadExpression != null) {
-				// create payload based on SpEL
-				payload = this.payloadExpression.getValue(evaluationContext);
-			}
-			if (!CollectionUtils.isEmpty(this.headerExpressions)) {
-				for (String headerName : this.headerExpressions.keySet()) {
-					Expression headerExpression = this.headerExpressions.get(headerName);
-					Object headerValue = headerExpression.getValue(evaluationContext);
-					if (headerValue != null) {
-						headers.put(headerName, headerValue);
-					}
+		LinkedMultiValueMap<String, String> requestParams = this.convertParameterMap(servletRequest.getParameterMap());
+		evaluationContext.setVariable("requestParams", requestParams);
+
+		if (StringUtils.hasText(this.path)) {
+			String lookupPath = this.urlPathHelper.getLookupPathForRequest(servletRequest);
+			Map pathVariables = this.pathMatcher.extractUriTemplateVariables(this.path, lookupPath);
+			if (!pathVariables.isEmpty()) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Mapped path variables: " + pathVariables);
 				}
+				evaluationContext.setVariable("pathVariables", pathVariables);
 			}
+		}
 
-			if (payload == null) {
-				if (requestBody != null) {
-					payload = requestBody;
-				}
-				else {
-					payload = requestParams;
+		Map<String, Object> headers = this.headerMapper.toHeaders(request.getHeaders());
+		Object payload = null;
+		if (this.payloadExpression != null) {
+			// create payload based on SpEL
+			payload = this.payloadExpression.getValue(evaluationContext);
+		}
+		if (!CollectionUtils.isEmpty(this.headerExpressions)) {
+			for (String headerName : this.headerExpressions.keySet()) {
+				Expression headerExpression = this.headerExpressions.get(headerName);
+				Object headerValue = headerExpression.getValue(evaluationContext);
+				if (headerValue != null) {
+					headers.put(headerName, headerValue);
 				}
 			}
+		}
 
-			MessageBuilder<?> messageBuilder = null;
-
-			if (payload instanceof Message<?>){
-				messageBuilder = MessageBuilder.fromMessage((Message<?>) payload).copyHeadersIfAbsent(headers);
+		if (payload == null) {
+			if (requestBody != null) {
+				payload = requestBody;
 			}
 			else {
-				messageBuilder = MessageBuilder.withPayload(payload).copyHeaders(headers);
+				payload = requestParams;
 			}
+		}
 
-			Message<?> message = messageBuilder
-					.setHeader(org.springframework.integration.http.HttpHeaders.REQUEST_URL, request.getURI().toString())
-					.setHeader(org.springframework.integration.http.HttpHeaders.REQUEST_METHOD, request.getMethod().toString())
-					.setHeader(org.springframework.integration.http.HttpHeaders.USER_PRINCIPAL, servletRequest.getUserPrincipal())
-					.build();
+		MessageBuilder<?> messageBuilder = null;
 
-			Message<?> reply = null;
-			if (this.expectReply) {
-				reply = this.sendAndReceiveMessage(message);
-			}
-			else {
-				this.send(message);
-			}
-			return reply;
+		if (payload instanceof Message<?>){
+			messageBuilder = MessageBuilder.fromMessage((Message<?>) payload).copyHeadersIfAbsent(headers);
 		}
-		finally {
-			this.postProcessRequest(servletRequest);
-			this.activeCount.decrementAndGet();
+		else {
+			messageBuilder = MessageBuilder.withPayload(payload).copyHeaders(headers);
 		}
+
+		return messageBuilder
+				.setHeader(org.springframework.integration.http.HttpHeaders.REQUEST_URL, request.getURI().toString())
+				.setHeader(org.springframework.integration.http.HttpHeaders.REQUEST_METHOD, request.getMethod().toString())
+				.setHeader(org.springframework.integration.http.HttpHeaders.USER_PRINCIPAL, servletRequest.getUserPrincipal())
+				.build();
 	}
 
 	/**
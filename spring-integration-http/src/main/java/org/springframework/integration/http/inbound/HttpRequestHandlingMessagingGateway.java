@@ -19,7 +19,12 @@ package org.springframework.integration.http.inbound;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -30,8 +35,11 @@ import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.server.ServletServerHttpRequest;
 import org.springframework.http.server.ServletServerHttpResponse;
 import org.springframework.integration.Message;
+import org.springframework.integration.MessageChannel;
 import org.springframework.integration.MessagingException;
 import org.springframework.integration.http.converter.MultipartAwareFormHttpMessageConverter;
+import org.springframework.integration.message.ErrorMessage;
+import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.HttpRequestHandler;
@@ -54,6 +62,14 @@ import org.springframework.web.HttpRequestHandler;
  * <p/>
  * By default a number of {@link HttpMessageConverter}s are already configured. The list can be overridden by calling
  * the {@link #setMessageConverters(List)} method.
+ * <p/>
+ * When {@link #setAsync(boolean) async} is true and the container supports it, the request is processed using
+ * Servlet 3.0 asynchronous request processing: the container thread is released as soon as the request Message
+ * has been sent, and the response is written by whichever thread sends the reply Message. If no reply arrives
+ * within the reply timeout, the response status is set to the configured
+ * {@link #setAsyncTimeoutStatusCode(int) timeout status code}. Replies sent to a configured reply channel are
+ * correlated to the request, and failures are handled by the error flow of a configured error channel, whose
+ * reply is written as the response, as in synchronous mode.
  *
  * @author Mark Fisher
  * @author Oleg Zhurakousky
@@ -63,6 +79,12 @@ public class HttpRequestHandlingMessagingGateway extends HttpRequestHandlingEndp
 
 	private volatile boolean convertExceptions;
 
+	private volatile boolean async;
+
+	private volatile int asyncTimeoutStatusCode = HttpStatus.GATEWAY_TIMEOUT.value();
+
+	private final AtomicInteger asyncActiveCount = new AtomicInteger();
+
 
 	public HttpRequestHandlingMessagingGateway() {
 		this(true);
@@ -84,6 +106,28 @@ public class HttpRequestHandlingMessagingGateway extends HttpRequestHandlingEndp
 		this.convertExceptions = convertExceptions;
 	}
 
+	/**
+	 * Specify whether requests should be processed asynchronously, using Servlet 3.0 asynchronous request
+	 * processing, so that the container thread is not blocked while waiting for the reply. Requires a
+	 * Servlet 3.0 container, and the servlet (and any filters) must be configured with 'async-supported'.
+	 * Requests for which the container does not support asynchronous processing are handled synchronously.
+	 * Only applies when a reply is expected. Default is false.
+	 * @param async true to enable asynchronous request processing
+	 */
+	public void setAsync(boolean async) {
+		this.async = async;
+	}
+
+	/**
+	 * Specify the HTTP status code to return when no reply is received within the reply timeout
+	 * while processing a request asynchronously. Default is 504 (Gateway Timeout).
+	 * @param asyncTimeoutStatusCode the status code
+	 */
+	public void setAsyncTimeoutStatusCode(int asyncTimeoutStatusCode) {
+		HttpStatus.valueOf(asyncTimeoutStatusCode);
+		this.asyncTimeoutStatusCode = asyncTimeoutStatusCode;
+	}
+
 	/**
 	 * Handles the HTTP request by generating a Message and sending it to the request channel. If this gateway's
 	 * 'expectReply' property is true, it will also generate a response from the reply Message once received. That
@@ -91,6 +135,10 @@ public class HttpRequestHandlingMessagingGateway extends HttpRequestHandlingEndp
 	 */
 	public final void handleRequest(HttpServletRequest servletRequest, HttpServletResponse servletResponse)
 			throws ServletException, IOException {
+		if (this.async && this.isExpectReply() && !this.isShuttingDown() && servletRequest.isAsyncSupported()) {
+			this.handleRequestAsync(servletRequest, servletResponse);
+			return;
+		}
 		Object responseContent = null;
 		Message<?> responseMessage;
 
@@ -106,6 +154,29 @@ public class HttpRequestHandlingMessagingGateway extends HttpRequestHandlingEndp
 		catch (Exception e) {
 			responseContent = handleExceptionInternal(e);
 		}
+		this.writeResponseContent(responseContent, request, response);
+	}
+
+	private void handleRequestAsync(HttpServletRequest servletRequest, HttpServletResponse servletResponse)
+			throws IOException {
+		AsyncContext asyncContext = servletRequest.startAsync(servletRequest, servletResponse);
+		long replyTimeout = this.getReplyTimeout();
+		asyncContext.setTimeout(replyTimeout > 0 ? replyTimeout : 0);
+		AsyncReplyChannel replyChannel = new AsyncReplyChannel(asyncContext, servletRequest, servletResponse);
+		asyncContext.addListener(replyChannel);
+		this.asyncActiveCount.incrementAndGet();
+		try {
+			if (!this.doHandleRequest(servletRequest, servletResponse, replyChannel)) {
+				replyChannel.complete();
+			}
+		}
+		catch (Exception e) {
+			replyChannel.send(new ErrorMessage(e));
+		}
+	}
+
+	private void writeResponseContent(Object responseContent, ServletServerHttpRequest request,
+			ServletServerHttpResponse response) throws IOException {
 		if (responseContent != null) {
 
 			if (responseContent instanceof HttpStatus) {
@@ -134,6 +205,16 @@ public class HttpRequestHandlingMessagingGateway extends HttpRequestHandlingEndp
 		}
 	}
 
+	@Override
+	public int beforeShutdown() {
+		return super.beforeShutdown() + this.asyncActiveCount.get();
+	}
+
+	@Override
+	public int afterShutdown() {
+		return super.afterShutdown() + this.asyncActiveCount.get();
+	}
+
 	@SuppressWarnings({"unchecked", "rawtypes"})
 	private void writeResponse(Object content, ServletServerHttpResponse response, List<MediaType> acceptTypes) throws IOException {
 		if (CollectionUtils.isEmpty(acceptTypes)) {
@@ -151,4 +232,148 @@ public class HttpRequestHandlingMessagingGateway extends HttpRequestHandlingEndp
 				+ content.getClass().getName() + "] and accept types [" + acceptTypes + "]");
 	}
 
+
+	/**
+	 * A {@link MessageChannel} used as the 'replyChannel' and 'errorChannel' of a request that is being
+	 * processed asynchronously; the first reply, error or timeout completes the {@link AsyncContext}, and
+	 * any late replies are discarded.
+	 */
+	private class AsyncReplyChannel implements MessageChannel, AsyncListener {
+
+		private final AsyncContext asyncContext;
+
+		private final ServletServerHttpRequest request;
+
+		private final HttpServletResponse servletResponse;
+
+		private final AtomicBoolean completed = new AtomicBoolean();
+
+		AsyncReplyChannel(AsyncContext asyncContext, HttpServletRequest servletRequest,
+				HttpServletResponse servletResponse) {
+			Assert.notNull(asyncContext, "asyncContext must not be null");
+			this.asyncContext = asyncContext;
+			this.request = new ServletServerHttpRequest(servletRequest);
+			this.servletResponse = servletResponse;
+		}
+
+		public boolean send(Message<?> message) {
+			if (!this.completed.compareAndSet(false, true)) {
+				if (logger.isWarnEnabled()) {
+					logger.warn("Reply Message received after the HTTP request has been completed: " + message);
+				}
+				return false;
+			}
+			if (message instanceof ErrorMessage && getErrorChannel() != null) {
+				final Throwable error = ((ErrorMessage) message).getPayload();
+				try {
+					// the error flow is a blocking sendAndReceive; run it on a container thread
+					this.asyncContext.start(new Runnable() {
+						public void run() {
+							writeErrorFlowReply(error);
+						}
+					});
+				}
+				catch (RuntimeException e) {
+					logger.error("Unable to invoke the error flow for an asynchronously processed request", e);
+					this.writeReply(message);
+				}
+				return true;
+			}
+			this.writeReply(message);
+			return true;
+		}
+
+		public boolean send(Message<?> message, long timeout) {
+			return this.send(message);
+		}
+
+		/**
+		 * Write the reply of the error flow, as the synchronous gateway does.
+		 */
+		private void writeErrorFlowReply(Throwable error) {
+			Message<?> errorFlowReply;
+			try {
+				errorFlowReply = invokeErrorFlow(error);
+			}
+			catch (Exception e) {
+				errorFlowReply = new ErrorMessage(e);
+			}
+			this.writeReply(errorFlowReply);
+		}
+
+		private void writeReply(Message<?> message) {
+			ServletServerHttpResponse response = new ServletServerHttpResponse(this.servletResponse);
+			try {
+				Object responseContent = null;
+				if (message instanceof ErrorMessage) {
+					responseContent = this.handleAsyncException(((ErrorMessage) message).getPayload());
+				}
+				else if (message != null) {
+					responseContent = setupResponseAndConvertReply(response, message);
+				}
+				writeResponseContent(responseContent, this.request, response);
+				response.close();
+			}
+			catch (Exception e) {
+				logger.error("Failed to write the HTTP response for an asynchronously processed request", e);
+				if (!this.servletResponse.isCommitted()) {
+					this.servletResponse.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+				}
+			}
+			finally {
+				this.doComplete();
+			}
+		}
+
+		/**
+		 * Complete without a reply; used when a response has already been set up.
+		 */
+		void complete() {
+			if (this.completed.compareAndSet(false, true)) {
+				this.doComplete();
+			}
+		}
+
+		private Object handleAsyncException(Throwable t) {
+			if (convertExceptions) {
+				return t;
+			}
+			logger.error("Error occurred while asynchronously handling the HTTP request", t);
+			return HttpStatus.INTERNAL_SERVER_ERROR;
+		}
+
+		private void doComplete() {
+			try {
+				this.asyncContext.complete();
+			}
+			finally {
+				asyncActiveCount.decrementAndGet();
+			}
+		}
+
+		public void onTimeout(AsyncEvent event) throws IOException {
+			if (this.completed.compareAndSet(false, true)) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("No reply received within timeout; returning status " + asyncTimeoutStatusCode);
+				}
+				this.servletResponse.setStatus(asyncTimeoutStatusCode);
+				this.doComplete();
+			}
+		}
+
+		public void onError(AsyncEvent event) throws IOException {
+			if (this.completed.compareAndSet(false, true)) {
+				logger.error("Error during asynchronous processing of the HTTP request", event.getThrowable());
+				this.doComplete();
+			}
+		}
+
+		public void onComplete(AsyncEvent event) throws IOException {
+		}
+
+		public void onStartAsync(AsyncEvent event) throws IOException {
+		}
+
+	}
+
 }
@@ -24,6 +24,9 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 
 import javax.xml.transform.Source;
 
@@ -49,12 +52,14 @@ import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.integration.Message;
 import org.springframework.integration.MessageHandlingException;
 import org.springframework.integration.MessagingException;
+import org.springframework.integration.channel.MessagePublishingErrorHandler;
 import org.springframework.integration.core.MessageHandler;
 import org.springframework.integration.handler.AbstractReplyProducingMessageHandler;
 import org.springframework.integration.http.converter.SerializingHttpMessageConverter;
 import org.springframework.integration.http.support.DefaultHttpHeaderMapper;
 import org.springframework.integration.mapping.HeaderMapper;
 import org.springframework.integration.support.MessageBuilder;
+import org.springframework.integration.util.ErrorHandlingTaskExecutor;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.CollectionUtils;
@@ -73,6 +78,13 @@ import org.springframework.web.client.RestTemplate;
  * When there is a response body, the {@link HttpStatus} enum instance will instead be
  * copied to the MessageHeaders of the reply. In both cases, the response headers will
  * be mapped to the reply Message's headers by this handler's {@link HeaderMapper} instance.
+ * <p>
+ * When an 'asyncExecutor' is provided, the request is executed by that {@link Executor}
+ * and the calling thread returns immediately; the reply Message is sent to the output
+ * channel (or the 'replyChannel' header) from the executing thread. The number of
+ * concurrent requests may be bounded with 'maxInFlight', in which case callers block
+ * once that limit is reached, providing back-pressure to the upstream flow. Since the
+ * handler itself returns no reply in this mode, it cannot be combined with 'requiresReply'.
  *
  * @author Mark Fisher
  * @author Oleg Zhurakousky
@@ -107,6 +119,12 @@ public class HttpRequestExecutingMessageHandler extends AbstractReplyProducingMe
 
 	private volatile HeaderMapper<HttpHeaders> headerMapper = DefaultHttpHeaderMapper.outboundMapper();
 
+	private volatile Executor asyncExecutor;
+
+	private volatile int maxInFlight = 0;
+
+	private volatile Semaphore inFlightPermits;
+
 	/**
 	 * Create a handler that will send requests to the provided URI.
 	 */
@@ -280,6 +298,31 @@ public class HttpRequestExecutingMessageHandler extends AbstractReplyProducingMe
 		this.transferCookies = transferCookies;
 	}
 
+	/**
+	 * Specify an {@link Executor} to execute the HTTP requests asynchronously. When
+	 * set, the calling thread is released as soon as the request has been handed off
+	 * and the reply Message is produced by the executing thread. Any failure is sent,
+	 * as an ErrorMessage, to the request Message's 'errorChannel' header, or to the
+	 * default 'errorChannel' if no such header is present. For best results, the size
+	 * of the Executor's pool should be aligned with 'maxInFlight' and with the connection
+	 * pool of the configured {@link ClientHttpRequestFactory}.
+	 * @param asyncExecutor the Executor.
+	 */
+	public void setAsyncExecutor(Executor asyncExecutor) {
+		this.asyncExecutor = asyncExecutor;
+	}
+
+	/**
+	 * Specify the maximum number of requests that may be executing concurrently
+	 * when an 'asyncExecutor' has been provided. Once the limit is reached, callers block
+	 * until one of the outstanding requests completes. The default (0) means no limit.
+	 * @param maxInFlight the maximum number of outstanding asynchronous requests.
+	 */
+	public void setMaxInFlight(int maxInFlight) {
+		Assert.isTrue(maxInFlight >= 0, "'maxInFlight' must not be negative");
+		this.maxInFlight = maxInFlight;
+	}
+
 	@Override
 	public void onInit() {
 		super.onInit();
@@ -287,6 +330,21 @@ public class HttpRequestExecutingMessageHandler extends AbstractReplyProducingMe
 		if (beanFactory != null) {
 			this.evaluationContext.setBeanResolver(new BeanFactoryResolver(beanFactory));
 		}
+		if (this.asyncExecutor != null) {
+			Assert.state(!this.isRequiresReply(),
+					"An 'asyncExecutor' cannot be used when 'requiresReply' is true, "
+					+ "since the reply is produced after the caller returns");
+			if (!(this.asyncExecutor instanceof ErrorHandlingTaskExecutor)) {
+				MessagePublishingErrorHandler errorHandler = new MessagePublishingErrorHandler();
+				if (beanFactory != null) {
+					errorHandler.setBeanFactory(beanFactory);
+				}
+				this.asyncExecutor = new ErrorHandlingTaskExecutor(this.asyncExecutor, errorHandler);
+			}
+			if (this.maxInFlight > 0) {
+				this.inFlightPermits = new Semaphore(this.maxInFlight);
+			}
+		}
 		ConversionService conversionService = this.getConversionService();
 		if (conversionService == null){
 			conversionService = new GenericConversionService();
@@ -328,7 +386,49 @@ public class HttpRequestExecutingMessageHandler extends AbstractReplyProducingMe
 	}
 
 	@Override
-	protected Object handleRequestMessage(Message<?> requestMessage) {
+	protected Object handleRequestMessage(final Message<?> requestMessage) {
+		if (this.asyncExecutor == null) {
+			return this.exchange(requestMessage);
+		}
+		final Semaphore permits = this.inFlightPermits;
+		if (permits != null) {
+			try {
+				permits.acquire();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new MessageHandlingException(requestMessage,
+						"Interrupted while waiting for an in-flight HTTP request to complete", e);
+			}
+		}
+		try {
+			this.asyncExecutor.execute(new Runnable() {
+
+				public void run() {
+					try {
+						Object reply = exchange(requestMessage);
+						if (reply != null) {
+							handleResult(reply, requestMessage.getHeaders());
+						}
+					}
+					finally {
+						if (permits != null) {
+							permits.release();
+						}
+					}
+				}
+			});
+		}
+		catch (RejectedExecutionException e) {
+			if (permits != null) {
+				permits.release();
+			}
+			throw new MessageHandlingException(requestMessage, "HTTP request execution was rejected by the asyncExecutor", e);
+		}
+		return null;
+	}
+
+	private Object exchange(Message<?> requestMessage) {
 		String uri = this.uriExpression.getValue(this.evaluationContext, requestMessage, String.class);
 		Assert.notNull(uri, "URI Expression evaluation cannot result in null");
 		try {
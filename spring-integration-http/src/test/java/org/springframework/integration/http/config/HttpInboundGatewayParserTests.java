@@ -69,6 +69,10 @@ public class HttpInboundGatewayParserTests {
 	@Qualifier("inboundGateway")
 	private HttpRequestHandlingMessagingGateway gateway;
 
+	@Autowired
+	@Qualifier("asyncGateway")
+	private HttpRequestHandlingMessagingGateway asyncGateway;
+
 	@Autowired
 	@Qualifier("withMappedHeaders")
 	private HttpRequestHandlingMessagingGateway withMappedHeaders;
@@ -103,6 +107,13 @@ public class HttpInboundGatewayParserTests {
 		assertEquals(Long.valueOf(4567), TestUtils.getPropertyValue(messagingTemplate, "receiveTimeout"));
 	}
 
+	@Test
+	public void checkAsyncConfig() {
+		assertThat((Boolean) getPropertyValue(asyncGateway, "async"), is(true));
+		assertThat((Integer) getPropertyValue(asyncGateway, "asyncTimeoutStatusCode"), is(503));
+		assertThat((Boolean) getPropertyValue(gateway, "async"), is(false));
+	}
+
 	@Test(timeout=1000)
 	public void checkFlow() throws Exception {
 		requests.subscribe(handlerExpecting(any(Message.class)));
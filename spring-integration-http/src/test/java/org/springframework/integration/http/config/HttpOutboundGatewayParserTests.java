@@ -23,6 +23,7 @@ import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.Semaphore;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -68,6 +69,9 @@ public class HttpOutboundGatewayParserTests {
 	@Autowired @Qualifier("withAdvice")
 	private AbstractEndpoint withAdvice;
 
+	@Autowired @Qualifier("withAsyncExecutor")
+	private AbstractEndpoint withAsyncExecutor;
+
 	@Autowired
 	private ApplicationContext applicationContext;
 
@@ -175,6 +179,16 @@ public class HttpOutboundGatewayParserTests {
 		assertEquals(1, adviceCalled);
 	}
 
+	@Test
+	public void withAsyncExecutor() {
+		HttpRequestExecutingMessageHandler handler = (HttpRequestExecutingMessageHandler) new DirectFieldAccessor(
+				this.withAsyncExecutor).getPropertyValue("handler");
+		assertEquals(this.applicationContext.getBean("asyncExecutor"),
+				TestUtils.getPropertyValue(handler, "asyncExecutor.executor"));
+		assertEquals(10, TestUtils.getPropertyValue(handler, "maxInFlight"));
+		assertEquals(10, TestUtils.getPropertyValue(handler, "inFlightPermits", Semaphore.class).availablePermits());
+	}
+
 	public static class StubErrorHandler implements ResponseErrorHandler {
 
 		public boolean hasError(ClientHttpResponse response) throws IOException {
@@ -17,7 +17,17 @@
 package org.springframework.integration.http.inbound;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 
 import java.io.IOException;
 import java.io.PrintWriter;
@@ -26,7 +36,13 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncListener;
+
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.springframework.http.HttpInputMessage;
 import org.springframework.http.HttpOutputMessage;
 import org.springframework.http.MediaType;
@@ -36,9 +52,12 @@ import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.http.converter.HttpMessageNotWritableException;
 import org.springframework.integration.Message;
+import org.springframework.integration.MessageChannel;
+import org.springframework.integration.MessagingException;
 import org.springframework.integration.channel.DirectChannel;
 import org.springframework.integration.channel.QueueChannel;
 import org.springframework.integration.handler.AbstractReplyProducingMessageHandler;
+import org.springframework.integration.message.ErrorMessage;
 import org.springframework.integration.support.MessageBuilder;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
@@ -120,6 +139,162 @@ public class HttpRequestHandlingMessagingGatewayTests {
 		assertEquals("HELLO", response.getContentAsString());
 	}
 
+	@Test
+	public void asyncReply() throws Exception {
+		QueueChannel requestChannel = new QueueChannel();
+		HttpRequestHandlingMessagingGateway gateway = new HttpRequestHandlingMessagingGateway(true);
+		gateway.setRequestPayloadType(String.class);
+		gateway.setRequestChannel(requestChannel);
+		gateway.setAsync(true);
+		MockHttpServletRequest request = spy(new MockHttpServletRequest());
+		request.setMethod("POST");
+		request.addHeader("Accept", "x-application/octet-stream");
+		request.addHeader("Content-Type", "text/plain");
+		request.setContent("hello".getBytes());
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		AsyncContext asyncContext = mock(AsyncContext.class);
+		doReturn(true).when(request).isAsyncSupported();
+		doReturn(asyncContext).when(request).startAsync(request, response);
+
+		gateway.handleRequest(request, response);
+		verify(asyncContext, never()).complete();
+		assertEquals("", response.getContentAsString());
+
+		Message<?> requestMessage = requestChannel.receive(0);
+		assertNotNull(requestMessage);
+		MessageChannel replyChannel = (MessageChannel) requestMessage.getHeaders().getReplyChannel();
+		assertSame(replyChannel, requestMessage.getHeaders().getErrorChannel());
+		assertTrue(replyChannel.send(MessageBuilder.withPayload("HELLO").build()));
+		assertEquals("HELLO", response.getContentAsString());
+		verify(asyncContext).complete();
+		assertFalse(replyChannel.send(MessageBuilder.withPayload("LATE").build()));
+		assertEquals(0, gateway.afterShutdown());
+	}
+
+	@Test
+	public void asyncTimeout() throws Exception {
+		QueueChannel requestChannel = new QueueChannel();
+		HttpRequestHandlingMessagingGateway gateway = new HttpRequestHandlingMessagingGateway(true);
+		gateway.setRequestChannel(requestChannel);
+		gateway.setAsync(true);
+		gateway.setReplyTimeout(100);
+		gateway.setAsyncTimeoutStatusCode(503);
+		MockHttpServletRequest request = spy(new MockHttpServletRequest());
+		request.setMethod("GET");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		AsyncContext asyncContext = mock(AsyncContext.class);
+		doReturn(true).when(request).isAsyncSupported();
+		doReturn(asyncContext).when(request).startAsync(request, response);
+
+		gateway.handleRequest(request, response);
+		verify(asyncContext).setTimeout(100);
+		ArgumentCaptor<AsyncListener> listener = ArgumentCaptor.forClass(AsyncListener.class);
+		verify(asyncContext).addListener(listener.capture());
+		assertEquals(1, gateway.beforeShutdown());
+		listener.getValue().onTimeout(null);
+		assertEquals(503, response.getStatus());
+		verify(asyncContext).complete();
+		assertEquals(0, gateway.afterShutdown());
+
+		Message<?> requestMessage = requestChannel.receive(0);
+		MessageChannel replyChannel = (MessageChannel) requestMessage.getHeaders().getReplyChannel();
+		assertFalse(replyChannel.send(MessageBuilder.withPayload("LATE").build()));
+		verify(asyncContext).complete();
+	}
+
+	@Test
+	public void asyncErrorMessage() throws Exception {
+		QueueChannel requestChannel = new QueueChannel();
+		HttpRequestHandlingMessagingGateway gateway = new HttpRequestHandlingMessagingGateway(true);
+		gateway.setRequestChannel(requestChannel);
+		gateway.setAsync(true);
+		MockHttpServletRequest request = spy(new MockHttpServletRequest());
+		request.setMethod("GET");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		AsyncContext asyncContext = mock(AsyncContext.class);
+		doReturn(true).when(request).isAsyncSupported();
+		doReturn(asyncContext).when(request).startAsync(request, response);
+
+		gateway.handleRequest(request, response);
+		Message<?> requestMessage = requestChannel.receive(0);
+		MessageChannel errorChannel = (MessageChannel) requestMessage.getHeaders().getErrorChannel();
+		errorChannel.send(new ErrorMessage(new MessagingException(requestMessage, "intentional")));
+		assertEquals(500, response.getStatus());
+		verify(asyncContext).complete();
+	}
+
+	@Test
+	public void asyncFailureHandledByErrorFlow() throws Exception {
+		DirectChannel requestChannel = new DirectChannel();
+		requestChannel.subscribe(new AbstractReplyProducingMessageHandler() {
+			@Override
+			protected Object handleRequestMessage(Message<?> requestMessage) {
+				throw new RuntimeException("intentional");
+			}
+		});
+		DirectChannel errorChannel = new DirectChannel();
+		errorChannel.subscribe(new AbstractReplyProducingMessageHandler() {
+			@Override
+			protected Object handleRequestMessage(Message<?> requestMessage) {
+				return "ERROR FLOW";
+			}
+		});
+		HttpRequestHandlingMessagingGateway gateway = new HttpRequestHandlingMessagingGateway(true);
+		gateway.setRequestChannel(requestChannel);
+		gateway.setErrorChannel(errorChannel);
+		gateway.setAsync(true);
+		MockHttpServletRequest request = spy(new MockHttpServletRequest());
+		request.setMethod("GET");
+		request.addHeader("Accept", "text/plain");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		AsyncContext asyncContext = this.mockAsyncContext(request, response);
+
+		gateway.handleRequest(request, response);
+		verify(asyncContext).start(any(Runnable.class));
+		assertEquals("ERROR FLOW", response.getContentAsString());
+		verify(asyncContext).complete();
+		assertEquals(0, gateway.afterShutdown());
+	}
+
+	@Test
+	public void asyncReplyOnConfiguredReplyChannel() throws Exception {
+		QueueChannel requestChannel = new QueueChannel();
+		DirectChannel replyChannel = new DirectChannel();
+		HttpRequestHandlingMessagingGateway gateway = new HttpRequestHandlingMessagingGateway(true);
+		gateway.setRequestChannel(requestChannel);
+		gateway.setReplyChannel(replyChannel);
+		gateway.setAsync(true);
+		gateway.afterPropertiesSet();
+		gateway.start();
+		MockHttpServletRequest request = spy(new MockHttpServletRequest());
+		request.setMethod("GET");
+		request.addHeader("Accept", "text/plain");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		AsyncContext asyncContext = this.mockAsyncContext(request, response);
+
+		gateway.handleRequest(request, response);
+		Message<?> requestMessage = requestChannel.receive(0);
+		assertNotNull(requestMessage);
+		assertTrue(replyChannel.send(MessageBuilder.withPayload("HELLO")
+				.copyHeaders(requestMessage.getHeaders()).build()));
+		assertEquals("HELLO", response.getContentAsString());
+		verify(asyncContext).complete();
+		gateway.stop();
+	}
+
+	private AsyncContext mockAsyncContext(MockHttpServletRequest request, MockHttpServletResponse response) {
+		AsyncContext asyncContext = mock(AsyncContext.class);
+		doReturn(true).when(request).isAsyncSupported();
+		doReturn(asyncContext).when(request).startAsync(request, response);
+		doAnswer(new Answer<Object>() {
+			public Object answer(InvocationOnMock invocation) throws Throwable {
+				((Runnable) invocation.getArguments()[0]).run();
+				return null;
+			}
+		}).when(asyncContext).start(any(Runnable.class));
+		return asyncContext;
+	}
+
 	@Test // INT-1767
 	public void noAcceptHeaderOnRequest() throws Exception {
 		DirectChannel requestChannel = new DirectChannel();
@@ -18,6 +18,7 @@ package org.springframework.integration.http.outbound;
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertNotNull;
 import static junit.framework.Assert.assertNull;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -29,6 +30,10 @@ import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -45,6 +50,7 @@ import org.springframework.context.ApplicationContext;
 import org.springframework.context.support.ClassPathXmlApplicationContext;
 import org.springframework.core.convert.ConversionService;
 import org.springframework.core.convert.converter.ConverterRegistry;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
@@ -53,10 +59,12 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.integration.Message;
 import org.springframework.integration.MessageChannel;
+import org.springframework.integration.MessageHandlingException;
 import org.springframework.integration.channel.QueueChannel;
 import org.springframework.integration.core.PollableChannel;
 import org.springframework.integration.support.MessageBuilder;
 import org.springframework.integration.test.util.TestUtils;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
@@ -735,6 +743,96 @@ public class HttpRequestExecutingMessageHandlerTests {
 		assertSame(mockConversionService, TestUtils.getPropertyValue(handler, "conversionService"));
 	}
 
+	@Test
+	public void asyncExecutorWithMaxInFlight() throws Exception {
+		final CountDownLatch requestLatch = new CountDownLatch(1);
+		final AtomicInteger inFlight = new AtomicInteger();
+		final AtomicInteger maxObserved = new AtomicInteger();
+		RestTemplate restTemplate = new RestTemplate() {
+
+			@Override
+			public <T> ResponseEntity<T> exchange(String url, HttpMethod method, HttpEntity<?> requestEntity,
+					Class<T> responseType, Map<String, ?> uriVariables) throws RestClientException {
+				int current = inFlight.incrementAndGet();
+				synchronized (maxObserved) {
+					maxObserved.set(Math.max(maxObserved.get(), current));
+				}
+				try {
+					requestLatch.await(10, TimeUnit.SECONDS);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				inFlight.decrementAndGet();
+				return new ResponseEntity<T>(HttpStatus.OK);
+			}
+		};
+		HttpRequestExecutingMessageHandler handler =
+				new HttpRequestExecutingMessageHandler("http://www.springsource.org/spring-integration", restTemplate);
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.setCorePoolSize(4);
+		executor.afterPropertiesSet();
+		handler.setAsyncExecutor(executor);
+		handler.setMaxInFlight(2);
+		QueueChannel replyChannel = new QueueChannel();
+		handler.setOutputChannel(replyChannel);
+		handler.afterPropertiesSet();
+
+		handler.handleMessage(MessageBuilder.withPayload("foo").build());
+		handler.handleMessage(MessageBuilder.withPayload("bar").build());
+		assertNull(replyChannel.receive(100));
+		final CountDownLatch thirdSent = new CountDownLatch(1);
+		final HttpRequestExecutingMessageHandler theHandler = handler;
+		ExecutorService caller = Executors.newSingleThreadExecutor();
+		caller.execute(new Runnable() {
+			public void run() {
+				theHandler.handleMessage(MessageBuilder.withPayload("baz").build());
+				thirdSent.countDown();
+			}
+		});
+		assertFalse(thirdSent.await(200, TimeUnit.MILLISECONDS));
+		requestLatch.countDown();
+		assertTrue(thirdSent.await(10, TimeUnit.SECONDS));
+		for (int i = 0; i < 3; i++) {
+			Message<?> reply = replyChannel.receive(10000);
+			assertNotNull(reply);
+			assertEquals(HttpStatus.OK, reply.getHeaders().get(org.springframework.integration.http.HttpHeaders.STATUS_CODE));
+		}
+		assertEquals(2, maxObserved.get());
+		caller.shutdown();
+		executor.shutdown();
+	}
+
+	@Test
+	public void asyncExecutorRejectedWhenReplyRequired() {
+		HttpRequestExecutingMessageHandler handler =
+				new HttpRequestExecutingMessageHandler("http://www.springsource.org/spring-integration");
+		handler.setAsyncExecutor(new SimpleAsyncTaskExecutor());
+		handler.setRequiresReply(true);
+		try {
+			handler.afterPropertiesSet();
+			fail("Expected IllegalStateException");
+		}
+		catch (IllegalStateException e) {
+			assertTrue(e.getMessage().contains("requiresReply"));
+		}
+	}
+
+	@Test
+	public void asyncExecutorFailureGoesToErrorChannel() throws Exception {
+		MockRestTemplate restTemplate = new MockRestTemplate();
+		HttpRequestExecutingMessageHandler handler =
+				new HttpRequestExecutingMessageHandler("http://www.springsource.org/spring-integration", restTemplate);
+		handler.setAsyncExecutor(new SimpleAsyncTaskExecutor());
+		handler.afterPropertiesSet();
+		QueueChannel errorChannel = new QueueChannel();
+		handler.handleMessage(MessageBuilder.withPayload("foo").setErrorChannel(errorChannel).build());
+		Message<?> error = errorChannel.receive(10000);
+		assertNotNull(error);
+		assertTrue(error.getPayload() instanceof MessageHandlingException);
+		assertEquals("intentional", ((MessageHandlingException) error.getPayload()).getCause().getMessage());
+	}
+
 	public static class City{
 		private final String name;
 		public City(String name){
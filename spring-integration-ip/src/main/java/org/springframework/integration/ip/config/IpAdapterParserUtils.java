@@ -69,6 +69,12 @@ public abstract class IpAdapterParserUtils {
 
 	static final String USING_DIRECT_BUFFERS = "using-direct-buffers";
 
+	static final String NIO_SELECTOR_THREADS = "nio-selector-threads";
+
+	static final String NIO_READ_ON_SELECTOR_THREAD = "nio-read-on-selector-thread";
+
+	static final String NIO_WRITE_BUFFER_SIZE = "nio-write-buffer-size";
+
 	static final String MESSAGE_FORMAT = "message-format";
 
 	static final String SO_LINGER = "so-linger";
@@ -96,6 +96,12 @@ public class TcpConnectionFactoryFactoryBean extends AbstractFactoryBean<Abstrac
 
 	private volatile boolean usingDirectBuffers;
 
+	private volatile int nioSelectorThreads;
+
+	private volatile boolean nioReadOnSelectorThread;
+
+	private volatile Integer nioWriteBufferSize;
+
 	private volatile String beanName;
 
 	private volatile boolean applySequence;
@@ -121,6 +127,7 @@ public class TcpConnectionFactoryFactoryBean extends AbstractFactoryBean<Abstrac
 				TcpNioServerConnectionFactory connectionFactory = new TcpNioServerConnectionFactory(this.port);
 				this.setCommonAttributes(connectionFactory);
 				this.setServerAttributes(connectionFactory);
+				this.setNioAttributes(connectionFactory);
 				connectionFactory.setUsingDirectBuffers(this.usingDirectBuffers);
 				connectionFactory.setTcpNioConnectionSupport(this.obtainNioConnectionSupport());
 				this.connectionFactory = connectionFactory;
@@ -128,6 +135,7 @@ public class TcpConnectionFactoryFactoryBean extends AbstractFactoryBean<Abstrac
 				TcpNioClientConnectionFactory connectionFactory = new TcpNioClientConnectionFactory(
 						this.host, this.port);
 				this.setCommonAttributes(connectionFactory);
+				this.setNioAttributes(connectionFactory);
 				connectionFactory.setUsingDirectBuffers(this.usingDirectBuffers);
 				connectionFactory.setTcpNioConnectionSupport(this.obtainNioConnectionSupport());
 				this.connectionFactory = connectionFactory;
@@ -175,6 +183,14 @@ public class TcpConnectionFactoryFactoryBean extends AbstractFactoryBean<Abstrac
 		factory.setBacklog(this.backlog);
 	}
 
+	private void setNioAttributes(AbstractConnectionFactory factory) {
+		factory.setNioSelectorThreads(this.nioSelectorThreads);
+		factory.setNioReadOnSelectorThread(this.nioReadOnSelectorThread);
+		if (this.nioWriteBufferSize != null) {
+			factory.setNioWriteBufferSize(this.nioWriteBufferSize);
+		}
+	}
+
 	private TcpSocketFactorySupport obtainSocketFactorySupport() {
 		if (this.socketFactorySupport != null) {
 			return this.socketFactorySupport;
@@ -316,6 +332,30 @@ public class TcpConnectionFactoryFactoryBean extends AbstractFactoryBean<Abstrac
 		this.usingDirectBuffers = usingDirectBuffers;
 	}
 
+	/**
+	 * @param nioSelectorThreads
+	 * @see org.springframework.integration.ip.tcp.connection.AbstractConnectionFactory#setNioSelectorThreads(int)
+	 */
+	public void setNioSelectorThreads(int nioSelectorThreads) {
+		this.nioSelectorThreads = nioSelectorThreads;
+	}
+
+	/**
+	 * @param nioReadOnSelectorThread
+	 * @see org.springframework.integration.ip.tcp.connection.AbstractConnectionFactory#setNioReadOnSelectorThread(boolean)
+	 */
+	public void setNioReadOnSelectorThread(boolean nioReadOnSelectorThread) {
+		this.nioReadOnSelectorThread = nioReadOnSelectorThread;
+	}
+
+	/**
+	 * @param nioWriteBufferSize
+	 * @see org.springframework.integration.ip.tcp.connection.AbstractConnectionFactory#setNioWriteBufferSize(int)
+	 */
+	public void setNioWriteBufferSize(int nioWriteBufferSize) {
+		this.nioWriteBufferSize = nioWriteBufferSize;
+	}
+
 	/**
 	 * @param taskExecutor
 	 * @see org.springframework.integration.ip.tcp.connection.AbstractConnectionFactory#setTaskExecutor(java.util.concurrent.Executor)
@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.net.Socket;
 import java.net.SocketException;
 import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.ServerSocketChannel;
@@ -30,10 +31,15 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.springframework.context.SmartLifecycle;
 import org.springframework.core.serializer.Deserializer;
@@ -103,12 +109,27 @@ public abstract class AbstractConnectionFactory extends IntegrationObjectSupport
 
 	protected final Object lifecycleMonitor = new Object();
 
+	/*
+	 * Only used by the factory's own selector; each NioSelectorLoop keeps its own.
+	 */
 	private volatile long nextCheckForClosedNioConnections;
 
 	private volatile int nioHarvestInterval = DEFAULT_NIO_HARVEST_INTERVAL;
 
 	private static final int DEFAULT_NIO_HARVEST_INTERVAL = 2000;
 
+	private volatile int nioSelectorThreads;
+
+	private volatile boolean nioReadOnSelectorThread;
+
+	private volatile int nioWriteBufferSize = DEFAULT_NIO_WRITE_BUFFER_SIZE;
+
+	private static final int DEFAULT_NIO_WRITE_BUFFER_SIZE = 8192;
+
+	private final List<NioSelectorLoop> nioSelectorLoops = new CopyOnWriteArrayList<NioSelectorLoop>();
+
+	private final AtomicInteger nextNioSelectorLoop = new AtomicInteger();
+
 	public AbstractConnectionFactory(int port) {
 		this.port = port;
 	}
@@ -415,6 +436,78 @@ public abstract class AbstractConnectionFactory extends IntegrationObjectSupport
 		this.nioHarvestInterval = nioHarvestInterval;
 	}
 
+	/**
+	 * The number of selector threads used to read from NIO connections. When
+	 * greater than zero, each connection is assigned (round robin) to one
+	 * of these threads, which each own a {@link Selector} and a disjoint set of
+	 * connections; for server factories, the server selector is then only used to
+	 * accept new connections. Setting this to the number of available cores is
+	 * a reasonable starting point. Each selector thread is run on the task
+	 * executor, so a user supplied executor must have sufficient threads.
+	 * Default 0 - a single selector handles all connections (and, for
+	 * servers, accepts). Ignored by non-NIO factories.
+	 * @param nioSelectorThreads The number of selector threads.
+	 * @since 2.2
+	 */
+	public void setNioSelectorThreads(int nioSelectorThreads) {
+		Assert.isTrue(nioSelectorThreads >= 0, "NIO selector threads must be >= 0");
+		this.nioSelectorThreads = nioSelectorThreads;
+	}
+
+	/**
+	 * @return the number of NIO selector threads.
+	 * @since 2.2
+	 */
+	public int getNioSelectorThreads() {
+		return nioSelectorThreads;
+	}
+
+	/**
+	 * If true, NIO connections are read on the selector thread that detected
+	 * the data, rather than handing each read to the task executor and
+	 * re-registering read interest afterwards. This avoids a thread hand off
+	 * and a selector wake up per read. The selector thread only reads as much
+	 * data as the connection's assembler can accept without blocking; when a
+	 * slow listener has let that data back up, the read is handed to the task
+	 * executor as usual, so other connections owned by the same selector are
+	 * not delayed. Default false. Ignored by non-NIO factories, and for SSL
+	 * connections, which are always read on the task executor.
+	 * @param nioReadOnSelectorThread true to read on the selector thread.
+	 * @since 2.2
+	 */
+	public void setNioReadOnSelectorThread(boolean nioReadOnSelectorThread) {
+		this.nioReadOnSelectorThread = nioReadOnSelectorThread;
+	}
+
+	/**
+	 * @return true if NIO connections are read on the selector thread.
+	 * @since 2.2
+	 */
+	public boolean isNioReadOnSelectorThread() {
+		return nioReadOnSelectorThread;
+	}
+
+	/**
+	 * The size of the buffer used by each NIO connection to coalesce the
+	 * (typically small) writes made by the serializer for a message, so that a
+	 * message is usually written to the socket with a single system call.
+	 * Default 8192. Ignored by non-NIO factories.
+	 * @param nioWriteBufferSize The buffer size.
+	 * @since 2.2
+	 */
+	public void setNioWriteBufferSize(int nioWriteBufferSize) {
+		Assert.isTrue(nioWriteBufferSize > 0, "NIO write buffer size must be > 0");
+		this.nioWriteBufferSize = nioWriteBufferSize;
+	}
+
+	/**
+	 * @return the NIO write buffer size.
+	 * @since 2.2
+	 */
+	public int getNioWriteBufferSize() {
+		return nioWriteBufferSize;
+	}
+
 	/**
 	 * Closes the server.
 	 */
@@ -448,6 +541,10 @@ public abstract class AbstractConnectionFactory extends IntegrationObjectSupport
 	public void stop() {
 		this.active = false;
 		this.close();
+		for (NioSelectorLoop selectorLoop : this.nioSelectorLoops) {
+			selectorLoop.wakeup();
+		}
+		this.nioSelectorLoops.clear();
 		synchronized (this.connections) {
 			Iterator<TcpConnection> iterator = this.connections.iterator();
 			while (iterator.hasNext()) {
@@ -523,10 +620,23 @@ public abstract class AbstractConnectionFactory extends IntegrationObjectSupport
 	protected void processNioSelections(int selectionCount, final Selector selector, ServerSocketChannel server,
 			Map<SocketChannel, TcpNioConnection> connections) throws IOException {
 		long now = System.currentTimeMillis();
+		boolean checkForClosedConnections = now >= this.nextCheckForClosedNioConnections;
+		if (checkForClosedConnections) {
+			this.nextCheckForClosedNioConnections = now + this.nioHarvestInterval;
+		}
+		this.processNioSelections(selectionCount, selector, server, connections, now, checkForClosedConnections);
+	}
+
+	/**
+	 * Each selector thread keeps its own schedule for checking for closed
+	 * connections, since each one owns a different connections map.
+	 */
+	private void processNioSelections(int selectionCount, final Selector selector, ServerSocketChannel server,
+			Map<SocketChannel, TcpNioConnection> connections, long now, boolean checkForClosedConnections)
+			throws IOException {
 		if (this.soTimeout > 0 ||
-				now >= this.nextCheckForClosedNioConnections ||
+				checkForClosedConnections ||
 				selectionCount == 0) {
-			this.nextCheckForClosedNioConnections = now + this.nioHarvestInterval;
 			Iterator<Entry<SocketChannel, TcpNioConnection>> it = connections.entrySet().iterator();
 			while (it.hasNext()) {
 				SocketChannel channel = it.next().getKey();
@@ -564,10 +674,13 @@ public abstract class AbstractConnectionFactory extends IntegrationObjectSupport
 						logger.debug("Selection key no longer valid");
 					}
 					else if (key.isReadable()) {
-						key.interestOps(key.interestOps() - key.readyOps());
 						final TcpNioConnection connection;
 						connection = (TcpNioConnection) key.attachment();
 						connection.setLastRead(System.currentTimeMillis());
+						if (this.nioReadOnSelectorThread && connection.readPacketWithoutBlocking()) {
+							continue;
+						}
+						key.interestOps(key.interestOps() - key.readyOps());
 						this.taskExecutor.execute(new Runnable() {
 							public void run() {
 								try {
@@ -618,6 +731,40 @@ public abstract class AbstractConnectionFactory extends IntegrationObjectSupport
 		throw new UnsupportedOperationException("Nio server factory must override this method");
 	}
 
+	/**
+	 * Starts the configured number of NIO selector threads (if any).
+	 * @throws IOException
+	 * @see #setNioSelectorThreads(int)
+	 */
+	protected void startNioSelectorLoops() throws IOException {
+		for (int i = 0; i < this.nioSelectorThreads; i++) {
+			NioSelectorLoop selectorLoop = new NioSelectorLoop(Selector.open());
+			this.nioSelectorLoops.add(selectorLoop);
+			this.getTaskExecutor().execute(selectorLoop);
+		}
+	}
+
+	/**
+	 * @return true if NIO selector threads have been started and connections
+	 * should be registered using {@link #registerWithNioSelectorLoop(SocketChannel, TcpNioConnection)}.
+	 */
+	protected boolean isUsingNioSelectorLoops() {
+		return !this.nioSelectorLoops.isEmpty();
+	}
+
+	/**
+	 * Assigns the channel to one of the NIO selector threads, which will
+	 * read from the channel from then on.
+	 * @param channel The channel.
+	 * @param connection The connection for the channel.
+	 */
+	protected void registerWithNioSelectorLoop(SocketChannel channel, TcpNioConnection connection) {
+		int size = this.nioSelectorLoops.size();
+		Assert.state(size > 0, "No NIO selector threads are running");
+		int index = (this.nextNioSelectorLoop.getAndIncrement() & Integer.MAX_VALUE) % size;
+		this.nioSelectorLoops.get(index).register(channel, connection);
+	}
+
 	public int getPhase() {
 		return 0;
 	}
@@ -690,4 +837,82 @@ public abstract class AbstractConnectionFactory extends IntegrationObjectSupport
 		this.tcpSocketSupport = tcpSocketSupport;
 	}
 
+
+	/**
+	 * A selector thread owning a subset of the NIO connections.
+	 */
+	private class NioSelectorLoop implements Runnable {
+
+		private final Selector selector;
+
+		private final Map<SocketChannel, TcpNioConnection> channelMap = new ConcurrentHashMap<SocketChannel, TcpNioConnection>();
+
+		private final BlockingQueue<SocketChannel> newChannels = new LinkedBlockingQueue<SocketChannel>();
+
+		private long nextCheckForClosedConnections;
+
+		NioSelectorLoop(Selector selector) {
+			this.selector = selector;
+		}
+
+		void register(SocketChannel channel, TcpNioConnection connection) {
+			this.channelMap.put(channel, connection);
+			this.newChannels.add(channel);
+			this.selector.wakeup();
+		}
+
+		void wakeup() {
+			this.selector.wakeup();
+		}
+
+		public void run() {
+			if (logger.isDebugEnabled()) {
+				logger.debug("NIO selector thread running for " + AbstractConnectionFactory.this);
+			}
+			try {
+				while (isActive()) {
+					int soTimeout = getSoTimeout();
+					int selectionCount = 0;
+					try {
+						selectionCount = this.selector.select(soTimeout < 0 ? 0 : soTimeout);
+					} catch (CancelledKeyException cke) {
+						if (logger.isDebugEnabled()) {
+							logger.debug("CancelledKeyException during Selector.select()");
+						}
+					}
+					SocketChannel newChannel;
+					while ((newChannel = this.newChannels.poll()) != null) {
+						try {
+							newChannel.register(this.selector, SelectionKey.OP_READ, this.channelMap.get(newChannel));
+						} catch (ClosedChannelException cce) {
+							if (logger.isDebugEnabled()) {
+								logger.debug("Channel closed before registering with selector for reading");
+							}
+						}
+					}
+					long now = System.currentTimeMillis();
+					boolean checkForClosedConnections = now >= this.nextCheckForClosedConnections;
+					if (checkForClosedConnections) {
+						this.nextCheckForClosedConnections = now + nioHarvestInterval;
+					}
+					processNioSelections(selectionCount, this.selector, null, this.channelMap, now,
+							checkForClosedConnections);
+				}
+			} catch (Exception e) {
+				if (isActive()) {
+					logger.error("Exception in NIO selector thread", e);
+				}
+			} finally {
+				try {
+					this.selector.close();
+				} catch (IOException e) {
+					logger.debug("Failed to close selector", e);
+				}
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("NIO selector thread exiting for " + AbstractConnectionFactory.this);
+			}
+		}
+	}
+
 }
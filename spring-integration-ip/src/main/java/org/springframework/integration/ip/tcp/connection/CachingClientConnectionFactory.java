@@ -23,6 +23,7 @@ import org.springframework.core.serializer.Deserializer;
 import org.springframework.core.serializer.Serializer;
 import org.springframework.integration.MessagingException;
 import org.springframework.integration.util.SimplePool;
+import org.springframework.scheduling.TaskScheduler;
 
 /**
  * @author Gary Russell
@@ -37,6 +38,10 @@ public class CachingClientConnectionFactory extends AbstractClientConnectionFact
 
 	private final SimplePool<TcpConnection> pool;
 
+	private volatile TaskScheduler evictionScheduler;
+
+	private volatile long evictionInterval = 30000;
+
 	public CachingClientConnectionFactory(AbstractClientConnectionFactory target, int poolSize) {
 		super("", 0);
 		// override single-use to true to force "close" after use
@@ -90,6 +95,57 @@ public class CachingClientConnectionFactory extends AbstractClientConnectionFact
 		return this.pool.getAllocatedCount();
 	}
 
+	/**
+	 * Sets the time (in milliseconds) after which an idle connection is closed;
+	 * requires an eviction scheduler. Default: 0 (never).
+	 */
+	public void setIdleTimeout(long idleTimeout) {
+		this.pool.setIdleTimeout(idleTimeout);
+	}
+
+	/**
+	 * Sets the number of idle connections to keep open, even when they have exceeded
+	 * the idle timeout; requires an eviction scheduler. Default: 0.
+	 */
+	public void setMinIdle(int minIdle) {
+		this.pool.setMinIdle(minIdle);
+	}
+
+	/**
+	 * Sets the scheduler used to close stale and idle connections and to open
+	 * connections up to the minimum idle count, while this factory is running.
+	 */
+	public void setEvictionScheduler(TaskScheduler evictionScheduler) {
+		this.evictionScheduler = evictionScheduler;
+	}
+
+	/**
+	 * Sets the interval (in milliseconds) between idle connection checks. Default: 30000.
+	 */
+	public void setEvictionInterval(long evictionInterval) {
+		this.evictionInterval = evictionInterval;
+	}
+
+	public long getBorrowCount() {
+		return this.pool.getBorrowCount();
+	}
+
+	public long getTimeoutCount() {
+		return this.pool.getTimeoutCount();
+	}
+
+	public long getEvictionCount() {
+		return this.pool.getEvictionCount();
+	}
+
+	public double getMeanWaitTime() {
+		return this.pool.getMeanWaitTime();
+	}
+
+	public double getMaxWaitTime() {
+		return this.pool.getMaxWaitTime();
+	}
+
 	@Override
 	public TcpConnection obtainConnection() throws Exception {
 		return new CachedConnection(this.pool.getItem());
@@ -341,10 +397,14 @@ public class CachingClientConnectionFactory extends AbstractClientConnectionFact
 		this.setActive(true);
 		targetConnectionFactory.start();
 		super.start();
+		if (this.evictionScheduler != null) {
+			this.pool.startEviction(this.evictionScheduler, this.evictionInterval);
+		}
 	}
 
 	@Override
 	public synchronized void stop() {
+		this.pool.stopEviction();
 		targetConnectionFactory.stop();
 		this.pool.removeAllIdleItems();
 	}
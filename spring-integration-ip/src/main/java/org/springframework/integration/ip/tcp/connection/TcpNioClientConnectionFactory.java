@@ -93,6 +93,7 @@ public class TcpNioClientConnectionFactory extends
 		TcpNioConnection connection = this.tcpNioConnectionSupport.createNewConnection(
 				socketChannel, false, this.isLookupHost());
 		connection.setUsingDirectBuffers(this.usingDirectBuffers);
+		connection.setWriteBufferSize(this.getNioWriteBufferSize());
 		connection.setTaskExecutor(this.getTaskExecutor());
 		TcpConnection wrappedConnection = wrapConnection(connection);
 		initializeConnection(wrappedConnection, socketChannel.socket());
@@ -100,9 +101,14 @@ public class TcpNioClientConnectionFactory extends
 		if (this.getSoTimeout() > 0) {
 			connection.setLastRead(System.currentTimeMillis());
 		}
-		this.channelMap.put(socketChannel, connection);
-		newChannels.add(socketChannel);
-		selector.wakeup();
+		if (this.isUsingNioSelectorLoops()) {
+			this.registerWithNioSelectorLoop(socketChannel, connection);
+		}
+		else {
+			this.channelMap.put(socketChannel, connection);
+			newChannels.add(socketChannel);
+			selector.wakeup();
+		}
 		return wrappedConnection;
 	}
 
@@ -144,7 +150,9 @@ public class TcpNioClientConnectionFactory extends
 			logger.debug("Read selector running for connections to " + this.getHost() + ":" + this.getPort());
 		}
 		try {
-			this.selector = Selector.open();
+			Selector selector = Selector.open();
+			this.startNioSelectorLoops();
+			this.selector = selector;
 			while (this.isActive()) {
 				SocketChannel newChannel;
 				int soTimeout = this.getSoTimeout();
@@ -49,13 +49,15 @@ public class TcpNioConnection extends AbstractTcpConnection {
 
 	private static final long DEFAULT_PIPE_TIMEOUT = 60000;
 
+	private static final int DEFAULT_WRITE_BUFFER_SIZE = 8192;
+
 	private final SocketChannel socketChannel;
 
 	private final ChannelOutputStream channelOutputStream;
 
 	private volatile PipedOutputStream pipedOutputStream;
 
-	private volatile PipedInputStream pipedInputStream;
+	private volatile NioPipedInputStream pipedInputStream;
 
 	private volatile boolean usingDirectBuffers;
 
@@ -73,6 +75,8 @@ public class TcpNioConnection extends AbstractTcpConnection {
 
 	private volatile long pipeTimeout = DEFAULT_PIPE_TIMEOUT;
 
+	private volatile int writeBufferSize = DEFAULT_WRITE_BUFFER_SIZE;
+
 	/**
 	 * Constructs a TcpNetConnection for the SocketChannel.
 	 * @param socketChannel the socketChannel
@@ -86,7 +90,7 @@ public class TcpNioConnection extends AbstractTcpConnection {
 		if (receiveBufferSize <= 0) {
 			receiveBufferSize = this.maxMessageSize;
 		}
-		this.pipedInputStream = new PipedInputStream(receiveBufferSize);
+		this.pipedInputStream = new NioPipedInputStream(receiveBufferSize);
 		this.pipedOutputStream = new PipedOutputStream(this.pipedInputStream);
 		this.channelOutputStream = new ChannelOutputStream();
 	}
@@ -95,6 +99,18 @@ public class TcpNioConnection extends AbstractTcpConnection {
 		this.pipeTimeout = pipeTimeout;
 	}
 
+	/**
+	 * Set the size of the buffer used to coalesce the (typically small) writes
+	 * made by the serializer for each message, so that a message is usually
+	 * written to the socket with a single system call. Default 8192.
+	 * @param writeBufferSize the buffer size.
+	 * @since 2.2
+	 */
+	public void setWriteBufferSize(int writeBufferSize) {
+		Assert.isTrue(writeBufferSize > 0, "'writeBufferSize' must be > 0");
+		this.writeBufferSize = writeBufferSize;
+	}
+
 	@Override
 	public void close() {
 		doClose();
@@ -120,7 +136,15 @@ public class TcpNioConnection extends AbstractTcpConnection {
 	public void send(Message<?> message) throws Exception {
 		synchronized(this.getMapper()) {
 			Object object = this.getMapper().fromMessage(message);
-			((Serializer<Object>) this.getSerializer()).serialize(object, this.getChannelOutputStream());
+			ChannelOutputStream outputStream = this.getChannelOutputStream();
+			try {
+				((Serializer<Object>) this.getSerializer()).serialize(object, outputStream);
+				outputStream.flush();
+			}
+			catch (Exception e) {
+				outputStream.discardPending();
+				throw e;
+			}
 			this.afterSend(message);
 		}
 	}
@@ -273,35 +297,9 @@ public class TcpNioConnection extends AbstractTcpConnection {
 	}
 
 	private void doRead() throws Exception {
-		if (this.rawBuffer == null) {
-			this.rawBuffer = allocate(maxMessageSize);
-		}
-
 		this.writingToPipe = true;
 		try {
-			if (this.taskExecutor == null) {
-				this.taskExecutor = Executors.newCachedThreadPool();
-			}
-			// If there is no assembler running, start one
-			checkForAssembler();
-			if (logger.isTraceEnabled()) {
-				logger.trace("Before read:" + this.rawBuffer.position() + "/" + this.rawBuffer.limit());
-			}
-			int len = this.socketChannel.read(this.rawBuffer);
-			if (len < 0) {
-				this.writingToPipe = false;
-				this.closeConnection();
-			}
-			if (logger.isTraceEnabled()) {
-				logger.trace("After read:" + this.rawBuffer.position() + "/" + this.rawBuffer.limit());
-			}
-			this.rawBuffer.flip();
-			if (logger.isTraceEnabled()) {
-				logger.trace("After flip:" + this.rawBuffer.position() + "/" + this.rawBuffer.limit());
-			}
-			if (logger.isDebugEnabled()) {
-				logger.debug("Read " + rawBuffer.limit() + " into raw buffer");
-			}
+			this.readIntoRawBuffer(Integer.MAX_VALUE);
 			final CountDownLatch latch = new CountDownLatch(1);
 			/*
 			 * If there are insufficient threads, either to run the
@@ -329,6 +327,43 @@ public class TcpNioConnection extends AbstractTcpConnection {
 		}
 	}
 
+	/**
+	 * Reads at most maxLength bytes from the channel into the raw buffer,
+	 * starting an assembler if needed; the buffer is flipped, ready to be
+	 * sent to the pipe.
+	 */
+	private void readIntoRawBuffer(int maxLength) throws IOException {
+		if (this.rawBuffer == null) {
+			this.rawBuffer = allocate(maxMessageSize);
+		}
+		if (this.taskExecutor == null) {
+			this.taskExecutor = Executors.newCachedThreadPool();
+		}
+		// If there is no assembler running, start one
+		checkForAssembler();
+		if (maxLength < this.rawBuffer.capacity()) {
+			this.rawBuffer.limit(maxLength);
+		}
+		if (logger.isTraceEnabled()) {
+			logger.trace("Before read:" + this.rawBuffer.position() + "/" + this.rawBuffer.limit());
+		}
+		int len = this.socketChannel.read(this.rawBuffer);
+		if (len < 0) {
+			this.writingToPipe = false;
+			this.closeConnection();
+		}
+		if (logger.isTraceEnabled()) {
+			logger.trace("After read:" + this.rawBuffer.position() + "/" + this.rawBuffer.limit());
+		}
+		this.rawBuffer.flip();
+		if (logger.isTraceEnabled()) {
+			logger.trace("After flip:" + this.rawBuffer.position() + "/" + this.rawBuffer.limit());
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Read " + rawBuffer.limit() + " into raw buffer");
+		}
+	}
+
 	protected void sendToPipe(ByteBuffer rawBuffer) throws IOException {
 		Assert.notNull(rawBuffer, "rawBuffer cannot be null");
 		if (logger.isTraceEnabled()) {
@@ -360,17 +395,66 @@ public class TcpNioConnection extends AbstractTcpConnection {
 		}
 		try {
 			doRead();
-		} catch (ClosedChannelException cce) {
+		} catch (Exception e) {
+			this.handleReadException(e);
+		}
+	}
+
+	/**
+	 * Invoked by the factory's selector thread when there is data to be read.
+	 * Only reads as much data as the assembler's pipe can accept without
+	 * blocking, and writes it to the pipe on the calling thread, so that a slow
+	 * assembler on this connection never blocks the selector.
+	 * @return false if the pipe is full, or this connection does not support
+	 * reading on the selector thread; nothing was read and the caller must
+	 * use {@link #readPacket()} on another thread instead.
+	 */
+	boolean readPacketWithoutBlocking() {
+		if (!this.isReadOnSelectorThreadSupported()) {
+			return false;
+		}
+		int freeSpace = this.pipedInputStream.freeSpace();
+		if (freeSpace <= 0) {
+			return false;
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug(this.getConnectionId() + " Reading on selector thread...");
+		}
+		this.writingToPipe = true;
+		try {
+			this.readIntoRawBuffer(freeSpace);
+			this.sendToPipe(this.rawBuffer);
+		} catch (Exception e) {
+			this.handleReadException(e);
+		} finally {
+			this.writingToPipe = false;
+		}
+		return true;
+	}
+
+	/**
+	 * Whether {@link #readPacketWithoutBlocking()} may read this connection's
+	 * data on the selector thread; that read is bounded by the free space in
+	 * the assembler's pipe, so subclasses that transform the raw data before
+	 * sending it to the pipe must return false.
+	 * @return true.
+	 */
+	protected boolean isReadOnSelectorThreadSupported() {
+		return true;
+	}
+
+	private void handleReadException(Exception e) {
+		if (e instanceof ClosedChannelException) {
 			if (logger.isDebugEnabled()) {
 				logger.debug(this.getConnectionId() + " Channel is closed");
 			}
-			this.closeConnection();
-		} catch (Exception e) {
+		}
+		else {
 			logger.error("Exception on Read " +
 					     this.getConnectionId() + " " +
 					     e.getMessage(), e);
-			this.closeConnection();
 		}
+		this.closeConnection();
 	}
 
 	/**
@@ -421,8 +505,34 @@ public class TcpNioConnection extends AbstractTcpConnection {
 		this.lastRead = lastRead;
 	}
 
+	/**
+	 * PipedInputStream that can report how much data can be written to it
+	 * without blocking.
+	 */
+	private static class NioPipedInputStream extends PipedInputStream {
+
+		NioPipedInputStream(int pipeSize) {
+			super(pipeSize);
+		}
+
+		synchronized int freeSpace() {
+			if (this.in < 0) {
+				return this.buffer.length;
+			}
+			if (this.in > this.out) {
+				return this.buffer.length - (this.in - this.out);
+			}
+			return this.out - this.in;
+		}
+
+	}
+
 	/**
 	 * OutputStream to wrap a SocketChannel; implements timeout on write.
+	 * Small writes are accumulated in a buffer that is written when the stream
+	 * is flushed (after each message is serialized) or when it is full. Large
+	 * writes are sent, together with any pending data, using a single gathering
+	 * write, avoiding a copy.
 	 *
 	 */
 	class ChannelOutputStream extends OutputStream {
@@ -431,12 +541,15 @@ public class TcpNioConnection extends AbstractTcpConnection {
 
 		private int soTimeout;
 
+		private ByteBuffer writeBuffer;
+
 		@Override
-		public void write(int b) throws IOException {
-			byte[] bytes = new byte[1];
-			bytes[0] = (byte) b;
-			ByteBuffer buffer = ByteBuffer.wrap(bytes);
-			doWrite(buffer);
+		public synchronized void write(int b) throws IOException {
+			ByteBuffer writeBuffer = this.getWriteBuffer();
+			if (!writeBuffer.hasRemaining()) {
+				this.flushWriteBuffer();
+			}
+			writeBuffer.put((byte) b);
 		}
 
 		@Override
@@ -445,19 +558,67 @@ public class TcpNioConnection extends AbstractTcpConnection {
 		}
 
 		@Override
-		public void flush() throws IOException {
+		public synchronized void flush() throws IOException {
+			this.flushWriteBuffer();
 		}
 
 		@Override
-		public void write(byte[] b, int off, int len) throws IOException {
-			ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
-			doWrite(buffer);
+		public synchronized void write(byte[] b, int off, int len) throws IOException {
+			ByteBuffer writeBuffer = this.getWriteBuffer();
+			if (len <= writeBuffer.remaining()) {
+				writeBuffer.put(b, off, len);
+			}
+			else if (len < writeBuffer.capacity() / 2) {
+				this.flushWriteBuffer();
+				writeBuffer.put(b, off, len);
+			}
+			else if (writeBuffer.position() == 0) {
+				doWrite(ByteBuffer.wrap(b, off, len));
+			}
+			else {
+				writeBuffer.flip();
+				try {
+					doWrite(new ByteBuffer[] { writeBuffer, ByteBuffer.wrap(b, off, len) });
+				}
+				finally {
+					writeBuffer.clear();
+				}
+			}
 		}
 
 		@Override
 		public void write(byte[] b) throws IOException {
-			ByteBuffer buffer = ByteBuffer.wrap(b);
-			doWrite(buffer);
+			this.write(b, 0, b.length);
+		}
+
+		/**
+		 * Discards any data that has been written to the stream but not yet
+		 * sent to the channel.
+		 */
+		synchronized void discardPending() {
+			if (this.writeBuffer != null) {
+				this.writeBuffer.clear();
+			}
+		}
+
+		private ByteBuffer getWriteBuffer() {
+			if (this.writeBuffer == null) {
+				this.writeBuffer = allocate(writeBufferSize);
+			}
+			return this.writeBuffer;
+		}
+
+		private void flushWriteBuffer() throws IOException {
+			if (this.writeBuffer == null || this.writeBuffer.position() == 0) {
+				return;
+			}
+			this.writeBuffer.flip();
+			try {
+				doWrite(this.writeBuffer);
+			}
+			finally {
+				this.writeBuffer.clear();
+			}
 		}
 
 		protected synchronized void doWrite(ByteBuffer buffer) throws IOException {
@@ -469,20 +630,57 @@ public class TcpNioConnection extends AbstractTcpConnection {
 			if (remaining == 0) {
 				return;
 			}
+			this.registerForWrite();
+			while (remaining > 0) {
+				this.waitForWrite();
+				socketChannel.write(buffer);
+				remaining = buffer.remaining();
+			}
+		}
+
+		/**
+		 * Writes the buffers to the SocketChannel using a gathering write.
+		 * Subclasses that override {@link #doWrite(ByteBuffer)} to transform
+		 * the data must also override this method.
+		 */
+		protected synchronized void doWrite(ByteBuffer[] buffers) throws IOException {
+			long remaining = remaining(buffers);
+			if (logger.isDebugEnabled()) {
+				logger.debug(getConnectionId() + " writing " + remaining + " (gathering)");
+			}
+			remaining -= socketChannel.write(buffers);
+			if (remaining == 0) {
+				return;
+			}
+			this.registerForWrite();
+			while (remaining > 0) {
+				this.waitForWrite();
+				remaining -= socketChannel.write(buffers);
+			}
+		}
+
+		private long remaining(ByteBuffer[] buffers) {
+			long remaining = 0;
+			for (ByteBuffer buffer : buffers) {
+				remaining += buffer.remaining();
+			}
+			return remaining;
+		}
+
+		private void registerForWrite() throws IOException {
 			if (this.selector == null) {
 				this.selector = Selector.open();
 				this.soTimeout = socketChannel.socket().getSoTimeout();
 			}
 			socketChannel.register(selector, SelectionKey.OP_WRITE);
-			while (remaining > 0) {
-				int selectionCount = this.selector.select(this.soTimeout);
-				if (selectionCount == 0) {
-					throw new SocketTimeoutException("Timeout on write");
-				}
-				selector.selectedKeys().clear();
-				socketChannel.write(buffer);
-				remaining = buffer.remaining();
+		}
+
+		private void waitForWrite() throws IOException {
+			int selectionCount = this.selector.select(this.soTimeout);
+			if (selectionCount == 0) {
+				throw new SocketTimeoutException("Timeout on write");
 			}
+			selector.selectedKeys().clear();
 		}
 
 	}
@@ -72,6 +72,18 @@ public class TcpNioSSLConnection extends TcpNioConnection {
 		this.sslEngine = sslEngine;
 	}
 
+	/**
+	 * Always read on the task executor: the raw buffer may hold the start
+	 * of a partial SSL packet, which a read bounded by the pipe's free
+	 * (plain text) space would discard, and decoding may involve
+	 * handshaking.
+	 * @return false.
+	 */
+	@Override
+	protected boolean isReadOnSelectorThreadSupported() {
+		return false;
+	}
+
 	/**
 	 * Overrides super class method to perform decryption and/or participate
 	 * in handshaking. Decrypted data is sent to the super class to be
@@ -311,6 +323,17 @@ public class TcpNioSSLConnection extends TcpNioConnection {
 			}
 		}
 
+		/**
+		 * Encrypts each buffer in turn; gathering writes are not possible
+		 * with the SSL engine.
+		 */
+		@Override
+		protected synchronized void doWrite(ByteBuffer[] plainText) throws IOException {
+			for (ByteBuffer buffer : plainText) {
+				doWrite(buffer);
+			}
+		}
+
 		/**
 		 * Handles SSL handshaking; when network data is needed from the peer, suspends
 		 * until that data is received.
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2011 the original author or authors.
+ * Copyright 2002-2012 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -38,6 +38,9 @@ import org.springframework.util.Assert;
 /**
  * Implements a server connection factory that produces {@link TcpNioConnection}s using
  * a {@link ServerSocketChannel}. Must have a {@link TcpListener} registered.
+ * When {@link #setNioSelectorThreads(int) nioSelectorThreads} is greater than zero,
+ * the server selector only accepts connections, which are then read by the
+ * selector threads.
  * @author Gary Russell
  * @since 2.0
  *
@@ -91,6 +94,7 @@ public class TcpNioServerConnectionFactory extends AbstractServerConnectionFacto
 						Math.abs(this.getBacklog()));
 			}
 			final Selector selector = Selector.open();
+			this.startNioSelectorLoops();
 			this.serverChannel.register(selector, SelectionKey.OP_ACCEPT);
 			this.setListening(true);
 			this.selector = selector;
@@ -167,8 +171,13 @@ public class TcpNioServerConnectionFactory extends AbstractServerConnectionFacto
 			}
 			connection.setTaskExecutor(this.getTaskExecutor());
 			connection.setLastRead(now);
-			this.channelMap.put(channel, connection);
-			channel.register(selector, SelectionKey.OP_READ, connection);
+			if (this.isUsingNioSelectorLoops()) {
+				this.registerWithNioSelectorLoop(channel, connection);
+			}
+			else {
+				this.channelMap.put(channel, connection);
+				channel.register(selector, SelectionKey.OP_READ, connection);
+			}
 		}
 	}
 
@@ -178,6 +187,7 @@ public class TcpNioServerConnectionFactory extends AbstractServerConnectionFacto
 					.createNewConnection(socketChannel, true,
 							this.isLookupHost());
 			connection.setUsingDirectBuffers(this.usingDirectBuffers);
+			connection.setWriteBufferSize(this.getNioWriteBufferSize());
 			TcpConnection wrappedConnection = wrapConnection(connection);
 			this.initializeConnection(wrappedConnection, socketChannel.socket());
 			return connection;
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2010 the original author or authors.
+ * Copyright 2002-2012 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,8 +21,15 @@ import java.net.DatagramPacket;
 import java.net.DatagramSocket;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.net.SocketAddress;
 import java.net.SocketException;
 import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -31,11 +38,17 @@ import org.springframework.integration.MessageHeaders;
 import org.springframework.integration.MessagingException;
 import org.springframework.integration.ip.AbstractInternetProtocolReceivingChannelAdapter;
 import org.springframework.integration.ip.IpHeaders;
+import org.springframework.util.Assert;
 
 /**
  * A channel adapter to receive incoming UDP packets. Packets can optionally be preceded by a
  * 4 byte length field, used to validate that all data was received. Packets may also contain
  * information indicating an acknowledgment needs to be sent.
+ * <p/>
+ * When {@link #setUsingNio(boolean) usingNio} is true, the socket is created from a
+ * {@link DatagramChannel}; all packets that are available when the receiving thread
+ * wakes up are read into a single, reused buffer and handed off to the task executor
+ * in batches, rather than scheduling a task for each packet.
  *
  * @author Gary Russell
  * @since 2.0
@@ -48,6 +61,12 @@ public class UnicastReceivingChannelAdapter extends AbstractInternetProtocolRece
 
 	private volatile int soSendBufferSize = -1;
 
+	private volatile boolean usingNio;
+
+	private volatile int maxBatchSize = 64;
+
+	private volatile Selector selector;
+
 	private static Pattern addressPattern = Pattern.compile("([^:]*):([0-9]*)");
 
 
@@ -80,6 +99,13 @@ public class UnicastReceivingChannelAdapter extends AbstractInternetProtocolRece
 
 		this.setListening(true);
 
+		DatagramChannel channel = this.usingNio ? this.getSocket().getChannel() : null;
+		if (channel != null) {
+			this.receiveBatches(channel);
+			this.setListening(false);
+			return;
+		}
+
 		// Do as little as possible here so we can loop around and catch the next packet.
 		// Just schedule the packet for processing.
 		while (this.isActive()) {
@@ -134,24 +160,100 @@ public class UnicastReceivingChannelAdapter extends AbstractInternetProtocolRece
 	protected boolean asyncSendMessage(final DatagramPacket packet) {
 		this.getTaskExecutor().execute(new Runnable(){
 			public void run() {
-				Message<byte[]> message = null;
-				try {
-					message = mapper.toMessage(packet);
-					if (logger.isDebugEnabled()) {
-						logger.debug("Received:" + message);
-					}
+				processPacket(packet);
+			}});
+		return true;
+	}
+
+	/**
+	 * Schedules a single task to map and send all the packets in the batch.
+	 * @param packets the packets.
+	 */
+	protected void asyncSendMessages(final List<DatagramPacket> packets) {
+		this.getTaskExecutor().execute(new Runnable(){
+			public void run() {
+				for (DatagramPacket packet : packets) {
+					processPacket(packet);
 				}
-				catch (Exception e) {
-					logger.error("Failed to map packet to message ", e);
+			}});
+	}
+
+	private void processPacket(DatagramPacket packet) {
+		Message<byte[]> message = null;
+		try {
+			message = mapper.toMessage(packet);
+			if (logger.isDebugEnabled()) {
+				logger.debug("Received:" + message);
+			}
+		}
+		catch (Exception e) {
+			logger.error("Failed to map packet to message ", e);
+		}
+		if (message != null) {
+			try {
+				if (message.getHeaders().containsKey(IpHeaders.ACK_ADDRESS)) {
+					sendAck(message);
 				}
-				if (message != null) {
-					if (message.getHeaders().containsKey(IpHeaders.ACK_ADDRESS)) {
-						sendAck(message);
-					}
-					sendMessage(message);
+				sendMessage(message);
+			}
+			catch (RuntimeException e) {
+				// don't lose the rest of a batch
+				logger.error("Failed to send message " + message, e);
+			}
+		}
+	}
+
+	/**
+	 * Reads packets from a non-blocking channel; whenever the selector indicates
+	 * data is available, reads all available packets (up to maxBatchSize) into
+	 * a single, reused buffer, copying each packet's data to an exactly sized
+	 * array, and hands the batch off to the task executor.
+	 */
+	private void receiveBatches(DatagramChannel channel) {
+		Selector selector = null;
+		try {
+			channel.configureBlocking(false);
+			selector = Selector.open();
+			this.selector = selector;
+			channel.register(selector, SelectionKey.OP_READ);
+			ByteBuffer buffer = ByteBuffer.allocateDirect(this.getReceiveBufferSize());
+			while (this.isActive()) {
+				int soTimeout = this.getSoTimeout();
+				if (selector.select(soTimeout < 0 ? 0 : soTimeout) == 0) {
+					continue;
 				}
-			}});
-		return true;
+				selector.selectedKeys().clear();
+				List<DatagramPacket> packets = new ArrayList<DatagramPacket>();
+				SocketAddress address;
+				while (packets.size() < this.maxBatchSize && (address = channel.receive(buffer)) != null) {
+					buffer.flip();
+					byte[] data = new byte[buffer.remaining()];
+					buffer.get(data);
+					buffer.clear();
+					packets.add(new DatagramPacket(data, data.length, address));
+				}
+				if (packets.size() > 0) {
+					this.asyncSendMessages(packets);
+				}
+			}
+		}
+		catch (IOException e) {
+			if (this.isActive()) {
+				logger.error("Failed to receive DatagramPacket", e);
+				doStop();
+			}
+		}
+		finally {
+			this.selector = null;
+			if (selector != null) {
+				try {
+					selector.close();
+				}
+				catch (IOException e) {
+					// ignore
+				}
+			}
+		}
 	}
 
 	protected DatagramPacket receive() throws Exception {
@@ -162,6 +264,28 @@ public class UnicastReceivingChannelAdapter extends AbstractInternetProtocolRece
 		return packet;
 	}
 
+	/**
+	 * If true, the socket is created using a {@link DatagramChannel} and packets
+	 * are received in batches. Ignored if an external socket is provided, or for
+	 * multicast adapters. Default false.
+	 * @param usingNio true to use NIO.
+	 * @since 2.2
+	 */
+	public void setUsingNio(boolean usingNio) {
+		this.usingNio = usingNio;
+	}
+
+	/**
+	 * The maximum number of packets handed off to the task executor in a single
+	 * task when using NIO. Default 64.
+	 * @param maxBatchSize the max batch size.
+	 * @since 2.2
+	 */
+	public void setMaxBatchSize(int maxBatchSize) {
+		Assert.isTrue(maxBatchSize > 0, "'maxBatchSize' must be > 0");
+		this.maxBatchSize = maxBatchSize;
+	}
+
 	/**
 	 * @param socket the socket to set
 	 */
@@ -178,7 +302,15 @@ public class UnicastReceivingChannelAdapter extends AbstractInternetProtocolRece
 			try {
 				DatagramSocket socket = null;
 				String localAddress = this.getLocalAddress();
-				if (localAddress == null) {
+				if (this.usingNio) {
+					socket = DatagramChannel.open().socket();
+					setSocketAttributes(socket);
+					if (localAddress == null) {
+						socket.bind(new InetSocketAddress(this.getPort()));
+					} else {
+						socket.bind(new InetSocketAddress(InetAddress.getByName(localAddress), this.getPort()));
+					}
+				} else if (localAddress == null) {
 					socket = new DatagramSocket(this.getPort());
 				} else {
 					InetAddress whichNic = InetAddress.getByName(localAddress);
@@ -212,6 +344,10 @@ public class UnicastReceivingChannelAdapter extends AbstractInternetProtocolRece
 	@Override
 	protected void doStop() {
 		super.doStop();
+		Selector selector = this.selector;
+		if (selector != null) {
+			selector.wakeup();
+		}
 		try {
 			DatagramSocket socket = this.socket;
 			this.socket = null;
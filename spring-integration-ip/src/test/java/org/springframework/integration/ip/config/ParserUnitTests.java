@@ -264,6 +264,7 @@ public class ParserUnitTests {
 		assertEquals("127.0.0.1", dfa.getPropertyValue("localAddress"));
 		assertSame(taskExecutor, dfa.getPropertyValue("taskExecutor"));
 		assertEquals(errorChannel, dfa.getPropertyValue("errorChannel"));
+		assertEquals(true, dfa.getPropertyValue("usingNio"));
 		DatagramPacketMessageMapper mapper = (DatagramPacketMessageMapper) dfa.getPropertyValue("mapper");
 		DirectFieldAccessor mapperAccessor = new DirectFieldAccessor(mapper);
 		assertFalse((Boolean)mapperAccessor.getPropertyValue("lookupHost"));
@@ -488,6 +489,9 @@ public class ParserUnitTests {
 		assertSame(taskExecutor, dfa.getPropertyValue("taskExecutor"));
 		assertEquals(123, dfa.getPropertyValue("backlog"));
 		assertEquals(true, dfa.getPropertyValue("usingDirectBuffers"));
+		assertEquals(4, server1.getNioSelectorThreads());
+		assertTrue(server1.isNioReadOnSelectorThread());
+		assertEquals(16384, server1.getNioWriteBufferSize());
 		assertNotNull(dfa.getPropertyValue("interceptorFactoryChain"));
 	}
 
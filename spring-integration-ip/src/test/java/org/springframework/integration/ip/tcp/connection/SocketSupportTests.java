@@ -16,6 +16,7 @@
 package org.springframework.integration.ip.tcp.connection;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -26,6 +27,7 @@ import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
@@ -431,6 +433,59 @@ Certificate fingerprints:
 		assertEquals("Hello, world!", new String(payload).substring(0, 13));
 	}
 
+	@Test
+	public void testNioSSLPartialRecordsWithReadOnSelectorThread() throws Exception {
+		int port = SocketUtils.findAvailableServerSocket();
+		TcpNioServerConnectionFactory server = new TcpNioServerConnectionFactory(port);
+		DefaultTcpSSLContextSupport sslContextSupport = new DefaultTcpSSLContextSupport("test.ks",
+				"test.truststore.ks", "secret", "secret");
+		DefaultTcpNioSSLConnectionSupport tcpNioConnectionSupport = new DefaultTcpNioSSLConnectionSupport(sslContextSupport);
+		tcpNioConnectionSupport.afterPropertiesSet();
+		server.setTcpNioConnectionSupport(tcpNioConnectionSupport);
+		server.setNioReadOnSelectorThread(true);
+		ByteArrayCrLfSerializer deserializer = new ByteArrayCrLfSerializer();
+		deserializer.setMaxMessageSize(120000);
+		server.setDeserializer(deserializer);
+		final List<Message<?>> messages = new ArrayList<Message<?>>();
+		final CountDownLatch latch = new CountDownLatch(3);
+		server.registerListener(new TcpListener() {
+			public boolean onMessage(Message<?> message) {
+				messages.add(message);
+				latch.countDown();
+				return false;
+			}
+		});
+		server.start();
+		TestingUtilities.waitListening(server, null);
+
+		TcpNioClientConnectionFactory client = new TcpNioClientConnectionFactory("localhost", port);
+		client.setTcpNioConnectionSupport(tcpNioConnectionSupport);
+		client.setNioReadOnSelectorThread(true);
+		client.setDeserializer(deserializer);
+		client.registerListener(new TcpListener() {
+			public boolean onMessage(Message<?> message) {
+				return false;
+			}
+		});
+		client.start();
+
+		TcpConnection connection = client.getConnection();
+		assertFalse(((TcpNioConnection) connection).readPacketWithoutBlocking());
+		// each message spans several SSL records, which arrive in partial reads
+		byte[] bytes = new byte[100000];
+		Arrays.fill(bytes, (byte) 'x');
+		String large = new String(bytes);
+		for (int i = 0; i < 3; i++) {
+			connection.send(new GenericMessage<String>(i + large));
+		}
+		assertTrue(latch.await(60, TimeUnit.SECONDS));
+		for (int i = 0; i < 3; i++) {
+			assertEquals(i + large, new String((byte[]) messages.get(i).getPayload()));
+		}
+		client.stop();
+		server.stop();
+	}
+
 	private class Replier implements TcpSender {
 
 		private TcpConnection connection;
@@ -36,10 +36,13 @@ import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
@@ -49,6 +52,7 @@ import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import javax.net.ServerSocketFactory;
+import javax.net.SocketFactory;
 
 import org.junit.Test;
 import org.mockito.Mockito;
@@ -56,6 +60,7 @@ import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 import org.springframework.integration.Message;
 import org.springframework.integration.ip.tcp.serializer.ByteArrayCrLfSerializer;
+import org.springframework.integration.ip.util.TestingUtilities;
 import org.springframework.integration.support.MessageBuilder;
 import org.springframework.integration.test.util.SocketUtils;
 import org.springframework.integration.test.util.TestUtils;
@@ -348,6 +353,112 @@ public class TcpNioConnectionTests {
 		assertTrue(messageLatch.await(10, TimeUnit.SECONDS));
 	}
 
+	@Test
+	public void testSelectorThreads() throws Exception {
+		this.doTestSelectorThreads(false);
+	}
+
+	@Test
+	public void testSelectorThreadsReadOnSelectorThread() throws Exception {
+		this.doTestSelectorThreads(true);
+	}
+
+	private void doTestSelectorThreads(boolean readOnSelectorThread) throws Exception {
+		final int port = SocketUtils.findAvailableServerSocket();
+		TcpNioServerConnectionFactory factory = new TcpNioServerConnectionFactory(port);
+		factory.setNioSelectorThreads(2);
+		factory.setNioReadOnSelectorThread(readOnSelectorThread);
+		int count = 6;
+		final CountDownLatch latch = new CountDownLatch(count);
+		final Set<Object> payloads = Collections.synchronizedSet(new HashSet<Object>());
+		factory.registerListener(new TcpListener() {
+			public boolean onMessage(Message<?> message) {
+				payloads.add(new String((byte[]) message.getPayload()));
+				latch.countDown();
+				return false;
+			}
+		});
+		factory.start();
+		TestingUtilities.waitListening(factory, null);
+		List<Socket> sockets = new ArrayList<Socket>();
+		for (int i = 0; i < count; i++) {
+			Socket socket = SocketFactory.getDefault().createSocket("localhost", port);
+			socket.getOutputStream().write(("foo" + i + "\r\n").getBytes());
+			sockets.add(socket);
+		}
+		assertTrue(latch.await(10, TimeUnit.SECONDS));
+		for (int i = 0; i < count; i++) {
+			assertTrue(payloads.contains("foo" + i));
+		}
+		assertEquals(0, factory.getConnections().size());
+		for (Socket socket : sockets) {
+			socket.close();
+		}
+		factory.stop();
+	}
+
+	@Test
+	public void testReadOnSelectorThreadSlowListenerDoesNotBlockOthers() throws Exception {
+		final int port = SocketUtils.findAvailableServerSocket();
+		TcpNioServerConnectionFactory factory = new TcpNioServerConnectionFactory(port);
+		factory.setNioSelectorThreads(1);
+		factory.setNioReadOnSelectorThread(true);
+		final int slowCount = 4000;
+		final CountDownLatch release = new CountDownLatch(1);
+		final CountDownLatch slowLatch = new CountDownLatch(slowCount);
+		final CountDownLatch fastLatch = new CountDownLatch(1);
+		factory.registerListener(new TcpListener() {
+			public boolean onMessage(Message<?> message) {
+				String payload = new String((byte[]) message.getPayload());
+				if (payload.startsWith("slow")) {
+					try {
+						release.await(30, TimeUnit.SECONDS);
+					}
+					catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					slowLatch.countDown();
+				}
+				else {
+					fastLatch.countDown();
+				}
+				return false;
+			}
+		});
+		factory.start();
+		TestingUtilities.waitListening(factory, null);
+		final Socket slowSocket = SocketFactory.getDefault().createSocket("localhost", port);
+		final byte[] slowMessage = new byte[1024];
+		Arrays.fill(slowMessage, (byte) 'x');
+		System.arraycopy("slow".getBytes(), 0, slowMessage, 0, 4);
+		slowMessage[1022] = '\r';
+		slowMessage[1023] = '\n';
+		ExecutorService exec = Executors.newSingleThreadExecutor();
+		exec.execute(new Runnable() {
+			public void run() {
+				try {
+					for (int i = 0; i < slowCount; i++) {
+						slowSocket.getOutputStream().write(slowMessage);
+					}
+				}
+				catch (IOException e) {
+				}
+			}
+		});
+		// give the slow connection time to fill its pipe
+		Thread.sleep(1000);
+		Socket fastSocket = SocketFactory.getDefault().createSocket("localhost", port);
+		fastSocket.getOutputStream().write("fast\r\n".getBytes());
+		assertTrue("Fast connection was blocked by the slow one", fastLatch.await(10, TimeUnit.SECONDS));
+		assertEquals(slowCount, slowLatch.getCount());
+		release.countDown();
+		assertTrue(slowLatch.await(30, TimeUnit.SECONDS));
+		exec.shutdownNow();
+		slowSocket.close();
+		fastSocket.close();
+		factory.stop();
+	}
+
 	private void readFully(InputStream is, byte[] buff) throws IOException {
 		for (int i = 0; i < buff.length; i++) {
 			buff[i] = (byte) is.read();
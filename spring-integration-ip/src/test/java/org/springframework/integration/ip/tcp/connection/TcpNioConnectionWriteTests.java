@@ -251,6 +251,56 @@ public class TcpNioConnectionWriteTests {
 		server.close();
 	}
 
+	@Test
+	public void testWriteLengthHeaderSmallAndLarge() throws Exception {
+		final int port = SocketUtils.findAvailableServerSocket();
+		final String smallString = "abcdef";
+		final byte[] large = new byte[100000];
+		for (int i = 0; i < large.length; i++) {
+			large[i] = (byte) i;
+		}
+		ServerSocket server = ServerSocketFactory.getDefault()
+				.createServerSocket(port);
+		server.setSoTimeout(10000);
+		Thread t = new Thread(new Runnable() {
+			public void run() {
+				try {
+					ByteArrayLengthHeaderSerializer serializer = new ByteArrayLengthHeaderSerializer();
+					AbstractConnectionFactory ccf = getClientConnectionFactory(true, port, serializer);
+					TcpConnection connection = ccf.getConnection();
+					connection.send(MessageBuilder.withPayload(smallString.getBytes()).build());
+					connection.send(MessageBuilder.withPayload(large).build());
+					connection.send(MessageBuilder.withPayload(smallString.getBytes()).build());
+					Thread.sleep(1000000000L);
+				} catch (Exception e) {
+					e.printStackTrace();
+				}
+			}
+		});
+		t.setDaemon(true);
+		t.start();
+		Socket socket = server.accept();
+		socket.setSoTimeout(5000);
+		InputStream is = socket.getInputStream();
+		byte[] buff = new byte[smallString.length() + 4];
+		readFully(is, buff);
+		ByteBuffer buffer = ByteBuffer.wrap(buff);
+		assertEquals(smallString.length(), buffer.getInt());
+		assertEquals(smallString, new String(buff, 4, smallString.length()));
+		byte[] largeBuff = new byte[large.length + 4];
+		readFully(is, largeBuff);
+		buffer = ByteBuffer.wrap(largeBuff);
+		assertEquals(large.length, buffer.getInt());
+		for (int i = 0; i < large.length; i++) {
+			assertEquals(large[i], largeBuff[i + 4]);
+		}
+		readFully(is, buff);
+		buffer = ByteBuffer.wrap(buff);
+		assertEquals(smallString.length(), buffer.getInt());
+		assertEquals(smallString, new String(buff, 4, smallString.length()));
+		server.close();
+	}
+
 	/**
 	 * @param is
 	 * @param buff
@@ -2,11 +2,14 @@ package org.springframework.integration.ip.udp;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
 import java.net.Inet4Address;
 import java.net.InetSocketAddress;
+import java.util.HashSet;
+import java.util.Set;
 
 import org.apache.commons.logging.LogFactory;
 import org.junit.Ignore;
@@ -43,6 +46,62 @@ public class UdpChannelAdapterTests {
 		assertEquals(new String(message.getPayload()), new String(receivedMessage.getPayload()));
 	}
 
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testUnicastNioReceiver() throws Exception {
+		QueueChannel channel = new QueueChannel(20);
+		int port = SocketUtils.findAvailableUdpSocket();
+		UnicastReceivingChannelAdapter adapter = new UnicastReceivingChannelAdapter(port);
+		adapter.setOutputChannel(channel);
+		adapter.setUsingNio(true);
+		adapter.setMaxBatchSize(3);
+		adapter.start();
+		SocketTestUtils.waitListening(adapter);
+
+		DatagramPacketMessageMapper mapper = new DatagramPacketMessageMapper();
+		DatagramSocket socket = new DatagramSocket(SocketUtils.findAvailableUdpSocket());
+		for (int i = 0; i < 10; i++) {
+			Message<byte[]> message = MessageBuilder.withPayload(("ABCD" + i).getBytes()).build();
+			DatagramPacket packet = mapper.fromMessage(message);
+			packet.setSocketAddress(new InetSocketAddress("localhost", port));
+			socket.send(packet);
+		}
+		socket.close();
+		Set<String> payloads = new HashSet<String>();
+		for (int i = 0; i < 10; i++) {
+			Message<byte[]> receivedMessage = (Message<byte[]>) channel.receive(2000);
+			assertNotNull(receivedMessage);
+			payloads.add(new String(receivedMessage.getPayload()));
+		}
+		for (int i = 0; i < 10; i++) {
+			assertTrue(payloads.contains("ABCD" + i));
+		}
+		adapter.stop();
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testUnicastNioReceiverWithAck() throws Exception {
+		QueueChannel channel = new QueueChannel(2);
+		int port = SocketUtils.findAvailableUdpSocket();
+		UnicastReceivingChannelAdapter adapter = new UnicastReceivingChannelAdapter(port);
+		adapter.setOutputChannel(channel);
+		adapter.setUsingNio(true);
+		adapter.start();
+		SocketTestUtils.waitListening(adapter);
+
+		UnicastSendingMessageHandler handler = new UnicastSendingMessageHandler(
+				"localhost", port, false, true,
+				"localhost",
+				SocketUtils.findAvailableUdpSocket(), 5000);
+		handler.afterPropertiesSet();
+		Message<byte[]> message = MessageBuilder.withPayload("ABCD".getBytes()).build();
+		handler.handleMessage(message);
+		Message<byte[]> receivedMessage = (Message<byte[]>) channel.receive(2000);
+		assertEquals(new String(message.getPayload()), new String(receivedMessage.getPayload()));
+		adapter.stop();
+	}
+
 	@SuppressWarnings("unchecked")
 	@Test
 	public void testUnicastSender() throws Exception {
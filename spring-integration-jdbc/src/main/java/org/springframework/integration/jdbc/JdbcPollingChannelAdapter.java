@@ -27,7 +27,9 @@ import org.springframework.dao.DataAccessException;
 import org.springframework.integration.Message;
 import org.springframework.integration.context.IntegrationObjectSupport;
 import org.springframework.integration.core.MessageSource;
+import org.springframework.integration.store.MetadataStore;
 import org.springframework.integration.support.MessageBuilder;
+import org.springframework.integration.util.KeysetPosition;
 import org.springframework.jdbc.core.ColumnMapRowMapper;
 import org.springframework.jdbc.core.JdbcOperations;
 import org.springframework.jdbc.core.ResultSetExtractor;
@@ -36,11 +38,24 @@ import org.springframework.jdbc.core.RowMapperResultSetExtractor;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcOperations;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
 
 /**
  * A polling channel adapter that creates messages from the payload returned by
  * executing a select query. Optionally an update can be executed after the
  * select in order to update processed rows.
+ * <p/>
+ * Large tables can be walked in pages using keyset pagination: when a
+ * {@link #setKeyColumn(String) key column} is provided, the value of that column
+ * in the last row of each poll is exposed to the select query as a named
+ * parameter (':lastKey' by default), e.g.
+ * <code>select * from item where id > :lastKey order by id</code>, with
+ * {@link #setMaxRowsPerPoll(int) maxRowsPerPoll} as the page size. If a
+ * {@link MetadataStore} is provided, the last key is persisted so that a
+ * restarted adapter resumes where it left off. Within a transaction, successive
+ * polls read successive pages, but the key only advances for other
+ * transactions when the transaction commits.
  *
  * @author Jonas Partner
  * @author Dave Syer
@@ -58,12 +73,31 @@ public class JdbcPollingChannelAdapter extends IntegrationObjectSupport implemen
 
 	private volatile boolean updatePerRow = false;
 
+	private volatile int updateBatchSize = 0;
+
 	private volatile String updateSql;
 
 	private volatile SqlParameterSourceFactory sqlParameterSourceFactory = new ExpressionEvaluatingSqlParameterSourceFactory();
 
 	private volatile int maxRowsPerPoll = 0;
 
+	private volatile String keyColumn;
+
+	private volatile String keyParameterName = "lastKey";
+
+	private volatile Object initialKey;
+
+	private volatile Class<?> keyType;
+
+	private volatile MetadataStore metadataStore;
+
+	private volatile String metadataKey;
+
+	private volatile KeysetPosition keysetPosition;
+
+	/** Receives the key of the last row mapped by the current thread's keyset poll. */
+	private final ThreadLocal<Object[]> lastRowKey = new ThreadLocal<Object[]>();
+
 	/**
 	 * Constructor taking {@link DataSource} from which the DB Connection can be
 	 * obtained and the select query to execute to retrieve new rows.
@@ -100,6 +134,21 @@ public class JdbcPollingChannelAdapter extends IntegrationObjectSupport implemen
 		this.updatePerRow = updatePerRow;
 	}
 
+	/**
+	 * When {@link #setUpdatePerRow(boolean) updatePerRow} is true, the per-row
+	 * updates are sent to the database as JDBC batches of (at most) this size,
+	 * rather than as one statement per row. Default is zero, meaning all the rows
+	 * returned by a poll are updated in a single batch. To mark all the polled
+	 * rows with a single statement instead, leave updatePerRow false and use an
+	 * IN clause in the update, e.g. <code>update item set status=10 where id in (:id)</code>.
+	 *
+	 * @param updateBatchSize the update batch size to set
+	 */
+	public void setUpdateBatchSize(int updateBatchSize) {
+		Assert.isTrue(updateBatchSize >= 0, "'updateBatchSize' must not be negative");
+		this.updateBatchSize = updateBatchSize;
+	}
+
 	public void setUpdateSqlParameterSourceFactory(SqlParameterSourceFactory sqlParameterSourceFactory) {
 		this.sqlParameterSourceFactory = sqlParameterSourceFactory;
 	}
@@ -124,6 +173,95 @@ public class JdbcPollingChannelAdapter extends IntegrationObjectSupport implemen
 		this.maxRowsPerPoll = maxRows;
 	}
 
+	/**
+	 * The column that orders the rows returned by the select query and uniquely
+	 * identifies them (typically the primary key). Setting it enables keyset
+	 * pagination: the value of this column in the last row returned by a poll is
+	 * bound to the {@link #setKeyParameterName(String) key parameter} of the next
+	 * select query.
+	 *
+	 * @param keyColumn the key column to set
+	 */
+	public void setKeyColumn(String keyColumn) {
+		this.keyColumn = keyColumn;
+	}
+
+	/**
+	 * The name of the select query parameter that receives the last key when
+	 * using keyset pagination. Default 'lastKey'.
+	 *
+	 * @param keyParameterName the key parameter name to set
+	 */
+	public void setKeyParameterName(String keyParameterName) {
+		Assert.hasText(keyParameterName, "'keyParameterName' must not be empty");
+		this.keyParameterName = keyParameterName;
+	}
+
+	/**
+	 * The key parameter value to use for the first poll, before any rows have
+	 * been received (and if none was found in the {@link MetadataStore}). It is
+	 * converted to the {@link #setKeyType(Class) key type}, if provided. Required
+	 * with a {@link #setKeyColumn(String) key column}, unless the MetadataStore
+	 * already holds a key.
+	 *
+	 * @param initialKey the initial key to set
+	 */
+	public void setInitialKey(Object initialKey) {
+		this.initialKey = initialKey;
+	}
+
+	/**
+	 * The type of the key column values (e.g. Long). The initial key (which is a
+	 * String when configured in XML) and a key restored from the
+	 * {@link MetadataStore} are converted to this type, so they are bound to the
+	 * select query with the same SQL type as the column. If not provided, a
+	 * restored key is converted to the type of the initial key.
+	 *
+	 * @param keyType the key type to set
+	 */
+	public void setKeyType(Class<?> keyType) {
+		this.keyType = keyType;
+	}
+
+	/**
+	 * A {@link MetadataStore} used to persist the last key when using keyset
+	 * pagination, so that progress survives a restart.
+	 *
+	 * @param metadataStore the metadata store to set
+	 */
+	public void setMetadataStore(MetadataStore metadataStore) {
+		this.metadataStore = metadataStore;
+	}
+
+	/**
+	 * The key under which the last key is stored in the {@link MetadataStore}.
+	 * Defaults to the component name.
+	 *
+	 * @param metadataKey the metadata key to set
+	 */
+	public void setMetadataKey(String metadataKey) {
+		this.metadataKey = metadataKey;
+	}
+
+	@Override
+	protected void onInit() throws Exception {
+		super.onInit();
+		if (this.metadataStore != null) {
+			Assert.state(this.keyColumn != null, "A 'keyColumn' is required when a 'metadataStore' is provided");
+			if (this.metadataKey == null) {
+				this.metadataKey = this.getComponentName();
+			}
+			Assert.state(StringUtils.hasText(this.metadataKey),
+					"A 'metadataKey' (or a component name) is required when a 'metadataStore' is provided");
+		}
+		if (this.keyColumn != null) {
+			this.keysetPosition = new KeysetPosition(this.initialKey, this.keyType, this.metadataStore, this.metadataKey);
+			// a null key would be bound as '> null', which matches no rows at all
+			Assert.state(this.keysetPosition.getKey() != null, "An 'initialKey' is required when a 'keyColumn' "
+					+ "is provided, unless the 'metadataStore' already holds the last key");
+		}
+	}
+
 	/**
 	 * Executes the query. If a query result set contains one or more rows, the
 	 * Message payload will contain either a List of Maps for each row or, if a
@@ -144,15 +282,19 @@ public class JdbcPollingChannelAdapter extends IntegrationObjectSupport implemen
 	 * mapped results are returned.
 	 */
 	private Object poll() {
-		List<?> payload = doPoll(this.sqlQueryParameterSource);
+		List<?> payload;
+		if (this.keyColumn != null) {
+			payload = pollPage();
+		}
+		else {
+			payload = doPoll(this.sqlQueryParameterSource);
+		}
 		if (payload.size() < 1) {
 			payload = null;
 		}
 		if (payload != null && updateSql != null) {
 			if (this.updatePerRow) {
-				for (Object row : payload) {
-					executeUpdateQuery(row);
-				}
+				executeBatchUpdateQuery(payload);
 			}
 			else {
 				executeUpdateQuery(payload);
@@ -161,15 +303,71 @@ public class JdbcPollingChannelAdapter extends IntegrationObjectSupport implemen
 		return payload;
 	}
 
+	/**
+	 * Select the next page of rows, using the last key seen so far, and record
+	 * the key of the last row in the page. If a transaction is active, the key
+	 * only advances for other transactions when it commits, so a rolled back page
+	 * is polled again.
+	 */
+	private List<?> pollPage() {
+		Assert.state(this.keysetPosition != null, "afterPropertiesSet() must be called before polling");
+		final Object currentKey = this.keysetPosition.getKey();
+		SqlParameterSource parameterSource = new KeyParameterSource(this.sqlQueryParameterSource, currentKey);
+		Object[] keyHolder = new Object[1];
+		this.lastRowKey.set(keyHolder);
+		List<?> payload;
+		try {
+			payload = doPoll(parameterSource);
+		}
+		finally {
+			this.lastRowKey.remove();
+		}
+		if (payload.size() > 0) {
+			this.keysetPosition.advance(keyHolder[0]);
+		}
+		return payload;
+	}
+
 	private void executeUpdateQuery(Object obj) {
 		SqlParameterSource updateParamaterSource = this.sqlParameterSourceFactory.createParameterSource(obj);
 		this.jdbcOperations.update(this.updateSql, updateParamaterSource);
 	}
 
+	private void executeBatchUpdateQuery(List<?> rows) {
+		int batchSize = this.updateBatchSize > 0 ? this.updateBatchSize : rows.size();
+		for (int start = 0; start < rows.size(); start += batchSize) {
+			List<?> batch = rows.subList(start, Math.min(start + batchSize, rows.size()));
+			SqlParameterSource[] batchParameterSources = new SqlParameterSource[batch.size()];
+			for (int i = 0; i < batchParameterSources.length; i++) {
+				batchParameterSources[i] = this.sqlParameterSourceFactory.createParameterSource(batch.get(i));
+			}
+			this.jdbcOperations.batchUpdate(this.updateSql, batchParameterSources);
+		}
+	}
+
+	/**
+	 * Execute the select query with the given parameters. With keyset pagination,
+	 * the parameters include the last key, and the key of each mapped row is
+	 * recorded so the position advances to the last one.
+	 */
 	protected List<?> doPoll(SqlParameterSource sqlQueryParameterSource) {
+		final RowMapper<?> delegate = this.rowMapper == null ? new ColumnMapRowMapper() : this.rowMapper;
+		final Object[] keyHolder = this.lastRowKey.get();
+		if (keyHolder == null) {
+			return doPoll(sqlQueryParameterSource, delegate);
+		}
+		RowMapper<Object> keyRecordingRowMapper = new RowMapper<Object>() {
+			public Object mapRow(ResultSet rs, int rowNum) throws SQLException {
+				keyHolder[0] = rs.getObject(keyColumn);
+				return delegate.mapRow(rs, rowNum);
+			}
+		};
+		return doPoll(sqlQueryParameterSource, keyRecordingRowMapper);
+	}
+
+	private List<?> doPoll(SqlParameterSource sqlQueryParameterSource, final RowMapper<?> rowMapper) {
 
 		List<?> payload = null;
-		final RowMapper<?> rowMapper = this.rowMapper == null ? new ColumnMapRowMapper() : this.rowMapper;
 		ResultSetExtractor<List<Object>> resultSetExtractor;
 
 		if (maxRowsPerPoll > 0) {
@@ -205,4 +403,50 @@ public class JdbcPollingChannelAdapter extends IntegrationObjectSupport implemen
 		return "jdbc:inbound-channel-adapter";
 	}
 
+
+	/**
+	 * Exposes the last key as a named parameter, delegating all other
+	 * parameters to the select parameter source, if any.
+	 */
+	private class KeyParameterSource implements SqlParameterSource {
+
+		private final SqlParameterSource delegate;
+
+		private final Object key;
+
+		private KeyParameterSource(SqlParameterSource delegate, Object key) {
+			this.delegate = delegate;
+			this.key = key;
+		}
+
+		public boolean hasValue(String paramName) {
+			return keyParameterName.equals(paramName)
+					|| (this.delegate != null && this.delegate.hasValue(paramName));
+		}
+
+		public Object getValue(String paramName) throws IllegalArgumentException {
+			if (keyParameterName.equals(paramName)) {
+				return this.key;
+			}
+			if (this.delegate == null) {
+				throw new IllegalArgumentException("No value registered for key '" + paramName + "'");
+			}
+			return this.delegate.getValue(paramName);
+		}
+
+		public int getSqlType(String paramName) {
+			if (keyParameterName.equals(paramName) || this.delegate == null) {
+				return TYPE_UNKNOWN;
+			}
+			return this.delegate.getSqlType(paramName);
+		}
+
+		public String getTypeName(String paramName) {
+			if (keyParameterName.equals(paramName) || this.delegate == null) {
+				return null;
+			}
+			return this.delegate.getTypeName(paramName);
+		}
+	}
+
 }
@@ -76,6 +76,13 @@ public class JdbcPollingChannelAdapterParser extends AbstractPollingInboundChann
 			builder.addPropertyValue("updateSql", update);
 		}
 		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "update-per-row");
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "update-batch-size");
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "key-column");
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "key-parameter-name");
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "initial-key");
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "key-type");
+		IntegrationNamespaceUtils.setReferenceIfAttributeDefined(builder, element, "metadata-store");
+		IntegrationNamespaceUtils.setValueIfAttributeDefined(builder, element, "metadata-key");
 		return builder.getBeanDefinition();
 	}
 
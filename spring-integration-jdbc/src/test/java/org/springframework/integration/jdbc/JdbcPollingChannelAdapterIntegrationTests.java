@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2011 the original author or authors.
+ * Copyright 2002-2012 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,10 +19,16 @@ package org.springframework.integration.jdbc;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -31,13 +37,20 @@ import org.apache.commons.logging.LogFactory;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.integration.Message;
+import org.springframework.integration.store.SimpleMetadataStore;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
 import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
 import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
 import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * @author Jonas Partner
@@ -277,6 +290,131 @@ public class JdbcPollingChannelAdapterIntegrationTests {
 
 	}
 
+	@Test
+	public void testSimplePollForListWithRowMapperAndBatchedUpdatePerRow() {
+		JdbcTemplate jdbcOperations = spy(new JdbcTemplate(this.embeddedDatabase));
+		JdbcPollingChannelAdapter adapter = new JdbcPollingChannelAdapter(
+				jdbcOperations, "select * from item where status=2");
+		adapter.setUpdateSql("update item set status = 10 where id = :id");
+		adapter.setUpdatePerRow(true);
+		adapter.setUpdateBatchSize(2);
+		adapter.setRowMapper(new ItemRowMapper());
+
+		for (int i = 1; i <= 5; i++) {
+			this.jdbcTemplate.update("insert into item values(" + i + ",2)");
+		}
+
+		Message<Object> message = adapter.receive();
+		List<?> rows = (List<?>) message.getPayload();
+		assertEquals("Wrong number of elements", 5, rows.size());
+
+		int countOfStatusTen = this.jdbcTemplate
+				.queryForInt("select count(*) from item where status = 10");
+		assertEquals(
+				"Status not updated incorect number of rows with status 10", 5,
+				countOfStatusTen);
+
+		ArgumentCaptor<BatchPreparedStatementSetter> setters = ArgumentCaptor.forClass(BatchPreparedStatementSetter.class);
+		verify(jdbcOperations, times(3)).batchUpdate(eq("update item set status = 10 where id = ?"), setters.capture());
+		assertEquals(2, setters.getAllValues().get(0).getBatchSize());
+		assertEquals(2, setters.getAllValues().get(1).getBatchSize());
+		assertEquals(1, setters.getAllValues().get(2).getBatchSize());
+
+		assertNull(adapter.receive());
+	}
+
+	@Test
+	public void testKeysetPagingResumesFromStoredKey() throws Exception {
+		SimpleMetadataStore metadataStore = new SimpleMetadataStore();
+		for (int i = 1; i <= 5; i++) {
+			this.jdbcTemplate.update("insert into item values(" + i + ",2)");
+		}
+		JdbcPollingChannelAdapter adapter = this.createKeysetAdapter(metadataStore);
+		assertEquals(Arrays.asList(1, 2), this.pollIds(adapter));
+		assertEquals(Arrays.asList(3, 4), this.pollIds(adapter));
+		assertEquals(Arrays.asList(5), this.pollIds(adapter));
+		assertNull(adapter.receive());
+		assertEquals("5", metadataStore.get("keysetAdapter"));
+
+		this.jdbcTemplate.update("insert into item values(6,2)");
+		adapter = this.createKeysetAdapter(metadataStore);
+		assertEquals(Arrays.asList(6), this.pollIds(adapter));
+	}
+
+	@Test
+	public void testKeysetPagingAdvancesWithinTransactionAndRevertsOnRollback() throws Exception {
+		for (int i = 1; i <= 5; i++) {
+			this.jdbcTemplate.update("insert into item values(" + i + ",2)");
+		}
+		final JdbcPollingChannelAdapter adapter = this.createKeysetAdapter(new SimpleMetadataStore());
+		new TransactionTemplate(new DataSourceTransactionManager(this.embeddedDatabase)).execute(
+				new TransactionCallbackWithoutResult() {
+					@Override
+					protected void doInTransactionWithoutResult(TransactionStatus status) {
+						assertEquals(Arrays.asList(1, 2), pollIds(adapter));
+						assertEquals(Arrays.asList(3, 4), pollIds(adapter));
+						status.setRollbackOnly();
+					}
+				});
+		assertEquals(Arrays.asList(1, 2), this.pollIds(adapter));
+	}
+
+	@Test(expected=IllegalStateException.class)
+	public void testKeysetPagingRequiresInitialKey() throws Exception {
+		JdbcPollingChannelAdapter adapter = new JdbcPollingChannelAdapter(
+				this.embeddedDatabase, "select * from item where id > :lastKey order by id");
+		adapter.setKeyColumn("id");
+		adapter.afterPropertiesSet();
+	}
+
+	@Test
+	public void testKeysetPagingUsesOverriddenDoPoll() throws Exception {
+		for (int i = 1; i <= 3; i++) {
+			this.jdbcTemplate.update("insert into item values(" + i + ",2)");
+		}
+		final List<Object> keys = new ArrayList<Object>();
+		JdbcPollingChannelAdapter adapter = new JdbcPollingChannelAdapter(
+				this.embeddedDatabase, "select * from item where id > :lastKey order by id") {
+			@Override
+			protected List<?> doPoll(SqlParameterSource sqlQueryParameterSource) {
+				keys.add(sqlQueryParameterSource.getValue("lastKey"));
+				return super.doPoll(sqlQueryParameterSource);
+			}
+		};
+		adapter.setRowMapper(new ItemRowMapper());
+		adapter.setMaxRowsPerPoll(2);
+		adapter.setKeyColumn("id");
+		adapter.setInitialKey(0);
+		adapter.afterPropertiesSet();
+		assertEquals(Arrays.asList(1, 2), this.pollIds(adapter));
+		assertEquals(Arrays.asList(3), this.pollIds(adapter));
+		assertEquals(2, keys.size());
+		assertEquals("0", keys.get(0).toString());
+		assertEquals("2", keys.get(1).toString());
+	}
+
+	private JdbcPollingChannelAdapter createKeysetAdapter(SimpleMetadataStore metadataStore) throws Exception {
+		JdbcPollingChannelAdapter adapter = new JdbcPollingChannelAdapter(
+				this.embeddedDatabase, "select * from item where id > :lastKey order by id");
+		adapter.setRowMapper(new ItemRowMapper());
+		adapter.setMaxRowsPerPoll(2);
+		adapter.setKeyColumn("id");
+		adapter.setInitialKey(0);
+		adapter.setMetadataStore(metadataStore);
+		adapter.setBeanName("keysetAdapter");
+		adapter.afterPropertiesSet();
+		return adapter;
+	}
+
+	private List<Integer> pollIds(JdbcPollingChannelAdapter adapter) {
+		Message<Object> message = adapter.receive();
+		List<Integer> ids = new ArrayList<Integer>();
+		for (Object item : (List<?>) message.getPayload()) {
+			ids.add(((Item) item).getId());
+		}
+		return ids;
+	}
+
 	@Test
 	public void testEmptyPoll() {
 		JdbcPollingChannelAdapter adapter = new JdbcPollingChannelAdapter(
@@ -38,6 +38,7 @@ import org.springframework.integration.core.MessagingTemplate;
 import org.springframework.integration.core.PollableChannel;
 import org.springframework.integration.endpoint.SourcePollingChannelAdapter;
 import org.springframework.integration.history.MessageHistory;
+import org.springframework.integration.store.MetadataStore;
 import org.springframework.integration.test.util.TestUtils;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.namedparam.AbstractSqlParameterSource;
@@ -109,6 +110,27 @@ public class JdbcPollingChannelAdapterParserTests {
 		assertNull(messagingTemplate.receive());
 	}
 
+	@Test
+	public void testBatchedUpdatePerRowInboundChannelAdapter() {
+		setUp("pollingWithBatchedUpdatePerRowJdbcInboundChannelAdapterTest.xml", getClass());
+		Object source = TestUtils.getPropertyValue(appCtx.getBean("batchedUpdateAdapter"), "source");
+		assertEquals(Boolean.TRUE, TestUtils.getPropertyValue(source, "updatePerRow"));
+		assertEquals(2, TestUtils.getPropertyValue(source, "updateBatchSize"));
+		new TransactionTemplate(transactionManager).execute(new TransactionCallback<Void>() {
+			public Void doInTransaction(TransactionStatus status) {
+				jdbcTemplate.update("insert into item values(1,'',2)");
+				jdbcTemplate.update("insert into item values(2,'',2)");
+				jdbcTemplate.update("insert into item values(3,'',2)");
+				return null;
+			}
+		});
+		Message<?> message = messagingTemplate.receive();
+		assertNotNull(message);
+		assertEquals(3, ((List<?>) message.getPayload()).size());
+		assertEquals(3, this.jdbcTemplate.queryForInt("select count(*) from item where status=10"));
+		assertNull(messagingTemplate.receive());
+	}
+
 	@Test
 	public void testExtendedInboundChannelAdapter() {
 		setUp("pollingWithJdbcOperationsJdbcInboundChannelAdapterTest.xml", getClass());
@@ -136,6 +158,29 @@ public class JdbcPollingChannelAdapterParserTests {
 		assertNotNull(message);
 	}
 
+	@Test
+	public void testKeysetInboundChannelAdapter() {
+		setUp("pollingWithKeysetJdbcInboundChannelAdapterTest.xml", getClass());
+		assertEquals(Integer.valueOf(0),
+				TestUtils.getPropertyValue(appCtx.getBean("keysetAdapter"), "source.keysetPosition.initialKey"));
+		new TransactionTemplate(transactionManager).execute(new TransactionCallback<Void>() {
+			public Void doInTransaction(TransactionStatus status) {
+				jdbcTemplate.update("insert into item values(1,'',2)");
+				jdbcTemplate.update("insert into item values(2,'',2)");
+				jdbcTemplate.update("insert into item values(3,'',2)");
+				return null;
+			}
+		});
+		Message<List<?>> message = messagingTemplate.receive();
+		assertNotNull(message);
+		assertEquals(2, message.getPayload().size());
+		message = messagingTemplate.receive();
+		assertNotNull(message);
+		assertEquals(1, message.getPayload().size());
+		assertNull(messagingTemplate.receive());
+		assertEquals("3", appCtx.getBean("metadataStore", MetadataStore.class).get("itemKeys"));
+	}
+
 	@Test
 	public void testMaxRowsInboundChannelAdapter() {
 		setUp("pollingWithMaxRowsJdbcInboundChannelAdapterTest.xml", getClass());
@@ -16,8 +16,13 @@
 
 package org.springframework.integration.jms;
 
+import java.util.Iterator;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import javax.jms.Connection;
 import javax.jms.ConnectionFactory;
@@ -25,12 +30,14 @@ import javax.jms.DeliveryMode;
 import javax.jms.Destination;
 import javax.jms.JMSException;
 import javax.jms.MessageConsumer;
+import javax.jms.MessageListener;
 import javax.jms.MessageProducer;
 import javax.jms.Session;
 import javax.jms.TemporaryQueue;
 import javax.jms.TemporaryTopic;
 import javax.jms.Topic;
 
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.expression.Expression;
 import org.springframework.integration.Message;
 import org.springframework.integration.MessageChannel;
@@ -41,6 +48,7 @@ import org.springframework.integration.handler.AbstractReplyProducingMessageHand
 import org.springframework.integration.handler.ExpressionEvaluatingMessageProcessor;
 import org.springframework.integration.support.MessageBuilder;
 import org.springframework.jms.connection.ConnectionFactoryUtils;
+import org.springframework.jms.listener.DefaultMessageListenerContainer;
 import org.springframework.jms.support.JmsUtils;
 import org.springframework.jms.support.converter.MessageConverter;
 import org.springframework.jms.support.converter.SimpleMessageConverter;
@@ -50,13 +58,18 @@ import org.springframework.util.Assert;
 
 /**
  * An outbound Messaging Gateway for request/reply JMS.
+ * <p>
+ * By default, a MessageConsumer is created for each request: either on a {@link TemporaryQueue},
+ * or with a MessageSelector on the reply destination. When 'useReplyContainer' is true, a single
+ * long-lived {@link DefaultMessageListenerContainer} consumes from the (fixed) reply destination
+ * instead, and replies are dispatched to the waiting requesters by correlation id.
  *
  * @author Mark Fisher
  * @author Arjen Poutsma
  * @author Juergen Hoeller
  * @author Oleg Zhurakousky
  */
-public class JmsOutboundGateway extends AbstractReplyProducingMessageHandler {
+public class JmsOutboundGateway extends AbstractReplyProducingMessageHandler implements DisposableBean {
 
 	private volatile Destination requestDestination;
 
@@ -96,10 +109,22 @@ public class JmsOutboundGateway extends AbstractReplyProducingMessageHandler {
 
 	private volatile boolean extractReplyPayload = true;
 
+	private volatile boolean useReplyContainer;
+
+	private volatile int replyContainerConcurrentConsumers = 1;
+
+	private volatile DefaultMessageListenerContainer replyContainer;
+
+	private final ConcurrentMap<String, ReplyHolder> replies = new ConcurrentHashMap<String, ReplyHolder>();
+
+	private volatile long lastUnclaimedRepliesPurge = System.currentTimeMillis();
+
 	private volatile boolean initialized;
 
 	private final Object initializationMonitor = new Object();
 
+	private final Object lifecycleMonitor = new Object();
+
 
 	/**
 	 * Set whether message delivery should be persistent or non-persistent,
@@ -304,6 +329,28 @@ public class JmsOutboundGateway extends AbstractReplyProducingMessageHandler {
 		this.extractReplyPayload = extractReplyPayload;
 	}
 
+	/**
+	 * Specify whether replies should be received by a single, long-lived listener container
+	 * on the reply destination rather than by a MessageConsumer created for each request.
+	 * Replies are dispatched to the waiting requesters by correlation id (either the value
+	 * generated for the 'correlationKey' or, if no key is provided, the JMSMessageID of the
+	 * request). A 'replyDestination' or 'replyDestinationName' is required in this mode.
+	 * Replies that arrive after the requester has timed out are logged and discarded.
+	 * Default is false.
+	 */
+	public void setUseReplyContainer(boolean useReplyContainer) {
+		this.useReplyContainer = useReplyContainer;
+	}
+
+	/**
+	 * Specify the number of concurrent consumers of the reply listener container.
+	 * Only applies when 'useReplyContainer' is true. Default is 1.
+	 */
+	public void setReplyContainerConcurrentConsumers(int replyContainerConcurrentConsumers) {
+		Assert.isTrue(replyContainerConcurrentConsumers > 0, "'replyContainerConcurrentConsumers' must be positive");
+		this.replyContainerConcurrentConsumers = replyContainerConcurrentConsumers;
+	}
+
 	/**
 	 * Specify the Spring Integration reply channel. If this property is not
 	 * set the gateway will check for a 'replyChannel' header on the request.
@@ -370,6 +417,10 @@ public class JmsOutboundGateway extends AbstractReplyProducingMessageHandler {
 					^ this.requestDestinationName != null
 					^ this.requestDestinationExpressionProcessor != null,
 					"Exactly one of 'requestDestination', 'requestDestinationName', or 'requestDestinationExpression' is required.");
+			if (this.useReplyContainer) {
+				Assert.isTrue(this.replyDestination != null || this.replyDestinationName != null,
+						"A 'replyDestination' or 'replyDestinationName' is required when 'useReplyContainer' is true.");
+			}
 			super.onInit();
 			if (this.requestDestinationExpressionProcessor != null) {
 				this.requestDestinationExpressionProcessor.setBeanFactory(getBeanFactory());
@@ -386,7 +437,9 @@ public class JmsOutboundGateway extends AbstractReplyProducingMessageHandler {
 		}
 		final Message<?> requestMessage = MessageBuilder.fromMessage(message).build();
 		try {
-			javax.jms.Message jmsReply = this.sendAndReceive(requestMessage);
+			javax.jms.Message jmsReply = this.useReplyContainer
+					? this.sendAndReceiveWithContainer(requestMessage)
+					: this.sendAndReceive(requestMessage);
 			if (jmsReply == null) {
 				throw new MessageTimeoutException(message,
 						"failed to receive JMS response within timeout of: " + this.receiveTimeout + "ms");
@@ -459,6 +512,158 @@ public class JmsOutboundGateway extends AbstractReplyProducingMessageHandler {
 		}
 	}
 
+	private javax.jms.Message sendAndReceiveWithContainer(Message<?> requestMessage) throws JMSException {
+		this.startReplyContainerIfNecessary();
+		Connection connection = this.createConnection();
+		Session session = null;
+		MessageProducer messageProducer = null;
+		String correlationId = null;
+		try {
+			session = this.createSession(connection);
+			Object objectToSend = requestMessage;
+			if (this.extractRequestPayload) {
+				objectToSend = requestMessage.getPayload();
+			}
+			javax.jms.Message jmsRequest = this.messageConverter.toMessage(objectToSend, session);
+			headerMapper.fromHeaders(requestMessage.getHeaders(), jmsRequest);
+			jmsRequest.setJMSReplyTo(this.getReplyDestination(session));
+			Integer priority = requestMessage.getHeaders().getPriority();
+			if (priority == null) {
+				priority = this.priority;
+			}
+			messageProducer = session.createProducer(this.getRequestDestination(requestMessage, session));
+			ReplyHolder holder;
+			if (this.correlationKey != null) {
+				// register before sending, so any reply we do not know of is a late reply
+				correlationId = UUID.randomUUID().toString();
+				if (this.correlationKey.equals("JMSCorrelationID")) {
+					jmsRequest.setJMSCorrelationID(correlationId);
+				}
+				else {
+					jmsRequest.setStringProperty(this.correlationKey, correlationId);
+				}
+				holder = new ReplyHolder(true);
+				this.replies.put(correlationId, holder);
+				this.sendRequestMessage(jmsRequest, messageProducer, priority);
+			}
+			else {
+				// the reply may arrive before we know the JMSMessageID; the listener then registers it for us
+				this.sendRequestMessage(jmsRequest, messageProducer, priority);
+				correlationId = jmsRequest.getJMSMessageID();
+				holder = new ReplyHolder(true);
+				ReplyHolder existing = this.replies.putIfAbsent(correlationId, holder);
+				if (existing != null) {
+					holder = existing;
+				}
+			}
+			return holder.receive(this.receiveTimeout);
+		}
+		finally {
+			if (correlationId != null) {
+				this.replies.remove(correlationId);
+			}
+			JmsUtils.closeMessageProducer(messageProducer);
+			JmsUtils.closeSession(session);
+			ConnectionFactoryUtils.releaseConnection(connection, this.connectionFactory, false);
+		}
+	}
+
+	private void startReplyContainerIfNecessary() {
+		if (this.replyContainer != null) {
+			return;
+		}
+		synchronized (this.lifecycleMonitor) {
+			if (this.replyContainer != null) {
+				return;
+			}
+			DefaultMessageListenerContainer container = new DefaultMessageListenerContainer();
+			container.setConnectionFactory(this.connectionFactory);
+			if (this.replyDestination != null) {
+				container.setDestination(this.replyDestination);
+			}
+			else {
+				container.setDestinationName(this.replyDestinationName);
+				container.setDestinationResolver(this.destinationResolver);
+			}
+			container.setPubSubDomain(this.replyPubSubDomain);
+			container.setConcurrentConsumers(this.replyContainerConcurrentConsumers);
+			container.setMessageListener(new ReplyListener());
+			if (this.getComponentName() != null) {
+				container.setBeanName(this.getComponentName() + ".replyContainer");
+			}
+			container.afterPropertiesSet();
+			container.start();
+			this.replyContainer = container;
+		}
+	}
+
+	/**
+	 * Stops the reply listener container, if one has been started.
+	 */
+	public void destroy() {
+		synchronized (this.lifecycleMonitor) {
+			if (this.replyContainer != null) {
+				this.replyContainer.shutdown();
+				this.replyContainer = null;
+			}
+		}
+	}
+
+	private void onReply(javax.jms.Message reply) throws JMSException {
+		String correlationId = (this.correlationKey == null || this.correlationKey.equals("JMSCorrelationID"))
+				? reply.getJMSCorrelationID()
+				: reply.getStringProperty(this.correlationKey);
+		if (correlationId == null) {
+			if (logger.isWarnEnabled()) {
+				logger.warn("Discarding reply without a correlation id: " + reply);
+			}
+			return;
+		}
+		ReplyHolder holder = this.replies.get(correlationId);
+		if (holder == null) {
+			if (this.correlationKey != null) {
+				if (logger.isWarnEnabled()) {
+					logger.warn("Discarding late reply (the requester is no longer waiting): " + reply);
+				}
+				return;
+			}
+			// JMSMessageID correlation: the requester may not have registered yet
+			holder = new ReplyHolder(false);
+			ReplyHolder existing = this.replies.putIfAbsent(correlationId, holder);
+			if (existing != null) {
+				holder = existing;
+			}
+			else {
+				this.purgeUnclaimedReplies();
+			}
+		}
+		holder.offer(reply);
+	}
+
+	/**
+	 * Removes replies registered by the listener (rather than by a requester) that have not
+	 * been claimed within the receive timeout; these are late replies. Runs at most once per
+	 * timeout period.
+	 */
+	private void purgeUnclaimedReplies() {
+		long timeout = (this.receiveTimeout > 0) ? this.receiveTimeout : 5000;
+		long now = System.currentTimeMillis();
+		if (now - this.lastUnclaimedRepliesPurge < timeout) {
+			return;
+		}
+		this.lastUnclaimedRepliesPurge = now;
+		Iterator<Map.Entry<String, ReplyHolder>> iterator = this.replies.entrySet().iterator();
+		while (iterator.hasNext()) {
+			ReplyHolder holder = iterator.next().getValue();
+			if (!holder.claimed && now - holder.created > timeout) {
+				if (logger.isWarnEnabled()) {
+					logger.warn("Discarding late reply (the requester is no longer waiting): " + holder.queue.peek());
+				}
+				iterator.remove();
+			}
+		}
+	}
+
 	/**
 	 * Creates the MessageConsumer before sending the request Message since we are generating our own correlationId value for the MessageSelector.
 	 */
@@ -582,4 +787,46 @@ public class JmsOutboundGateway extends AbstractReplyProducingMessageHandler {
 		return connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
 	}
 
+
+	private class ReplyListener implements MessageListener {
+
+		public void onMessage(javax.jms.Message message) {
+			try {
+				onReply(message);
+			}
+			catch (JMSException e) {
+				logger.error("Failed to dispatch JMS reply: " + message, e);
+			}
+		}
+	}
+
+
+	private static class ReplyHolder {
+
+		private final LinkedBlockingQueue<javax.jms.Message> queue = new LinkedBlockingQueue<javax.jms.Message>();
+
+		private final long created = System.currentTimeMillis();
+
+		private volatile boolean claimed;
+
+		ReplyHolder(boolean claimed) {
+			this.claimed = claimed;
+		}
+
+		void offer(javax.jms.Message reply) {
+			this.queue.offer(reply);
+		}
+
+		javax.jms.Message receive(long timeout) {
+			this.claimed = true;
+			try {
+				return (timeout >= 0) ? this.queue.poll(timeout, TimeUnit.MILLISECONDS) : this.queue.take();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return null;
+			}
+		}
+	}
+
 }
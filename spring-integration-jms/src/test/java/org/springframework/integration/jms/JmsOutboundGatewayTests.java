@@ -0,0 +1,186 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.jms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.jms.JMSException;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.command.ActiveMQQueue;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.integration.Message;
+import org.springframework.integration.MessageTimeoutException;
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.integration.jms.config.ActiveMqTestUtils;
+import org.springframework.integration.message.GenericMessage;
+import org.springframework.integration.test.util.TestUtils;
+import org.springframework.jms.connection.CachingConnectionFactory;
+import org.springframework.jms.listener.DefaultMessageListenerContainer;
+import org.springframework.jms.listener.SessionAwareMessageListener;
+
+/**
+ * @since 2.2
+ */
+public class JmsOutboundGatewayTests {
+
+	private CachingConnectionFactory connectionFactory;
+
+	private DefaultMessageListenerContainer replier;
+
+	private JmsOutboundGateway gateway;
+
+	@Before
+	public void setUp() {
+		ActiveMqTestUtils.prepare();
+		ActiveMQConnectionFactory amqFactory = new ActiveMQConnectionFactory();
+		amqFactory.setBrokerURL("vm://localhost?broker.persistent=false");
+		this.connectionFactory = new CachingConnectionFactory(amqFactory);
+	}
+
+	@After
+	public void tearDown() {
+		if (this.gateway != null) {
+			this.gateway.destroy();
+		}
+		if (this.replier != null) {
+			this.replier.shutdown();
+		}
+		this.connectionFactory.destroy();
+	}
+
+	@Test
+	public void replyContainerWithMessageIdCorrelation() throws Exception {
+		this.replier = this.createReplier("replyContainer.request.1", false, 0);
+		this.gateway = this.createGateway("replyContainer.request.1", "replyContainer.reply.1", null, 10000);
+		this.assertConcurrentRequestsAreCorrelated();
+	}
+
+	@Test
+	public void replyContainerWithGeneratedCorrelationId() throws Exception {
+		this.replier = this.createReplier("replyContainer.request.2", true, 0);
+		this.gateway = this.createGateway("replyContainer.request.2", "replyContainer.reply.2", "JMSCorrelationID", 10000);
+		this.assertConcurrentRequestsAreCorrelated();
+	}
+
+	@Test
+	public void replyContainerLateReplyIsDiscarded() throws Exception {
+		this.replier = this.createReplier("replyContainer.request.3", true, 500);
+		this.gateway = this.createGateway("replyContainer.request.3", "replyContainer.reply.3", "JMSCorrelationID", 100);
+		QueueChannel replies = new QueueChannel();
+		this.gateway.setOutputChannel(replies);
+		try {
+			this.gateway.handleMessage(new GenericMessage<String>("foo"));
+			fail("Expected MessageTimeoutException");
+		}
+		catch (MessageTimeoutException e) {
+			// expected
+		}
+		Thread.sleep(1000);
+		assertNull(replies.receive(0));
+		assertEquals(0, TestUtils.getPropertyValue(this.gateway, "replies", Map.class).size());
+	}
+
+	private void assertConcurrentRequestsAreCorrelated() throws Exception {
+		final QueueChannel replies = new QueueChannel();
+		this.gateway.setOutputChannel(replies);
+		int count = 20;
+		final CountDownLatch latch = new CountDownLatch(count);
+		ExecutorService executor = Executors.newFixedThreadPool(5);
+		for (int i = 0; i < count; i++) {
+			final String payload = "foo" + i;
+			executor.execute(new Runnable() {
+				public void run() {
+					gateway.handleMessage(new GenericMessage<String>(payload));
+					latch.countDown();
+				}
+			});
+		}
+		assertTrue(latch.await(30, TimeUnit.SECONDS));
+		Set<Object> payloads = new HashSet<Object>();
+		for (int i = 0; i < count; i++) {
+			Message<?> reply = replies.receive(0);
+			assertNotNull(reply);
+			payloads.add(reply.getPayload());
+		}
+		for (int i = 0; i < count; i++) {
+			assertTrue(payloads.contains("FOO" + i));
+		}
+		assertEquals(0, TestUtils.getPropertyValue(this.gateway, "replies", Map.class).size());
+		executor.shutdown();
+	}
+
+	private JmsOutboundGateway createGateway(String requestQueue, String replyQueue, String correlationKey,
+			long receiveTimeout) {
+		JmsOutboundGateway gateway = new JmsOutboundGateway();
+		gateway.setConnectionFactory(this.connectionFactory);
+		gateway.setRequestDestination(new ActiveMQQueue(requestQueue));
+		gateway.setReplyDestination(new ActiveMQQueue(replyQueue));
+		gateway.setCorrelationKey(correlationKey);
+		gateway.setReceiveTimeout(receiveTimeout);
+		gateway.setUseReplyContainer(true);
+		gateway.afterPropertiesSet();
+		return gateway;
+	}
+
+	private DefaultMessageListenerContainer createReplier(String requestQueue, final boolean copyCorrelationId,
+			final long delay) {
+		DefaultMessageListenerContainer container = new DefaultMessageListenerContainer();
+		container.setConnectionFactory(this.connectionFactory);
+		container.setDestination(new ActiveMQQueue(requestQueue));
+		container.setConcurrentConsumers(2);
+		container.setMessageListener(new SessionAwareMessageListener<TextMessage>() {
+
+			public void onMessage(TextMessage message, Session session) throws JMSException {
+				if (delay > 0) {
+					try {
+						Thread.sleep(delay);
+					}
+					catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				TextMessage reply = session.createTextMessage(message.getText().toUpperCase());
+				reply.setJMSCorrelationID(copyCorrelationId ? message.getJMSCorrelationID() : message.getJMSMessageID());
+				MessageProducer producer = session.createProducer(message.getJMSReplyTo());
+				producer.send(reply);
+				producer.close();
+			}
+		});
+		container.afterPropertiesSet();
+		container.start();
+		return container;
+	}
+
+}
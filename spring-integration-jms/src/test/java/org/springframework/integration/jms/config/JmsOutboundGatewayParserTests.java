@@ -103,6 +103,18 @@ public class JmsOutboundGatewayParserTests {
 		assertEquals(99, order);
 	}
 
+	@Test
+	public void gatewayWithReplyContainer() {
+		ClassPathXmlApplicationContext context = new ClassPathXmlApplicationContext(
+				"jmsOutboundGatewayWithReplyContainer.xml", this.getClass());
+		EventDrivenConsumer endpoint = (EventDrivenConsumer) context.getBean("jmsGateway");
+		DirectFieldAccessor accessor = new DirectFieldAccessor(
+				new DirectFieldAccessor(endpoint).getPropertyValue("handler"));
+		assertEquals(Boolean.TRUE, accessor.getPropertyValue("useReplyContainer"));
+		assertEquals(3, accessor.getPropertyValue("replyContainerConcurrentConsumers"));
+		context.close();
+	}
+
 	@Test
 	public void gatewayMaintainsReplyChannelAndInboundHistory() {
 		ActiveMqTestUtils.prepare();
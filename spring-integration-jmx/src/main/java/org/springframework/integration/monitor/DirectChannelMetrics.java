@@ -1,5 +1,5 @@
 /*
- * Copyright 2009-2010 the original author or authors.
+ * Copyright 2009-2012 the original author or authors.
  * 
  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
  * the License. You may obtain a copy of the License at
@@ -13,8 +13,6 @@
 
 package org.springframework.integration.monitor;
 
-import java.util.concurrent.atomic.AtomicInteger;
-
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
 import org.apache.commons.logging.Log;
@@ -22,7 +20,6 @@ import org.apache.commons.logging.LogFactory;
 import org.springframework.integration.Message;
 import org.springframework.integration.MessageChannel;
 import org.springframework.jmx.export.annotation.ManagedResource;
-import org.springframework.util.StopWatch;
 
 /**
  * Registers all message channels, and accumulates statistics about their performance. The statistics are then published
@@ -33,7 +30,7 @@ import org.springframework.util.StopWatch;
  * @since 2.0
  */
 @ManagedResource
-public class DirectChannelMetrics implements MethodInterceptor, MessageChannelMetrics {
+public class DirectChannelMetrics implements MethodInterceptor, MessageChannelPercentileMetrics {
 
 	protected final Log logger = LogFactory.getLog(getClass());
 
@@ -56,9 +53,11 @@ public class DirectChannelMetrics implements MethodInterceptor, MessageChannelMe
 	private final ExponentialMovingAverageRate sendRate = new ExponentialMovingAverageRate(
 			ONE_SECOND_SECONDS, ONE_MINUTE_SECONDS, DEFAULT_MOVING_AVERAGE_WINDOW);
 
-	private final AtomicInteger sendCount = new AtomicInteger();
+	private final DurationHistogram sendDurationHistogram = new DurationHistogram();
+
+	private final StripedCounter sendCount = new StripedCounter();
 
-	private final AtomicInteger sendErrorCount = new AtomicInteger();
+	private final StripedCounter sendErrorCount = new StripedCounter();
 
 	private final String name;
 
@@ -103,47 +102,47 @@ public class DirectChannelMetrics implements MethodInterceptor, MessageChannelMe
 		if (logger.isTraceEnabled()) {
 			logger.trace("Recording send on channel(" + channel + ") : message(" + message + ")");
 		}
-		final StopWatch timer = new StopWatch(channel + ".send:execution");
+		long start = System.nanoTime();
 		try {
-			timer.start();
-
-			sendCount.incrementAndGet();
+			sendCount.increment();
 			sendRate.increment();
 
 			Object result = invocation.proceed();
 
-			timer.stop();
 			if ((Boolean)result) {
+				long elapsed = System.nanoTime() - start;
 				sendSuccessRatio.success();
-				sendDuration.append(timer.getTotalTimeMillis());
+				sendDuration.append(elapsed / 1000000.);
+				sendDurationHistogram.record(elapsed);
 			}
 			else {
 				sendSuccessRatio.failure();
-				sendErrorCount.incrementAndGet();
+				sendErrorCount.increment();
 				sendErrorRate.increment();
 			}
 			return result;
 		}
 		catch (Throwable e) {
 			sendSuccessRatio.failure();
-			sendErrorCount.incrementAndGet();
+			sendErrorCount.increment();
 			sendErrorRate.increment();
 			throw e;
 		}
 		finally {
 			if (logger.isTraceEnabled()) {
-				logger.trace(timer);
+				logger.trace(channel + ".send:execution took " + (System.nanoTime() - start) + "ns");
 			}
 		}
 	}
 	
 	public synchronized void reset() {
 		sendDuration.reset();
+		sendDurationHistogram.reset();
 		sendErrorRate.reset();
 		sendSuccessRatio.reset();
 		sendRate.reset();
-		sendCount.set(0);
-		sendErrorCount.set(0);
+		sendCount.reset();
+		sendErrorCount.reset();
 	}
 
 	public int getSendCount() {
@@ -189,6 +188,10 @@ public class DirectChannelMetrics implements MethodInterceptor, MessageChannelMe
 	public Statistics getSendDuration() {
 		return sendDuration.getStatistics();
 	}
+
+	public double getSendDurationPercentile(double percentile) {
+		return sendDurationHistogram.getPercentile(percentile);
+	}
 	
 	public Statistics getSendRate() {
 		return sendRate.getStatistics();
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.monitor;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of durations, from which approximate percentiles can be read. Durations are recorded in
+ * nanoseconds into log-linear buckets (four buckets per power of two), so a reported percentile is within about
+ * 12.5% of the true value regardless of magnitude. Recording is a single atomic increment with no allocation, so it
+ * is cheap enough for every message; reading a percentile scans the (fixed, small) bucket array.
+ * 
+ * @since 2.2
+ */
+public class DurationHistogram {
+
+	private static final int SUB_BUCKETS = 4;
+
+	private static final int BUCKET_COUNT = 62 * SUB_BUCKETS;
+
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+
+	/**
+	 * Add a new measurement.
+	 * 
+	 * @param nanos the duration in nanoseconds; negative values are recorded as zero
+	 */
+	public void record(long nanos) {
+		this.counts.incrementAndGet(indexFor(nanos < 0 ? 0 : nanos));
+	}
+
+	public void reset() {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			this.counts.set(i, 0);
+		}
+	}
+
+	/**
+	 * @return the number of measurements recorded
+	 */
+	public long getCount() {
+		long total = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			total += this.counts.get(i);
+		}
+		return total;
+	}
+
+	/**
+	 * @param percentile the percentile, between 0 and 100
+	 * @return the approximate duration (milliseconds) below which the given percentage of measurements fall, or 0 if
+	 * there are no measurements
+	 */
+	public double getPercentile(double percentile) {
+		if (percentile < 0 || percentile > 100) {
+			throw new IllegalArgumentException("Percentile must be between 0 and 100, was: " + percentile);
+		}
+		long[] snapshot = new long[BUCKET_COUNT];
+		long total = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			snapshot[i] = this.counts.get(i);
+			total += snapshot[i];
+		}
+		if (total == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+		long cumulative = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			cumulative += snapshot[i];
+			if (cumulative >= rank) {
+				long lower = lowerBound(i);
+				long upper = i + 1 < BUCKET_COUNT ? lowerBound(i + 1) : Long.MAX_VALUE;
+				return (lower + (upper - lower) / 2.) / 1000000.;
+			}
+		}
+		return lowerBound(BUCKET_COUNT - 1) / 1000000.;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("[N=%d, p50=%f, p95=%f, p99=%f]", getCount(), getPercentile(50), getPercentile(95),
+				getPercentile(99));
+	}
+
+	static int indexFor(long nanos) {
+		if (nanos < SUB_BUCKETS) {
+			return (int) nanos;
+		}
+		int msb = 63 - Long.numberOfLeadingZeros(nanos);
+		int sub = (int) (nanos >> (msb - 2)) & (SUB_BUCKETS - 1);
+		return (msb - 1) * SUB_BUCKETS + sub;
+	}
+
+	static long lowerBound(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		int msb = index / SUB_BUCKETS + 1;
+		long sub = index % SUB_BUCKETS;
+		return (SUB_BUCKETS + sub) << (msb - 2);
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2009-2010 the original author or authors.
+ * Copyright 2009-2012 the original author or authors.
  * 
  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
  * the License. You may obtain a copy of the License at
@@ -13,6 +13,8 @@
 
 package org.springframework.integration.monitor;
 
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
 /**
  * Cumulative statistics for a series of real numbers with higher weight given to recent data but without storing any
  * history. Clients call {@link #append(double)} every time there is a new measurement, and then can collect summary
@@ -20,23 +22,19 @@ package org.springframework.integration.monitor;
  * weight, with a decay factor determined by a "window" size chosen by the caller. The result is a good approximation to
  * the statistics of the series but with more weight given to recent measurements, so if the statistics change over time
  * those trends can be approximately reflected.
+ * <p>
+ * To keep concurrent writers from contending on one lock, measurements are accumulated in {@link Striping stripes},
+ * one per group of threads, each guarded by its own monitor and updated without allocation. The getters merge the
+ * stripes. The decay is applied per stripe, so when several threads append concurrently the window counts the
+ * measurements of each stripe rather than of the whole series; with a single writer the statistics are the same as
+ * for an unstriped series.
  * 
  * @author Dave Syer
  * @since 2.0
  */
 public class ExponentialMovingAverage {
 
-	private volatile int count;
-
-	private volatile double weight;
-
-	private volatile double sum;
-
-	private volatile double sumSquares;
-
-	private volatile double min;
-
-	private volatile double max;
+	private final AtomicReferenceArray<Accumulator> stripes = new AtomicReferenceArray<Accumulator>(Striping.STRIPES);
 
 	private final double decay;
 
@@ -52,13 +50,15 @@ public class ExponentialMovingAverage {
 	}
 
 
-	public synchronized void reset() {
-		weight = 0;
-		sum = 0;
-		sumSquares = 0;
-		count = 0;
-		min = 0;
-		max = 0;
+	public void reset() {
+		for (int i = 0; i < this.stripes.length(); i++) {
+			Accumulator stripe = this.stripes.get(i);
+			if (stripe != null) {
+				synchronized (stripe) {
+					stripe.reset();
+				}
+			}
+		}
 	}
 
 	/**
@@ -66,61 +66,53 @@ public class ExponentialMovingAverage {
 	 * 
 	 * @param value the measurement to append
 	 */
-	public synchronized void append(double value) {
-		if (value > max || count == 0) {
-			max = value;
-		}
-		if (value < min || count == 0) {
-			min = value;
+	public void append(double value) {
+		Accumulator stripe = stripe();
+		synchronized (stripe) {
+			stripe.append(value, this.decay);
 		}
-		sum = decay * sum + value;
-		sumSquares = decay * sumSquares + value * value;
-		weight = decay * weight + 1;
-		count++;
 	}
 
 	/**
 	 * @return the number of measurements recorded
 	 */
 	public int getCount() {
-		return count;
+		return total().count;
 	}
 
 	/**
 	 * @return the mean value
 	 */
 	public double getMean() {
-		return weight > 0 ? sum / weight : 0.;
+		return total().getMean();
 	}
 
 	/**
 	 * @return the approximate standard deviation
 	 */
 	public double getStandardDeviation() {
-		double mean = getMean();
-		double var = weight > 0 ? sumSquares / weight - mean * mean : 0.;
-		return var > 0 ? Math.sqrt(var) : 0;
+		return total().getStandardDeviation();
 	}
 
 	/**
 	 * @return the maximum value recorded (not weighted)
 	 */
 	public double getMax() {
-		return max;
+		return total().max;
 	}
 
 	/**
 	 * @return the minimum value recorded (not weighted)
 	 */
 	public double getMin() {
-		return min;
+		return total().min;
 	}
 
 	/**
 	 * @return summary statistics (count, mean, standard deviation etc.)
 	 */
 	public Statistics getStatistics() {
-		return new Statistics(count, min, max, getMean(), getStandardDeviation());
+		return total().getStatistics();
 	}
 
 	@Override
@@ -128,4 +120,103 @@ public class ExponentialMovingAverage {
 		return getStatistics().toString();
 	}
 
+	private Accumulator stripe() {
+		int index = Striping.currentStripe();
+		Accumulator stripe = this.stripes.get(index);
+		if (stripe == null) {
+			this.stripes.compareAndSet(index, null, new Accumulator());
+			stripe = this.stripes.get(index);
+		}
+		return stripe;
+	}
+
+	private Accumulator total() {
+		Accumulator total = new Accumulator();
+		for (int i = 0; i < this.stripes.length(); i++) {
+			Accumulator stripe = this.stripes.get(i);
+			if (stripe != null) {
+				synchronized (stripe) {
+					stripe.addTo(total);
+				}
+			}
+		}
+		return total;
+	}
+
+
+	/**
+	 * The mutable state of an exponential moving average. Not thread safe: callers synchronize on the instance (or
+	 * on an object that owns it) for every access.
+	 */
+	static class Accumulator {
+
+		int count;
+
+		double weight;
+
+		double sum;
+
+		double sumSquares;
+
+		double min;
+
+		double max;
+
+		void append(double value, double decay) {
+			if (value > max || count == 0) {
+				max = value;
+			}
+			if (value < min || count == 0) {
+				min = value;
+			}
+			sum = decay * sum + value;
+			sumSquares = decay * sumSquares + value * value;
+			weight = decay * weight + 1;
+			count++;
+		}
+
+		void reset() {
+			weight = 0;
+			sum = 0;
+			sumSquares = 0;
+			count = 0;
+			min = 0;
+			max = 0;
+		}
+
+		/**
+		 * Merge this accumulator into the given total.
+		 */
+		void addTo(Accumulator total) {
+			if (count == 0) {
+				return;
+			}
+			if (max > total.max || total.count == 0) {
+				total.max = max;
+			}
+			if (min < total.min || total.count == 0) {
+				total.min = min;
+			}
+			total.sum += sum;
+			total.sumSquares += sumSquares;
+			total.weight += weight;
+			total.count += count;
+		}
+
+		double getMean() {
+			return weight > 0 ? sum / weight : 0.;
+		}
+
+		double getStandardDeviation() {
+			double mean = getMean();
+			double var = weight > 0 ? sumSquares / weight - mean * mean : 0.;
+			return var > 0 ? Math.sqrt(var) : 0;
+		}
+
+		Statistics getStatistics() {
+			return new Statistics(count, min, max, getMean(), getStandardDeviation());
+		}
+
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2009-2010 the original author or authors.
+ * Copyright 2009-2012 the original author or authors.
  * 
  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
  * the License. You may obtain a copy of the License at
@@ -13,6 +13,10 @@
 
 package org.springframework.integration.monitor;
 
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.springframework.integration.monitor.ExponentialMovingAverage.Accumulator;
+
 /**
  * Cumulative statistics for an event rate with higher weight given to recent data but without storing any history.
  * Clients call {@link #increment()} when a new event occurs, and then use convenience methods (e.g. {@link #getMean()})
@@ -25,23 +29,22 @@ package org.springframework.integration.monitor;
  * <li>per measurement according to the lapse window supplied: <code>weight = exp(-i/L)</code> where <code>L</code> is
  * the lapse window and <code>i</code> is the sequence number of the measurement.</li>
  * </ul>
+ * Events are accumulated in {@link Striping stripes}, so concurrent callers rarely contend on the same lock; see
+ * {@link ExponentialMovingAverage}. Each stripe measures the intervals between its own events and the getters combine
+ * the stripes, adding up their rates; with a single caller the statistics are the same as for an unstriped series.
  * 
  * @author Dave Syer
  * 
  */
 public class ExponentialMovingAverageRate {
 
-	private final ExponentialMovingAverage rates;
-
-	private volatile double weight;
+	// the rates are averaged over the last ten measurements
+	private static final double RATES_DECAY = 1 - 1. / 10;
 
-	private volatile double sum;
 
-	private volatile double min;
+	private final AtomicReferenceArray<Stripe> stripes = new AtomicReferenceArray<Stripe>(Striping.STRIPES);
 
-	private volatile double max;
-
-	private volatile long t0 = System.currentTimeMillis();
+	private volatile long start = System.currentTimeMillis();
 
 	private final double lapse;
 
@@ -54,78 +57,80 @@ public class ExponentialMovingAverageRate {
 	 * @param window the exponential lapse window (number of measurements)
 	 */
 	public ExponentialMovingAverageRate(double period, double lapsePeriod, int window) {
-		rates = new ExponentialMovingAverage(10);
 		this.lapse = lapsePeriod > 0 ? 0.001 / lapsePeriod : 0; // convert to milliseconds
 		this.period = period * 1000; // convert to milliseconds
 	}
 
 
-	public synchronized void reset() {
-		min = 0;
-		max = 0;
-		weight = 0;
-		sum = 0;
-		t0 = System.currentTimeMillis();
-		rates.reset();
+	public void reset() {
+		long t = System.currentTimeMillis();
+		this.start = t;
+		for (int i = 0; i < this.stripes.length(); i++) {
+			Stripe stripe = this.stripes.get(i);
+			if (stripe != null) {
+				synchronized (stripe) {
+					stripe.reset(t);
+				}
+			}
+		}
 	}
 
 	/**
 	 * Add a new event to the series.
 	 */
-	public synchronized void increment() {
-		long t = System.currentTimeMillis();
-		double value = t > t0 ? (t - t0) / period : 0;
-		if (value > max || getCount() == 0) {
-			max = value;
-		}
-		if (value < min || getCount() == 0) {
-			min = value;
+	public void increment() {
+		Stripe stripe = stripe();
+		synchronized (stripe) {
+			long t = System.currentTimeMillis();
+			double value = t > stripe.t0 ? (t - stripe.t0) / period : 0;
+			if (value > stripe.max || stripe.rates.count == 0) {
+				stripe.max = value;
+			}
+			if (value < stripe.min || stripe.rates.count == 0) {
+				stripe.min = value;
+			}
+			double alpha = Math.exp((stripe.t0 - t) * lapse);
+			stripe.t0 = t;
+			stripe.sum = alpha * stripe.sum + value;
+			stripe.weight = alpha * stripe.weight + 1;
+			// under the same lock, so readers always see the rate average and the intervals it was computed from
+			stripe.rates.append(stripe.sum > 0 ? stripe.weight / stripe.sum : 0, RATES_DECAY);
 		}
-		double alpha = Math.exp((t0 - t) * lapse);
-		t0 = t;
-		sum = alpha * sum + value;
-		weight = alpha * weight + 1;
-		rates.append(sum > 0 ? weight / sum : 0);
 	}
 
 	/**
 	 * @return the number of measurements recorded
 	 */
 	public int getCount() {
-		return rates.getCount();
+		return summarize().rates.count;
 	}
 
 	/**
 	 * @return the time in seconds since the last measurement
 	 */
 	public double getTimeSinceLastMeasurement() {
-		return (System.currentTimeMillis() - t0) / 1000.;
+		return (System.currentTimeMillis() - summarize().t0) / 1000.;
 	}
 
 	/**
 	 * @return the mean value
 	 */
 	public double getMean() {
-		int count = rates.getCount();
-		if (count == 0) {
-			return 0;
-		}
-		long t = System.currentTimeMillis();
-		double value = t > t0 ? (t - t0) / period : 0;
-		return count / (count / rates.getMean() + value);
+		return summarize().mean;
 	}
 
 	/**
 	 * @return the approximate standard deviation
 	 */
 	public double getStandardDeviation() {
-		return rates.getStandardDeviation();
+		return summarize().rates.getStandardDeviation();
 	}
 
 	/**
 	 * @return the maximum value recorded (not weighted)
 	 */
 	public double getMax() {
+		double min = summarize().min;
 		return min > 0 ? 1 / min : 0;
 	}
 
@@ -133,6 +138,7 @@ public class ExponentialMovingAverageRate {
 	 * @return the minimum value recorded (not weighted)
 	 */
 	public double getMin() {
+		double max = summarize().max;
 		return max > 0 ? 1 / max : 0;
 	}
 
@@ -140,7 +146,9 @@ public class ExponentialMovingAverageRate {
 	 * @return summary statistics (count, mean, standard deviation etc.)
 	 */
 	public Statistics getStatistics() {
-		return new Statistics(getCount(), min, max, getMean(), getStandardDeviation());
+		Summary summary = summarize();
+		return new Statistics(summary.rates.count, summary.min, summary.max, summary.mean,
+				summary.rates.getStandardDeviation());
 	}
 
 	@Override
@@ -148,4 +156,100 @@ public class ExponentialMovingAverageRate {
 		return String.format("[%s, timeSinceLast=%f]", getStatistics(), getTimeSinceLastMeasurement());
 	}
 
+	private Stripe stripe() {
+		int index = Striping.currentStripe();
+		Stripe stripe = this.stripes.get(index);
+		if (stripe == null) {
+			this.stripes.compareAndSet(index, null, new Stripe(this.start));
+			stripe = this.stripes.get(index);
+		}
+		return stripe;
+	}
+
+	private Summary summarize() {
+		long t = System.currentTimeMillis();
+		Summary summary = new Summary(this.start);
+		for (int i = 0; i < this.stripes.length(); i++) {
+			Stripe stripe = this.stripes.get(i);
+			if (stripe != null) {
+				synchronized (stripe) {
+					stripe.addTo(summary, t, this.period);
+				}
+			}
+		}
+		return summary;
+	}
+
+
+	/**
+	 * The state of one stripe, guarded by its own monitor.
+	 */
+	private static class Stripe {
+
+		private final Accumulator rates = new Accumulator();
+
+		private double weight;
+
+		private double sum;
+
+		private double min;
+
+		private double max;
+
+		private long t0;
+
+		Stripe(long t0) {
+			this.t0 = t0;
+		}
+
+		void reset(long t0) {
+			this.rates.reset();
+			this.weight = 0;
+			this.sum = 0;
+			this.min = 0;
+			this.max = 0;
+			this.t0 = t0;
+		}
+
+		void addTo(Summary summary, long t, double period) {
+			summary.t0 = Math.max(summary.t0, this.t0);
+			int count = this.rates.count;
+			if (count == 0) {
+				return;
+			}
+			if (this.max > summary.max || summary.rates.count == 0) {
+				summary.max = this.max;
+			}
+			if (this.min < summary.min || summary.rates.count == 0) {
+				summary.min = this.min;
+			}
+			double value = t > this.t0 ? (t - this.t0) / period : 0;
+			summary.mean += count / (count / this.rates.getMean() + value);
+			this.rates.addTo(summary.rates);
+		}
+
+	}
+
+
+	/**
+	 * The stripes combined, for the getters.
+	 */
+	private static class Summary {
+
+		private final Accumulator rates = new Accumulator();
+
+		private double min;
+
+		private double max;
+
+		private double mean;
+
+		private long t0;
+
+		Summary(long t0) {
+			this.t0 = t0;
+		}
+
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2009-2010 the original author or authors.
+ * Copyright 2009-2012 the original author or authors.
  * 
  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
  * the License. You may obtain a copy of the License at
@@ -13,6 +13,10 @@
 
 package org.springframework.integration.monitor;
 
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.springframework.integration.monitor.ExponentialMovingAverage.Accumulator;
+
 /**
  * Cumulative statistics for success ratio with higher weight given to recent data but without storing any history.
  * Clients call {@link #success()} or {@link #failure()} when an event occurs, and the ratio of success to total events
@@ -23,21 +27,23 @@ package org.springframework.integration.monitor;
  * last measurement time, <code>t</code> is the current time and <code>T</code> is the lapse period)</li>
  * <li>per measurement according to the lapse window supplied: <code>weight = exp(-i/L)</code> where <code>L</code> is
  * the lapse window and <code>i</code> is the sequence number of the measurement.</li>
+ * </ul>
+ * Events are accumulated in {@link Striping stripes}, so concurrent callers rarely contend on the same lock; see
+ * {@link ExponentialMovingAverage}. The getters combine the stripes, weighting each by its number of events; with a
+ * single caller the statistics are the same as for an unstriped series.
  * 
  * @author Dave Syer
  * @since 2.0
  */
 public class ExponentialMovingAverageRatio {
 
-	private volatile double weight;
-
-	private volatile double sum;
+	private final AtomicReferenceArray<Stripe> stripes = new AtomicReferenceArray<Stripe>(Striping.STRIPES);
 
-	private volatile long t0 = System.currentTimeMillis();
+	private volatile long start = System.currentTimeMillis();
 
 	private final double lapse;
 
-	private final ExponentialMovingAverage cumulative;
+	private final double decay;
 
 
 	/**
@@ -45,7 +51,7 @@ public class ExponentialMovingAverageRatio {
 	 * @param window the exponential lapse window (number of measurements)
 	 */
 	public ExponentialMovingAverageRatio(double lapsePeriod, int window) {
-		this.cumulative = new ExponentialMovingAverage(window);
+		this.decay = 1 - 1. / window;
 		this.lapse = lapsePeriod > 0 ? 0.001 / lapsePeriod : 0; // convert to millisecs
 	}
 
@@ -64,76 +70,81 @@ public class ExponentialMovingAverageRatio {
 		append(0);
 	}
 
-	public synchronized void reset() {
-		weight = 0;
-		sum = 0;
-		t0 = System.currentTimeMillis();
-		cumulative.reset();
+	public void reset() {
+		long t = System.currentTimeMillis();
+		this.start = t;
+		for (int i = 0; i < this.stripes.length(); i++) {
+			Stripe stripe = this.stripes.get(i);
+			if (stripe != null) {
+				synchronized (stripe) {
+					stripe.reset(t);
+				}
+			}
+		}
 	}
 
-	private synchronized void append(int value) {
-		long t = System.currentTimeMillis();
-		double alpha = Math.exp((t0 - t) * lapse);
-		t0 = t;
-		sum = alpha * sum + value;
-		weight = alpha * weight + 1;
-		cumulative.append(sum / weight);
+	private void append(int value) {
+		Stripe stripe = stripe();
+		synchronized (stripe) {
+			long t = System.currentTimeMillis();
+			double alpha = Math.exp((stripe.t0 - t) * lapse);
+			stripe.t0 = t;
+			stripe.sum = alpha * stripe.sum + value;
+			stripe.weight = alpha * stripe.weight + 1;
+			stripe.cumulative.append(stripe.sum / stripe.weight, this.decay);
+		}
 	}
 
 	/**
 	 * @return the number of measurements recorded
 	 */
 	public int getCount() {
-		return cumulative.getCount();
+		return summarize().cumulative.count;
 	}
 
 	/**
 	 * @return the time in seconds since the last measurement
 	 */
 	public double getTimeSinceLastMeasurement() {
-		return (System.currentTimeMillis() - t0) / 1000.;
+		return (System.currentTimeMillis() - summarize().t0) / 1000.;
 	}
 
 	/**
 	 * @return the mean success rate
 	 */
 	public double getMean() {
-		int count = cumulative.getCount();
-		if (count == 0) {
-			// Optimistic to start: success rate is 100%
-			return 1;
-		}
-		long t = System.currentTimeMillis();
-		double alpha = Math.exp((t0 - t) * lapse);
-		return alpha * cumulative.getMean() + 1 - alpha;
+		return summarize().getMean();
 	}
 
 	/**
 	 * @return the approximate standard deviation of the success rate measurements
 	 */
 	public double getStandardDeviation() {
-		return cumulative.getStandardDeviation();
+		return summarize().cumulative.getStandardDeviation();
 	}
 
 	/**
 	 * @return the maximum value recorded of the exponential weighted average (per measurement) success rate
 	 */
 	public double getMax() {
-		return cumulative.getMax();
+		return summarize().cumulative.max;
 	}
 
 	/**
 	 * @return the minimum value recorded of the exponential weighted average (per measurement) success rate
 	 */
 	public double getMin() {
-		return cumulative.getMin();
+		return summarize().cumulative.min;
 	}
 
 	/**
 	 * @return summary statistics (count, mean, standard deviation etc.)
 	 */
 	public Statistics getStatistics() {
-		return new Statistics(getCount(), getMin(), getMax(), getMean(), getStandardDeviation());
+		Summary summary = summarize();
+		Accumulator cumulative = summary.cumulative;
+		return new Statistics(cumulative.count, cumulative.min, cumulative.max, summary.getMean(),
+				cumulative.getStandardDeviation());
 	}
 
 	@Override
@@ -141,4 +152,92 @@ public class ExponentialMovingAverageRatio {
 		return String.format("[%s, timeSinceLast=%f]", getStatistics(), getTimeSinceLastMeasurement());
 	}
 
+	private Stripe stripe() {
+		int index = Striping.currentStripe();
+		Stripe stripe = this.stripes.get(index);
+		if (stripe == null) {
+			this.stripes.compareAndSet(index, null, new Stripe(this.start));
+			stripe = this.stripes.get(index);
+		}
+		return stripe;
+	}
+
+	private Summary summarize() {
+		long t = System.currentTimeMillis();
+		Summary summary = new Summary(this.start);
+		for (int i = 0; i < this.stripes.length(); i++) {
+			Stripe stripe = this.stripes.get(i);
+			if (stripe != null) {
+				synchronized (stripe) {
+					stripe.addTo(summary, t, this.lapse);
+				}
+			}
+		}
+		return summary;
+	}
+
+
+	/**
+	 * The state of one stripe, guarded by its own monitor.
+	 */
+	private static class Stripe {
+
+		private final Accumulator cumulative = new Accumulator();
+
+		private double weight;
+
+		private double sum;
+
+		private long t0;
+
+		Stripe(long t0) {
+			this.t0 = t0;
+		}
+
+		void reset(long t0) {
+			this.cumulative.reset();
+			this.weight = 0;
+			this.sum = 0;
+			this.t0 = t0;
+		}
+
+		void addTo(Summary summary, long t, double lapse) {
+			summary.t0 = Math.max(summary.t0, this.t0);
+			int count = this.cumulative.count;
+			if (count == 0) {
+				return;
+			}
+			double alpha = Math.exp((this.t0 - t) * lapse);
+			summary.weightedMean += count * (alpha * this.cumulative.getMean() + 1 - alpha);
+			this.cumulative.addTo(summary.cumulative);
+		}
+
+	}
+
+
+	/**
+	 * The stripes combined, for the getters.
+	 */
+	private static class Summary {
+
+		private final Accumulator cumulative = new Accumulator();
+
+		private double weightedMean;
+
+		private long t0;
+
+		Summary(long t0) {
+			this.t0 = t0;
+		}
+
+		double getMean() {
+			if (this.cumulative.count == 0) {
+				// Optimistic to start: success rate is 100%
+				return 1;
+			}
+			return this.weightedMean / this.cumulative.count;
+		}
+
+	}
+
 }
@@ -63,6 +63,7 @@ import org.springframework.integration.core.MessageSource;
 import org.springframework.integration.core.OrderlyShutdownCapable;
 import org.springframework.integration.core.PollableChannel;
 import org.springframework.integration.endpoint.AbstractEndpoint;
+import org.springframework.integration.handler.advice.AbstractRequestHandlerAdvice;
 import org.springframework.jmx.export.MBeanExporter;
 import org.springframework.jmx.export.UnableToRegisterMBeanException;
 import org.springframework.jmx.export.annotation.AnnotationJmxAttributeSource;
@@ -402,6 +403,7 @@ public class IntegrationMBeanExporter extends MBeanExporter implements BeanPostP
 		registerHandlers();
 		registerSources();
 		registerEndpoints();
+		registerAdvices();
 	}
 
 	@Override
@@ -832,6 +834,25 @@ public class IntegrationMBeanExporter extends MBeanExporter implements BeanPostP
 		}
 	}
 
+	/**
+	 * Expose the state of named request handler advice beans (such as circuit
+	 * breakers, bulkheads and rate limiters) that are managed resources.
+	 */
+	private void registerAdvices() {
+		String[] names = beanFactory.getBeanNamesForType(AbstractRequestHandlerAdvice.class, false, false);
+		for (String name : names) {
+			if (!PatternMatchUtils.simpleMatch(this.componentNamePatterns, name)) {
+				continue;
+			}
+			Object advice = beanFactory.getBean(name);
+			if (assembler.includeBean(advice.getClass(), name)) {
+				ObjectName objectName = registerBeanInstance(advice,
+						this.getMonitoredIntegrationObjectBeanKey(advice, name));
+				logger.info("Registered advice: " + objectName);
+			}
+		}
+	}
+
 	private void registerEndpoints() {
 		String[] names = beanFactory.getBeanNamesForType(AbstractEndpoint.class);
 		Set<String> endpointNames = new HashSet<String>();
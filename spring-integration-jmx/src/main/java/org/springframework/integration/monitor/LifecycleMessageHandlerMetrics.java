@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2010 the original author or authors.
+ * Copyright 2002-2012 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -29,7 +29,7 @@ import org.springframework.jmx.export.annotation.ManagedResource;
  * @since 2.0
  */
 @ManagedResource
-public class LifecycleMessageHandlerMetrics implements MessageHandlerMetrics, Lifecycle {
+public class LifecycleMessageHandlerMetrics implements MessageHandlerPercentileMetrics, Lifecycle {
 
 	private final Lifecycle lifecycle;
 
@@ -89,6 +89,16 @@ public class LifecycleMessageHandlerMetrics implements MessageHandlerMetrics, Li
 		return this.delegate.getDuration();
 	}
 
+	/**
+	 * @return the percentile from the delegate, or 0 if the delegate does not keep duration percentiles
+	 */
+	public double getDurationPercentile(double percentile) {
+		if (this.delegate instanceof MessageHandlerPercentileMetrics) {
+			return ((MessageHandlerPercentileMetrics) this.delegate).getDurationPercentile(percentile);
+		}
+		return 0;
+	}
+
 	public String getName() {
 		return this.delegate.getName();
 	}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.monitor;
+
+import org.springframework.jmx.export.annotation.ManagedOperation;
+
+/**
+ * Handler metrics that also keep a histogram of the handler durations, from which percentiles can be read.
+ * 
+ * @since 2.2
+ */
+public interface MessageHandlerPercentileMetrics extends MessageHandlerMetrics {
+
+	/**
+	 * @param percentile the percentile, between 0 and 100
+	 * @return the approximate handler duration (milliseconds) at the given percentile since startup
+	 */
+	@ManagedOperation
+	double getDurationPercentile(double percentile);
+
+}
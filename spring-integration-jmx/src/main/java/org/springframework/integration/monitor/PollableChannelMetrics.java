@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2010 the original author or authors.
+ * Copyright 2002-2012 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,8 +16,6 @@
 
 package org.springframework.integration.monitor;
 
-import java.util.concurrent.atomic.AtomicInteger;
-
 import org.aopalliance.intercept.MethodInvocation;
 import org.springframework.integration.MessageChannel;
 import org.springframework.jmx.export.annotation.ManagedMetric;
@@ -30,9 +28,9 @@ import org.springframework.jmx.support.MetricType;
  */
 public class PollableChannelMetrics extends DirectChannelMetrics {
 
-	private final AtomicInteger receiveCount = new AtomicInteger();
+	private final StripedCounter receiveCount = new StripedCounter();
 
-	private final AtomicInteger receiveErrorCount = new AtomicInteger();
+	private final StripedCounter receiveErrorCount = new StripedCounter();
 
 
 	public PollableChannelMetrics(MessageChannel messageChannel, String name) {
@@ -54,12 +52,12 @@ public class PollableChannelMetrics extends DirectChannelMetrics {
 		try {
 			Object object = invocation.proceed();
 			if (object != null) {
-				this.receiveCount.incrementAndGet();
+				this.receiveCount.increment();
 			}
 			return object;
 		}
 		catch (Throwable e) {
-			this.receiveErrorCount.incrementAndGet();
+			this.receiveErrorCount.increment();
 			throw e;
 		}
 	}
@@ -67,8 +65,8 @@ public class PollableChannelMetrics extends DirectChannelMetrics {
 	@ManagedOperation
 	public synchronized void reset() {
 		super.reset();
-		this.receiveErrorCount.set(0);
-		this.receiveCount.set(0);
+		this.receiveErrorCount.reset();
+		this.receiveCount.reset();
 	}
 
 	@ManagedMetric(metricType = MetricType.COUNTER, displayName = "MessageChannel Receive Count")
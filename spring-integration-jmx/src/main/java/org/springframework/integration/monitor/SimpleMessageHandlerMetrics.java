@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2010 the original author or authors.
+ * Copyright 2002-2012 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,8 +16,6 @@
 
 package org.springframework.integration.monitor;
 
-import java.util.concurrent.atomic.AtomicInteger;
-
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
 import org.apache.commons.logging.Log;
@@ -25,14 +23,13 @@ import org.apache.commons.logging.LogFactory;
 import org.springframework.integration.Message;
 import org.springframework.integration.core.MessageHandler;
 import org.springframework.jmx.export.annotation.ManagedResource;
-import org.springframework.util.StopWatch;
 
 /**
  * @author Dave Syer
  * @since 2.0
  */
 @ManagedResource
-public class SimpleMessageHandlerMetrics implements MethodInterceptor, MessageHandlerMetrics {
+public class SimpleMessageHandlerMetrics implements MethodInterceptor, MessageHandlerPercentileMetrics {
 
 	private static final Log logger = LogFactory.getLog(SimpleMessageHandlerMetrics.class);
 
@@ -41,14 +38,16 @@ public class SimpleMessageHandlerMetrics implements MethodInterceptor, MessageHa
 
 	private final MessageHandler handler;
 
-	private final AtomicInteger activeCount = new AtomicInteger();
+	private final StripedCounter activeCount = new StripedCounter();
 
-	private final AtomicInteger handleCount = new AtomicInteger();
+	private final StripedCounter handleCount = new StripedCounter();
 
-	private final AtomicInteger errorCount = new AtomicInteger();
+	private final StripedCounter errorCount = new StripedCounter();
 
 	private final ExponentialMovingAverage duration = new ExponentialMovingAverage(DEFAULT_MOVING_AVERAGE_WINDOW);
 
+	private final DurationHistogram durationHistogram = new DurationHistogram();
+
 	private volatile String name;
 
 	private volatile String source;
@@ -93,34 +92,31 @@ public class SimpleMessageHandlerMetrics implements MethodInterceptor, MessageHa
 		if (logger.isTraceEnabled()) {
 			logger.trace("messageHandler(" + this.handler + ") message(" + message + ") :");
 		}
-		String name = this.name;
-		if (name == null) {
-			name = this.handler.toString();
-		}
-		StopWatch timer = new StopWatch(name + ".handle:execution");
+		long start = System.nanoTime();
 		try {
-			timer.start();
-			this.handleCount.incrementAndGet();
-			this.activeCount.incrementAndGet();
+			this.handleCount.increment();
+			this.activeCount.increment();
 
 			invocation.proceed();
 
-			timer.stop();
-			this.duration.append(timer.getTotalTimeMillis());
+			long elapsed = System.nanoTime() - start;
+			this.duration.append(elapsed / 1000000.);
+			this.durationHistogram.record(elapsed);
 		}
 		catch (Throwable e) {
-			this.errorCount.incrementAndGet();
+			this.errorCount.increment();
 			throw e;
 		}
 		finally {
-			this.activeCount.decrementAndGet();
+			this.activeCount.decrement();
 		}
 	}
 
 	public synchronized void reset() {
 		this.duration.reset();
-		this.errorCount.set(0);
-		this.handleCount.set(0);
+		this.durationHistogram.reset();
+		this.errorCount.reset();
+		this.handleCount.reset();
 	}
 
 	public int getHandleCount() {
@@ -158,6 +154,10 @@ public class SimpleMessageHandlerMetrics implements MethodInterceptor, MessageHa
 		return this.duration.getStatistics();
 	}
 
+	public double getDurationPercentile(double percentile) {
+		return this.durationHistogram.getPercentile(percentile);
+	}
+
 	@Override
 	public String toString() {
 		return String.format("MessageHandlerMonitor: [name=%s, source=%s, duration=%s]", name, source, duration);
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.monitor;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter spread over one atomic cell per {@link Striping stripe}, so that concurrent updates from different
+ * threads rarely contend on the same cell; the value is the sum of the cells. Cells are padded to separate cache
+ * lines. Updates never block or allocate; reading sums the cells, so a value read while updates are in progress may
+ * not include all of them.
+ * 
+ * @since 2.2
+ */
+final class StripedCounter {
+
+	// 8 longs per 64 byte cache line
+	private static final int PADDING = 8;
+
+
+	private final AtomicLongArray cells = new AtomicLongArray(Striping.STRIPES * PADDING);
+
+
+	public void increment() {
+		this.cells.incrementAndGet(Striping.currentStripe() * PADDING);
+	}
+
+	public void decrement() {
+		this.cells.decrementAndGet(Striping.currentStripe() * PADDING);
+	}
+
+	public void reset() {
+		for (int i = 0; i < Striping.STRIPES; i++) {
+			this.cells.set(i * PADDING, 0);
+		}
+	}
+
+	/**
+	 * @return the sum of the cells
+	 */
+	public int get() {
+		long total = 0;
+		for (int i = 0; i < Striping.STRIPES; i++) {
+			total += this.cells.get(i * PADDING);
+		}
+		return (int) total;
+	}
+
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.monitor;
+
+/**
+ * Selects the stripe used by the current thread for the striped metrics accumulators. Threads are spread over a power
+ * of two number of stripes (at least the number of processors, at most 32) by thread id, so concurrent updates from
+ * different threads rarely contend on the same stripe.
+ * 
+ * @since 2.2
+ */
+final class Striping {
+
+	static final int STRIPES = stripes(Runtime.getRuntime().availableProcessors());
+
+
+	private Striping() {
+	}
+
+
+	/**
+	 * @return the index of the stripe for the current thread, between 0 and {@link #STRIPES} - 1
+	 */
+	static int currentStripe() {
+		return (int) Thread.currentThread().getId() & (STRIPES - 1);
+	}
+
+	private static int stripes(int processors) {
+		int stripes = 1;
+		while (stripes < processors && stripes < 32) {
+			stripes <<= 1;
+		}
+		return stripes;
+	}
+
+}
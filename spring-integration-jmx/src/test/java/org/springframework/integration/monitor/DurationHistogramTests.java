@@ -0,0 +1,71 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.integration.monitor;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * @since 2.2
+ */
+public class DurationHistogramTests {
+
+	private final DurationHistogram histogram = new DurationHistogram();
+
+	@Test
+	public void testEmpty() {
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getPercentile(99), 0);
+	}
+
+	@Test
+	public void testBucketBoundaries() {
+		for (int i = 0; i < 200; i++) {
+			long lower = DurationHistogram.lowerBound(i);
+			assertEquals(i, DurationHistogram.indexFor(lower));
+			assertEquals(i, DurationHistogram.indexFor(DurationHistogram.lowerBound(i + 1) - 1));
+		}
+		assertEquals(247, DurationHistogram.indexFor(Long.MAX_VALUE));
+	}
+
+	@Test
+	public void testPercentiles() {
+		// 1..100 milliseconds
+		for (int i = 1; i <= 100; i++) {
+			histogram.record(i * 1000000L);
+		}
+		assertEquals(100, histogram.getCount());
+		assertEquals(50, histogram.getPercentile(50), 50 * 0.125);
+		assertEquals(95, histogram.getPercentile(95), 95 * 0.125);
+		assertEquals(100, histogram.getPercentile(100), 100 * 0.125);
+		assertEquals(1, histogram.getPercentile(0), 0.125);
+	}
+
+	@Test
+	public void testReset() {
+		histogram.record(1000);
+		histogram.reset();
+		assertEquals(0, histogram.getCount());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidPercentile() {
+		histogram.getPercentile(101);
+	}
+
+}
@@ -19,6 +19,11 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
 import org.junit.Test;
 
 /**
@@ -120,6 +125,34 @@ public class ExponentialMovingAverageRatioTests {
 		assertEquals(0, history.getMax(), 0.01);
 	}
 
+	@Test
+	public void testConcurrentAppend() throws Exception {
+		final int threads = 4;
+		final int appends = 10000;
+		final CountDownLatch latch = new CountDownLatch(threads);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		for (int i = 0; i < threads; i++) {
+			final boolean success = i % 2 == 0;
+			executor.execute(new Runnable() {
+				public void run() {
+					for (int j = 0; j < appends; j++) {
+						if (success) {
+							history.success();
+						}
+						else {
+							history.failure();
+						}
+					}
+					latch.countDown();
+				}
+			});
+		}
+		assertTrue(latch.await(30, TimeUnit.SECONDS));
+		executor.shutdown();
+		assertEquals(threads * appends, history.getCount());
+		assertTrue(history.getMean() >= 0 && history.getMean() <= 1);
+	}
+
 	private double average(double... values) {
 		int count = 0;
 		double sum = 0;
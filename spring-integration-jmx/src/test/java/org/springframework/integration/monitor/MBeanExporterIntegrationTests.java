@@ -123,6 +123,23 @@ public class MBeanExporterIntegrationTests {
 		assertTrue(otherActiveComponent.isAfterCalled());
 	}
 
+	@Test
+	public void testAdvicesRegistered() throws Exception {
+		context = new GenericXmlApplicationContext(getClass(), "advised-handler.xml");
+		MBeanServer server = context.getBean(MBeanServer.class);
+		Set<ObjectName> names = server.queryNames(
+				ObjectName.getInstance("org.springframework.integration:type=RequestHandlerBulkheadAdvice,*"), null);
+		assertEquals(1, names.size());
+		ObjectName bulkhead = names.iterator().next();
+		assertEquals("bulkhead", bulkhead.getKeyProperty("name"));
+		assertEquals(5, server.getAttribute(bulkhead, "MaxConcurrentCalls"));
+		assertEquals(0, server.getAttribute(bulkhead, "ActiveCalls"));
+		names = server.queryNames(
+				ObjectName.getInstance("org.springframework.integration:type=RequestHandlerCircuitBreakerAdvice,*"), null);
+		assertEquals(1, names.size());
+		assertEquals(0, server.getAttribute(names.iterator().next(), "OpenCircuitCount"));
+	}
+
 	@Test
 	public void testSelfDestruction() throws Exception {
 		context = new GenericXmlApplicationContext(getClass(), "self-destruction-context.xml");
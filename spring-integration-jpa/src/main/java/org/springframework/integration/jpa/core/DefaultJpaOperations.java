@@ -15,6 +15,7 @@
  */
 package org.springframework.integration.jpa.core;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
@@ -38,7 +39,7 @@ import org.springframework.util.StringUtils;
  * @since 2.2
  *
  */
-public class DefaultJpaOperations extends AbstractJpaOperations {
+public class DefaultJpaOperations extends AbstractJpaOperations implements FlushingJpaOperations {
 
 	public void delete(Object entity) {
 		Assert.notNull(entity, "The entity must not be null!");
@@ -175,10 +176,83 @@ public class DefaultJpaOperations extends AbstractJpaOperations {
 		return entityManager.merge(entity);
 	}
 
+	public Object merge(Object entity, int flushSize, boolean clearOnFlush) {
+		Assert.notNull(entity, "The entity must not be null!");
+
+		if (entity instanceof Iterable) {
+			final List<Object> mergedEntities = new ArrayList<Object>();
+			int count = 0;
+			for (Object element : (Iterable<?>) entity) {
+				mergedEntities.add(entityManager.merge(element));
+				count = this.flushIfRequired(count + 1, flushSize, clearOnFlush);
+			}
+			this.flushRemaining(count, flushSize, clearOnFlush);
+			return mergedEntities;
+		}
+
+		final Object mergedEntity = entityManager.merge(entity);
+		// never clear for a single entity, the caller may still be using other managed entities
+		this.flushRemaining(1, flushSize, false);
+		return mergedEntity;
+	}
+
 	public void persist(Object entity) {
 		entityManager.persist(entity);
 	}
 
+	public void persist(Object entity, int flushSize, boolean clearOnFlush) {
+		Assert.notNull(entity, "The entity must not be null!");
+
+		if (entity instanceof Iterable) {
+			int count = 0;
+			for (Object element : (Iterable<?>) entity) {
+				entityManager.persist(element);
+				count = this.flushIfRequired(count + 1, flushSize, clearOnFlush);
+			}
+			this.flushRemaining(count, flushSize, clearOnFlush);
+		}
+		else {
+			entityManager.persist(entity);
+			this.flushRemaining(1, flushSize, false);
+		}
+	}
+
+	public void flush() {
+		entityManager.flush();
+	}
+
+	public void clear() {
+		entityManager.clear();
+	}
+
+	/**
+	 * Flushes (and optionally clears) the persistence context once 'count'
+	 * entities are pending, so the provider can send them as a JDBC batch and
+	 * the persistence context does not grow without bounds.
+	 *
+	 * @return The number of entities still pending after this call.
+	 */
+	private int flushIfRequired(int count, int flushSize, boolean clearOnFlush) {
+		if (flushSize > 0 && count >= flushSize) {
+			this.flushAndClearIfRequired(clearOnFlush);
+			return 0;
+		}
+		return count;
+	}
+
+	private void flushRemaining(int count, int flushSize, boolean clearOnFlush) {
+		if (flushSize > 0 && count > 0) {
+			this.flushAndClearIfRequired(clearOnFlush);
+		}
+	}
+
+	private void flushAndClearIfRequired(boolean clearOnFlush) {
+		entityManager.flush();
+		if (clearOnFlush) {
+			entityManager.clear();
+		}
+	}
+
 	/**
 	 * Given a JPQL query, this method gets all parameters defined in this query and
 	 * use the {@link JPAQLParameterSource} to find their values and set them
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2002-2012 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.integration.jpa.core;
+
+/**
+ * {@link JpaOperations} that can persist or merge an {@link Iterable} of entities
+ * element by element, flushing the persistence context in chunks so the JPA
+ * provider can batch the statements.
+ *
+ * @since 2.2
+ */
+public interface FlushingJpaOperations extends JpaOperations {
+
+	/**
+	 * Merges the entity with the entity manager. If the entity is an {@link Iterable},
+	 * each of its elements is merged and a List of the merged instances is returned.
+	 * When a positive flushSize is provided, the persistence context is flushed after
+	 * every flushSize entities, and once more after the last one.
+	 *
+	 * @param entity Must not be null.
+	 * @param flushSize The number of entities after which to flush; 0 means do not flush.
+	 * @param clearOnFlush If true and the entity is an Iterable, the persistence context
+	 * is cleared after each flush; ignored for a single entity.
+	 * @return The merged instance of the entity, or a List of merged instances.
+	 */
+	Object merge(Object entity, int flushSize, boolean clearOnFlush);
+
+	/**
+	 * Persists the entity. If the entity is an {@link Iterable}, each of its
+	 * elements is persisted. When a positive flushSize is provided, the persistence
+	 * context is flushed after every flushSize entities, and once more after the last one.
+	 *
+	 * @param entity Must not be null.
+	 * @param flushSize The number of entities after which to flush; 0 means do not flush.
+	 * @param clearOnFlush If true and the entity is an Iterable, the persistence context
+	 * is cleared after each flush; ignored for a single entity.
+	 */
+	void persist(Object entity, int flushSize, boolean clearOnFlush);
+
+	/**
+	 * Synchronizes the persistence context with the database.
+	 */
+	void flush();
+
+	/**
+	 * Clears the persistence context, detaching all managed entities.
+	 */
+	void clear();
+
+}
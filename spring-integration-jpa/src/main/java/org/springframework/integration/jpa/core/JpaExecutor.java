@@ -15,12 +15,16 @@
  */
 package org.springframework.integration.jpa.core;
 
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Field;
 import java.util.List;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.Query;
 
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapperImpl;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.integration.Message;
 import org.springframework.integration.MessagingException;
@@ -30,7 +34,10 @@ import org.springframework.integration.jpa.support.parametersource.BeanPropertyP
 import org.springframework.integration.jpa.support.parametersource.ExpressionEvaluatingParameterSourceFactory;
 import org.springframework.integration.jpa.support.parametersource.ParameterSource;
 import org.springframework.integration.jpa.support.parametersource.ParameterSourceFactory;
+import org.springframework.integration.store.MetadataStore;
+import org.springframework.integration.util.KeysetPosition;
 import org.springframework.util.Assert;
+import org.springframework.util.ReflectionUtils;
 
 /**
  * Executes Jpa Operations that produce payload objects from the result of the provided:
@@ -52,6 +59,15 @@ import org.springframework.util.Assert;
  * If neither entityClass nor any other query is specified then the entity-class
  * is "guessed" from the {@link Message} payload.
  *
+ * When polling without a request message (inbound channel adapter), large
+ * results can be walked in pages using keyset pagination: if a 'keyProperty'
+ * is set, its value on the last entity returned by a poll is bound to the
+ * 'lastKey' parameter of the next query, e.g.
+ * <code>select s from Student s where s.rollNumber > :lastKey order by s.rollNumber</code>,
+ * with 'maxNumberOfResults' as the page size. If a {@link MetadataStore} is
+ * provided, the last key is persisted so that polling resumes where it left off
+ * after a restart.
+ *
  * @author Gunnar Hillert
  * @author Amol Nayak
  * @since 2.2
@@ -80,6 +96,25 @@ public class JpaExecutor implements InitializingBean {
 
 	private volatile boolean  expectSingleResult = false;
 
+	private volatile String keyProperty;
+
+	private volatile String keyParameterName = "lastKey";
+
+	private volatile Object initialKey;
+
+	private volatile Class<?> keyType;
+
+	private volatile MetadataStore metadataStore;
+
+	private volatile String metadataKey;
+
+	private volatile KeysetPosition keysetPosition;
+
+	/** 0 means that the persistence context is not explicitly flushed. */
+	private volatile int flushSize = 0;
+
+	private volatile boolean clearOnFlush = false;
+
 	/**
 	 * Indicates that whether only the payload of the passed in {@link Message}
 	 * will be used as a source of parameters. The is 'true' by default because as a
@@ -140,6 +175,21 @@ public class JpaExecutor implements InitializingBean {
 	 */
 	public void afterPropertiesSet() {
 
+		if (this.flushSize > 0) {
+			Assert.state(this.jpaOperations instanceof FlushingJpaOperations,
+					"A 'flushSize' requires the jpaOperations to be a FlushingJpaOperations.");
+		}
+
+		if (this.metadataStore != null) {
+			Assert.state(this.keyProperty != null, "A 'keyProperty' is required when a 'metadataStore' is provided.");
+			Assert.state(this.metadataKey != null, "A 'metadataKey' is required when a 'metadataStore' is provided.");
+		}
+
+		if (this.keyProperty != null) {
+			Class<?> keyType = this.keyType != null ? this.keyType : this.determineKeyPropertyType();
+			this.keysetPosition = new KeysetPosition(this.initialKey, keyType, this.metadataStore, this.metadataKey);
+		}
+
 		if (this.jpaParameters != null) {
 
 			if (this.parameterSourceFactory == null) {
@@ -216,16 +266,47 @@ public class JpaExecutor implements InitializingBean {
 		else {
 
 			if (PersistMode.PERSIST.equals(this.persistMode)) {
-				this.jpaOperations.persist(message.getPayload());
+				if (this.jpaOperations instanceof FlushingJpaOperations) {
+					((FlushingJpaOperations) this.jpaOperations).persist(message.getPayload(), this.flushSize, this.clearOnFlush);
+				}
+				else {
+					this.jpaOperations.persist(message.getPayload());
+				}
 				result = message.getPayload();
 			}
 			else if (PersistMode.MERGE.equals(this.persistMode)) {
-				final Object mergedEntity = this.jpaOperations.merge(message.getPayload());
+				final Object mergedEntity;
+				if (this.jpaOperations instanceof FlushingJpaOperations) {
+					mergedEntity = ((FlushingJpaOperations) this.jpaOperations).merge(message.getPayload(), this.flushSize, this.clearOnFlush);
+				}
+				else {
+					mergedEntity = this.jpaOperations.merge(message.getPayload());
+				}
 				result = mergedEntity;
 			}
 			else if (PersistMode.DELETE.equals(this.persistMode)) {
-				this.jpaOperations.delete(message.getPayload());
-				result = message.getPayload();
+				final Object payload = message.getPayload();
+				if (payload instanceof Iterable) {
+					if (this.deleteInBatch) {
+						this.jpaOperations.deleteInBatch((Iterable<?>) payload);
+					}
+					else {
+						for (Object entity : (Iterable<?>) payload) {
+							this.jpaOperations.delete(entity);
+						}
+					}
+				}
+				else {
+					this.jpaOperations.delete(payload);
+				}
+				if (this.flushSize > 0) {
+					final FlushingJpaOperations flushingJpaOperations = (FlushingJpaOperations) this.jpaOperations;
+					flushingJpaOperations.flush();
+					if (this.clearOnFlush && payload instanceof Iterable) {
+						flushingJpaOperations.clear();
+					}
+				}
+				result = payload;
 			}
 			else {
 				throw new IllegalStateException(String.format("Unsupported PersistMode: '%s'", this.persistMode.name()));
@@ -255,7 +336,12 @@ public class JpaExecutor implements InitializingBean {
 		final List<?> result;
 
 		if (requestMessage == null) {
-			result = doPoll(this.parameterSource);
+			if (this.keyProperty != null) {
+				result = doPollPage();
+			}
+			else {
+				result = doPoll(this.parameterSource);
+			}
 		}
 		else {
 			ParameterSource parameterSource = determineParameterSource(requestMessage);
@@ -318,6 +404,58 @@ public class JpaExecutor implements InitializingBean {
 		return parameterSource;
 	}
 
+	/**
+	 * Retrieve the next page of entities, using the last key seen so far, and
+	 * record the key of the last entity in the page. If a transaction is active,
+	 * the key only advances for other transactions when it commits, so a rolled
+	 * back page is retrieved again.
+	 */
+	private List<?> doPollPage() {
+
+		Assert.state(this.keysetPosition != null, "afterPropertiesSet() must be called before polling.");
+		final Object currentKey = this.keysetPosition.getKey();
+		final ParameterSource delegate = this.parameterSource;
+
+		final ParameterSource keyParameterSource = new ParameterSource() {
+
+			public boolean hasValue(String paramName) {
+				return keyParameterName.equals(paramName) || (delegate != null && delegate.hasValue(paramName));
+			}
+
+			public Object getValue(String paramName) {
+				if (keyParameterName.equals(paramName)) {
+					return currentKey;
+				}
+				return delegate != null ? delegate.getValue(paramName) : null;
+			}
+
+		};
+
+		final List<?> result = doPoll(keyParameterSource);
+
+		if (!result.isEmpty()) {
+			this.keysetPosition.advance(
+					new BeanWrapperImpl(result.get(result.size() - 1)).getPropertyValue(this.keyProperty));
+		}
+
+		return result;
+	}
+
+	/**
+	 * The type of the key property of the 'entityClass', if any.
+	 */
+	private Class<?> determineKeyPropertyType() {
+		if (this.entityClass == null) {
+			return null;
+		}
+		PropertyDescriptor descriptor = BeanUtils.getPropertyDescriptor(this.entityClass, this.keyProperty);
+		if (descriptor != null) {
+			return descriptor.getPropertyType();
+		}
+		Field field = ReflectionUtils.findField(this.entityClass, this.keyProperty);
+		return field != null ? field.getType() : null;
+	}
+
 	/**
 	 * Execute the JPA operation. Delegates to {@link JpaExecutor#poll(Message)}.
 	 */
@@ -415,6 +553,96 @@ public class JpaExecutor implements InitializingBean {
 		this.usePayloadAsParameterSource = usePayloadAsParameterSource;
 	}
 
+	/**
+	 * If set to a value greater than 0, the persistence context is flushed after
+	 * every 'flushSize' entities persisted or merged (and once more after the last
+	 * one). This applies when the payload is a single entity as well as when it is
+	 * an {@link Iterable} of entities, in which case each element is persisted or
+	 * merged individually, within the same transaction. Flushing in chunks lets
+	 * the JPA provider use JDBC batching for large collections. Requires the
+	 * {@link JpaOperations} to be {@link FlushingJpaOperations}, as the default is.
+	 *
+	 * @param flushSize Defaults to '0' (no explicit flush) if not set. Must not be negative.
+	 */
+	public void setFlushSize(int flushSize) {
+		Assert.isTrue(flushSize >= 0, "'flushSize' must not be negative.");
+		this.flushSize = flushSize;
+	}
+
+	/**
+	 * If set to 'true', the persistence context is cleared after each flush (see
+	 * {@link #setFlushSize(int)}) of an {@link Iterable} payload, detaching the
+	 * entities flushed so far so the persistence context does not keep growing when
+	 * large collections are persisted. Be aware that the entities returned from
+	 * merging a collection are detached in that case. A single entity payload never
+	 * clears the persistence context, as it may hold other entities still in use.
+	 *
+	 * @param clearOnFlush Defaults to 'false' if not set.
+	 */
+	public void setClearOnFlush(boolean clearOnFlush) {
+		this.clearOnFlush = clearOnFlush;
+	}
+
+	/**
+	 * Enables keyset pagination when polling without a request message. The
+	 * property of the retrieved entities (typically the id) that orders and
+	 * uniquely identifies them; its value on the last entity of a poll is bound
+	 * to the key parameter ('lastKey' by default) of the next query.
+	 *
+	 * @param keyProperty The name of the key property.
+	 */
+	public void setKeyProperty(String keyProperty) {
+		this.keyProperty = keyProperty;
+	}
+
+	/**
+	 * @param keyParameterName The name of the query parameter that receives the
+	 * last key. Defaults to 'lastKey'.
+	 */
+	public void setKeyParameterName(String keyParameterName) {
+		Assert.hasText(keyParameterName, "keyParameterName must neither be null nor empty.");
+		this.keyParameterName = keyParameterName;
+	}
+
+	/**
+	 * The key parameter value used for the first poll, before any entity has been
+	 * retrieved (and if no key was found in the {@link MetadataStore}). It is converted
+	 * to the 'keyType'.
+	 *
+	 * @param initialKey The initial key.
+	 */
+	public void setInitialKey(Object initialKey) {
+		this.initialKey = initialKey;
+	}
+
+	/**
+	 * The type of the key property. The initial key (which is a String when
+	 * configured in XML) and a key restored from the {@link MetadataStore} are
+	 * converted to this type. Defaults to the type of the key property of the
+	 * 'entityClass', if set; otherwise a restored key is converted to the type
+	 * of the initial key.
+	 *
+	 * @param keyType The key type.
+	 */
+	public void setKeyType(Class<?> keyType) {
+		this.keyType = keyType;
+	}
+
+	/**
+	 * @param metadataStore A {@link MetadataStore} in which the last key is
+	 * persisted, so that progress survives a restart. Requires the 'metadataKey'.
+	 */
+	public void setMetadataStore(MetadataStore metadataStore) {
+		this.metadataStore = metadataStore;
+	}
+
+	/**
+	 * @param metadataKey The key under which the last key is stored in the {@link MetadataStore}.
+	 */
+	public void setMetadataKey(String metadataKey) {
+		this.metadataKey = metadataKey;
+	}
+
 	/**
 	 * If not set, this property defaults to <code>false</code>, which means that
 	 * deletion occurs on a per object basis if a collection of entities is being
@@ -75,6 +75,9 @@ public class JpaMessageHandlerParserTests {
 
 		assertEquals(PersistMode.PERSIST, persistMode);
 
+		assertEquals(Integer.valueOf(100), TestUtils.getPropertyValue(jpaExecutor, "flushSize", Integer.class));
+		assertTrue(TestUtils.getPropertyValue(jpaExecutor, "clearOnFlush", Boolean.class));
+
 		@SuppressWarnings("unchecked")
 		List<JpaParameter> jpaParameters = TestUtils.getPropertyValue(jpaExecutor, "jpaParameters", List.class);
 
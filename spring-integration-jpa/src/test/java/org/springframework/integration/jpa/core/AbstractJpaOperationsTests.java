@@ -241,6 +241,56 @@ public class AbstractJpaOperationsTests {
 	}
 
 
+	public void testPersistCollectionWithFlushAndClear() {
+		final FlushingJpaOperations jpaOperations = (FlushingJpaOperations) getJpaOperations(entityManager);
+
+		final List<StudentDomain> students = new ArrayList<StudentDomain>();
+		for (int i = 0; i < 5; i++) {
+			students.add(JpaTestUtils.getTestStudent());
+		}
+
+		jpaOperations.persist(students, 2, true);
+
+		for (StudentDomain student : students) {
+			Assert.assertNotNull(student.getRollNumber());
+			Assert.assertFalse(entityManager.contains(student));
+		}
+
+		final List<?> studentsFromDb = jpaOperations.getResultListForClass(StudentDomain.class, 0);
+		Assert.assertTrue(studentsFromDb.size() == 8);
+	}
+
+	public void testPersistSingleEntityWithClearOnFlush() {
+		final FlushingJpaOperations jpaOperations = (FlushingJpaOperations) getJpaOperations(entityManager);
+
+		final StudentDomain managedStudent = JpaTestUtils.getTestStudent();
+		jpaOperations.persist(managedStudent);
+
+		final StudentDomain student = JpaTestUtils.getTestStudent();
+		jpaOperations.persist(student, 1, true);
+
+		Assert.assertNotNull(student.getRollNumber());
+		Assert.assertTrue(entityManager.contains(student));
+		Assert.assertTrue(entityManager.contains(managedStudent));
+	}
+
+	public void testMergeCollectionWithFlush() {
+		final FlushingJpaOperations jpaOperations = (FlushingJpaOperations) getJpaOperations(entityManager);
+
+		final List<StudentDomain> students = new ArrayList<StudentDomain>();
+		for (int i = 0; i < 3; i++) {
+			students.add(JpaTestUtils.getTestStudent());
+		}
+
+		final List<?> savedStudents = (List<?>) jpaOperations.merge(students, 2, false);
+
+		Assert.assertTrue(savedStudents.size() == 3);
+		for (Object savedStudent : savedStudents) {
+			Assert.assertNotNull(((StudentDomain) savedStudent).getRollNumber());
+			Assert.assertTrue(entityManager.contains(savedStudent));
+		}
+	}
+
 	public void testDeleteInBatch() {
 		final JpaOperations jpaOperations = getJpaOperations(entityManager);
 
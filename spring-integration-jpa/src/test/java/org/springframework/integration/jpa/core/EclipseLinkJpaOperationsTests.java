@@ -105,6 +105,24 @@ public class EclipseLinkJpaOperationsTests extends AbstractJpaOperationsTests {
 		super.testPersist();
 	}
 
+	@Test
+	@Override
+	public void testPersistCollectionWithFlushAndClear() {
+		super.testPersistCollectionWithFlushAndClear();
+	}
+
+	@Test
+	@Override
+	public void testPersistSingleEntityWithClearOnFlush() {
+		super.testPersistSingleEntityWithClearOnFlush();
+	}
+
+	@Test
+	@Override
+	public void testMergeCollectionWithFlush() {
+		super.testMergeCollectionWithFlush();
+	}
+
 	@Test
 	@Override
 	public void testGetAllStudents() {
@@ -134,6 +134,24 @@ public class HibernateJpaOperationsTests extends AbstractJpaOperationsTests {
 		super.testPersist();
 	}
 
+	@Test
+	@Override
+	public void testPersistCollectionWithFlushAndClear() {
+		super.testPersistCollectionWithFlushAndClear();
+	}
+
+	@Test
+	@Override
+	public void testPersistSingleEntityWithClearOnFlush() {
+		super.testPersistSingleEntityWithClearOnFlush();
+	}
+
+	@Test
+	@Override
+	public void testMergeCollectionWithFlush() {
+		super.testMergeCollectionWithFlush();
+	}
+
 	@Test
 	@Override
 	public void testDeleteInBatch() {
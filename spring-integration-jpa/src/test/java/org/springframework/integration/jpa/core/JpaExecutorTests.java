@@ -15,6 +15,7 @@ package org.springframework.integration.jpa.core;
 import static org.mockito.Mockito.mock;
 
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 import javax.persistence.EntityManager;
@@ -28,6 +29,7 @@ import org.springframework.integration.Message;
 import org.springframework.integration.jpa.support.JpaParameter;
 import org.springframework.integration.jpa.support.parametersource.ExpressionEvaluatingParameterSourceFactory;
 import org.springframework.integration.jpa.test.entity.StudentDomain;
+import org.springframework.integration.store.SimpleMetadataStore;
 import org.springframework.integration.support.MessageBuilder;
 import org.springframework.integration.test.util.TestUtils;
 import org.springframework.test.context.ContextConfiguration;
@@ -206,6 +208,53 @@ public class JpaExecutorTests {
 		return executor;
 	}
 
+	@Test
+	public void testKeysetPagingResumesFromStoredKey() {
+		SimpleMetadataStore metadataStore = new SimpleMetadataStore();
+		JpaExecutor executor = getKeysetJpaExecutor(metadataStore);
+
+		List<?> students = (List<?>) executor.poll();
+		Assert.assertEquals(2, students.size());
+		Assert.assertEquals(Long.valueOf(1001), ((StudentDomain) students.get(0)).getRollNumber());
+		Assert.assertEquals(Long.valueOf(1002), ((StudentDomain) students.get(1)).getRollNumber());
+		Assert.assertEquals("1002", metadataStore.get("students"));
+
+		executor = getKeysetJpaExecutor(metadataStore);
+		students = (List<?>) executor.poll();
+		Assert.assertEquals(1, students.size());
+		Assert.assertEquals(Long.valueOf(1003), ((StudentDomain) students.get(0)).getRollNumber());
+
+		Assert.assertNull(executor.poll());
+		Assert.assertEquals("1003", metadataStore.get("students"));
+	}
+
+	@Test
+	public void testInitialKeyIsConvertedToEntityKeyPropertyType() {
+		JpaExecutor executor = new JpaExecutor(entityManager);
+		executor.setJpaQuery("select s from Student s where s.rollNumber > :lastKey order by s.rollNumber");
+		executor.setEntityClass(StudentDomain.class);
+		executor.setKeyProperty("rollNumber");
+		executor.setInitialKey("1001");
+		executor.afterPropertiesSet();
+		Assert.assertEquals(Long.valueOf(1001), TestUtils.getPropertyValue(executor, "keysetPosition.initialKey"));
+
+		List<?> students = (List<?>) executor.poll();
+		Assert.assertEquals(2, students.size());
+		Assert.assertEquals(Long.valueOf(1002), ((StudentDomain) students.get(0)).getRollNumber());
+	}
+
+	private JpaExecutor getKeysetJpaExecutor(SimpleMetadataStore metadataStore) {
+		JpaExecutor executor = new JpaExecutor(entityManager);
+		executor.setJpaQuery("select s from Student s where s.rollNumber > :lastKey order by s.rollNumber");
+		executor.setMaxNumberOfResults(2);
+		executor.setKeyProperty("rollNumber");
+		executor.setInitialKey(0L);
+		executor.setMetadataStore(metadataStore);
+		executor.setMetadataKey("students");
+		executor.afterPropertiesSet();
+		return executor;
+	}
+
 	@Test
 	public void testNegativeMaxNumberOfResults() throws Exception {
 
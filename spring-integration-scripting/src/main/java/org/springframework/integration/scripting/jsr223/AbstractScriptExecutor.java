@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2011 the original author or authors.
+ * Copyright 2002-2012 the original author or authors.
  * 
  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
  * the License. You may obtain a copy of the License at
@@ -15,12 +15,18 @@ package org.springframework.integration.scripting.jsr223;
 import java.util.Date;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
 import javax.script.ScriptEngineManager;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.integration.scripting.ScriptExecutor;
 import org.springframework.integration.scripting.ScriptingException;
 import org.springframework.scripting.ScriptSource;
@@ -28,12 +34,23 @@ import org.springframework.util.Assert;
 
 /**
  * Base Class for {@link ScriptExecutor}
+ * <p/>
+ * Script engines are pooled by each executor, so an engine is only used by
+ * one thread at a time, and scripts are compiled once per engine when the
+ * engine is {@link Compilable}. The script is only read from the
+ * {@link ScriptSource} again (and recompiled) when the source reports it has
+ * been modified, or when a different source is executed.
+ * <p/>
+ * Each execution gets fresh {@link ScriptContext#ENGINE_SCOPE} bindings, so
+ * variables and functions defined by one execution are not visible to the next.
+ * State that an engine keeps outside of its bindings (such as Ruby global
+ * variables) is not reset.
  * 
  * @author David Turanski
  * @author Mark Fisher
  * @since 2.1
  */
-abstract class AbstractScriptExecutor implements ScriptExecutor {
+abstract class AbstractScriptExecutor implements ScriptExecutor, DisposableBean {
 
 	protected final Log logger = LogFactory.getLog(this.getClass());
 
@@ -41,6 +58,14 @@ abstract class AbstractScriptExecutor implements ScriptExecutor {
 
 	protected final String language;
 
+	private final Queue<EngineHolder> engines = new ConcurrentLinkedQueue<EngineHolder>();
+
+	private final Object scriptMonitor = new Object();
+
+	private ScriptSource currentScriptSource;
+
+	private String currentScript;
+
 	public AbstractScriptExecutor(String language) {
 		Assert.hasText(language, "language must not be empty");
 		this.language = language;
@@ -61,25 +86,28 @@ abstract class AbstractScriptExecutor implements ScriptExecutor {
 
 	public Object executeScript(ScriptSource scriptSource, Map<String, Object> variables) {
 		Object result = null;
-		ScriptEngine scriptEngine = this.scriptEngineManager.getEngineByName(this.language);
-
-		if (scriptEngine == null) {
-			throw new ScriptingException(invlalidLanguageMessage(this.language));
-		}
+		EngineHolder holder = null;
 
 		try {
+			String script = this.obtainScript(scriptSource);
+			holder = this.obtainEngineHolder(script);
+			ScriptEngine scriptEngine = holder.scriptEngine;
 			if (variables != null) {
 				for (Entry<String, Object> entry : variables.entrySet()) {
 					scriptEngine.put(entry.getKey(), entry.getValue());
 				}
 			}
-			String script = scriptSource.getScriptAsString();
 			Date start = new Date();
 			if (logger.isDebugEnabled()) {
 				logger.debug("executing script: " + script);
 			}
 
-			result = scriptEngine.eval(script);
+			if (holder.compiledScript != null) {
+				result = holder.compiledScript.eval();
+			}
+			else {
+				result = scriptEngine.eval(script);
+			}
 
 			result = postProcess(result, scriptEngine, script);
 
@@ -88,13 +116,68 @@ abstract class AbstractScriptExecutor implements ScriptExecutor {
 			}
 		}
 
+		catch (ScriptingException e) {
+			throw e;
+		}
 		catch (Exception e) {
 			throw new ScriptingException(e.getMessage(), e);
 		}
+		finally {
+			if (holder != null) {
+				// the next execution must not see this one's variables and definitions
+				holder.scriptEngine.setBindings(holder.scriptEngine.createBindings(), ScriptContext.ENGINE_SCOPE);
+				this.engines.offer(holder);
+			}
+		}
 
 		return result;
 	}
 
+	/**
+	 * Returns the script text, reading it from the source only if the source
+	 * differs from the last one used, or reports that it has been modified.
+	 */
+	private String obtainScript(ScriptSource scriptSource) throws Exception {
+		synchronized (this.scriptMonitor) {
+			if (scriptSource != this.currentScriptSource || scriptSource.isModified() || this.currentScript == null) {
+				this.currentScript = scriptSource.getScriptAsString();
+				this.currentScriptSource = scriptSource;
+			}
+			return this.currentScript;
+		}
+	}
+
+	/**
+	 * Takes an idle engine from the pool, creating one if necessary, and
+	 * (re)compiling the script if the engine last executed a different script.
+	 * The caller must return the engine to the pool.
+	 */
+	private EngineHolder obtainEngineHolder(String script) throws Exception {
+		EngineHolder holder = this.engines.poll();
+		if (holder == null) {
+			ScriptEngine scriptEngine = this.scriptEngineManager.getEngineByName(this.language);
+			if (scriptEngine == null) {
+				throw new ScriptingException(invlalidLanguageMessage(this.language));
+			}
+			holder = new EngineHolder(scriptEngine);
+		}
+		if (!script.equals(holder.script)) {
+			holder.compiledScript = null;
+			if (holder.scriptEngine instanceof Compilable) {
+				holder.compiledScript = ((Compilable) holder.scriptEngine).compile(script);
+			}
+			holder.script = script;
+		}
+		return holder;
+	}
+
+	/**
+	 * Releases the pooled script engines.
+	 */
+	public void destroy() {
+		this.engines.clear();
+	}
+
 	/**
 	 * Subclasses may implement this to provide any special handling required
 	 * @param result
@@ -110,4 +193,18 @@ abstract class AbstractScriptExecutor implements ScriptExecutor {
 				.append("This may be due to a missing language implementation or an invalid language name.").toString();
 	}
 
+
+	private static class EngineHolder {
+
+		private final ScriptEngine scriptEngine;
+
+		private String script;
+
+		private CompiledScript compiledScript;
+
+		EngineHolder(ScriptEngine scriptEngine) {
+			this.scriptEngine = scriptEngine;
+		}
+	}
+
 }
@@ -14,6 +14,7 @@ package org.springframework.integration.scripting.jsr223;
 
 import java.util.Map;
 
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.integration.Message;
 import org.springframework.integration.scripting.AbstractScriptExecutingMessageProcessor;
 import org.springframework.integration.scripting.DefaultScriptVariableGenerator;
@@ -26,7 +27,8 @@ import org.springframework.util.Assert;
  * @author David Turanski
  * @since 2.1
  */
-public class ScriptExecutingMessageProcessor extends AbstractScriptExecutingMessageProcessor<Object> {
+public class ScriptExecutingMessageProcessor extends AbstractScriptExecutingMessageProcessor<Object>
+		implements DisposableBean {
 
 	private final ScriptExecutor scriptExecutor;
 	private volatile ScriptSource scriptSource;
@@ -77,5 +79,11 @@ public class ScriptExecutingMessageProcessor extends AbstractScriptExecutingMess
 		Assert.notNull(scriptSource, "scriptSource must not be null");
 		return this.scriptExecutor.executeScript(scriptSource,variables);
 	}
+
+	public void destroy() throws Exception {
+		if (this.scriptExecutor instanceof DisposableBean) {
+			((DisposableBean) this.scriptExecutor).destroy();
+		}
+	}
 	
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2011 the original author or authors.
+ * Copyright 2002-2012 the original author or authors.
  * 
  * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with
  * the License. You may obtain a copy of the License at
@@ -59,7 +59,33 @@ public class Jsr223ScriptExecutorTests {
 		Object obj = executor.executeScript(new StaticScriptSource("function js(){ return 'js';} js();"));
 		assertEquals("js",obj.toString());
 	}
+
+	@Test
+	public void testJsCompiledScriptIsReusedUntilModified() {
+		ScriptExecutor executor = ScriptExecutorFactory.getScriptExecutor("js");
+		StaticScriptSource scriptSource = new StaticScriptSource("'foo' + bar");
+		Map<String, Object> variables = new HashMap<String, Object>();
+		variables.put("bar", "bar");
+		assertEquals("foobar", executor.executeScript(scriptSource, variables).toString());
+		variables.put("bar", "baz");
+		assertEquals("foobaz", executor.executeScript(scriptSource, variables).toString());
+		scriptSource.setScript("'qux' + bar");
+		assertEquals("quxbaz", executor.executeScript(scriptSource, variables).toString());
+	}
 	
+	@Test
+	public void testJsDefinitionsDoNotLeakBetweenExecutions() {
+		ScriptExecutor executor = ScriptExecutorFactory.getScriptExecutor("js");
+		StaticScriptSource scriptSource = new StaticScriptSource(
+				"var result = typeof counter == 'undefined' ? 'fresh' : 'leaked'; counter = 1; result;");
+		assertEquals("fresh", executor.executeScript(scriptSource).toString());
+		assertEquals("fresh", executor.executeScript(scriptSource).toString());
+		Map<String, Object> variables = new HashMap<String, Object>();
+		variables.put("counter", 1);
+		assertEquals("leaked", executor.executeScript(scriptSource, variables).toString());
+		assertEquals("fresh", executor.executeScript(scriptSource).toString());
+	}
+
 	@Test 
 	public void testPython() {
 		ScriptExecutor executor = ScriptExecutorFactory.getScriptExecutor("python");
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2010 the original author or authors.
+ * Copyright 2002-2012 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,11 +18,13 @@ package org.springframework.integration.security.channel;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 import org.springframework.integration.MessageChannel;
@@ -33,6 +35,9 @@ import org.springframework.util.Assert;
 
 /**
  * The {@link SecurityMetadataSource} implementation for secured {@link MessageChannel}s.
+ * <p>
+ * Since channel names do not change, the attributes resolved for a channel name
+ * are cached, so the patterns are only matched on the first send or receive.
  * 
  * @author Mark Fisher
  * @author Oleg Zhurakousky
@@ -41,6 +46,12 @@ public class ChannelSecurityMetadataSource implements SecurityMetadataSource {
 
 	private final Map<Pattern, ChannelAccessPolicy> patternMappings;
 
+	private final Map<String, Collection<ConfigAttribute>> sendAttributesCache =
+			new ConcurrentHashMap<String, Collection<ConfigAttribute>>();
+
+	private final Map<String, Collection<ConfigAttribute>> receiveAttributesCache =
+			new ConcurrentHashMap<String, Collection<ConfigAttribute>>();
+
 
 	public ChannelSecurityMetadataSource() {
 		this(null);
@@ -54,6 +65,8 @@ public class ChannelSecurityMetadataSource implements SecurityMetadataSource {
 
 	public void addPatternMapping(Pattern pattern, ChannelAccessPolicy accessPolicy) {
 		this.patternMappings.put(pattern, accessPolicy);
+		this.sendAttributesCache.clear();
+		this.receiveAttributesCache.clear();
 	}
 
 	public Set<Pattern> getPatterns() {
@@ -66,22 +79,35 @@ public class ChannelSecurityMetadataSource implements SecurityMetadataSource {
 		MessageChannel channel = invocation.getChannel();
 		Assert.isAssignable(NamedComponent.class, channel.getClass());
 		String channelName = ((NamedComponent) channel).getComponentName();
+		Assert.notNull(channelName, "secured channels must have a name");
+		Map<String, Collection<ConfigAttribute>> cache = null;
+		if (invocation.isSend()) {
+			cache = this.sendAttributesCache;
+		}
+		else if (invocation.isReceive()) {
+			cache = this.receiveAttributesCache;
+		}
+		else {
+			return new ArrayList<ConfigAttribute>();
+		}
+		Collection<ConfigAttribute> attributes = cache.get(channelName);
+		if (attributes == null) {
+			attributes = Collections.unmodifiableList(this.resolveAttributes(channelName, invocation.isSend()));
+			cache.put(channelName, attributes);
+		}
+		return attributes;
+	}
+
+	private List<ConfigAttribute> resolveAttributes(String channelName, boolean send) {
 		List<ConfigAttribute> attributes = new ArrayList<ConfigAttribute>();
 		for (Map.Entry<Pattern, ChannelAccessPolicy> mapping : this.patternMappings.entrySet()) {
 			Pattern pattern = mapping.getKey();
 			ChannelAccessPolicy accessPolicy = mapping.getValue();
 			if (pattern.matcher(channelName).matches()) {
-				if (invocation.isSend()) {
-					Collection<ConfigAttribute> definition = accessPolicy.getConfigAttributesForSend();
-					if (definition != null) {
-						attributes.addAll(definition);
-					}
-				}
-				else if (invocation.isReceive()) {
-					Collection<ConfigAttribute> definition = accessPolicy.getConfigAttributesForReceive();
-					if (definition != null) {
-						attributes.addAll(definition);
-					}
+				Collection<ConfigAttribute> definition = send ? accessPolicy.getConfigAttributesForSend()
+						: accessPolicy.getConfigAttributesForReceive();
+				if (definition != null) {
+					attributes.addAll(definition);
 				}
 			}
 		}
@@ -69,18 +69,49 @@ public class ChannelSecurityInterceptorTests {
 		channel.send(new GenericMessage<String>("test"));
 	}
 
+	@Test(expected = AccessDeniedException.class)
+	public void patternMappingAddedAfterFirstSendIsApplied() throws Exception {
+		ChannelSecurityMetadataSource securityMetadataSource = new ChannelSecurityMetadataSource();
+		securityMetadataSource.addPatternMapping(Pattern.compile("other.*"), new DefaultChannelAccessPolicy("ROLE_ADMIN", null));
+		MessageChannel channel = getSecuredChannel(createInterceptor(securityMetadataSource));
+		SecurityContext context = SecurityTestUtils.createContext("test", "pwd", "ROLE_USER");
+		SecurityContextHolder.setContext(context);
+		channel.send(new GenericMessage<String>("test"));
+		securityMetadataSource.addPatternMapping(Pattern.compile("secured.*"), new DefaultChannelAccessPolicy("ROLE_ADMIN", null));
+		channel.send(new GenericMessage<String>("test"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void unnamedChannelIsNotAllowed() throws Exception {
+		QueueChannel channel = new QueueChannel();
+		ProxyFactory proxyFactory = new ProxyFactory(channel);
+		proxyFactory.addAdvice(createInterceptor("ROLE_ADMIN"));
+		SecurityContext context = SecurityTestUtils.createContext("test", "pwd", "ROLE_USER");
+		SecurityContextHolder.setContext(context);
+		((MessageChannel) proxyFactory.getProxy()).send(new GenericMessage<String>("test"));
+	}
+
 
 	private static MessageChannel getSecuredChannel(String role) throws Exception {
+		return getSecuredChannel(createInterceptor(role));
+	}
+
+	private static MessageChannel getSecuredChannel(ChannelSecurityInterceptor interceptor) {
 		QueueChannel channel = new QueueChannel();
 		channel.setBeanName("securedChannel");
 		ProxyFactory proxyFactory = new ProxyFactory(channel);
-		proxyFactory.addAdvice(createInterceptor(role));
+		proxyFactory.addAdvice(interceptor);
 		return (MessageChannel) proxyFactory.getProxy();
 	}
 
 	private static ChannelSecurityInterceptor createInterceptor(String role) throws Exception {
 		ChannelSecurityMetadataSource securityMetadataSource = new ChannelSecurityMetadataSource();
 		securityMetadataSource.addPatternMapping(Pattern.compile("secured.*"), new DefaultChannelAccessPolicy(role, null));
+		return createInterceptor(securityMetadataSource);
+	}
+
+	private static ChannelSecurityInterceptor createInterceptor(ChannelSecurityMetadataSource securityMetadataSource)
+			throws Exception {
 		ChannelSecurityInterceptor interceptor = new ChannelSecurityInterceptor(securityMetadataSource);
 		@SuppressWarnings("rawtypes")
 		AffirmativeBased accessDecisionManager = new AffirmativeBased(Collections.<AccessDecisionVoter>singletonList(new RoleVoter()));
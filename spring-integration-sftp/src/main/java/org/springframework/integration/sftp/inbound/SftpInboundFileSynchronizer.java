@@ -46,4 +46,14 @@ public class SftpInboundFileSynchronizer extends AbstractInboundFileSynchronizer
 		return (file != null ? file.getFilename() : null);
 	}
 
+	@Override
+	protected boolean supportsModifiedTime() {
+		return true;
+	}
+
+	@Override
+	protected long getModified(LsEntry file) {
+		return (file != null && file.getAttrs() != null ? ((long) file.getAttrs().getMTime()) * 1000 : 0);
+	}
+
 }